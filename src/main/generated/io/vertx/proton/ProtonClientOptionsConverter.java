@@ -15,6 +15,26 @@ public class ProtonClientOptionsConverter {
    static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonClientOptions obj) {
     for (java.util.Map.Entry<String, Object> member : json) {
       switch (member.getKey()) {
+        case "autoReconnect":
+          if (member.getValue() instanceof Boolean) {
+            obj.setAutoReconnect((Boolean)member.getValue());
+          }
+          break;
+        case "autoReconnectAttempts":
+          if (member.getValue() instanceof Number) {
+            obj.setAutoReconnectAttempts(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "autoReconnectInitialDelay":
+          if (member.getValue() instanceof Number) {
+            obj.setAutoReconnectInitialDelay(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "autoReconnectMaxDelay":
+          if (member.getValue() instanceof Number) {
+            obj.setAutoReconnectMaxDelay(((Number)member.getValue()).longValue());
+          }
+          break;
         case "enabledSaslMechanisms":
           if (member.getValue() instanceof JsonArray) {
             ((Iterable<Object>)member.getValue()).forEach( item -> {
@@ -23,6 +43,16 @@ public class ProtonClientOptionsConverter {
             });
           }
           break;
+        case "endpointCooldown":
+          if (member.getValue() instanceof Number) {
+            obj.setEndpointCooldown(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "endpointSelectionPolicy":
+          if (member.getValue() instanceof String) {
+            obj.setEndpointSelectionPolicy(io.vertx.proton.ProtonEndpointSelectionPolicy.valueOf((String)member.getValue()));
+          }
+          break;
         case "heartbeat":
           if (member.getValue() instanceof Number) {
             obj.setHeartbeat(((Number)member.getValue()).intValue());
@@ -33,6 +63,16 @@ public class ProtonClientOptionsConverter {
             obj.setMaxFrameSize(((Number)member.getValue()).intValue());
           }
           break;
+        case "parallelConnectAttempts":
+          if (member.getValue() instanceof Number) {
+            obj.setParallelConnectAttempts(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "pipelinedOpen":
+          if (member.getValue() instanceof Boolean) {
+            obj.setPipelinedOpen((Boolean)member.getValue());
+          }
+          break;
         case "sniServerName":
           if (member.getValue() instanceof String) {
             obj.setSniServerName((String)member.getValue());
@@ -52,13 +92,23 @@ public class ProtonClientOptionsConverter {
   }
 
    static void toJson(ProtonClientOptions obj, java.util.Map<String, Object> json) {
+    json.put("autoReconnect", obj.isAutoReconnect());
+    json.put("autoReconnectAttempts", obj.getAutoReconnectAttempts());
+    json.put("autoReconnectInitialDelay", obj.getAutoReconnectInitialDelay());
+    json.put("autoReconnectMaxDelay", obj.getAutoReconnectMaxDelay());
     if (obj.getEnabledSaslMechanisms() != null) {
       JsonArray array = new JsonArray();
       obj.getEnabledSaslMechanisms().forEach(item -> array.add(item));
       json.put("enabledSaslMechanisms", array);
     }
+    json.put("endpointCooldown", obj.getEndpointCooldown());
+    if (obj.getEndpointSelectionPolicy() != null) {
+      json.put("endpointSelectionPolicy", obj.getEndpointSelectionPolicy().name());
+    }
     json.put("heartbeat", obj.getHeartbeat());
     json.put("maxFrameSize", obj.getMaxFrameSize());
+    json.put("parallelConnectAttempts", obj.getParallelConnectAttempts());
+    json.put("pipelinedOpen", obj.isPipelinedOpen());
     if (obj.getSniServerName() != null) {
       json.put("sniServerName", obj.getSniServerName());
     }
@@ -0,0 +1,46 @@
+package io.vertx.proton;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.JsonArray;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converter and mapper for {@link io.vertx.proton.ProtonConnectionPoolOptions}.
+ * NOTE: This class has been automatically generated from the {@link io.vertx.proton.ProtonConnectionPoolOptions} original class using Vert.x codegen.
+ */
+public class ProtonConnectionPoolOptionsConverter {
+
+
+   static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonConnectionPoolOptions obj) {
+    for (java.util.Map.Entry<String, Object> member : json) {
+      switch (member.getKey()) {
+        case "maxLinksPerConnection":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxLinksPerConnection(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "reconnectInterval":
+          if (member.getValue() instanceof Number) {
+            obj.setReconnectInterval(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "size":
+          if (member.getValue() instanceof Number) {
+            obj.setSize(((Number)member.getValue()).intValue());
+          }
+          break;
+      }
+    }
+  }
+
+   static void toJson(ProtonConnectionPoolOptions obj, JsonObject json) {
+    toJson(obj, json.getMap());
+  }
+
+   static void toJson(ProtonConnectionPoolOptions obj, java.util.Map<String, Object> json) {
+    json.put("maxLinksPerConnection", obj.getMaxLinksPerConnection());
+    json.put("reconnectInterval", obj.getReconnectInterval());
+    json.put("size", obj.getSize());
+  }
+}
@@ -0,0 +1,60 @@
+package io.vertx.proton;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.JsonArray;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converter and mapper for {@link io.vertx.proton.ProtonDrainOptions}.
+ * NOTE: This class has been automatically generated from the {@link io.vertx.proton.ProtonDrainOptions} original class using Vert.x codegen.
+ */
+public class ProtonDrainOptionsConverter {
+
+
+   static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonDrainOptions obj) {
+    for (java.util.Map.Entry<String, Object> member : json) {
+      switch (member.getKey()) {
+        case "batchInterval":
+          if (member.getValue() instanceof Number) {
+            obj.setBatchInterval(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "batchSize":
+          if (member.getValue() instanceof Number) {
+            obj.setBatchSize(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "redirectHost":
+          if (member.getValue() instanceof String) {
+            obj.setRedirectHost((String)member.getValue());
+          }
+          break;
+        case "redirectPort":
+          if (member.getValue() instanceof Number) {
+            obj.setRedirectPort(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "settleTimeout":
+          if (member.getValue() instanceof Number) {
+            obj.setSettleTimeout(((Number)member.getValue()).longValue());
+          }
+          break;
+      }
+    }
+  }
+
+   static void toJson(ProtonDrainOptions obj, JsonObject json) {
+    toJson(obj, json.getMap());
+  }
+
+   static void toJson(ProtonDrainOptions obj, java.util.Map<String, Object> json) {
+    json.put("batchInterval", obj.getBatchInterval());
+    json.put("batchSize", obj.getBatchSize());
+    if (obj.getRedirectHost() != null) {
+      json.put("redirectHost", obj.getRedirectHost());
+    }
+    json.put("redirectPort", obj.getRedirectPort());
+    json.put("settleTimeout", obj.getSettleTimeout());
+  }
+}
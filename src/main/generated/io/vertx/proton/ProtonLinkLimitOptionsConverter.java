@@ -0,0 +1,46 @@
+package io.vertx.proton;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.JsonArray;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converter and mapper for {@link io.vertx.proton.ProtonLinkLimitOptions}.
+ * NOTE: This class has been automatically generated from the {@link io.vertx.proton.ProtonLinkLimitOptions} original class using Vert.x codegen.
+ */
+public class ProtonLinkLimitOptionsConverter {
+
+
+   static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonLinkLimitOptions obj) {
+    for (java.util.Map.Entry<String, Object> member : json) {
+      switch (member.getKey()) {
+        case "maxIncomingBytes":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxIncomingBytes(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "maxOutgoingBytes":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxOutgoingBytes(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "maxUnsettled":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxUnsettled(((Number)member.getValue()).intValue());
+          }
+          break;
+      }
+    }
+  }
+
+   static void toJson(ProtonLinkLimitOptions obj, JsonObject json) {
+    toJson(obj, json.getMap());
+  }
+
+   static void toJson(ProtonLinkLimitOptions obj, java.util.Map<String, Object> json) {
+    json.put("maxIncomingBytes", obj.getMaxIncomingBytes());
+    json.put("maxOutgoingBytes", obj.getMaxOutgoingBytes());
+    json.put("maxUnsettled", obj.getMaxUnsettled());
+  }
+}
@@ -0,0 +1,40 @@
+package io.vertx.proton;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.JsonArray;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converter and mapper for {@link io.vertx.proton.ProtonRateLimitOptions}.
+ * NOTE: This class has been automatically generated from the {@link io.vertx.proton.ProtonRateLimitOptions} original class using Vert.x codegen.
+ */
+public class ProtonRateLimitOptionsConverter {
+
+
+   static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonRateLimitOptions obj) {
+    for (java.util.Map.Entry<String, Object> member : json) {
+      switch (member.getKey()) {
+        case "bytesPerSecond":
+          if (member.getValue() instanceof Number) {
+            obj.setBytesPerSecond(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "messagesPerSecond":
+          if (member.getValue() instanceof Number) {
+            obj.setMessagesPerSecond(((Number)member.getValue()).intValue());
+          }
+          break;
+      }
+    }
+  }
+
+   static void toJson(ProtonRateLimitOptions obj, JsonObject json) {
+    toJson(obj, json.getMap());
+  }
+
+   static void toJson(ProtonRateLimitOptions obj, java.util.Map<String, Object> json) {
+    json.put("bytesPerSecond", obj.getBytesPerSecond());
+    json.put("messagesPerSecond", obj.getMessagesPerSecond());
+  }
+}
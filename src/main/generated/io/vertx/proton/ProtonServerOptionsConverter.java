@@ -15,6 +15,21 @@ public class ProtonServerOptionsConverter {
    static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonServerOptions obj) {
     for (java.util.Map.Entry<String, Object> member : json) {
       switch (member.getKey()) {
+        case "acceptBurst":
+          if (member.getValue() instanceof Number) {
+            obj.setAcceptBurst(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "acceptRate":
+          if (member.getValue() instanceof Number) {
+            obj.setAcceptRate(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "admissionPolicy":
+          if (member.getValue() instanceof String) {
+            obj.setAdmissionPolicy(io.vertx.proton.ProtonAdmissionPolicy.valueOf((String)member.getValue()));
+          }
+          break;
         case "heartbeat":
           if (member.getValue() instanceof Number) {
             obj.setHeartbeat(((Number)member.getValue()).intValue());
@@ -25,6 +40,16 @@ public class ProtonServerOptionsConverter {
             obj.setMaxFrameSize(((Number)member.getValue()).intValue());
           }
           break;
+        case "maxHandshakingConnections":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxHandshakingConnections(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "maxQueuedConnections":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxQueuedConnections(((Number)member.getValue()).intValue());
+          }
+          break;
       }
     }
   }
@@ -34,7 +59,14 @@ public class ProtonServerOptionsConverter {
   }
 
    static void toJson(ProtonServerOptions obj, java.util.Map<String, Object> json) {
+    json.put("acceptBurst", obj.getAcceptBurst());
+    json.put("acceptRate", obj.getAcceptRate());
+    if (obj.getAdmissionPolicy() != null) {
+      json.put("admissionPolicy", obj.getAdmissionPolicy().name());
+    }
     json.put("heartbeat", obj.getHeartbeat());
     json.put("maxFrameSize", obj.getMaxFrameSize());
+    json.put("maxHandshakingConnections", obj.getMaxHandshakingConnections());
+    json.put("maxQueuedConnections", obj.getMaxQueuedConnections());
   }
 }
@@ -0,0 +1,54 @@
+package io.vertx.proton;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.JsonArray;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converter and mapper for {@link io.vertx.proton.ProtonSessionShardingOptions}.
+ * NOTE: This class has been automatically generated from the {@link io.vertx.proton.ProtonSessionShardingOptions} original class using Vert.x codegen.
+ */
+public class ProtonSessionShardingOptionsConverter {
+
+
+   static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonSessionShardingOptions obj) {
+    for (java.util.Map.Entry<String, Object> member : json) {
+      switch (member.getKey()) {
+        case "incomingCapacity":
+          if (member.getValue() instanceof Number) {
+            obj.setIncomingCapacity(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "outgoingWindow":
+          if (member.getValue() instanceof Number) {
+            obj.setOutgoingWindow(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "policy":
+          if (member.getValue() instanceof String) {
+            obj.setPolicy(io.vertx.proton.ProtonSessionShardingPolicy.valueOf((String)member.getValue()));
+          }
+          break;
+        case "sessions":
+          if (member.getValue() instanceof Number) {
+            obj.setSessions(((Number)member.getValue()).intValue());
+          }
+          break;
+      }
+    }
+  }
+
+   static void toJson(ProtonSessionShardingOptions obj, JsonObject json) {
+    toJson(obj, json.getMap());
+  }
+
+   static void toJson(ProtonSessionShardingOptions obj, java.util.Map<String, Object> json) {
+    json.put("incomingCapacity", obj.getIncomingCapacity());
+    json.put("outgoingWindow", obj.getOutgoingWindow());
+    if (obj.getPolicy() != null) {
+      json.put("policy", obj.getPolicy().name());
+    }
+    json.put("sessions", obj.getSessions());
+  }
+}
@@ -0,0 +1,48 @@
+package io.vertx.proton;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.JsonArray;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converter and mapper for {@link io.vertx.proton.ProtonSpoolOptions}.
+ * NOTE: This class has been automatically generated from the {@link io.vertx.proton.ProtonSpoolOptions} original class using Vert.x codegen.
+ */
+public class ProtonSpoolOptionsConverter {
+
+
+   static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonSpoolOptions obj) {
+    for (java.util.Map.Entry<String, Object> member : json) {
+      switch (member.getKey()) {
+        case "directory":
+          if (member.getValue() instanceof String) {
+            obj.setDirectory((String)member.getValue());
+          }
+          break;
+        case "maxDiskUsage":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxDiskUsage(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "segmentSize":
+          if (member.getValue() instanceof Number) {
+            obj.setSegmentSize(((Number)member.getValue()).intValue());
+          }
+          break;
+      }
+    }
+  }
+
+   static void toJson(ProtonSpoolOptions obj, JsonObject json) {
+    toJson(obj, json.getMap());
+  }
+
+   static void toJson(ProtonSpoolOptions obj, java.util.Map<String, Object> json) {
+    if (obj.getDirectory() != null) {
+      json.put("directory", obj.getDirectory());
+    }
+    json.put("maxDiskUsage", obj.getMaxDiskUsage());
+    json.put("segmentSize", obj.getSegmentSize());
+  }
+}
@@ -0,0 +1,46 @@
+package io.vertx.proton;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.JsonArray;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converter and mapper for {@link io.vertx.proton.ProtonVirtualHostOptions}.
+ * NOTE: This class has been automatically generated from the {@link io.vertx.proton.ProtonVirtualHostOptions} original class using Vert.x codegen.
+ */
+public class ProtonVirtualHostOptionsConverter {
+
+
+   static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ProtonVirtualHostOptions obj) {
+    for (java.util.Map.Entry<String, Object> member : json) {
+      switch (member.getKey()) {
+        case "maxConnections":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxConnections(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "maxSessionIncomingCapacity":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxSessionIncomingCapacity(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "maxUnsettled":
+          if (member.getValue() instanceof Number) {
+            obj.setMaxUnsettled(((Number)member.getValue()).intValue());
+          }
+          break;
+      }
+    }
+  }
+
+   static void toJson(ProtonVirtualHostOptions obj, JsonObject json) {
+    toJson(obj, json.getMap());
+  }
+
+   static void toJson(ProtonVirtualHostOptions obj, java.util.Map<String, Object> json) {
+    json.put("maxConnections", obj.getMaxConnections());
+    json.put("maxSessionIncomingCapacity", obj.getMaxSessionIncomingCapacity());
+    json.put("maxUnsettled", obj.getMaxUnsettled());
+  }
+}
@@ -0,0 +1,39 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * What a server does with connections accepted beyond its admission limits, see
+ * {@link ProtonServerOptions#setMaxHandshakingConnections(int)} and {@link ProtonServerOptions#setAcceptRate(int)}.
+ */
+public enum ProtonAdmissionPolicy {
+
+  /**
+   * The connection waits, without its input being read, until it can be admitted. Once the
+   * {@link ProtonServerOptions#setMaxQueuedConnections(int) queue} is full, further connections are closed.
+   */
+  QUEUE,
+
+  /**
+   * The connection is refused with a SASL temporary failure outcome, telling the client to try again later.
+   */
+  REJECT,
+
+  /**
+   * The connection is closed straight away.
+   */
+  CLOSE
+}
@@ -15,9 +15,12 @@
 */
 package io.vertx.proton;
 
+import java.util.List;
+
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.proton.impl.ProtonClientImpl;
 
 /**
@@ -98,4 +101,28 @@ public interface ProtonClient {
    */
   void connect(ProtonClientOptions options, String host, int port, String username, String password,
                Handler<AsyncResult<ProtonConnection>> connectionHandler);
+
+  /**
+   * Connect to one of the given endpoints, with credentials (if required by server peer).
+   * <p>
+   * Endpoints are tried in the order given by the {@link ProtonClientOptions#setEndpointSelectionPolicy selection
+   * policy}, with {@link ProtonClientOptions#setParallelConnectAttempts as many at once} as configured, the first
+   * connection to complete SASL negotiation being used and any others disconnected. Endpoints which fail are skipped by
+   * later connects from this client for the {@link ProtonClientOptions#setEndpointCooldown cool-down period}, unless
+   * all of the endpoints are.
+   *
+   * @param options
+   *          the options to apply
+   * @param endpoints
+   *          the host and port of each endpoint
+   * @param username
+   *          the user name to use in any SASL negotiation that requires it
+   * @param password
+   *          the password to use in any SASL negotiation that requires it
+   * @param connectionHandler
+   *          handler that will process the result, giving either the (unopened) ProtonConnection or the failure cause
+   *          of the last attempt.
+   */
+  void connect(ProtonClientOptions options, List<SocketAddress> endpoints, String username, String password,
+               Handler<AsyncResult<ProtonConnection>> connectionHandler);
 }
@@ -42,11 +42,26 @@ import io.vertx.core.net.TrustOptions;
 @DataObject(generateConverter = true, publicConverter = false)
 public class ProtonClientOptions extends NetClientOptions {
 
+  public static final long DEFAULT_AUTO_RECONNECT_INITIAL_DELAY = 100;
+  public static final long DEFAULT_AUTO_RECONNECT_MAX_DELAY = 10000;
+  public static final int DEFAULT_AUTO_RECONNECT_ATTEMPTS = -1;
+  public static final ProtonEndpointSelectionPolicy DEFAULT_ENDPOINT_SELECTION_POLICY = ProtonEndpointSelectionPolicy.ROUND_ROBIN;
+  public static final long DEFAULT_ENDPOINT_COOLDOWN = 30000;
+  public static final int DEFAULT_PARALLEL_CONNECT_ATTEMPTS = 1;
+
   private Set<String> enabledSaslMechanisms = new LinkedHashSet<>();
   private int heartbeat;
   private int maxFrameSize;
   private String virtualHost;
   private String sniServerName;
+  private boolean autoReconnect;
+  private long autoReconnectInitialDelay = DEFAULT_AUTO_RECONNECT_INITIAL_DELAY;
+  private long autoReconnectMaxDelay = DEFAULT_AUTO_RECONNECT_MAX_DELAY;
+  private int autoReconnectAttempts = DEFAULT_AUTO_RECONNECT_ATTEMPTS;
+  private ProtonEndpointSelectionPolicy endpointSelectionPolicy = DEFAULT_ENDPOINT_SELECTION_POLICY;
+  private long endpointCooldown = DEFAULT_ENDPOINT_COOLDOWN;
+  private int parallelConnectAttempts = DEFAULT_PARALLEL_CONNECT_ATTEMPTS;
+  private boolean pipelinedOpen;
 
   public ProtonClientOptions() {
     super();
@@ -65,6 +80,14 @@ public class ProtonClientOptions extends NetClientOptions {
     this.maxFrameSize = other.maxFrameSize;
     this.virtualHost = other.virtualHost;
     this.sniServerName = other.sniServerName;
+    this.autoReconnect = other.autoReconnect;
+    this.autoReconnectInitialDelay = other.autoReconnectInitialDelay;
+    this.autoReconnectMaxDelay = other.autoReconnectMaxDelay;
+    this.autoReconnectAttempts = other.autoReconnectAttempts;
+    this.endpointSelectionPolicy = other.endpointSelectionPolicy;
+    this.endpointCooldown = other.endpointCooldown;
+    this.parallelConnectAttempts = other.parallelConnectAttempts;
+    this.pipelinedOpen = other.pipelinedOpen;
   }
 
   /**
@@ -259,6 +282,14 @@ public class ProtonClientOptions extends NetClientOptions {
     result = prime * result + this.maxFrameSize;
     result = prime * result + (this.virtualHost != null ? this.virtualHost.hashCode() : 0);
     result = prime * result + (this.sniServerName != null ? this.sniServerName.hashCode() : 0);
+    result = prime * result + (this.autoReconnect ? 1 : 0);
+    result = prime * result + Long.hashCode(this.autoReconnectInitialDelay);
+    result = prime * result + Long.hashCode(this.autoReconnectMaxDelay);
+    result = prime * result + this.autoReconnectAttempts;
+    result = prime * result + this.endpointSelectionPolicy.hashCode();
+    result = prime * result + Long.hashCode(this.endpointCooldown);
+    result = prime * result + this.parallelConnectAttempts;
+    result = prime * result + (this.pipelinedOpen ? 1 : 0);
 
     return result;
   }
@@ -293,6 +324,30 @@ public class ProtonClientOptions extends NetClientOptions {
     if (!Objects.equals(this.sniServerName, other.sniServerName)) {
       return false;
     }
+    if (this.autoReconnect != other.autoReconnect) {
+      return false;
+    }
+    if (this.autoReconnectInitialDelay != other.autoReconnectInitialDelay) {
+      return false;
+    }
+    if (this.autoReconnectMaxDelay != other.autoReconnectMaxDelay) {
+      return false;
+    }
+    if (this.autoReconnectAttempts != other.autoReconnectAttempts) {
+      return false;
+    }
+    if (this.endpointSelectionPolicy != other.endpointSelectionPolicy) {
+      return false;
+    }
+    if (this.endpointCooldown != other.endpointCooldown) {
+      return false;
+    }
+    if (this.parallelConnectAttempts != other.parallelConnectAttempts) {
+      return false;
+    }
+    if (this.pipelinedOpen != other.pipelinedOpen) {
+      return false;
+    }
 
     return true;
   }
@@ -517,4 +572,198 @@ public class ProtonClientOptions extends NetClientOptions {
   public int getMaxFrameSize() {
     return maxFrameSize;
   }
+
+  /**
+   * Sets whether the connection should be automatically re-established if it is lost after being opened, rather than
+   * the disconnect handler being called. Sessions and links which are open are then re-attached with the same names
+   * and terminus details, receivers have their credit restored, and unsettled deliveries sent by at-least-once senders
+   * are sent again.
+   * <p>
+   * Unlike {@link #setReconnectAttempts(int)}, which applies to the initial TCP connect, this covers the connection
+   * being lost later. The disconnect handler is only called if the connection was closed locally, or once the
+   * {@link #setAutoReconnectAttempts(int) reconnect attempts} are exhausted.
+   *
+   * @param autoReconnect whether to automatically reconnect
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setAutoReconnect(boolean autoReconnect) {
+    this.autoReconnect = autoReconnect;
+    return this;
+  }
+
+  /**
+   * Gets whether the connection is automatically re-established if lost.
+   *
+   * @return  whether to automatically reconnect
+   */
+  public boolean isAutoReconnect() {
+    return autoReconnect;
+  }
+
+  /**
+   * Sets the delay (in milliseconds) before the first automatic reconnect attempt, which doubles for each
+   * subsequent attempt up to the {@link #setAutoReconnectMaxDelay(long) max delay}.
+   *
+   * @param autoReconnectInitialDelay the initial delay in milliseconds, must be positive
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setAutoReconnectInitialDelay(long autoReconnectInitialDelay) {
+    if (autoReconnectInitialDelay <= 0) {
+      throw new IllegalArgumentException("Initial delay must be positive");
+    }
+    this.autoReconnectInitialDelay = autoReconnectInitialDelay;
+    return this;
+  }
+
+  /**
+   * Gets the delay (in milliseconds) before the first automatic reconnect attempt.
+   *
+   * @return  the initial delay in milliseconds
+   */
+  public long getAutoReconnectInitialDelay() {
+    return autoReconnectInitialDelay;
+  }
+
+  /**
+   * Sets the maximum delay (in milliseconds) between automatic reconnect attempts.
+   *
+   * @param autoReconnectMaxDelay the maximum delay in milliseconds, must be positive
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setAutoReconnectMaxDelay(long autoReconnectMaxDelay) {
+    if (autoReconnectMaxDelay <= 0) {
+      throw new IllegalArgumentException("Max delay must be positive");
+    }
+    this.autoReconnectMaxDelay = autoReconnectMaxDelay;
+    return this;
+  }
+
+  /**
+   * Gets the maximum delay (in milliseconds) between automatic reconnect attempts.
+   *
+   * @return  the maximum delay in milliseconds
+   */
+  public long getAutoReconnectMaxDelay() {
+    return autoReconnectMaxDelay;
+  }
+
+  /**
+   * Sets the number of automatic reconnect attempts made each time the connection is lost, or -1 to keep trying.
+   *
+   * @param autoReconnectAttempts the number of attempts, or -1 for no limit
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setAutoReconnectAttempts(int autoReconnectAttempts) {
+    if (autoReconnectAttempts < -1) {
+      throw new IllegalArgumentException("Attempts must be -1 or greater");
+    }
+    this.autoReconnectAttempts = autoReconnectAttempts;
+    return this;
+  }
+
+  /**
+   * Gets the number of automatic reconnect attempts made each time the connection is lost.
+   *
+   * @return  the number of attempts, or -1 for no limit
+   */
+  public int getAutoReconnectAttempts() {
+    return autoReconnectAttempts;
+  }
+
+  /**
+   * Sets the order in which endpoints are tried when connecting to one of several.
+   *
+   * @param endpointSelectionPolicy the selection policy
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setEndpointSelectionPolicy(ProtonEndpointSelectionPolicy endpointSelectionPolicy) {
+    this.endpointSelectionPolicy = Objects.requireNonNull(endpointSelectionPolicy, "Selection policy must not be null");
+    return this;
+  }
+
+  /**
+   * Gets the order in which endpoints are tried when connecting to one of several.
+   *
+   * @return  the selection policy
+   */
+  public ProtonEndpointSelectionPolicy getEndpointSelectionPolicy() {
+    return endpointSelectionPolicy;
+  }
+
+  /**
+   * Sets the time (in milliseconds) an endpoint which failed a connect attempt is skipped for, unless all the
+   * endpoints are being skipped, or 0 to never skip failed endpoints.
+   *
+   * @param endpointCooldown the cool-down period in milliseconds
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setEndpointCooldown(long endpointCooldown) {
+    if (endpointCooldown < 0) {
+      throw new IllegalArgumentException("Cool-down must not be negative");
+    }
+    this.endpointCooldown = endpointCooldown;
+    return this;
+  }
+
+  /**
+   * Gets the time (in milliseconds) an endpoint which failed a connect attempt is skipped for.
+   *
+   * @return  the cool-down period in milliseconds
+   */
+  public long getEndpointCooldown() {
+    return endpointCooldown;
+  }
+
+  /**
+   * Sets how many endpoints are connected to at once when connecting to one of several. The first connection to
+   * complete its SASL negotiation is used and the others are disconnected, while a failed attempt is replaced by one
+   * to the next endpoint.
+   *
+   * @param parallelConnectAttempts the number of concurrent attempts, must be positive
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setParallelConnectAttempts(int parallelConnectAttempts) {
+    if (parallelConnectAttempts <= 0) {
+      throw new IllegalArgumentException("Parallel connect attempts must be positive");
+    }
+    this.parallelConnectAttempts = parallelConnectAttempts;
+    return this;
+  }
+
+  /**
+   * Gets how many endpoints are connected to at once when connecting to one of several.
+   *
+   * @return  the number of concurrent attempts
+   */
+  public int getParallelConnectAttempts() {
+    return parallelConnectAttempts;
+  }
+
+  /**
+   * Sets whether the connect handler is called as soon as the TCP connection is established, rather than once the
+   * SASL negotiation has completed, so that the connection open, session begin, link attaches and any sends made in
+   * it are all written together as soon as the negotiation allows, saving round trips when starting up. If
+   * {@link #addEnabledSaslMechanism(String) enabled mechanisms} are configured, the SASL init is also sent
+   * optimistically using the preferred one, without waiting for the mechanisms offered by the server.
+   * <p>
+   * Should the SASL negotiation then fail, the connection open handler is failed with the cause before the disconnect
+   * handler is called. A link the peer refuses to attach, by answering with a null source or target, has its open
+   * handler failed, with the peer's error if its detach arrived along with the attach.
+   *
+   * @param pipelinedOpen whether to pipeline the connection open
+   * @return  current ProtonClientOptions instance
+   */
+  public ProtonClientOptions setPipelinedOpen(boolean pipelinedOpen) {
+    this.pipelinedOpen = pipelinedOpen;
+    return this;
+  }
+
+  /**
+   * Gets whether the connection open is pipelined with the SASL negotiation.
+   *
+   * @return  whether to pipeline the connection open
+   */
+  public boolean isPipelinedOpen() {
+    return pipelinedOpen;
+  }
 }
@@ -97,6 +97,28 @@ public interface ProtonConnection {
    */
   ProtonSender createSender(String address, ProtonLinkOptions senderOptions);
 
+  /**
+   * Sets the links subsequently created using {@link #createSender(String)} and {@link #createReceiver(String)} (and
+   * their variants) to be spread across multiple sessions per the given options, rather than all being created on the
+   * default session. Links created directly on a session are unaffected.
+   *
+   * @param shardingOptions
+   *          the sharding options, or null to create all links on the default session again
+   * @return the connection
+   */
+  ProtonConnection setSessionSharding(ProtonSessionShardingOptions shardingOptions);
+
+  /**
+   * Limits the rate at which all the receivers of the connection together take messages from the peer, by
+   * withholding their prefetch credit beyond what the limit allows, see
+   * {@link ProtonReceiver#setRateLimit(ProtonRateLimitOptions)}.
+   *
+   * @param options
+   *          the rate limit, or null to remove it
+   * @return the connection
+   */
+  ProtonConnection setRateLimit(ProtonRateLimitOptions options);
+
   /**
    * Sets the container id value advertised to peers in the AMQP Open frame. Sometimes used as a 'client-id' by clients.
    *
@@ -147,6 +169,23 @@ public interface ProtonConnection {
    */
   boolean isAnonymousRelaySupported();
 
+  /**
+   * Creates a cache of senders keyed by target address, which attaches senders on demand and detaches the least
+   * recently used ones when full or after they are idle for the given time. If the peer supports the anonymous relay
+   * a single anonymous sender is used instead.
+   *
+   * The connection should be remotely opened before the cache is used.
+   *
+   * @param maxSenders
+   *          the maximum number of senders to keep attached
+   * @param idleTimeout
+   *          the time in milliseconds after which an unused sender is detached, or 0 to keep them until evicted
+   * @return the sender cache
+   * @throws IllegalArgumentException
+   *           if maxSenders is not positive or idleTimeout is negative
+   */
+  ProtonSenderCache createSenderCache(int maxSenders, long idleTimeout) throws IllegalArgumentException;
+
   /**
    * Creates a new session, which can be used to create new senders/receivers on.
    *
@@ -315,6 +354,14 @@ public interface ProtonConnection {
    */
   ProtonConnection receiverOpenHandler(Handler<ProtonReceiver> remoteReceiverOpenHandler);
 
+  /**
+   * Gathers the memory currently held for the connection's links: bytes of incoming transfers not yet processed, bytes of outgoing
+   * transfers not yet written out, and unsettled deliveries.
+   *
+   * @return the memory stats
+   */
+  ProtonMemoryStats getMemoryStats();
+
   /**
    * Sets a handler for when the underlying transport connection indicates it has disconnected.
    *
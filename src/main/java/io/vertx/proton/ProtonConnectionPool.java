@@ -0,0 +1,100 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.proton.impl.ProtonConnectionPoolImpl;
+
+/**
+ * A pool of client connections to the same peer, spread across the available event loops, from which senders and
+ * receivers are created on the least loaded connection. Connections which fail or disconnect are re-established in
+ * the background.
+ *
+ * Links are created, and the given handlers called, on the context of the connection they belong to, and must only be
+ * used from that context.
+ */
+public interface ProtonConnectionPool {
+
+  /**
+   * Create a ProtonConnectionPool instance, which will connect to the given host and port once opened.
+   *
+   * @param vertx
+   *          the vertx instance to use
+   * @param poolOptions
+   *          the pool options to apply
+   * @param clientOptions
+   *          the options to apply to each connection
+   * @param host
+   *          the host to connect to
+   * @param port
+   *          the port to connect to
+   * @param username
+   *          the user name to use in any SASL negotiation that requires it, or null
+   * @param password
+   *          the password to use in any SASL negotiation that requires it, or null
+   * @return the pool instance
+   */
+  static ProtonConnectionPool create(Vertx vertx, ProtonConnectionPoolOptions poolOptions,
+                                     ProtonClientOptions clientOptions, String host, int port, String username,
+                                     String password) {
+    return new ProtonConnectionPoolImpl(vertx, poolOptions, clientOptions, host, port, username, password);
+  }
+
+  /**
+   * Connects and opens the pooled connections.
+   *
+   * @param openHandler
+   *          handler called once every connection had its first attempt, succeeding if at least one is open
+   * @return the pool
+   */
+  ProtonConnectionPool open(Handler<AsyncResult<ProtonConnectionPool>> openHandler);
+
+  /**
+   * Creates a sender for the given address on the least loaded open connection. The sender is passed to the handler
+   * unopened, on the context of its connection.
+   *
+   * @param address
+   *          The target address to attach to, or null to attach with no target address
+   * @param handler
+   *          handler given the sender, or a failure if no connection is open or all are at their link limit
+   */
+  void createSender(String address, Handler<AsyncResult<ProtonSender>> handler);
+
+  /**
+   * Creates a receiver for the given address on the least loaded open connection. The receiver is passed to the
+   * handler unopened, on the context of its connection.
+   *
+   * @param address
+   *          The source address to attach to
+   * @param handler
+   *          handler given the receiver, or a failure if no connection is open or all are at their link limit
+   */
+  void createReceiver(String address, Handler<AsyncResult<ProtonReceiver>> handler);
+
+  /**
+   * Gets the number of pooled connections currently open.
+   *
+   * @return the number of open connections
+   */
+  int getOpenConnectionCount();
+
+  /**
+   * Closes all the pooled connections, which are no longer re-established.
+   */
+  void close();
+}
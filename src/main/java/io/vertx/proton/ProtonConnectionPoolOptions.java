@@ -0,0 +1,174 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options for configuring a {@link ProtonConnectionPool}.
+ */
+@DataObject(generateConverter = true, publicConverter = false)
+public class ProtonConnectionPoolOptions {
+
+  public static final int DEFAULT_SIZE = VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE;
+  public static final int DEFAULT_MAX_LINKS_PER_CONNECTION = 0;
+  public static final long DEFAULT_RECONNECT_INTERVAL = 1000;
+
+  private int size = DEFAULT_SIZE;
+  private int maxLinksPerConnection = DEFAULT_MAX_LINKS_PER_CONNECTION;
+  private long reconnectInterval = DEFAULT_RECONNECT_INTERVAL;
+
+  public ProtonConnectionPoolOptions() {
+  }
+
+  /**
+   * Copy constructor, copies the configuration of the given options.
+   *
+   * @param other  the options to copy
+   */
+  public ProtonConnectionPoolOptions(ProtonConnectionPoolOptions other) {
+    this.size = other.size;
+    this.maxLinksPerConnection = other.maxLinksPerConnection;
+    this.reconnectInterval = other.reconnectInterval;
+  }
+
+  /**
+   * Create options from JSON
+   *
+   * @param json  the JSON
+   */
+  public ProtonConnectionPoolOptions(JsonObject json) {
+    ProtonConnectionPoolOptionsConverter.fromJson(json, this);
+  }
+
+  /**
+   * Convert to JSON
+   *
+   * @return the JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    ProtonConnectionPoolOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * Sets the number of connections in the pool, each of which is assigned its own event loop where possible.
+   * Defaults to the default number of event loops.
+   *
+   * @param size the number of connections, must be positive
+   * @return current ProtonConnectionPoolOptions instance.
+   */
+  public ProtonConnectionPoolOptions setSize(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be positive");
+    }
+    this.size = size;
+    return this;
+  }
+
+  /**
+   * Gets the number of connections in the pool.
+   *
+   * @return the number of connections
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Sets the maximum number of open links each pooled connection should be given, after which links are only created
+   * on other connections. A value of 0 means no limit, which is the default.
+   *
+   * @param maxLinksPerConnection the maximum number of links per connection, or 0 for no limit
+   * @return current ProtonConnectionPoolOptions instance.
+   */
+  public ProtonConnectionPoolOptions setMaxLinksPerConnection(int maxLinksPerConnection) {
+    if (maxLinksPerConnection < 0) {
+      throw new IllegalArgumentException("Max links per connection must not be negative");
+    }
+    this.maxLinksPerConnection = maxLinksPerConnection;
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of open links per pooled connection.
+   *
+   * @return the maximum number of links per connection, or 0 for no limit
+   */
+  public int getMaxLinksPerConnection() {
+    return maxLinksPerConnection;
+  }
+
+  /**
+   * Sets the delay before a failed or disconnected pooled connection is re-established in the background.
+   *
+   * @param reconnectInterval the delay in milliseconds, must be positive
+   * @return current ProtonConnectionPoolOptions instance.
+   */
+  public ProtonConnectionPoolOptions setReconnectInterval(long reconnectInterval) {
+    if (reconnectInterval <= 0) {
+      throw new IllegalArgumentException("Reconnect interval must be positive");
+    }
+    this.reconnectInterval = reconnectInterval;
+    return this;
+  }
+
+  /**
+   * Gets the delay before a failed or disconnected pooled connection is re-established.
+   *
+   * @return the delay in milliseconds
+   */
+  public long getReconnectInterval() {
+    return reconnectInterval;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + size;
+    result = prime * result + maxLinksPerConnection;
+    result = prime * result + Long.hashCode(reconnectInterval);
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || getClass() != obj.getClass()){
+      return false;
+    }
+
+    ProtonConnectionPoolOptions other = (ProtonConnectionPoolOptions) obj;
+    if (this.size != other.size) {
+      return false;
+    }
+    if (this.maxLinksPerConnection != other.maxLinksPerConnection) {
+      return false;
+    }
+    if (this.reconnectInterval != other.reconnectInterval) {
+      return false;
+    }
+
+    return true;
+  }
+}
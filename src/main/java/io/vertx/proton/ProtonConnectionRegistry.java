@@ -0,0 +1,89 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import java.util.List;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.proton.impl.ProtonConnectionRegistryImpl;
+
+/**
+ * A registry of the live connections accepted by one or more servers, e.g. the instances of a server deployed on the
+ * same port by several verticles, giving how they and their load spread across the event loops.
+ *
+ * Also gives a hint to rebalance: connections on overloaded event loops can be asked to reconnect, by default closing
+ * them with an {@code amqp:connection:redirect} error back to the address they connected to, so that they are
+ * accepted again on whichever event loop is next.
+ *
+ * @see ProtonServer#connectionRegistry(ProtonConnectionRegistry)
+ */
+public interface ProtonConnectionRegistry {
+
+  /**
+   * Create a ProtonConnectionRegistry instance, for the event loops of the given Vert.x instance.
+   *
+   * @param vertx
+   *          the vertx instance to use
+   * @return the registry instance
+   */
+  static ProtonConnectionRegistry create(Vertx vertx) {
+    return new ProtonConnectionRegistryImpl(vertx);
+  }
+
+  /**
+   * Collects the statistics of every event loop, on each event loop in turn.
+   *
+   * @param handler
+   *          handler given the statistics, ordered by event loop index, on the calling context
+   */
+  void stats(Handler<AsyncResult<List<ProtonEventLoopStats>>> handler);
+
+  /**
+   * Asks connections on overloaded event loops to reconnect. An event loop is overloaded when its message rate is
+   * above the mean rate of all the event loops times the given factor. Its busiest connections which are at least the
+   * given age are then asked, as long as they add up to no more than its rate in excess of the mean, and without
+   * emptying it.
+   *
+   * As the message rates are measured since rebalance was previously called, independently of any
+   * {@link #stats(Handler) stats} collected meanwhile, this is best called periodically. The first call only starts
+   * measuring and asks no connections.
+   *
+   * @param overloadFactor
+   *          the factor of the mean message rate above which an event loop is overloaded, greater than 1
+   * @param minConnectionAge
+   *          the age in milliseconds below which connections are left alone
+   * @param handler
+   *          handler given the number of connections asked to reconnect, on the calling context
+   */
+  void rebalance(double overloadFactor, long minConnectionAge, Handler<AsyncResult<Integer>> handler);
+
+  /**
+   * Sets a handler called, on the connection's context, for each connection asked to reconnect, in place of closing it
+   * with a redirect. Allows e.g. an application level request to reconnect once idle.
+   *
+   * @param handler
+   *          the handler, or null to restore closing with a redirect
+   * @return the registry
+   */
+  ProtonConnectionRegistry rebalanceHintHandler(Handler<ProtonConnection> handler);
+
+  /**
+   * @return the number of live connections in the registry
+   */
+  int getConnectionCount();
+}
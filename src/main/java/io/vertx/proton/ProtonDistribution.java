@@ -0,0 +1,34 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * How a {@link ProtonRouter} distributes the messages sent to an address among the consumers attached to it.
+ */
+public enum ProtonDistribution {
+
+  /**
+   * Each message goes to one of the consumers, preferring those with credit, and the producer is given the outcome
+   * that consumer settled it with.
+   */
+  ANYCAST,
+
+  /**
+   * Each message goes to every consumer, and the producer is given an accepted outcome if any of them accepted it,
+   * once all have settled it.
+   */
+  MULTICAST
+}
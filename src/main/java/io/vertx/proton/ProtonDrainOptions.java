@@ -0,0 +1,234 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import java.util.Objects;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options for draining a server ahead of a restart.
+ *
+ * @see ProtonServer#drain(ProtonDrainOptions, io.vertx.core.Handler)
+ */
+@DataObject(generateConverter = true, publicConverter = false)
+public class ProtonDrainOptions {
+
+  public static final long DEFAULT_SETTLE_TIMEOUT = 30000;
+  public static final int DEFAULT_BATCH_SIZE = 50;
+  public static final long DEFAULT_BATCH_INTERVAL = 1000;
+  public static final int DEFAULT_REDIRECT_PORT = 5672;
+
+  private long settleTimeout = DEFAULT_SETTLE_TIMEOUT;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private long batchInterval = DEFAULT_BATCH_INTERVAL;
+  private String redirectHost;
+  private int redirectPort = DEFAULT_REDIRECT_PORT;
+
+  public ProtonDrainOptions() {
+  }
+
+  /**
+   * Copy constructor, copies the configuration of the given options.
+   *
+   * @param other  the options to copy
+   */
+  public ProtonDrainOptions(ProtonDrainOptions other) {
+    this.settleTimeout = other.settleTimeout;
+    this.batchSize = other.batchSize;
+    this.batchInterval = other.batchInterval;
+    this.redirectHost = other.redirectHost;
+    this.redirectPort = other.redirectPort;
+  }
+
+  /**
+   * Create options from JSON
+   *
+   * @param json  the JSON
+   */
+  public ProtonDrainOptions(JsonObject json) {
+    ProtonDrainOptionsConverter.fromJson(json, this);
+  }
+
+  /**
+   * Convert to JSON
+   *
+   * @return the JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    ProtonDrainOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * Sets the longest time in milliseconds to wait for the unsettled deliveries to settle before closing connections
+   * regardless.
+   *
+   * @param settleTimeout the settle timeout, or 0 not to wait
+   * @return current ProtonDrainOptions instance.
+   */
+  public ProtonDrainOptions setSettleTimeout(long settleTimeout) {
+    if (settleTimeout < 0) {
+      throw new IllegalArgumentException("Settle timeout must not be negative");
+    }
+    this.settleTimeout = settleTimeout;
+    return this;
+  }
+
+  /**
+   * Gets the longest time in milliseconds to wait for the unsettled deliveries to settle.
+   *
+   * @return the settle timeout
+   */
+  public long getSettleTimeout() {
+    return settleTimeout;
+  }
+
+  /**
+   * Sets the number of connections closed at once.
+   *
+   * @param batchSize the batch size
+   * @return current ProtonDrainOptions instance.
+   */
+  public ProtonDrainOptions setBatchSize(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Gets the number of connections closed at once.
+   *
+   * @return the batch size
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the time in milliseconds between closing one batch of connections and the next, spreading out the clients
+   * reconnecting.
+   *
+   * @param batchInterval the batch interval
+   * @return current ProtonDrainOptions instance.
+   */
+  public ProtonDrainOptions setBatchInterval(long batchInterval) {
+    if (batchInterval <= 0) {
+      throw new IllegalArgumentException("Batch interval must be positive");
+    }
+    this.batchInterval = batchInterval;
+    return this;
+  }
+
+  /**
+   * Gets the time in milliseconds between closing one batch of connections and the next.
+   *
+   * @return the batch interval
+   */
+  public long getBatchInterval() {
+    return batchInterval;
+  }
+
+  /**
+   * Sets the host given to clients in the redirect condition their connection is closed with, e.g. that of another
+   * node. Without one, the redirect gives no address, leaving clients to reconnect as they normally would.
+   *
+   * @param redirectHost the host to redirect to, or null
+   * @return current ProtonDrainOptions instance.
+   */
+  public ProtonDrainOptions setRedirectHost(String redirectHost) {
+    this.redirectHost = redirectHost;
+    return this;
+  }
+
+  /**
+   * Gets the host given to clients in the redirect condition.
+   *
+   * @return the host to redirect to, or null
+   */
+  public String getRedirectHost() {
+    return redirectHost;
+  }
+
+  /**
+   * Sets the port given to clients in the redirect condition, along with the redirect host. Defaults to 5672.
+   *
+   * @param redirectPort the port to redirect to
+   * @return current ProtonDrainOptions instance.
+   */
+  public ProtonDrainOptions setRedirectPort(int redirectPort) {
+    if (redirectPort < 0 || redirectPort > 65535) {
+      throw new IllegalArgumentException("Redirect port must be between 0 and 65535");
+    }
+    this.redirectPort = redirectPort;
+    return this;
+  }
+
+  /**
+   * Gets the port given to clients in the redirect condition.
+   *
+   * @return the port to redirect to
+   */
+  public int getRedirectPort() {
+    return redirectPort;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + Long.hashCode(settleTimeout);
+    result = prime * result + batchSize;
+    result = prime * result + Long.hashCode(batchInterval);
+    result = prime * result + Objects.hashCode(redirectHost);
+    result = prime * result + redirectPort;
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || getClass() != obj.getClass()){
+      return false;
+    }
+
+    ProtonDrainOptions other = (ProtonDrainOptions) obj;
+    if (this.settleTimeout != other.settleTimeout) {
+      return false;
+    }
+    if (this.batchSize != other.batchSize) {
+      return false;
+    }
+    if (this.batchInterval != other.batchInterval) {
+      return false;
+    }
+    if (!Objects.equals(this.redirectHost, other.redirectHost)) {
+      return false;
+    }
+    if (this.redirectPort != other.redirectPort) {
+      return false;
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * Statistics for the duplicate detection performed by a receiver.
+ *
+ * @see ProtonReceiver#setDuplicateDetection(int, long)
+ */
+public interface ProtonDuplicateDetectionStats {
+
+  /**
+   * Gets the number of messages checked, i.e. those which had a message-id.
+   *
+   * @return the number of messages checked
+   */
+  long getLookups();
+
+  /**
+   * Gets the number of messages detected as duplicates, which were accepted without being passed to the handler.
+   *
+   * @return the number of duplicates
+   */
+  long getDuplicates();
+
+  /**
+   * Gets the fraction of checked messages which were duplicates.
+   *
+   * @return the hit rate, between 0 and 1
+   */
+  double getHitRate();
+
+  /**
+   * Gets the number of message-ids currently remembered.
+   *
+   * @return the number of entries
+   */
+  int getSize();
+
+  /**
+   * Gets the approximate heap memory used by the cache of remembered message-ids.
+   *
+   * @return the memory use in bytes
+   */
+  long getMemoryUsage();
+}
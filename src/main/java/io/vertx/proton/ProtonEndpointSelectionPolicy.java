@@ -0,0 +1,39 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * The order in which endpoints are tried when connecting to one of several, see
+ * {@link ProtonClient#connect(ProtonClientOptions, java.util.List, String, String, io.vertx.core.Handler)}.
+ */
+public enum ProtonEndpointSelectionPolicy {
+
+  /**
+   * Each connect starts from the endpoint after the one the previous connect started from.
+   */
+  ROUND_ROBIN,
+
+  /**
+   * Each connect tries the endpoints in a random order.
+   */
+  RANDOM,
+
+  /**
+   * Endpoints are tried in order of their observed connect latency, lowest first. Endpoints not yet connected to are
+   * tried before any others, so every endpoint has its latency measured.
+   */
+  LOWEST_LATENCY
+}
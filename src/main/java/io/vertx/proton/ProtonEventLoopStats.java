@@ -0,0 +1,73 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * Statistics for the connections a {@link ProtonConnectionRegistry} tracks on one event loop.
+ *
+ * @see ProtonConnectionRegistry#stats(io.vertx.core.Handler)
+ */
+public interface ProtonEventLoopStats {
+
+  /**
+   * Gets the index of the event loop, in the order of the Vert.x event loop group.
+   *
+   * @return the event loop index
+   */
+  int getIndex();
+
+  /**
+   * @return the number of live connections on the event loop
+   */
+  int getConnectionCount();
+
+  /**
+   * @return the number of sessions on those connections which are not yet closed
+   */
+  int getSessionCount();
+
+  /**
+   * @return the number of links on those connections which are not yet closed
+   */
+  int getLinkCount();
+
+  /**
+   * @return the number of deliveries on those connections which are not yet settled
+   */
+  int getUnsettledCount();
+
+  /**
+   * Gets the number of messages received on the event loop, including on connections which have since ended.
+   *
+   * @return the number of messages received
+   */
+  long getMessagesIn();
+
+  /**
+   * Gets the number of messages sent on the event loop, including on connections which have since ended.
+   *
+   * @return the number of messages sent
+   */
+  long getMessagesOut();
+
+  /**
+   * Gets the number of messages received and sent per second on the live connections, over the time since the stats
+   * were previously collected. Rebalancing measures its rates separately, so doesn't affect this.
+   *
+   * @return the message rate, 0 the first time the stats are collected
+   */
+  double getMessageRate();
+}
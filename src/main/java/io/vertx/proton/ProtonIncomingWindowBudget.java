@@ -0,0 +1,54 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import io.vertx.proton.impl.IncomingWindowBudget;
+
+/**
+ * The process wide limit on the incoming capacity granted to sessions using an
+ * {@link ProtonSession#setAdaptiveIncomingCapacity(int, int) adaptive incoming capacity}, bounding how many bytes of
+ * unprocessed transfers they can together buffer. Each such session is always granted its minimum capacity, and grows
+ * beyond it only while the total stays within the limit.
+ */
+public final class ProtonIncomingWindowBudget {
+
+  private ProtonIncomingWindowBudget() {
+  }
+
+  /**
+   * Sets the limit in bytes, by default there is none.
+   *
+   * @param bytes
+   *          the limit in bytes, must be positive
+   */
+  public static void setLimit(long bytes) {
+    IncomingWindowBudget.setLimit(bytes);
+  }
+
+  /**
+   * @return the limit in bytes
+   */
+  public static long getLimit() {
+    return IncomingWindowBudget.getLimit();
+  }
+
+  /**
+   * @return the total incoming capacity currently granted to adaptive sessions, in bytes
+   */
+  public static long getReserved() {
+    return IncomingWindowBudget.getReserved();
+  }
+}
@@ -334,6 +334,14 @@ public interface ProtonLink<T extends ProtonLink<T>> {
    */
   Symbol[] getRemoteDesiredCapabilities();
 
+  /**
+   * Gathers the memory currently held for the link: bytes of incoming transfers not yet processed, bytes of outgoing
+   * transfers not yet written out, and unsettled deliveries.
+   *
+   * @return the memory stats
+   */
+  ProtonMemoryStats getMemoryStats();
+
   /**
    * Tidies up related link resources when complete with use. Call only after the link is
    * finished with, e.g. locally and remotely closed.
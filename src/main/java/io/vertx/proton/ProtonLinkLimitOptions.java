@@ -0,0 +1,173 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Hard limits on the memory each link of a connection may hold. A link exceeding any of them is closed with an
+ * amqp:resource-limit-exceeded condition. A limit of 0 means none.
+ *
+ * @see ProtonServer#linkLimits(ProtonLinkLimitOptions)
+ * @see ProtonMemoryStats
+ */
+@DataObject(generateConverter = true, publicConverter = false)
+public class ProtonLinkLimitOptions {
+
+  private long maxIncomingBytes;
+  private long maxOutgoingBytes;
+  private int maxUnsettled;
+
+  public ProtonLinkLimitOptions() {
+  }
+
+  /**
+   * Copy constructor, copies the configuration of the given options.
+   *
+   * @param other  the options to copy
+   */
+  public ProtonLinkLimitOptions(ProtonLinkLimitOptions other) {
+    this.maxIncomingBytes = other.maxIncomingBytes;
+    this.maxOutgoingBytes = other.maxOutgoingBytes;
+    this.maxUnsettled = other.maxUnsettled;
+  }
+
+  /**
+   * Create options from JSON
+   *
+   * @param json  the JSON
+   */
+  public ProtonLinkLimitOptions(JsonObject json) {
+    ProtonLinkLimitOptionsConverter.fromJson(json, this);
+  }
+
+  /**
+   * Convert to JSON
+   *
+   * @return the JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    ProtonLinkLimitOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * Sets the most bytes a receiver may hold of a delivery still being received, e.g. when the peer sends a message
+   * larger than expected across many transfers.
+   *
+   * @param maxIncomingBytes the limit in bytes, or 0 for none
+   * @return current ProtonLinkLimitOptions instance.
+   */
+  public ProtonLinkLimitOptions setMaxIncomingBytes(long maxIncomingBytes) {
+    if (maxIncomingBytes < 0) {
+      throw new IllegalArgumentException("Max incoming bytes must not be negative");
+    }
+    this.maxIncomingBytes = maxIncomingBytes;
+    return this;
+  }
+
+  /**
+   * Gets the most bytes a receiver may hold of a delivery still being received.
+   *
+   * @return the limit in bytes, or 0 for none
+   */
+  public long getMaxIncomingBytes() {
+    return maxIncomingBytes;
+  }
+
+  /**
+   * Sets the most bytes a sender may have sent but not yet written out to the peer, e.g. as the peer's session window
+   * is closed.
+   *
+   * @param maxOutgoingBytes the limit in bytes, or 0 for none
+   * @return current ProtonLinkLimitOptions instance.
+   */
+  public ProtonLinkLimitOptions setMaxOutgoingBytes(long maxOutgoingBytes) {
+    if (maxOutgoingBytes < 0) {
+      throw new IllegalArgumentException("Max outgoing bytes must not be negative");
+    }
+    this.maxOutgoingBytes = maxOutgoingBytes;
+    return this;
+  }
+
+  /**
+   * Gets the most bytes a sender may have sent but not yet written out to the peer.
+   *
+   * @return the limit in bytes, or 0 for none
+   */
+  public long getMaxOutgoingBytes() {
+    return maxOutgoingBytes;
+  }
+
+  /**
+   * Sets the most unsettled deliveries a link may have, e.g. when its peer never settles what it receives.
+   *
+   * @param maxUnsettled the limit, or 0 for none
+   * @return current ProtonLinkLimitOptions instance.
+   */
+  public ProtonLinkLimitOptions setMaxUnsettled(int maxUnsettled) {
+    if (maxUnsettled < 0) {
+      throw new IllegalArgumentException("Max unsettled must not be negative");
+    }
+    this.maxUnsettled = maxUnsettled;
+    return this;
+  }
+
+  /**
+   * Gets the most unsettled deliveries a link may have.
+   *
+   * @return the limit, or 0 for none
+   */
+  public int getMaxUnsettled() {
+    return maxUnsettled;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + Long.hashCode(maxIncomingBytes);
+    result = prime * result + Long.hashCode(maxOutgoingBytes);
+    result = prime * result + maxUnsettled;
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || getClass() != obj.getClass()){
+      return false;
+    }
+
+    ProtonLinkLimitOptions other = (ProtonLinkLimitOptions) obj;
+    if (this.maxIncomingBytes != other.maxIncomingBytes) {
+      return false;
+    }
+    if (this.maxOutgoingBytes != other.maxOutgoingBytes) {
+      return false;
+    }
+    if (this.maxUnsettled != other.maxUnsettled) {
+      return false;
+    }
+
+    return true;
+  }
+}
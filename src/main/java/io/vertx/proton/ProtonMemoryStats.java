@@ -0,0 +1,42 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * The memory held for a link, or for all the links of a session or connection, as gathered when requested. Must be
+ * requested from the connection's context.
+ *
+ * @see ProtonLink#getMemoryStats()
+ * @see ProtonSession#getMemoryStats()
+ * @see ProtonConnection#getMemoryStats()
+ */
+public interface ProtonMemoryStats {
+
+  /**
+   * @return the bytes of incoming transfers received but not yet processed
+   */
+  long getIncomingBytes();
+
+  /**
+   * @return the bytes of outgoing transfers sent but not yet written out to the peer
+   */
+  long getOutgoingBytes();
+
+  /**
+   * @return the number of deliveries which are not yet settled
+   */
+  int getUnsettledCount();
+}
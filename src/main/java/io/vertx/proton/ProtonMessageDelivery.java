@@ -0,0 +1,39 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * A received message together with the delivery used to carry it, as handed to a
+ * {@link ProtonReceiver#batchHandler(int, long, io.vertx.core.Handler) batch handler}.
+ */
+public interface ProtonMessageDelivery {
+
+  /**
+   * Gets the delivery used to carry the message.
+   *
+   * @return the delivery
+   */
+  ProtonDelivery getDelivery();
+
+  /**
+   * Gets the decoded message.
+   *
+   * @return the message
+   */
+  Message getMessage();
+}
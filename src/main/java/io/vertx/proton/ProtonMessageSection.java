@@ -0,0 +1,36 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * The sections leading an AMQP message, in the order they are encoded, up to which a
+ * {@link ProtonReceiver#routingHandler(ProtonMessageSection, ProtonRoutingHandler) routing handler} decodes messages.
+ */
+public enum ProtonMessageSection {
+
+  HEADER,
+
+  DELIVERY_ANNOTATIONS,
+
+  MESSAGE_ANNOTATIONS,
+
+  /**
+   * The properties, holding e.g. the {@code to} address, message-id and subject.
+   */
+  PROPERTIES,
+
+  APPLICATION_PROPERTIES
+}
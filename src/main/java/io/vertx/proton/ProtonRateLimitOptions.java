@@ -0,0 +1,149 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options limiting the rate at which messages are received, enforced by withholding credit from the sending peer
+ * rather than by dropping messages, so the peer is slowed down without its link or connection being closed.
+ *
+ * Up to a second's worth of messages and bytes may be received in a burst, after a quiet period.
+ *
+ * @see ProtonConnection#setRateLimit(ProtonRateLimitOptions)
+ * @see ProtonReceiver#setRateLimit(ProtonRateLimitOptions)
+ */
+@DataObject(generateConverter = true, publicConverter = false)
+public class ProtonRateLimitOptions {
+
+  public static final int DEFAULT_MESSAGES_PER_SECOND = 0;
+  public static final long DEFAULT_BYTES_PER_SECOND = 0;
+
+  private int messagesPerSecond = DEFAULT_MESSAGES_PER_SECOND;
+  private long bytesPerSecond = DEFAULT_BYTES_PER_SECOND;
+
+  public ProtonRateLimitOptions() {
+  }
+
+  /**
+   * Copy constructor, copies the configuration of the given options.
+   *
+   * @param other  the options to copy
+   */
+  public ProtonRateLimitOptions(ProtonRateLimitOptions other) {
+    this.messagesPerSecond = other.messagesPerSecond;
+    this.bytesPerSecond = other.bytesPerSecond;
+  }
+
+  /**
+   * Create options from JSON
+   *
+   * @param json  the JSON
+   */
+  public ProtonRateLimitOptions(JsonObject json) {
+    ProtonRateLimitOptionsConverter.fromJson(json, this);
+  }
+
+  /**
+   * Convert to JSON
+   *
+   * @return the JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    ProtonRateLimitOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * Sets the number of messages per second which may be received, or 0 for no limit.
+   *
+   * @param messagesPerSecond the message rate, or 0
+   * @return current ProtonRateLimitOptions instance.
+   */
+  public ProtonRateLimitOptions setMessagesPerSecond(int messagesPerSecond) {
+    if (messagesPerSecond < 0) {
+      throw new IllegalArgumentException("Messages per second must not be negative");
+    }
+    this.messagesPerSecond = messagesPerSecond;
+    return this;
+  }
+
+  /**
+   * Gets the number of messages per second which may be received.
+   *
+   * @return the message rate, or 0 for no limit
+   */
+  public int getMessagesPerSecond() {
+    return messagesPerSecond;
+  }
+
+  /**
+   * Sets the number of message bytes per second which may be received, or 0 for no limit. As a message's size is
+   * only known once it has arrived, credit is withheld while more bytes were received than the rate allows, until the
+   * excess is made up for.
+   *
+   * @param bytesPerSecond the byte rate, or 0
+   * @return current ProtonRateLimitOptions instance.
+   */
+  public ProtonRateLimitOptions setBytesPerSecond(long bytesPerSecond) {
+    if (bytesPerSecond < 0) {
+      throw new IllegalArgumentException("Bytes per second must not be negative");
+    }
+    this.bytesPerSecond = bytesPerSecond;
+    return this;
+  }
+
+  /**
+   * Gets the number of message bytes per second which may be received.
+   *
+   * @return the byte rate, or 0 for no limit
+   */
+  public long getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + messagesPerSecond;
+    result = prime * result + Long.hashCode(bytesPerSecond);
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || getClass() != obj.getClass()){
+      return false;
+    }
+
+    ProtonRateLimitOptions other = (ProtonRateLimitOptions) obj;
+    if (this.messagesPerSecond != other.messagesPerSecond) {
+      return false;
+    }
+    if (this.bytesPerSecond != other.bytesPerSecond) {
+      return false;
+    }
+
+    return true;
+  }
+}
@@ -16,9 +16,14 @@
 package io.vertx.proton;
 
 import java.lang.IllegalStateException;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.qpid.proton.message.Message;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
+import io.vertx.core.WorkerExecutor;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -35,6 +40,102 @@ public interface ProtonReceiver extends ProtonLink<ProtonReceiver> {
    */
   ProtonReceiver handler(ProtonMessageHandler handler);
 
+  /**
+   * Sets a handler to process messages in batches rather than individually, in place of any {@link #handler(ProtonMessageHandler)}.
+   *
+   * Messages are collected as they arrive and handed to the handler together once maxBatch messages are available, or
+   * maxDelay milliseconds after the first message of the batch arrived, whichever comes first. A maxDelay of 0 hands
+   * over whatever has been collected once the current inbound data has been processed.
+   *
+   * If auto accept is enabled, deliveries in the batch which have no disposition applied when the handler returns are
+   * accepted and settled together, with a single flush. If prefetch is enabled, credit for the batch is replenished
+   * in one go after the handler returns.
+   *
+   * @param maxBatch
+   *          the maximum number of messages in a batch, must be positive
+   * @param maxDelay
+   *          the maximum delay in milliseconds before handing over a partial batch, must not be negative
+   * @param handler
+   *          the handler to process batches of messages
+   * @return the receiver
+   * @throws IllegalArgumentException
+   *           if maxBatch is not positive or maxDelay is negative
+   */
+  ProtonReceiver batchHandler(int maxBatch, long maxDelay, Handler<List<ProtonMessageDelivery>> handler) throws IllegalArgumentException;
+
+  /**
+   * Sets a handler to route messages on their leading sections, in place of any
+   * {@link #handler(ProtonMessageHandler)}. Only the sections up to and including the given one are decoded, the
+   * body and any later sections being skipped, so the cost of handling a message is down to the size of those sections
+   * rather than of the body. The handler is also given the message as received, to forward without re-encoding it.
+   *
+   * Auto accept and prefetch apply as with {@link #handler(ProtonMessageHandler)}. With
+   * {@link #setDuplicateDetection(int, long) duplicate detection} enabled the sections are decoded at least up to the
+   * properties, holding the message-id, even if the given last section comes before them.
+   *
+   * @param lastSection
+   *          the last section to decode
+   * @param handler
+   *          the handler to route messages
+   * @return the receiver
+   * @throws IllegalArgumentException
+   *           if lastSection is null
+   */
+  ProtonReceiver routingHandler(ProtonMessageSection lastSection, ProtonRoutingHandler handler) throws IllegalArgumentException;
+
+  /**
+   * Sets a handler to process messages on worker threads rather than the connection's event loop, in place of any
+   * {@link #handler(ProtonMessageHandler)}. Up to the given number of messages are handled in parallel, using the
+   * Vert.x worker pool. Messages for which the key extractor returns the same non-null key are handled one at a time,
+   * in the order they arrived.
+   *
+   * Dispositions applied to the delivery by the handler are recorded and applied on the connection context once the
+   * handler returns, in batches with any other completed messages. If no disposition was applied and auto accept is
+   * enabled, the delivery is accepted. If the handler throws, the delivery is modified with delivery-failed set. When
+   * prefetch is enabled, credit is only replenished as handlers complete.
+   *
+   * @param parallelism
+   *          the maximum number of messages handled at once, must be positive
+   * @param keyExtractor
+   *          function giving the ordering key for a message, e.g. {@link Message#getGroupId()}, or null for no ordering
+   * @param handler
+   *          the handler to process messages, called on a worker thread
+   * @return the receiver
+   * @throws IllegalArgumentException
+   *           if parallelism is not positive
+   */
+  ProtonReceiver workerHandler(int parallelism, Function<Message, Object> keyExtractor, ProtonMessageHandler handler)
+      throws IllegalArgumentException;
+
+  /**
+   * As {@link #workerHandler(int, Function, ProtonMessageHandler)}, using the given worker executor rather than the
+   * Vert.x worker pool.
+   *
+   * @param executor
+   *          the worker executor to run the handler on
+   * @param parallelism
+   *          the maximum number of messages handled at once, must be positive
+   * @param keyExtractor
+   *          function giving the ordering key for a message, or null for no ordering
+   * @param handler
+   *          the handler to process messages, called on a worker thread
+   * @return the receiver
+   * @throws IllegalArgumentException
+   *           if parallelism is not positive
+   */
+  ProtonReceiver workerHandler(WorkerExecutor executor, int parallelism, Function<Message, Object> keyExtractor,
+                               ProtonMessageHandler handler) throws IllegalArgumentException;
+
+  /**
+   * Accepts and settles all the given deliveries, flushing the resulting dispositions once rather than per delivery.
+   * Deliveries which were previously settled are left unchanged.
+   *
+   * @param deliveries
+   *          the deliveries to accept
+   * @return the receiver
+   */
+  ProtonReceiver acceptAll(List<ProtonMessageDelivery> deliveries);
+
   /**
    * Sets the number of message credits the receiver grants and replenishes automatically as messages are delivered.
    *
@@ -55,6 +156,48 @@ public interface ProtonReceiver extends ProtonLink<ProtonReceiver> {
    */
   int getPrefetch();
 
+  /**
+   * Enables adaptive prefetch, in place of the fixed {@link #setPrefetch(int) prefetch}. The receiver measures the
+   * rate at which its handler processes messages and the round trip time of its credit grants, and sizes the
+   * outstanding credit to roughly cover the messages it can process during one round trip, kept within the given
+   * bounds. Credit starts at the minimum and adjusts as measurements are made.
+   *
+   * Must be called before opening the receiver. While enabled, {@link #getPrefetch()} returns the current target
+   * credit.
+   *
+   * @param minCredit
+   *          the minimum outstanding credit, must be positive
+   * @param maxCredit
+   *          the maximum outstanding credit, must not be less than the minimum
+   * @return the receiver
+   * @throws IllegalArgumentException
+   *           if the bounds are invalid
+   */
+  ProtonReceiver setAdaptivePrefetch(int minCredit, int maxCredit) throws IllegalArgumentException;
+
+  /**
+   * Gets the total time the receiver spent without any outstanding credit while adaptive prefetch was enabled, i.e.
+   * time where the sender could not send it messages. Use {@link #getCredit()} for the current credit.
+   *
+   * @return the credit starvation time in milliseconds, or 0 if adaptive prefetch is not enabled
+   * @see #setAdaptivePrefetch(int, int)
+   */
+  long getCreditStarvationTime();
+
+  /**
+   * Limits the rate at which the receiver takes messages from the sending peer, by withholding prefetch credit beyond
+   * what the limit allows and granting it as time passes, rather than dropping messages. Applies in addition to any
+   * {@link ProtonConnection#setRateLimit(ProtonRateLimitOptions) connection rate limit}.
+   *
+   * Only credit granted through {@link #setPrefetch(int) prefetch} is limited, credit granted manually with
+   * {@link #flow(int)} is not.
+   *
+   * @param options
+   *          the rate limit, or null to remove it
+   * @return the receiver
+   */
+  ProtonReceiver setRateLimit(ProtonRateLimitOptions options);
+
   /**
    * Sets whether received deliveries should be automatically accepted (and settled) after the message handler runs for
    * them, if no other disposition has been applied during handling.
@@ -75,6 +218,37 @@ public interface ProtonReceiver extends ProtonLink<ProtonReceiver> {
    */
   boolean isAutoAccept();
 
+  /**
+   * Enables detection of duplicate messages, i.e. those with a message-id that was already accepted recently, such
+   * as may be redelivered after a failover. Duplicates are accepted and settled without being passed to the handler.
+   * A message-id is only remembered once its delivery is accepted, or on arrival if it was sent presettled, so a
+   * message that was released or modified is passed to the handler again when redelivered.
+   *
+   * Up to the given number of message-ids are remembered, with the oldest forgotten first, and if a window is given
+   * also those older than it. Messages without a message-id are never treated as duplicates, since delivery tags are
+   * only unique among the unsettled deliveries of a given link.
+   *
+   * Disabled by default.
+   *
+   * @param capacity
+   *          the maximum number of message-ids to remember, or 0 to disable duplicate detection
+   * @param windowMillis
+   *          the time in milliseconds for which to remember message-ids, or 0 to remember them until evicted by newer
+   *          ones
+   * @return the receiver
+   * @throws IllegalArgumentException
+   *           if either value is negative
+   */
+  ProtonReceiver setDuplicateDetection(int capacity, long windowMillis) throws IllegalArgumentException;
+
+  /**
+   * Gets the statistics of the duplicate detection, if enabled.
+   *
+   * @return the statistics, or null if duplicate detection is not enabled
+   * @see #setDuplicateDetection(int, long)
+   */
+  ProtonDuplicateDetectionStats getDuplicateDetectionStats();
+
   /**
    * Grants the given number of message credits to the sender.
    *
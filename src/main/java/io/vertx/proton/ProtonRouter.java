@@ -0,0 +1,93 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import io.vertx.proton.impl.ProtonRouterImpl;
+
+/**
+ * An in-memory message router, forwarding the messages sent to an address by producers to the consumers attached to
+ * it, across any number of server connections, e.g:
+ *
+ * <pre>
+ * ProtonRouter router = ProtonRouter.create();
+ * ProtonServer.create(vertx).connectHandler(router::handle).listen(5672);
+ * </pre>
+ *
+ * Messages are forwarded without being decoded, and are not stored: a producer is only given credit while its address
+ * has consumers, and each message it is given credit for is only replaced once the consumers settled it, so a slow
+ * consumer holds up its producers rather than filling up memory.
+ *
+ * Producers must attach to a target address, the anonymous relay is not supported. Consumers may ask for a dynamic
+ * address, which is then made up by the router.
+ */
+public interface ProtonRouter {
+
+  /**
+   * Create a ProtonRouter instance. The same router may handle the connections of any number of servers.
+   *
+   * @return the router instance
+   */
+  static ProtonRouter create() {
+    return new ProtonRouterImpl();
+  }
+
+  /**
+   * Takes over the given newly accepted connection, opening it and routing between the links its peer attaches. Must
+   * be called on the connection's context, e.g. from the {@link ProtonServer#connectHandler(io.vertx.core.Handler)}.
+   *
+   * @param connection
+   *          the connection to route for
+   */
+  void handle(ProtonConnection connection);
+
+  /**
+   * Sets how messages are distributed for addresses starting with the given prefix, the longest matching prefix
+   * applying. Addresses which no prefix matches are {@link ProtonDistribution#ANYCAST}. Only affects addresses which
+   * have no links yet.
+   *
+   * @param prefix
+   *          the address prefix
+   * @param distribution
+   *          the distribution to use
+   * @return the router
+   */
+  ProtonRouter setDistribution(String prefix, ProtonDistribution distribution);
+
+  /**
+   * Sets the number of messages each producer may have in flight through the router, i.e. the credit it is granted.
+   * Defaults to 250. Only affects producers attaching afterwards.
+   *
+   * @param linkCredit
+   *          the credit per producer
+   * @return the router
+   */
+  ProtonRouter setLinkCredit(int linkCredit);
+
+  /**
+   * @return the credit granted to each producer
+   */
+  int getLinkCredit();
+
+  /**
+   * @return the number of addresses which currently have producers or consumers attached
+   */
+  int getAddressCount();
+
+  /**
+   * @return the number of messages forwarded to consumers so far, counting each multicast copy
+   */
+  long getForwardedCount();
+}
@@ -0,0 +1,40 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * Handler for messages only partly decoded, to route them on their leading sections and forward them untouched, e.g.
+ * with {@link ProtonSender#sendEncoded(byte[], io.vertx.core.Handler)}.
+ *
+ * @see ProtonReceiver#routingHandler(ProtonMessageSection, ProtonRoutingHandler)
+ */
+public interface ProtonRoutingHandler {
+
+  /**
+   * Handler to route messages and their related deliveries.
+   *
+   * @param delivery
+   *          the delivery used to carry the message
+   * @param headers
+   *          a message holding only the sections decoded, e.g. giving the routing key through
+   *          {@link Message#getAddress()} or {@link Message#getMessageAnnotations()}
+   * @param encoded
+   *          the whole message as received, still encoded
+   */
+  void handle(ProtonDelivery delivery, Message headers, byte[] encoded);
+}
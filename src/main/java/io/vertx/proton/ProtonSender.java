@@ -70,6 +70,59 @@ public interface ProtonSender extends ProtonLink<ProtonSender> {
    */
   ProtonDelivery send(byte[] tag, Message message, Handler<ProtonDelivery> onUpdated);
 
+  /**
+   * Send an already encoded message as is, e.g. one forwarded from a
+   * {@link ProtonReceiver#routingHandler(ProtonMessageSection, ProtonRoutingHandler) routing handler}, without
+   * decoding and re-encoding it. Not to be mixed with {@link #send(Message, int, Handler)} on the same sender, as it
+   * bypasses the priority lanes.
+   *
+   * @param encoded
+   *          the encoded message
+   * @param onUpdated
+   *          handler called when a disposition update is received for the delivery, or null
+   * @return the delivery used to send the message
+   */
+  ProtonDelivery sendEncoded(byte[] encoded, Handler<ProtonDelivery> onUpdated);
+
+  /**
+   * Send the given message with the given priority, setting the AMQP header priority of the message.
+   * <p>
+   * Once a message has been sent with a priority, messages sent by this sender while it has no credit to send them
+   * wait in a lane per priority level (those above 9 sharing the highest), and are sent highest priority first as
+   * credit arrives, rather than in the order they were sent. Messages sent without a priority wait in the lane for
+   * their header priority, 4 by default. The returned delivery has no state, and cannot be settled, until sent.
+   *
+   * @param message
+   *          the message to send
+   * @param priority
+   *          the priority of the message, from 0 to 255
+   * @param onUpdated
+   *          handler called when a disposition update is received for the delivery, or null
+   * @return the delivery
+   * @throws IllegalStateException
+   *           if the lane for the priority already holds its {@link #setPriorityLaneCapacity(int) capacity}
+   */
+  ProtonDelivery send(Message message, int priority, Handler<ProtonDelivery> onUpdated) throws IllegalStateException;
+
+  /**
+   * Sets the number of messages each priority lane can hold while waiting for credit. Defaults to 1024.
+   *
+   * @param capacity
+   *          the capacity of each lane, must be positive
+   * @return the sender
+   * @throws IllegalStateException
+   *           if messages are waiting in the lanes
+   * @see #send(Message, int, Handler)
+   */
+  ProtonSender setPriorityLaneCapacity(int capacity) throws IllegalStateException;
+
+  /**
+   * Gets the number of messages each priority lane can hold while waiting for credit.
+   *
+   * @return the capacity of each lane
+   */
+  int getPriorityLaneCapacity();
+
   /**
    * Gets whether the senders outgoing send queue is full, i.e. there is currently no credit to send and send
    * operations will actually buffer locally until there is.
@@ -139,4 +192,25 @@ public interface ProtonSender extends ProtonLink<ProtonSender> {
    * @see #setAutoDrained(boolean)
    */
   int drained();
+
+  /**
+   * Sets the weight of this sender's transfers, if the session has a transfer scheduler. With
+   * {@link ProtonTransferSchedulingPolicy#WEIGHTED_ROUND_ROBIN} it is the sender's share of the bytes released relative
+   * to other senders, and with {@link ProtonTransferSchedulingPolicy#PRIORITY} its priority, higher going first.
+   * Defaults to 1.
+   *
+   * @param weight
+   *          the weight, must be positive
+   * @return the sender
+   * @see ProtonSession#setTransferScheduling(ProtonTransferSchedulingPolicy)
+   */
+  ProtonSender setTransferWeight(int weight);
+
+  /**
+   * Gets the weight of this sender's transfers.
+   *
+   * @return the weight
+   * @see #setTransferWeight(int)
+   */
+  int getTransferWeight();
 }
@@ -0,0 +1,102 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import org.apache.qpid.proton.message.Message;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+/**
+ * A cache of open senders on a connection, keyed by target address, for sending to many addresses without attaching
+ * a new link for every message or keeping a link open for every address ever used.
+ *
+ * The least recently used sender is detached once the cache is full, as are senders left idle for longer than the
+ * idle timeout. If the peer supports the anonymous relay, a single anonymous sender is used for all addresses.
+ * Senders still attaching, or with messages waiting for credit or settlement, are only detached once those are done,
+ * so the cache can briefly hold more senders than its maximum.
+ *
+ * Must only be used from the connection's context.
+ *
+ * @see ProtonConnection#createSenderCache(int, long)
+ */
+public interface ProtonSenderCache {
+
+  /**
+   * Gets an open sender for the given address, attaching a new one if none is cached. If the anonymous relay is in use
+   * the sender has no target address, so the address must be set on messages sent with it, as done by
+   * {@link #send(String, Message, Handler)}.
+   *
+   * @param address
+   *          the target address
+   * @param handler
+   *          handler given the attached sender, or the failure to attach it
+   */
+  void getSender(String address, Handler<AsyncResult<ProtonSender>> handler);
+
+  /**
+   * Sends the given message to the given address, using a cached sender, and setting the message address if the
+   * anonymous relay is in use.
+   *
+   * @param address
+   *          the target address
+   * @param message
+   *          the message to send
+   * @param onUpdated
+   *          handler called when a disposition update is received for the delivery, or null
+   * @param failureHandler
+   *          handler called if no sender could be attached for the address, or null
+   */
+  void send(String address, Message message, Handler<ProtonDelivery> onUpdated, Handler<Throwable> failureHandler);
+
+  /**
+   * Sends the given message to the given address, using a cached sender.
+   *
+   * @param address
+   *          the target address
+   * @param message
+   *          the message to send
+   * @param onUpdated
+   *          handler called when a disposition update is received for the delivery, or null
+   * @see #send(String, Message, Handler, Handler)
+   */
+  void send(String address, Message message, Handler<ProtonDelivery> onUpdated);
+
+  /**
+   * @return the number of senders currently cached, including those still attaching
+   */
+  int size();
+
+  /**
+   * @return the number of requests served by an already cached sender
+   */
+  long getHits();
+
+  /**
+   * @return the number of requests which required a new sender to be attached
+   */
+  long getMisses();
+
+  /**
+   * @return the average time in milliseconds taken for new senders to attach, or 0 if none have
+   */
+  double getAverageAttachTime();
+
+  /**
+   * Detaches all the cached senders and empties the cache.
+   */
+  void clear();
+}
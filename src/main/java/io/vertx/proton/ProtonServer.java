@@ -143,6 +143,94 @@ public interface ProtonServer {
    */
   ProtonServer listen();
 
+  /**
+   * Sets a registry to track the connections accepted by the server in, which may be shared by several servers, e.g.
+   * the instances deployed on the same port by several verticles. Connections are registered once their SASL
+   * handshake has succeeded.
+   *
+   * @param registry
+   *          the registry, or null to not track connections
+   * @return the server
+   */
+  ProtonServer connectionRegistry(ProtonConnectionRegistry registry);
+
+  /**
+   * Sets hard limits on the memory each link of the accepted connections may hold. A link exceeding any of them, e.g.
+   * as its peer never settles or sends a message larger than expected, is closed with an amqp:resource-limit-exceeded
+   * condition. Only applies to connections accepted from then on.
+   *
+   * @param limits
+   *          the limits, or null for none
+   * @return the server
+   * @see ProtonConnection#getMemoryStats()
+   */
+  ProtonServer linkLimits(ProtonLinkLimitOptions limits);
+
+  /**
+   * Sets the handler for connections to the given virtual host, i.e. whose peer names the given hostname in its open,
+   * replacing any previous handler for it. Such connections are passed to it, rather than to the connect handler, once
+   * their open arrives, so the open handler set by the given handler is still called. Connections naming no virtual
+   * host that was set are passed to the connect handler, or refused with an amqp:not-found condition if there is none.
+   *
+   * Each virtual host has its own resource limits, so the connections of one cannot exhaust those of the server.
+   *
+   * @param hostname
+   *          the virtual host name, matched ignoring case
+   * @param options
+   *          the resource limits of the virtual host
+   * @param handler
+   *          the handler for the virtual host's connections
+   * @return the server
+   */
+  ProtonServer virtualHostHandler(String hostname, ProtonVirtualHostOptions options, Handler<ProtonConnection> handler);
+
+  /**
+   * Gets the number of connections currently open to the given virtual host.
+   *
+   * @param hostname
+   *          the virtual host name
+   * @return the number of connections, or 0 if there is no such virtual host
+   */
+  int getVirtualHostConnectionCount(String hostname);
+
+  /**
+   * Gets the number of accepted connections currently going through the SASL handshake, if the server has
+   * {@link ProtonServerOptions#setMaxHandshakingConnections(int) admission control} configured.
+   *
+   * @return the number of handshaking connections, or 0 without admission control
+   */
+  int getHandshakingConnectionCount();
+
+  /**
+   * Gets the number of accepted connections waiting to be admitted to the SASL handshake with the
+   * {@link ProtonAdmissionPolicy#QUEUE} admission policy.
+   *
+   * @return the number of queued connections
+   */
+  int getQueuedConnectionCount();
+
+  /**
+   * Gets the number of accepted connections rejected or closed by admission control since the server was created.
+   *
+   * @return the number of rejected connections
+   */
+  long getRejectedConnectionCount();
+
+  /**
+   * Drains the server ahead of a restart. New connections are refused, the receivers of the open connections stop
+   * granting credit, and once their unsettled deliveries settle (or the settle timeout passes) the connections are
+   * closed in batches with an amqp:connection:redirect condition, so their clients reconnect gradually rather than all
+   * at once. The server is closed after the last batch.
+   *
+   * @param options
+   *          the drain options
+   * @param handler
+   *          the completion handler, called once the server is closed
+   * @throws IllegalStateException
+   *           if the server is already draining
+   */
+  void drain(ProtonDrainOptions options, Handler<AsyncResult<Void>> handler);
+
   /**
    * Closes the server and any currently open connections. May not complete until after method has returned.
    */
@@ -15,6 +15,7 @@
 */
 package io.vertx.proton;
 
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -39,8 +40,19 @@ import io.vertx.core.net.TrustOptions;
 @DataObject(generateConverter = true, publicConverter = false)
 public class ProtonServerOptions extends NetServerOptions {
 
+  public static final int DEFAULT_MAX_HANDSHAKING_CONNECTIONS = 0;
+  public static final int DEFAULT_ACCEPT_RATE = 0;
+  public static final int DEFAULT_ACCEPT_BURST = 0;
+  public static final ProtonAdmissionPolicy DEFAULT_ADMISSION_POLICY = ProtonAdmissionPolicy.QUEUE;
+  public static final int DEFAULT_MAX_QUEUED_CONNECTIONS = 1024;
+
   private int heartbeat;
   private int maxFrameSize;
+  private int maxHandshakingConnections = DEFAULT_MAX_HANDSHAKING_CONNECTIONS;
+  private int acceptRate = DEFAULT_ACCEPT_RATE;
+  private int acceptBurst = DEFAULT_ACCEPT_BURST;
+  private ProtonAdmissionPolicy admissionPolicy = DEFAULT_ADMISSION_POLICY;
+  private int maxQueuedConnections = DEFAULT_MAX_QUEUED_CONNECTIONS;
 
   public ProtonServerOptions() {
   }
@@ -54,6 +66,11 @@ public class ProtonServerOptions extends NetServerOptions {
     super(other);
     this.heartbeat = other.heartbeat;
     this.maxFrameSize = other.maxFrameSize;
+    this.maxHandshakingConnections = other.maxHandshakingConnections;
+    this.acceptRate = other.acceptRate;
+    this.acceptBurst = other.acceptBurst;
+    this.admissionPolicy = other.admissionPolicy;
+    this.maxQueuedConnections = other.maxQueuedConnections;
   }
 
   /**
@@ -223,6 +240,11 @@ public class ProtonServerOptions extends NetServerOptions {
     int result = super.hashCode();
     result = prime * result + this.heartbeat;
     result = prime * result + this.maxFrameSize;
+    result = prime * result + this.maxHandshakingConnections;
+    result = prime * result + this.acceptRate;
+    result = prime * result + this.acceptBurst;
+    result = prime * result + this.admissionPolicy.hashCode();
+    result = prime * result + this.maxQueuedConnections;
 
     return result;
   }
@@ -248,6 +270,21 @@ public class ProtonServerOptions extends NetServerOptions {
     if (this.maxFrameSize != other.maxFrameSize) {
       return false;
     }
+    if (this.maxHandshakingConnections != other.maxHandshakingConnections) {
+      return false;
+    }
+    if (this.acceptRate != other.acceptRate) {
+      return false;
+    }
+    if (this.acceptBurst != other.acceptBurst) {
+      return false;
+    }
+    if (this.admissionPolicy != other.admissionPolicy) {
+      return false;
+    }
+    if (this.maxQueuedConnections != other.maxQueuedConnections) {
+      return false;
+    }
 
     return true;
   }
@@ -403,4 +440,123 @@ public class ProtonServerOptions extends NetServerOptions {
   public int getMaxFrameSize() {
     return maxFrameSize;
   }
+
+  /**
+   * Sets how many accepted connections may be going through the SASL handshake at once, or 0 for no limit. Connections
+   * accepted beyond the limit are handled according to the {@link #setAdmissionPolicy(ProtonAdmissionPolicy) admission
+   * policy}.
+   *
+   * @param maxHandshakingConnections the maximum number of handshaking connections
+   * @return current ProtonServerOptions instance
+   */
+  public ProtonServerOptions setMaxHandshakingConnections(int maxHandshakingConnections) {
+    if (maxHandshakingConnections < 0) {
+      throw new IllegalArgumentException("Max handshaking connections must not be negative");
+    }
+    this.maxHandshakingConnections = maxHandshakingConnections;
+    return this;
+  }
+
+  /**
+   * Gets how many accepted connections may be going through the SASL handshake at once.
+   *
+   * @return the maximum number of handshaking connections, or 0 for no limit
+   */
+  public int getMaxHandshakingConnections() {
+    return maxHandshakingConnections;
+  }
+
+  /**
+   * Sets how many connections per second may be admitted to the SASL handshake, or 0 for no limit. Connections
+   * accepted beyond the rate are handled according to the {@link #setAdmissionPolicy(ProtonAdmissionPolicy) admission
+   * policy}.
+   *
+   * @param acceptRate the number of connections admitted per second
+   * @return current ProtonServerOptions instance
+   */
+  public ProtonServerOptions setAcceptRate(int acceptRate) {
+    if (acceptRate < 0) {
+      throw new IllegalArgumentException("Accept rate must not be negative");
+    }
+    this.acceptRate = acceptRate;
+    return this;
+  }
+
+  /**
+   * Gets how many connections per second may be admitted to the SASL handshake.
+   *
+   * @return the number of connections admitted per second, or 0 for no limit
+   */
+  public int getAcceptRate() {
+    return acceptRate;
+  }
+
+  /**
+   * Sets how many connections may be admitted at once, above the {@link #setAcceptRate(int) accept rate}, after a
+   * quiet period, or 0 to allow as many as the rate per second.
+   *
+   * @param acceptBurst the number of connections admitted in a burst
+   * @return current ProtonServerOptions instance
+   */
+  public ProtonServerOptions setAcceptBurst(int acceptBurst) {
+    if (acceptBurst < 0) {
+      throw new IllegalArgumentException("Accept burst must not be negative");
+    }
+    this.acceptBurst = acceptBurst;
+    return this;
+  }
+
+  /**
+   * Gets how many connections may be admitted at once after a quiet period.
+   *
+   * @return the number of connections admitted in a burst, or 0 for as many as the rate per second
+   */
+  public int getAcceptBurst() {
+    return acceptBurst;
+  }
+
+  /**
+   * Sets what is done with connections accepted beyond the {@link #setMaxHandshakingConnections(int) handshake limit}
+   * or {@link #setAcceptRate(int) accept rate}.
+   *
+   * @param admissionPolicy the admission policy
+   * @return current ProtonServerOptions instance
+   */
+  public ProtonServerOptions setAdmissionPolicy(ProtonAdmissionPolicy admissionPolicy) {
+    this.admissionPolicy = Objects.requireNonNull(admissionPolicy, "Admission policy must not be null");
+    return this;
+  }
+
+  /**
+   * Gets what is done with connections accepted beyond the admission limits.
+   *
+   * @return the admission policy
+   */
+  public ProtonAdmissionPolicy getAdmissionPolicy() {
+    return admissionPolicy;
+  }
+
+  /**
+   * Sets how many connections may wait to be admitted with the {@link ProtonAdmissionPolicy#QUEUE} policy, beyond
+   * which they are closed.
+   *
+   * @param maxQueuedConnections the maximum number of waiting connections, must be positive
+   * @return current ProtonServerOptions instance
+   */
+  public ProtonServerOptions setMaxQueuedConnections(int maxQueuedConnections) {
+    if (maxQueuedConnections <= 0) {
+      throw new IllegalArgumentException("Max queued connections must be positive");
+    }
+    this.maxQueuedConnections = maxQueuedConnections;
+    return this;
+  }
+
+  /**
+   * Gets how many connections may wait to be admitted with the {@link ProtonAdmissionPolicy#QUEUE} policy.
+   *
+   * @return the maximum number of waiting connections
+   */
+  public int getMaxQueuedConnections() {
+    return maxQueuedConnections;
+  }
 }
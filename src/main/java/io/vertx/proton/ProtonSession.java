@@ -109,6 +109,36 @@ public interface ProtonSession {
    */
   ProtonSession setIncomingCapacity(int capacity);
 
+  /**
+   * Sets the incoming capacity to adapt to how quickly transfers are processed, starting at the given minimum. It grows
+   * towards the maximum while little of what is received is left buffered, and shrinks back towards the minimum when
+   * transfers build up or the {@link ProtonIncomingWindowBudget process wide budget} is nearly used. Calling
+   * {@link #setIncomingCapacity(int)} returns to a fixed capacity.
+   *
+   * @param minCapacity
+   *          minimum capacity in bytes, which should be at least the max frame size
+   * @param maxCapacity
+   *          maximum capacity in bytes
+   * @return the session
+   * @throws IllegalArgumentException
+   *           if minCapacity is not positive or maxCapacity is less than minCapacity
+   */
+  ProtonSession setAdaptiveIncomingCapacity(int minCapacity, int maxCapacity) throws IllegalArgumentException;
+
+  /**
+   * Sets a scheduler for the transfers of the senders on this session. Sent messages are then queued per sender and
+   * only released into the transport as the session window and the socket have room for them, in the order given by
+   * the policy and the senders' {@link ProtonSender#setTransferWeight(int) weights}, so that a sender with many
+   * messages to send does not hold up the others.
+   *
+   * @param policy
+   *          the scheduling policy, or null for transfers to be sent in the order they are sent by any sender
+   * @return the session
+   * @throws IllegalStateException
+   *           if removing the scheduler while it still has transfers queued
+   */
+  ProtonSession setTransferScheduling(ProtonTransferSchedulingPolicy policy) throws IllegalStateException;
+
   /**
    * Gets the incoming capacity in bytes, used to govern session-level flow control.
    *
@@ -166,6 +196,14 @@ public interface ProtonSession {
    */
   ProtonSession closeHandler(Handler<AsyncResult<ProtonSession>> remoteCloseHandler);
 
+  /**
+   * Gathers the memory currently held for the session's links: bytes of incoming transfers not yet processed, bytes of outgoing
+   * transfers not yet written out, and unsettled deliveries.
+   *
+   * @return the memory stats
+   */
+  ProtonMemoryStats getMemoryStats();
+
   /**
    * Tidies up related session resources when complete with use. Call only after the
    * session is finished with, i.e. locally and remotely closed.
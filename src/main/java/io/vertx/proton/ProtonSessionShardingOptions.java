@@ -0,0 +1,205 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import java.util.Objects;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options for spreading the links created directly on a connection across several sessions, rather than creating them
+ * all on its default session, so they are not all limited by one session window.
+ *
+ * @see ProtonConnection#setSessionSharding(ProtonSessionShardingOptions)
+ */
+@DataObject(generateConverter = true, publicConverter = false)
+public class ProtonSessionShardingOptions {
+
+  public static final int DEFAULT_SESSIONS = 1;
+  public static final ProtonSessionShardingPolicy DEFAULT_POLICY = ProtonSessionShardingPolicy.ROUND_ROBIN;
+  public static final int DEFAULT_INCOMING_CAPACITY = 0;
+  public static final long DEFAULT_OUTGOING_WINDOW = 0;
+
+  private int sessions = DEFAULT_SESSIONS;
+  private ProtonSessionShardingPolicy policy = DEFAULT_POLICY;
+  private int incomingCapacity = DEFAULT_INCOMING_CAPACITY;
+  private long outgoingWindow = DEFAULT_OUTGOING_WINDOW;
+
+  public ProtonSessionShardingOptions() {
+  }
+
+  /**
+   * Copy constructor, copies the configuration of the given options.
+   *
+   * @param other  the options to copy
+   */
+  public ProtonSessionShardingOptions(ProtonSessionShardingOptions other) {
+    this.sessions = other.sessions;
+    this.policy = other.policy;
+    this.incomingCapacity = other.incomingCapacity;
+    this.outgoingWindow = other.outgoingWindow;
+  }
+
+  /**
+   * Create options from JSON
+   *
+   * @param json  the JSON
+   */
+  public ProtonSessionShardingOptions(JsonObject json) {
+    ProtonSessionShardingOptionsConverter.fromJson(json, this);
+  }
+
+  /**
+   * Convert to JSON
+   *
+   * @return the JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    ProtonSessionShardingOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * Sets the number of sessions links are spread across, the first of which is the connection's default session.
+   *
+   * @param sessions the number of sessions, must be positive
+   * @return current ProtonSessionShardingOptions instance.
+   */
+  public ProtonSessionShardingOptions setSessions(int sessions) {
+    if (sessions <= 0) {
+      throw new IllegalArgumentException("Sessions must be positive");
+    }
+    this.sessions = sessions;
+    return this;
+  }
+
+  /**
+   * Gets the number of sessions links are spread across.
+   *
+   * @return the number of sessions
+   */
+  public int getSessions() {
+    return sessions;
+  }
+
+  /**
+   * Sets how links are assigned to the sessions.
+   *
+   * @param policy the sharding policy
+   * @return current ProtonSessionShardingOptions instance.
+   */
+  public ProtonSessionShardingOptions setPolicy(ProtonSessionShardingPolicy policy) {
+    this.policy = Objects.requireNonNull(policy, "Policy must not be null");
+    return this;
+  }
+
+  /**
+   * Gets how links are assigned to the sessions.
+   *
+   * @return the sharding policy
+   */
+  public ProtonSessionShardingPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Sets the incoming capacity in bytes of each session, see {@link ProtonSession#setIncomingCapacity(int)}, or 0 to
+   * use the session default.
+   *
+   * @param incomingCapacity the incoming capacity in bytes, or 0
+   * @return current ProtonSessionShardingOptions instance.
+   */
+  public ProtonSessionShardingOptions setIncomingCapacity(int incomingCapacity) {
+    if (incomingCapacity < 0) {
+      throw new IllegalArgumentException("Incoming capacity must not be negative");
+    }
+    this.incomingCapacity = incomingCapacity;
+    return this;
+  }
+
+  /**
+   * Gets the incoming capacity in bytes of each session.
+   *
+   * @return the incoming capacity in bytes, or 0 for the session default
+   */
+  public int getIncomingCapacity() {
+    return incomingCapacity;
+  }
+
+  /**
+   * Sets the outgoing window of each session, the number of transfers it may send before the peer widens its incoming
+   * window, or 0 to use the session default.
+   *
+   * @param outgoingWindow the outgoing window in transfers, or 0
+   * @return current ProtonSessionShardingOptions instance.
+   */
+  public ProtonSessionShardingOptions setOutgoingWindow(long outgoingWindow) {
+    if (outgoingWindow < 0) {
+      throw new IllegalArgumentException("Outgoing window must not be negative");
+    }
+    this.outgoingWindow = outgoingWindow;
+    return this;
+  }
+
+  /**
+   * Gets the outgoing window of each session.
+   *
+   * @return the outgoing window in transfers, or 0 for the session default
+   */
+  public long getOutgoingWindow() {
+    return outgoingWindow;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + sessions;
+    result = prime * result + policy.hashCode();
+    result = prime * result + incomingCapacity;
+    result = prime * result + Long.hashCode(outgoingWindow);
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || getClass() != obj.getClass()){
+      return false;
+    }
+
+    ProtonSessionShardingOptions other = (ProtonSessionShardingOptions) obj;
+    if (this.sessions != other.sessions) {
+      return false;
+    }
+    if (this.policy != other.policy) {
+      return false;
+    }
+    if (this.incomingCapacity != other.incomingCapacity) {
+      return false;
+    }
+    if (this.outgoingWindow != other.outgoingWindow) {
+      return false;
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,33 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * How links created directly on a connection are assigned to its sessions, see
+ * {@link ProtonSessionShardingOptions#setPolicy(ProtonSessionShardingPolicy)}.
+ */
+public enum ProtonSessionShardingPolicy {
+
+  /**
+   * Each new link is created on the session after the one the previous link was created on.
+   */
+  ROUND_ROBIN,
+
+  /**
+   * Links are created on a session chosen by the hash of their address, so links for the same address share a session.
+   */
+  ADDRESS_HASH
+}
@@ -0,0 +1,92 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import org.apache.qpid.proton.message.Message;
+
+import io.vertx.proton.impl.ProtonSpoolImpl;
+
+/**
+ * A local store-and-forward spool of outgoing messages, kept in memory-mapped segment files so they survive the peer
+ * being unreachable as well as a restart of the process.
+ *
+ * Messages are appended whether or not a sender is attached. While one is, they are sent over it as its credit
+ * allows, oldest first, and removed from the spool once the peer settles them. Messages whose outcome was never
+ * received, e.g. as the connection was lost, are sent again over the next sender attached, so the peer may see a
+ * message more than once.
+ *
+ * Must only be used from one context at a time, that of the attached sender's connection while one is attached.
+ */
+public interface ProtonSpool {
+
+  /**
+   * Opens the spool in the directory given by the options, recovering the messages left in it by an earlier process.
+   * Reads the directory, so is best not done on an event loop thread.
+   *
+   * @param options
+   *          the spool options
+   * @return the spool
+   * @throws io.vertx.core.VertxException
+   *           if the spool directory could not be read
+   */
+  static ProtonSpool open(ProtonSpoolOptions options) {
+    return new ProtonSpoolImpl(options);
+  }
+
+  /**
+   * Appends a message to the spool, sending it straight away if a sender is attached and has credit.
+   *
+   * @param message
+   *          the message to append
+   * @throws IllegalStateException
+   *           if the spool is at its disk usage limit
+   * @throws IllegalArgumentException
+   *           if the encoded message is larger than a segment
+   */
+  void append(Message message);
+
+  /**
+   * Attaches the sender to send the spooled messages over, replacing any attached earlier. Takes over the sender's
+   * {@link ProtonSender#sendQueueDrainHandler(io.vertx.core.Handler) send queue drain handler}.
+   *
+   * @param sender
+   *          the sender, which should be open or opening
+   * @return the spool
+   */
+  ProtonSpool attach(ProtonSender sender);
+
+  /**
+   * Stops sending over the attached sender, if any. Messages awaiting their outcome are kept, to be sent again.
+   *
+   * @return the spool
+   */
+  ProtonSpool detach();
+
+  /**
+   * @return the number of messages in the spool, including those sent but not yet settled by the peer
+   */
+  int size();
+
+  /**
+   * @return the disk space in bytes used by the spool's segment files
+   */
+  long getDiskUsage();
+
+  /**
+   * Detaches any sender and releases the segment files. The messages remain on disk for the spool to be opened again.
+   */
+  void close();
+}
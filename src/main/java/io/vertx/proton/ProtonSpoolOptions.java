@@ -0,0 +1,174 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import java.util.Objects;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options for a {@link ProtonSpool}, which keeps outgoing messages in a directory of fixed size segment files until
+ * the peer settles them.
+ *
+ * @see ProtonSpool#open(ProtonSpoolOptions)
+ */
+@DataObject(generateConverter = true, publicConverter = false)
+public class ProtonSpoolOptions {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+  public static final long DEFAULT_MAX_DISK_USAGE = 256L * 1024 * 1024;
+
+  private String directory;
+  private int segmentSize = DEFAULT_SEGMENT_SIZE;
+  private long maxDiskUsage = DEFAULT_MAX_DISK_USAGE;
+
+  public ProtonSpoolOptions() {
+  }
+
+  /**
+   * Copy constructor, copies the configuration of the given options.
+   *
+   * @param other  the options to copy
+   */
+  public ProtonSpoolOptions(ProtonSpoolOptions other) {
+    this.directory = other.directory;
+    this.segmentSize = other.segmentSize;
+    this.maxDiskUsage = other.maxDiskUsage;
+  }
+
+  /**
+   * Create options from JSON
+   *
+   * @param json  the JSON
+   */
+  public ProtonSpoolOptions(JsonObject json) {
+    ProtonSpoolOptionsConverter.fromJson(json, this);
+  }
+
+  /**
+   * Convert to JSON
+   *
+   * @return the JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    ProtonSpoolOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * Sets the directory holding the spool's segment files, which is created if needed. Must not be shared with
+   * another spool.
+   *
+   * @param directory the directory path
+   * @return current ProtonSpoolOptions instance.
+   */
+  public ProtonSpoolOptions setDirectory(String directory) {
+    this.directory = directory;
+    return this;
+  }
+
+  /**
+   * Gets the directory holding the spool's segment files.
+   *
+   * @return the directory path, or null if not set
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Sets the size of each segment file in bytes, which is also the largest encoded message the spool can hold.
+   *
+   * @param segmentSize the segment size
+   * @return current ProtonSpoolOptions instance.
+   */
+  public ProtonSpoolOptions setSegmentSize(int segmentSize) {
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Segment size must be positive");
+    }
+    this.segmentSize = segmentSize;
+    return this;
+  }
+
+  /**
+   * Gets the size of each segment file in bytes.
+   *
+   * @return the segment size
+   */
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Sets the most disk space in bytes the segment files may use. Once every segment it allows is in use, appending to
+   * the spool fails until the peer settles enough messages for the oldest segment to be deleted.
+   *
+   * @param maxDiskUsage the disk usage limit, at least the segment size
+   * @return current ProtonSpoolOptions instance.
+   */
+  public ProtonSpoolOptions setMaxDiskUsage(long maxDiskUsage) {
+    if (maxDiskUsage <= 0) {
+      throw new IllegalArgumentException("Max disk usage must be positive");
+    }
+    this.maxDiskUsage = maxDiskUsage;
+    return this;
+  }
+
+  /**
+   * Gets the most disk space in bytes the segment files may use.
+   *
+   * @return the disk usage limit
+   */
+  public long getMaxDiskUsage() {
+    return maxDiskUsage;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + Objects.hashCode(directory);
+    result = prime * result + segmentSize;
+    result = prime * result + Long.hashCode(maxDiskUsage);
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || getClass() != obj.getClass()){
+      return false;
+    }
+
+    ProtonSpoolOptions other = (ProtonSpoolOptions) obj;
+    if (!Objects.equals(this.directory, other.directory)) {
+      return false;
+    }
+    if (this.segmentSize != other.segmentSize) {
+      return false;
+    }
+    if (this.maxDiskUsage != other.maxDiskUsage) {
+      return false;
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+/**
+ * The order in which a session releases transfers queued by its senders, see
+ * {@link ProtonSession#setTransferScheduling(ProtonTransferSchedulingPolicy)}.
+ */
+public enum ProtonTransferSchedulingPolicy {
+
+  /**
+   * Senders take turns, each releasing transfers totalling a number of bytes proportional to its
+   * {@link ProtonSender#setTransferWeight(int) weight} per turn.
+   */
+  WEIGHTED_ROUND_ROBIN,
+
+  /**
+   * Transfers of the sender with the highest {@link ProtonSender#setTransferWeight(int) weight} are released before
+   * those of any other sender, senders of equal weight taking turns.
+   */
+  PRIORITY
+}
@@ -0,0 +1,173 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Resource limits of a virtual host served by a {@link ProtonServer}, isolating its connections from those of other
+ * virtual hosts on the same server. A limit of 0 means none.
+ *
+ * @see ProtonServer#virtualHostHandler(String, ProtonVirtualHostOptions, io.vertx.core.Handler)
+ */
+@DataObject(generateConverter = true, publicConverter = false)
+public class ProtonVirtualHostOptions {
+
+  private int maxConnections;
+  private int maxSessionIncomingCapacity;
+  private int maxUnsettled;
+
+  public ProtonVirtualHostOptions() {
+  }
+
+  /**
+   * Copy constructor, copies the configuration of the given options.
+   *
+   * @param other  the options to copy
+   */
+  public ProtonVirtualHostOptions(ProtonVirtualHostOptions other) {
+    this.maxConnections = other.maxConnections;
+    this.maxSessionIncomingCapacity = other.maxSessionIncomingCapacity;
+    this.maxUnsettled = other.maxUnsettled;
+  }
+
+  /**
+   * Create options from JSON
+   *
+   * @param json  the JSON
+   */
+  public ProtonVirtualHostOptions(JsonObject json) {
+    ProtonVirtualHostOptionsConverter.fromJson(json, this);
+  }
+
+  /**
+   * Convert to JSON
+   *
+   * @return the JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    ProtonVirtualHostOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * Sets the most connections the virtual host may have open at once. Connections beyond it are closed with an
+   * amqp:resource-limit-exceeded condition.
+   *
+   * @param maxConnections the connection limit, or 0 for none
+   * @return current ProtonVirtualHostOptions instance.
+   */
+  public ProtonVirtualHostOptions setMaxConnections(int maxConnections) {
+    if (maxConnections < 0) {
+      throw new IllegalArgumentException("Max connections must not be negative");
+    }
+    this.maxConnections = maxConnections;
+    return this;
+  }
+
+  /**
+   * Gets the most connections the virtual host may have open at once.
+   *
+   * @return the connection limit, or 0 for none
+   */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Sets the most incoming capacity in bytes any session on the virtual host's connections may have, bounding the
+   * unprocessed transfers each can buffer. Any larger capacity the application sets is reduced to it.
+   *
+   * @param maxSessionIncomingCapacity the capacity limit in bytes, or 0 for none
+   * @return current ProtonVirtualHostOptions instance.
+   */
+  public ProtonVirtualHostOptions setMaxSessionIncomingCapacity(int maxSessionIncomingCapacity) {
+    if (maxSessionIncomingCapacity < 0) {
+      throw new IllegalArgumentException("Max session incoming capacity must not be negative");
+    }
+    this.maxSessionIncomingCapacity = maxSessionIncomingCapacity;
+    return this;
+  }
+
+  /**
+   * Gets the most incoming capacity in bytes any session on the virtual host's connections may have.
+   *
+   * @return the capacity limit in bytes, or 0 for none
+   */
+  public int getMaxSessionIncomingCapacity() {
+    return maxSessionIncomingCapacity;
+  }
+
+  /**
+   * Sets the most deliveries each receiver on the virtual host's connections may have unsettled or credited at once.
+   * Prefetch credit beyond it is withheld until enough deliveries settle.
+   *
+   * @param maxUnsettled the unsettled limit per receiver, or 0 for none
+   * @return current ProtonVirtualHostOptions instance.
+   */
+  public ProtonVirtualHostOptions setMaxUnsettled(int maxUnsettled) {
+    if (maxUnsettled < 0) {
+      throw new IllegalArgumentException("Max unsettled must not be negative");
+    }
+    this.maxUnsettled = maxUnsettled;
+    return this;
+  }
+
+  /**
+   * Gets the most deliveries each receiver on the virtual host's connections may have unsettled or credited at once.
+   *
+   * @return the unsettled limit per receiver, or 0 for none
+   */
+  public int getMaxUnsettled() {
+    return maxUnsettled;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + maxConnections;
+    result = prime * result + maxSessionIncomingCapacity;
+    result = prime * result + maxUnsettled;
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || getClass() != obj.getClass()){
+      return false;
+    }
+
+    ProtonVirtualHostOptions other = (ProtonVirtualHostOptions) obj;
+    if (this.maxConnections != other.maxConnections) {
+      return false;
+    }
+    if (this.maxSessionIncomingCapacity != other.maxSessionIncomingCapacity) {
+      return false;
+    }
+    if (this.maxUnsettled != other.maxUnsettled) {
+      return false;
+    }
+
+    return true;
+  }
+}
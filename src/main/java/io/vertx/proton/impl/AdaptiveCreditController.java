@@ -0,0 +1,199 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes the outstanding credit of a receiver to roughly cover the messages it can process during one round trip of a
+ * credit grant, i.e. processing rate x RTT, kept within configured bounds. The round trip is measured from sending
+ * each flow to the arrival of the first transfer using its credit, transfers using credit in the order granted.
+ *
+ * Not thread safe, used from the connection context only.
+ */
+class AdaptiveCreditController {
+
+  // Weight given to each new sample in the moving averages
+  private static final double SMOOTHING = 0.2;
+
+  private final int minCredit;
+  private final int maxCredit;
+  private int targetCredit;
+
+  // Number of recent round trip samples whose minimum is used, see sampleRoundTrip
+  private static final int ROUND_TRIP_WINDOW = 8;
+
+  private double avgHandlerNanos = -1;
+  private final long[] roundTripSamples = new long[ROUND_TRIP_WINDOW];
+  private int roundTripSampleCount;
+  private int nextRoundTripSample;
+  private long minRoundTripNanos = -1;
+
+  // Flows awaiting the first transfer using their credit, as that transfer's number and the flow's send time. Any
+  // flows beyond these simply go unsampled.
+  private static final int MAX_PENDING_FLOWS = 16;
+  private final long[] pendingFlowTransfers = new long[MAX_PENDING_FLOWS];
+  private final long[] pendingFlowTimes = new long[MAX_PENDING_FLOWS];
+  private int pendingFlowHead;
+  private int pendingFlowCount;
+  private long creditSent;
+  private long arrivals;
+
+  private long exhaustedAt = -1;
+  private long starvationNanos;
+
+  AdaptiveCreditController(int minCredit, int maxCredit) {
+    if (minCredit <= 0) {
+      throw new IllegalArgumentException("Min credit must be positive");
+    }
+
+    if (maxCredit < minCredit) {
+      throw new IllegalArgumentException("Max credit must not be less than min credit");
+    }
+
+    this.minCredit = minCredit;
+    this.maxCredit = maxCredit;
+    this.targetCredit = minCredit;
+  }
+
+  int getTargetCredit() {
+    return targetCredit;
+  }
+
+  /**
+   * @return the total time in milliseconds between the sender using up its credit and the receiver sending more
+   */
+  long getStarvationTime() {
+    long total = starvationNanos;
+    if (exhaustedAt >= 0) {
+      total += System.nanoTime() - exhaustedAt;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(total);
+  }
+
+  /**
+   * Called as each transfer arrives, including any not passed on to the handler, with the credit the sender has left
+   * after it.
+   */
+  void onArrival(int remainingCredit, long now) {
+    arrivals++;
+    while (pendingFlowCount > 0 && pendingFlowTransfers[pendingFlowHead] <= arrivals) {
+      if (pendingFlowTransfers[pendingFlowHead] == arrivals) {
+        // The sender can't have sent this before getting the flow, so this is at least a round trip
+        sampleRoundTrip(now - pendingFlowTimes[pendingFlowHead]);
+      }
+      pendingFlowHead = (pendingFlowHead + 1) % MAX_PENDING_FLOWS;
+      pendingFlowCount--;
+    }
+
+    if (remainingCredit <= 0 && exhaustedAt < 0) {
+      // The sender was sending up to this point and now can't, starvation lasts until credit is sent again.
+      exhaustedAt = now;
+    }
+  }
+
+  /**
+   * Called as the given credit is actually sent to the sender, after any limits withheld it.
+   */
+  void onCreditSent(int credit, long now) {
+    if (exhaustedAt >= 0) {
+      starvationNanos += now - exhaustedAt;
+      exhaustedAt = -1;
+    }
+
+    if (pendingFlowCount < MAX_PENDING_FLOWS) {
+      int index = (pendingFlowHead + pendingFlowCount) % MAX_PENDING_FLOWS;
+      pendingFlowTransfers[index] = creditSent + 1;
+      pendingFlowTimes[index] = now;
+      pendingFlowCount++;
+    }
+    creditSent += credit;
+  }
+
+  /**
+   * Called when the link was re-attached, its transfers then being counted afresh.
+   */
+  void onReattach() {
+    pendingFlowCount = 0;
+    creditSent = 0;
+    arrivals = 0;
+    exhaustedAt = -1;
+  }
+
+  /**
+   * Called once a delivery was handled, with the time the handler took.
+   */
+  void onHandled(long handlerNanos) {
+    double sample = Math.max(handlerNanos, 1);
+    if (avgHandlerNanos < 0) {
+      avgHandlerNanos = sample;
+    } else {
+      avgHandlerNanos += SMOOTHING * (sample - avgHandlerNanos);
+    }
+
+    recalculate();
+  }
+
+  /**
+   * Determines how much credit should be granted given the current outstanding credit.
+   *
+   * @return the credit to grant, possibly 0
+   */
+  int creditToGrant(int outstanding) {
+    int deficit = targetCredit - outstanding;
+    if (deficit <= 0) {
+      return 0;
+    }
+
+    // The sender has nothing left to send us, or enough was used to be worth a flow frame.
+    if (outstanding <= 0 || deficit >= Math.max(1, targetCredit / 4)) {
+      return deficit;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Records a credit round trip. A sender that had nothing to send when the credit arrived, or was still sending on
+   * earlier credit, only inflates a sample, so the minimum of the recent samples is used rather than an average.
+   */
+  private void sampleRoundTrip(long rttNanos) {
+    roundTripSamples[nextRoundTripSample] = Math.max(rttNanos, 1);
+    nextRoundTripSample = (nextRoundTripSample + 1) % ROUND_TRIP_WINDOW;
+    roundTripSampleCount = Math.min(roundTripSampleCount + 1, ROUND_TRIP_WINDOW);
+
+    long min = Long.MAX_VALUE;
+    for (int i = 0; i < roundTripSampleCount; i++) {
+      min = Math.min(min, roundTripSamples[i]);
+    }
+    minRoundTripNanos = min;
+
+    recalculate();
+  }
+
+  private void recalculate() {
+    if (avgHandlerNanos < 0 || minRoundTripNanos < 0) {
+      return;
+    }
+
+    double inFlight = Math.ceil(minRoundTripNanos / avgHandlerNanos);
+    if (inFlight >= maxCredit) {
+      targetCredit = maxCredit;
+    } else {
+      targetCredit = Math.max(minCredit, (int) inFlight);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Adapts the incoming capacity of a session to how quickly its transfers are processed. Once a full window of bytes
+ * has been received the capacity is doubled if the application holds little of it, while it is halved if the
+ * application still holds much of the window or the {@link IncomingWindowBudget} is under pressure. What the
+ * application holds is estimated from the received deliveries it has not yet settled, at the average transfer size
+ * of the window. Capacity above the minimum is only granted as far as the budget allows.
+ */
+class AdaptiveSessionWindow {
+
+  private final int minCapacity;
+  private final int maxCapacity;
+  private int capacity;
+  private long received;
+  private int transfers;
+  private boolean released;
+
+  AdaptiveSessionWindow(int minCapacity, int maxCapacity) {
+    this.minCapacity = minCapacity;
+    this.maxCapacity = maxCapacity;
+    this.capacity = minCapacity;
+    IncomingWindowBudget.reserve(minCapacity);
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Called when a transfer of the given size has been received and read from the session.
+   *
+   * @param bytes the size of the transfer
+   * @param heldDeliveries the other received deliveries of the session not yet settled by the application, only
+   *          counted once a full window has been received
+   * @return the capacity to apply, which is unchanged unless a full window was received since the last adjustment
+   */
+  int onReceived(int bytes, IntSupplier heldDeliveries) {
+    received += bytes;
+    transfers++;
+    if (received < capacity || released) {
+      return capacity;
+    }
+
+    long held = heldDeliveries.getAsInt() * (received / transfers);
+    received = 0;
+    transfers = 0;
+
+    if (held > capacity / 2 || IncomingWindowBudget.isUnderPressure()) {
+      int target = Math.max(minCapacity, capacity / 2);
+      IncomingWindowBudget.release(capacity - target);
+      capacity = target;
+    } else if (held < capacity / 4 && capacity < maxCapacity) {
+      long wanted = Math.min((long) maxCapacity, capacity * 2L) - capacity;
+      capacity += (int) IncomingWindowBudget.tryReserve(wanted);
+    }
+
+    return capacity;
+  }
+
+  /**
+   * Returns the capacity to the budget, once the session has ended or stopped adapting.
+   */
+  void release() {
+    if (!released) {
+      released = true;
+      IncomingWindowBudget.release(capacity);
+    }
+  }
+}
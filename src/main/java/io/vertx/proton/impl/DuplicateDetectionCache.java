@@ -0,0 +1,279 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.UnsignedLong;
+
+import io.vertx.proton.ProtonDuplicateDetectionStats;
+
+/**
+ * Bounded cache of recently seen message-ids, used to detect duplicates.
+ *
+ * Only message-ids are considered, messages without one are never duplicates. Delivery tags are not used, as they are
+ * only unique among the unsettled deliveries of a link, so a redelivery after a failover may well have a new one.
+ *
+ * Message-ids are hashed to 64 bit keys, held in an open addressing table of primitive longs, with a ring of the
+ * keys in arrival order used to evict the oldest entry once the capacity is reached, or entries older than the
+ * configured time window. Distinct ids hashing to the same key would be reported as duplicates, which is only likely
+ * for caches holding billions of entries.
+ *
+ * Not thread safe, used from the connection context only.
+ */
+class DuplicateDetectionCache implements ProtonDuplicateDetectionStats {
+
+  private static final long EMPTY = 0;
+
+  // Seeds per message-id type, so e.g. the string "1" and the ulong 1 hash differently
+  private static final long STRING_SEED = 0xcbf29ce484222325L;
+  private static final long BINARY_SEED = 0x84222325cbf29ce4L;
+  private static final long UUID_SEED = 0x9e3779b97f4a7c15L;
+  private static final long ULONG_SEED = 0xc2b2ae3d27d4eb4fL;
+  private static final long OTHER_SEED = 0x165667b19e3779f9L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final int capacity;
+  private final long windowNanos;
+
+  private final long[] ring;
+  private final long[] ringTimes;
+  private int head;
+  private int size;
+
+  private final long[] table;
+  private final int mask;
+
+  private long lookups;
+  private long duplicates;
+
+  DuplicateDetectionCache(int capacity, long windowMillis) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+
+    if (windowMillis < 0) {
+      throw new IllegalArgumentException("Window must not be negative");
+    }
+
+    this.capacity = capacity;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.ring = new long[capacity];
+    this.ringTimes = windowMillis > 0 ? new long[capacity] : null;
+
+    // Keep the table at most half full
+    int tableSize = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+    this.table = new long[tableSize];
+    this.mask = tableSize - 1;
+  }
+
+  /**
+   * Checks whether the given message-id was seen recently, without remembering it.
+   *
+   * @param messageId
+   *          the message-id, may be null in which case the message is never considered a duplicate
+   * @return true if the message-id was seen recently
+   */
+  boolean isDuplicate(Object messageId) {
+    return isDuplicate(messageId, System.nanoTime());
+  }
+
+  boolean isDuplicate(Object messageId, long now) {
+    if (messageId == null) {
+      return false;
+    }
+
+    if (ringTimes != null) {
+      expire(now);
+    }
+
+    lookups++;
+    if (contains(hash(messageId))) {
+      duplicates++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Remembers the given message-id, unless it already is.
+   *
+   * @param messageId
+   *          the message-id, ignored if null
+   */
+  void add(Object messageId) {
+    add(messageId, System.nanoTime());
+  }
+
+  void add(Object messageId, long now) {
+    if (messageId == null) {
+      return;
+    }
+
+    if (ringTimes != null) {
+      expire(now);
+    }
+
+    long key = hash(messageId);
+    if (contains(key)) {
+      return;
+    }
+
+    if (size == capacity) {
+      removeOldest();
+    }
+
+    int index = (head + size) % capacity;
+    ring[index] = key;
+    if (ringTimes != null) {
+      ringTimes[index] = now;
+    }
+    size++;
+    insert(key);
+  }
+
+  @Override
+  public long getLookups() {
+    return lookups;
+  }
+
+  @Override
+  public long getDuplicates() {
+    return duplicates;
+  }
+
+  @Override
+  public double getHitRate() {
+    return lookups == 0 ? 0 : (double) duplicates / lookups;
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    long longs = ring.length + table.length + (ringTimes == null ? 0 : ringTimes.length);
+    return longs * Long.BYTES;
+  }
+
+  private void expire(long now) {
+    while (size > 0 && now - ringTimes[head] > windowNanos) {
+      removeOldest();
+    }
+  }
+
+  private void removeOldest() {
+    remove(ring[head]);
+    head = (head + 1) % capacity;
+    size--;
+  }
+
+  private int slot(long key) {
+    return (int) (key ^ (key >>> 32)) & mask;
+  }
+
+  private boolean contains(long key) {
+    int i = slot(key);
+    long existing;
+    while ((existing = table[i]) != EMPTY) {
+      if (existing == key) {
+        return true;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  private void insert(long key) {
+    int i = slot(key);
+    while (table[i] != EMPTY) {
+      i = (i + 1) & mask;
+    }
+    table[i] = key;
+  }
+
+  private void remove(long key) {
+    int hole = slot(key);
+    while (table[hole] != key) {
+      if (table[hole] == EMPTY) {
+        return;
+      }
+      hole = (hole + 1) & mask;
+    }
+
+    // Shift back any following entries which could no longer be found across the hole
+    int i = hole;
+    while (true) {
+      i = (i + 1) & mask;
+      long next = table[i];
+      if (next == EMPTY) {
+        break;
+      }
+
+      int ideal = slot(next);
+      boolean reachable = hole <= i ? (ideal > hole && ideal <= i) : (ideal > hole || ideal <= i);
+      if (!reachable) {
+        table[hole] = next;
+        hole = i;
+      }
+    }
+    table[hole] = EMPTY;
+  }
+
+  static long hash(Object messageId) {
+    long h;
+    if (messageId instanceof String) {
+      String s = (String) messageId;
+      h = STRING_SEED;
+      for (int i = 0; i < s.length(); i++) {
+        h ^= s.charAt(i);
+        h *= FNV_PRIME;
+      }
+    } else if (messageId instanceof UUID) {
+      UUID uuid = (UUID) messageId;
+      h = mix(uuid.getMostSignificantBits() ^ UUID_SEED) ^ uuid.getLeastSignificantBits();
+    } else if (messageId instanceof UnsignedLong) {
+      h = ((UnsignedLong) messageId).longValue() ^ ULONG_SEED;
+    } else if (messageId instanceof Binary) {
+      Binary binary = (Binary) messageId;
+      byte[] array = binary.getArray();
+      int end = binary.getArrayOffset() + binary.getLength();
+      h = BINARY_SEED;
+      for (int i = binary.getArrayOffset(); i < end; i++) {
+        h ^= array[i] & 0xff;
+        h *= FNV_PRIME;
+      }
+    } else {
+      h = messageId.hashCode() ^ OTHER_SEED;
+    }
+
+    h = mix(h);
+    return h == EMPTY ? 1 : h;
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
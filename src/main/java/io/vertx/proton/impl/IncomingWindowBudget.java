@@ -0,0 +1,82 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide accounting of the incoming capacity granted to sessions in adaptive window mode, which is the most they
+ * can together buffer of transfers not yet processed.
+ */
+public final class IncomingWindowBudget {
+
+  // Reservations beyond this fraction of the limit ask sessions to shrink their windows
+  private static final double PRESSURE_THRESHOLD = 0.9;
+
+  private static final AtomicLong limit = new AtomicLong(Long.MAX_VALUE);
+  private static final AtomicLong reserved = new AtomicLong();
+
+  private IncomingWindowBudget() {
+  }
+
+  public static void setLimit(long bytes) {
+    if (bytes <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    limit.set(bytes);
+  }
+
+  public static long getLimit() {
+    return limit.get();
+  }
+
+  public static long getReserved() {
+    return reserved.get();
+  }
+
+  /**
+   * Reserves up to the given number of bytes, as far as the limit allows.
+   *
+   * @return the number of bytes reserved
+   */
+  static long tryReserve(long bytes) {
+    while (true) {
+      long current = reserved.get();
+      long granted = Math.min(bytes, limit.get() - current);
+      if (granted <= 0) {
+        return 0;
+      }
+      if (reserved.compareAndSet(current, current + granted)) {
+        return granted;
+      }
+    }
+  }
+
+  /**
+   * Reserves the given number of bytes regardless of the limit, for the minimum capacity of a session.
+   */
+  static void reserve(long bytes) {
+    reserved.addAndGet(bytes);
+  }
+
+  static void release(long bytes) {
+    reserved.addAndGet(-bytes);
+  }
+
+  static boolean isUnderPressure() {
+    return reserved.get() > limit.get() * PRESSURE_THRESHOLD;
+  }
+}
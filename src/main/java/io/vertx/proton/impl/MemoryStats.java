@@ -0,0 +1,86 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.EnumSet;
+
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Session;
+
+import io.vertx.proton.ProtonMemoryStats;
+
+final class MemoryStats implements ProtonMemoryStats {
+  private static final EnumSet<EndpointState> ANY = EnumSet.allOf(EndpointState.class);
+
+  private final long incomingBytes;
+  private final long outgoingBytes;
+  private final int unsettled;
+
+  MemoryStats(long incomingBytes, long outgoingBytes, int unsettled) {
+    this.incomingBytes = incomingBytes;
+    this.outgoingBytes = outgoingBytes;
+    this.unsettled = unsettled;
+  }
+
+  /**
+   * Gathers the memory held for all the links of the given connection, or only for those of the given session if not
+   * null. The session buffers hold most of it, the links only what they copied out of them or have yet to send.
+   */
+  static MemoryStats gather(Connection connection, Session session) {
+    long incoming = 0;
+    long outgoing = 0;
+    int unsettled = 0;
+
+    Session current = session != null ? session : connection.sessionHead(ANY, ANY);
+    while (current != null) {
+      incoming += current.getIncomingBytes();
+      outgoing += current.getOutgoingBytes();
+      current = session != null ? null : current.next(ANY, ANY);
+    }
+
+    Link link = connection.linkHead(ANY, ANY);
+    while (link != null) {
+      if (session == null || link.getSession() == session) {
+        unsettled += link.getUnsettled();
+        if (link.getContext() instanceof ProtonLinkImpl) {
+          ProtonLinkImpl<?> linkImpl = (ProtonLinkImpl<?>) link.getContext();
+          incoming += linkImpl.getRetainedIncomingBytes();
+          outgoing += linkImpl.getRetainedOutgoingBytes();
+        }
+      }
+      link = link.next(ANY, ANY);
+    }
+
+    return new MemoryStats(incoming, outgoing, unsettled);
+  }
+
+  @Override
+  public long getIncomingBytes() {
+    return incomingBytes;
+  }
+
+  @Override
+  public long getOutgoingBytes() {
+    return outgoingBytes;
+  }
+
+  @Override
+  public int getUnsettledCount() {
+    return unsettled;
+  }
+}
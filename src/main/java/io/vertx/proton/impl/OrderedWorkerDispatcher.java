@@ -0,0 +1,261 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Modified;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.engine.Record;
+import org.apache.qpid.proton.message.Message;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonMessageHandler;
+
+/**
+ * Dispatches received messages to a worker pool for handling, with at most a given number handled in parallel, and
+ * messages sharing an ordering key handled one at a time in arrival order.
+ *
+ * Dispositions applied by the handler are recorded and then applied on the connection context once the handler
+ * returns, together with any other completions that are pending at the time, followed by a single flush.
+ */
+class OrderedWorkerDispatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OrderedWorkerDispatcher.class);
+
+  private final ProtonReceiverImpl receiver;
+  private final ContextInternal context;
+  private final WorkerExecutor executor;
+  private final int parallelism;
+  private final Function<Message, Object> keyExtractor;
+  private final ProtonMessageHandler handler;
+
+  // Only accessed on the connection context
+  private final Map<Object, ArrayDeque<Task>> keyQueues = new HashMap<>();
+  private final ArrayDeque<Task> ready = new ArrayDeque<>();
+  private int inFlight;
+
+  // Filled from worker threads, emptied on the connection context
+  private final ConcurrentLinkedQueue<Task> completed = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean completionsScheduled = new AtomicBoolean();
+
+  OrderedWorkerDispatcher(ProtonReceiverImpl receiver, ContextInternal context, WorkerExecutor executor,
+                          int parallelism, Function<Message, Object> keyExtractor, ProtonMessageHandler handler) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+
+    this.receiver = receiver;
+    this.context = context;
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.keyExtractor = keyExtractor;
+    this.handler = handler;
+  }
+
+  int getInFlight() {
+    return inFlight;
+  }
+
+  void dispatch(ProtonDeliveryImpl delivery, Message message) {
+    Object key = keyExtractor == null ? null : keyExtractor.apply(message);
+    Task task = new Task(delivery, message, key);
+
+    if (key != null) {
+      ArrayDeque<Task> queue = keyQueues.get(key);
+      if (queue != null) {
+        // An earlier message with the same key is still pending, wait behind it.
+        queue.add(task);
+        return;
+      }
+      keyQueues.put(key, new ArrayDeque<>());
+    }
+
+    if (inFlight < parallelism) {
+      execute(task);
+    } else {
+      ready.add(task);
+    }
+  }
+
+  private void execute(Task task) {
+    inFlight++;
+
+    Handler<Promise<Void>> blockingCode = promise -> {
+      try {
+        handler.handle(task.workerDelivery, task.message);
+      } catch (Throwable t) {
+        task.failure = t;
+      }
+
+      completed.add(task);
+      if (completionsScheduled.compareAndSet(false, true)) {
+        context.runOnContext(x -> processCompletions());
+      }
+
+      promise.complete();
+    };
+
+    if (executor != null) {
+      executor.executeBlocking(blockingCode, false);
+    } else {
+      context.owner().executeBlocking(blockingCode, false);
+    }
+  }
+
+  private void processCompletions() {
+    completionsScheduled.set(false);
+
+    int count = 0;
+    Task task;
+    while ((task = completed.poll()) != null) {
+      count++;
+      inFlight--;
+      applyOutcome(task);
+
+      if (task.key != null) {
+        ArrayDeque<Task> queue = keyQueues.get(task.key);
+        Task next = queue.poll();
+        if (next != null) {
+          ready.add(next);
+        } else {
+          keyQueues.remove(task.key);
+        }
+      }
+    }
+
+    if (count > 0) {
+      receiver.onWorkerCompletions(count);
+    }
+
+    while (inFlight < parallelism && !ready.isEmpty()) {
+      execute(ready.poll());
+    }
+  }
+
+  private void applyOutcome(Task task) {
+    ProtonDeliveryImpl delivery = task.delivery;
+    WorkerDelivery recorded = task.workerDelivery;
+
+    if (task.failure != null) {
+      LOG.warn("Worker message handler failed", task.failure);
+    }
+
+    if (recorded.state != null) {
+      delivery.applyDisposition(recorded.state, recorded.settle);
+    } else if (recorded.settle) {
+      delivery.applyDisposition(delivery.getLocalState(), true);
+    } else if (task.failure != null) {
+      Modified modified = new Modified();
+      modified.setDeliveryFailed(true);
+      delivery.applyDisposition(modified, true);
+    } else if (receiver.isAutoAccept() && delivery.getLocalState() == null) {
+      delivery.applyDisposition(Accepted.getInstance(), true);
+    }
+  }
+
+  private static final class Task {
+    private final ProtonDeliveryImpl delivery;
+    private final WorkerDelivery workerDelivery;
+    private final Message message;
+    private final Object key;
+    private volatile Throwable failure;
+
+    Task(ProtonDeliveryImpl delivery, Message message, Object key) {
+      this.delivery = delivery;
+      this.workerDelivery = new WorkerDelivery(delivery);
+      this.message = message;
+      this.key = key;
+    }
+  }
+
+  /**
+   * The delivery given to handlers running on worker threads. Dispositions are recorded, to be applied on the
+   * connection context once the handler returns, rather than updating the underlying delivery directly.
+   */
+  private static final class WorkerDelivery implements ProtonDelivery {
+    private final ProtonDeliveryImpl delivery;
+    private volatile DeliveryState state;
+    private volatile boolean settle;
+
+    WorkerDelivery(ProtonDeliveryImpl delivery) {
+      this.delivery = delivery;
+    }
+
+    @Override
+    public ProtonDelivery disposition(DeliveryState state, boolean settle) {
+      if (!this.settle) {
+        this.state = state;
+        this.settle = settle;
+      }
+      return this;
+    }
+
+    @Override
+    public DeliveryState getLocalState() {
+      DeliveryState recorded = state;
+      return recorded != null ? recorded : delivery.getLocalState();
+    }
+
+    @Override
+    public DeliveryState getRemoteState() {
+      return delivery.getRemoteState();
+    }
+
+    @Override
+    public ProtonDelivery settle() {
+      settle = true;
+      return this;
+    }
+
+    @Override
+    public boolean isSettled() {
+      return settle || delivery.isSettled();
+    }
+
+    @Override
+    public boolean remotelySettled() {
+      return delivery.remotelySettled();
+    }
+
+    @Override
+    public Record attachments() {
+      return delivery.attachments();
+    }
+
+    @Override
+    public byte[] getTag() {
+      return delivery.getTag();
+    }
+
+    @Override
+    public int getMessageFormat() {
+      return delivery.getMessageFormat();
+    }
+  }
+}
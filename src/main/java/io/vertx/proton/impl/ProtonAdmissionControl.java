@@ -0,0 +1,171 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetSocket;
+import io.vertx.proton.ProtonAdmissionPolicy;
+import io.vertx.proton.ProtonServerOptions;
+
+/**
+ * Limits how many accepted connections a server lets into the SASL handshake at once and per second, queueing,
+ * rejecting or closing the rest according to the admission policy.
+ *
+ * Must only be used from the server's context, on which its connections are also handled.
+ */
+class ProtonAdmissionControl {
+
+  private final Vertx vertx;
+  private final int maxHandshaking;
+  private final TokenBucket acceptRate;
+  private final ProtonAdmissionPolicy policy;
+  private final int maxQueued;
+  private final BiConsumer<NetSocket, Runnable> handshakeStarter;
+  private final Handler<NetSocket> rejecter;
+
+  private final ArrayDeque<NetSocket> queue = new ArrayDeque<>();
+  // Written only from the server's context, but may be read from anywhere
+  private volatile int handshaking;
+  private volatile int queued;
+  private volatile long rejected;
+  private Long drainTimerId;
+
+  /**
+   * @param handshakeStarter starts the handshake on an admitted socket, running the given callback once it ends
+   * @param rejecter refuses a socket with a SASL temporary failure
+   */
+  ProtonAdmissionControl(Vertx vertx, ProtonServerOptions options, BiConsumer<NetSocket, Runnable> handshakeStarter,
+                         Handler<NetSocket> rejecter) {
+    this.vertx = vertx;
+    this.maxHandshaking = options.getMaxHandshakingConnections();
+    this.acceptRate = options.getAcceptRate() > 0
+        ? new TokenBucket(options.getAcceptRate(), options.getAcceptBurst(), System.nanoTime()) : null;
+    this.policy = options.getAdmissionPolicy();
+    this.maxQueued = options.getMaxQueuedConnections();
+    this.handshakeStarter = handshakeStarter;
+    this.rejecter = rejecter;
+  }
+
+  static boolean isEnabled(ProtonServerOptions options) {
+    return options.getMaxHandshakingConnections() > 0 || options.getAcceptRate() > 0;
+  }
+
+  void accept(NetSocket socket) {
+    // Those already waiting go first
+    if (queue.isEmpty() && tryReserve()) {
+      admit(socket);
+      return;
+    }
+
+    switch (policy) {
+    case QUEUE:
+      if (queue.size() < maxQueued) {
+        socket.pause();
+        socket.closeHandler(x -> {
+          if (queue.remove(socket)) {
+            queued = queue.size();
+          }
+        });
+        queue.add(socket);
+        queued = queue.size();
+        scheduleDrain();
+      } else {
+        rejected++;
+        socket.close();
+      }
+      break;
+    case REJECT:
+      rejected++;
+      rejecter.handle(socket);
+      break;
+    default:
+      rejected++;
+      socket.close();
+    }
+  }
+
+  int getHandshakingCount() {
+    return handshaking;
+  }
+
+  int getQueuedCount() {
+    return queued;
+  }
+
+  long getRejectedCount() {
+    return rejected;
+  }
+
+  private boolean tryReserve() {
+    if (maxHandshaking > 0 && handshaking >= maxHandshaking) {
+      return false;
+    }
+
+    if (acceptRate != null && !acceptRate.tryTake(1, System.nanoTime())) {
+      return false;
+    }
+
+    handshaking++;
+    return true;
+  }
+
+  private void admit(NetSocket socket) {
+    boolean[] ended = new boolean[1];
+    Runnable handshakeEnded = () -> {
+      if (!ended[0]) {
+        ended[0] = true;
+        handshaking--;
+        drain();
+      }
+    };
+
+    // Covers the socket closing before the handshake completes
+    socket.closeHandler(x -> handshakeEnded.run());
+    handshakeStarter.accept(socket, handshakeEnded);
+  }
+
+  private void drain() {
+    while (!queue.isEmpty() && tryReserve()) {
+      NetSocket socket = queue.poll();
+      queued = queue.size();
+      admit(socket);
+      socket.resume();
+    }
+
+    scheduleDrain();
+  }
+
+  /**
+   * Schedules the queue to be drained when the accept rate next allows, unless only waiting for handshakes to end.
+   */
+  private void scheduleDrain() {
+    if (queue.isEmpty() || acceptRate == null || drainTimerId != null
+        || (maxHandshaking > 0 && handshaking >= maxHandshaking)) {
+      return;
+    }
+
+    long delay = TimeUnit.NANOSECONDS.toMillis(acceptRate.nanosUntilAvailable(1, System.nanoTime()));
+    drainTimerId = vertx.setTimer(Math.max(delay, 1), x -> {
+      drainTimerId = null;
+      drain();
+    });
+  }
+}
@@ -0,0 +1,145 @@
+/*
+* Copyright 2016, 2017 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import org.apache.qpid.proton.engine.EndpointState;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.net.NetClient;
+import io.vertx.proton.ProtonClientOptions;
+
+/**
+ * Re-establishes a client connection lost while still open, with exponential backoff between attempts, binding the
+ * existing connection to the new transport so its sessions and links are re-opened in place.
+ */
+class ProtonAutoReconnect {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProtonAutoReconnect.class);
+
+  private final Vertx vertx;
+  private final ProtonConnectionImpl conn;
+  private final ProtonClientOptions options;
+  private final String host;
+  private final int port;
+  private final String username;
+  private final String password;
+
+  private boolean reconnecting;
+  private int attempts;
+  private long disconnectedAt;
+  private ProtonClientImpl.ConnectCompletionHandler pending;
+
+  ProtonAutoReconnect(Vertx vertx, ProtonConnectionImpl conn, ProtonClientOptions options, String host, int port,
+                      String username, String password) {
+    this.vertx = vertx;
+    this.conn = conn;
+    this.options = new ProtonClientOptions(options);
+    this.host = host;
+    this.port = port;
+    this.username = username;
+    this.password = password;
+  }
+
+  /**
+   * Called when the transport was lost, including that of a failed reconnect attempt.
+   *
+   * @return true if reconnecting, false if the disconnect should be handled as usual
+   */
+  boolean handleDisconnect() {
+    if (!reconnecting) {
+      if (conn.getLocalState() != EndpointState.ACTIVE) {
+        // Never opened, or closed locally, so nothing to recover
+        return false;
+      }
+
+      reconnecting = true;
+      attempts = 0;
+      disconnectedAt = System.nanoTime();
+      LOG.debug("Connection to " + host + ":" + port + " lost, reconnecting");
+    } else if (pending != null && !pending.isComplete()) {
+      pending.handle(Future.failedFuture(new VertxException("Disconnected")));
+    }
+    pending = null;
+
+    return scheduleAttempt();
+  }
+
+  private boolean scheduleAttempt() {
+    int maxAttempts = options.getAutoReconnectAttempts();
+    if (maxAttempts >= 0 && attempts >= maxAttempts) {
+      LOG.debug("Giving up reconnecting to " + host + ":" + port + " after " + attempts + " attempts");
+      reconnecting = false;
+      conn.setAutoReconnect(null);
+      return false;
+    }
+
+    // Doubles with each attempt, without shifting past the point it would overflow
+    long delay = options.getAutoReconnectInitialDelay() << Math.min(attempts, 30);
+    if (delay <= 0 || delay > options.getAutoReconnectMaxDelay()) {
+      delay = options.getAutoReconnectMaxDelay();
+    }
+    attempts++;
+
+    vertx.setTimer(Math.max(delay, 1), x -> attempt());
+    return true;
+  }
+
+  private void attempt() {
+    if (conn.getLocalState() != EndpointState.ACTIVE) {
+      // Closed while waiting to reconnect
+      reconnecting = false;
+      conn.setAutoReconnect(null);
+      conn.fireDisconnect();
+      return;
+    }
+
+    NetClient netClient = vertx.createNetClient(options);
+    ProtonClientImpl.ConnectCompletionHandler completion = new ProtonClientImpl.ConnectCompletionHandler(res -> {
+      if (res.succeeded()) {
+        reconnecting = false;
+        attempts = 0;
+        LOG.debug("Reconnected to " + host + ":" + port + " after "
+            + (System.nanoTime() - disconnectedAt) / 1_000_000 + "ms");
+      }
+      // A failure disconnects the transport, which leads to the next attempt
+    }, netClient);
+    pending = completion;
+
+    netClient.connect(port, host, ProtonClientImpl.serverName(options), res -> {
+      if (completion != pending) {
+        return;
+      }
+
+      if (res.succeeded()) {
+        ProtonSaslClientAuthenticatorImpl authenticator = new ProtonSaslClientAuthenticatorImpl(username, password,
+            options.getEnabledSaslMechanisms(), completion);
+        conn.rebindClient(netClient, res.result(), authenticator, ProtonClientImpl.transportOptions(options));
+        conn.flush();
+      } else {
+        LOG.debug("Reconnect attempt to " + host + ":" + port + " failed", res.cause());
+        completion.handle(Future.failedFuture(res.cause()));
+        pending = null;
+        if (!scheduleAttempt()) {
+          conn.fireDisconnect();
+        }
+      }
+    });
+  }
+}
@@ -15,6 +15,8 @@
 */
 package io.vertx.proton.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -27,6 +29,7 @@ import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.net.NetClient;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.proton.ProtonClient;
 import io.vertx.proton.ProtonClientOptions;
 import io.vertx.proton.ProtonConnection;
@@ -40,6 +43,7 @@ public class ProtonClientImpl implements ProtonClient {
 
   private static final Logger LOG = LoggerFactory.getLogger(ProtonClientImpl.class);
   private final Vertx vertx;
+  private final ProtonEndpointSelector endpointSelector = new ProtonEndpointSelector();
 
   public ProtonClientImpl(Vertx vertx) {
     this.vertx = vertx;
@@ -65,16 +69,107 @@ public class ProtonClientImpl implements ProtonClient {
     connectNetClient(netClient, host, port, username, password, new ConnectCompletionHandler(handler, netClient), options);
   }
 
+  @Override
+  public void connect(ProtonClientOptions options, List<SocketAddress> endpoints, String username, String password,
+                      Handler<AsyncResult<ProtonConnection>> handler) {
+    if (endpoints == null || endpoints.isEmpty()) {
+      throw new IllegalArgumentException("At least one endpoint must be given");
+    }
+
+    List<SocketAddress> ordered = endpointSelector.order(endpoints, options.getEndpointSelectionPolicy(), System.nanoTime());
+    new EndpointRace(options, ordered, username, password, handler).start();
+  }
+
+  /**
+   * Connects to the ordered endpoints, up to the parallel attempt limit at once, until one completes SASL negotiation.
+   */
+  private final class EndpointRace {
+    private final ProtonClientOptions options;
+    private final List<SocketAddress> endpoints;
+    private final String username;
+    private final String password;
+    private final Handler<AsyncResult<ProtonConnection>> handler;
+    private final List<ConnectCompletionHandler> inFlight = new ArrayList<>();
+    private int next;
+    private boolean done;
+
+    EndpointRace(ProtonClientOptions options, List<SocketAddress> endpoints, String username, String password,
+                 Handler<AsyncResult<ProtonConnection>> handler) {
+      this.options = options;
+      this.endpoints = endpoints;
+      this.username = username;
+      this.password = password;
+      this.handler = handler;
+    }
+
+    synchronized void start() {
+      int parallel = Math.min(options.getParallelConnectAttempts(), endpoints.size());
+      for (int i = 0; i < parallel; i++) {
+        attemptNext();
+      }
+    }
+
+    private void attemptNext() {
+      SocketAddress endpoint = endpoints.get(next++);
+      long start = System.nanoTime();
+      NetClient netClient = vertx.createNetClient(options);
+
+      ConnectCompletionHandler[] completion = new ConnectCompletionHandler[1];
+      completion[0] = new ConnectCompletionHandler(res -> attemptDone(completion[0], endpoint, start, res), netClient);
+      inFlight.add(completion[0]);
+
+      connectNetClient(netClient, endpoint.host(), endpoint.port(), username, password, completion[0], options);
+    }
+
+    private synchronized void attemptDone(ConnectCompletionHandler completion, SocketAddress endpoint, long start,
+                                          AsyncResult<ProtonConnection> res) {
+      inFlight.remove(completion);
+      if (done) {
+        if (res.succeeded()) {
+          // Lost the race
+          res.result().disconnect();
+        }
+        return;
+      }
+
+      long now = System.nanoTime();
+      if (res.succeeded()) {
+        endpointSelector.connected(endpoint, now - start);
+        done = true;
+
+        List<ConnectCompletionHandler> losers = new ArrayList<>(inFlight);
+        inFlight.clear();
+        for (ConnectCompletionHandler loser : losers) {
+          // Closes the client, and with it any connection underway
+          loser.handle(Future.failedFuture(new VertxException("Cancelled, another endpoint connected first")));
+        }
+
+        handler.handle(res);
+        return;
+      }
+
+      LOG.debug("Connect attempt to " + endpoint + " failed", res.cause());
+      endpointSelector.failed(endpoint, options.getEndpointCooldown(), now);
+
+      if (next < endpoints.size()) {
+        attemptNext();
+      } else if (inFlight.isEmpty()) {
+        done = true;
+        handler.handle(res);
+      }
+    }
+  }
+
   private void connectNetClient(NetClient netClient, String host, int port, String username, String password,
                                 ConnectCompletionHandler connectHandler, ProtonClientOptions options) {
 
-    String serverName = options.getSniServerName() != null ? options.getSniServerName() :
-      (options.getVirtualHost() != null ? options.getVirtualHost() : null);
-
-    netClient.connect(port, host, serverName, res -> {
+    netClient.connect(port, host, serverName(options), res -> {
       if (res.succeeded()) {
         String virtualHost = options.getVirtualHost() != null ? options.getVirtualHost() : host;
         ProtonConnectionImpl conn = new ProtonConnectionImpl(vertx, virtualHost, (ContextInternal) Vertx.currentContext());
+        if (options.isAutoReconnect()) {
+          conn.setAutoReconnect(new ProtonAutoReconnect(vertx, conn, options, host, port, username, password));
+        }
         conn.disconnectHandler(h -> {
           LOG.trace("Connection disconnected");
           if(!connectHandler.isComplete()) {
@@ -82,14 +177,27 @@ public class ProtonClientImpl implements ProtonClient {
           }
         });
 
+        if (options.isPipelinedOpen()) {
+          // Hand the connection over straight away, so what the application opens and sends goes out together as
+          // soon as the SASL negotiation, which is reported through the open handler instead, allows.
+          ProtonSaslClientAuthenticatorImpl authenticator = new ProtonSaslClientAuthenticatorImpl(username, password,
+                  options.getEnabledSaslMechanisms(), true, saslResult -> {
+                    if (saslResult.failed()) {
+                      conn.fireOpenFailure(saslResult.cause());
+                    }
+                  });
+
+          conn.setPipelinedOpen(true);
+          conn.bindClient(netClient, res.result(), authenticator, transportOptions(options));
+          connectHandler.handle(Future.succeededFuture(conn));
+          conn.flush();
+          return;
+        }
+
         ProtonSaslClientAuthenticatorImpl authenticator = new ProtonSaslClientAuthenticatorImpl(username, password,
                 options.getEnabledSaslMechanisms(), connectHandler);
 
-        ProtonTransportOptions transportOptions = new ProtonTransportOptions();
-        transportOptions.setHeartbeat(options.getHeartbeat());
-        transportOptions.setMaxFrameSize(options.getMaxFrameSize());
-
-        conn.bindClient(netClient, res.result(), authenticator, transportOptions);
+        conn.bindClient(netClient, res.result(), authenticator, transportOptions(options));
 
         // Need to flush here to get the SASL process going, or it will wait until calls on the connection are processed
         // later (e.g open()).
@@ -100,6 +208,18 @@ public class ProtonClientImpl implements ProtonClient {
     });
   }
 
+  static String serverName(ProtonClientOptions options) {
+    return options.getSniServerName() != null ? options.getSniServerName() :
+      (options.getVirtualHost() != null ? options.getVirtualHost() : null);
+  }
+
+  static ProtonTransportOptions transportOptions(ProtonClientOptions options) {
+    ProtonTransportOptions transportOptions = new ProtonTransportOptions();
+    transportOptions.setHeartbeat(options.getHeartbeat());
+    transportOptions.setMaxFrameSize(options.getMaxFrameSize());
+    return transportOptions;
+  }
+
   static class ConnectCompletionHandler implements Handler<AsyncResult<ProtonConnection>> {
     private AtomicBoolean completed = new AtomicBoolean();
     private Handler<AsyncResult<ProtonConnection>> applicationConnectHandler;
@@ -25,15 +25,21 @@ import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.NetSocket;
 import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonLinkLimitOptions;
 import io.vertx.proton.ProtonLinkOptions;
+import io.vertx.proton.ProtonMemoryStats;
+import io.vertx.proton.ProtonRateLimitOptions;
 import io.vertx.proton.ProtonReceiver;
 import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonSenderCache;
 import io.vertx.proton.ProtonSession;
+import io.vertx.proton.ProtonSessionShardingOptions;
 import io.vertx.proton.ProtonTransportOptions;
 import io.vertx.proton.sasl.ProtonSaslAuthenticator;
 
 import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.transport.ConnectionError;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.EndpointState;
@@ -45,11 +51,14 @@ import org.apache.qpid.proton.engine.Session;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static io.vertx.proton.ProtonHelper.future;
 
@@ -61,8 +70,10 @@ public class ProtonConnectionImpl implements ProtonConnection {
   private static final Logger LOG = LoggerFactory.getLogger(ProtonConnectionImpl.class);
 
   public static final Symbol ANONYMOUS_RELAY = Symbol.valueOf("ANONYMOUS-RELAY");
+  private static final Symbol NETWORK_HOST = Symbol.valueOf("network-host");
+  private static final Symbol PORT = Symbol.valueOf("port");
 
-  private final Connection connection = Proton.connection();
+  private Connection connection = Proton.connection();
   private final Vertx vertx;
   private final ContextInternal connCtx;
   private ProtonTransport transport;
@@ -91,14 +102,37 @@ public class ProtonConnectionImpl implements ProtonConnection {
   private Handler<ProtonReceiver> receiverOpenHandler = (receiver) -> {
     receiver.setCondition(new ErrorCondition(Symbol.getSymbol("Not Supported"), ""));
   };
+  private Handler<ProtonConnectionImpl> linkEndHandler;
+  private Handler<ProtonConnectionImpl> remoteOpenHandler;
   private boolean anonymousRelaySupported;
   private ProtonSession defaultSession;
+  private ProtonSessionShardingOptions shardingOptions;
+  private ProtonSession[] shards;
+  private int nextShard;
+  private ProtonAutoReconnect autoReconnect;
+  private boolean reopening;
+  private boolean pipelinedOpen;
+  private ProtonRateLimiter rateLimiter;
+  private boolean creditSuspended;
+  // Limits of the virtual host the connection was dispatched to, 0 if none
+  private int maxSessionIncomingCapacity;
+  private int maxUnsettled;
+  private ProtonLinkLimitOptions linkLimits;
+  // Counted for the connection registry
+  private long messagesIn;
+  private long messagesOut;
+  // Sessions to re-open following a reconnect, only tracked if reconnecting automatically
+  private final List<ProtonSessionImpl> sessions = new ArrayList<>();
+  private final List<ProtonTransferScheduler> transferSchedulers = new ArrayList<>(0);
+  private final List<AdaptiveSessionWindow> adaptiveWindows = new ArrayList<>(0);
 
   ProtonConnectionImpl(Vertx vertx, String hostname, ContextInternal connCtx) {
     this.vertx = vertx;
     this.connCtx = connCtx;
     this.connection.setContext(this);
-    this.connection.setContainer("vert.x-" + UUID.randomUUID());
+    // Needs to be unique rather than unpredictable, so avoids the contended SecureRandom behind UUID.randomUUID()
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    this.connection.setContainer("vert.x-" + new UUID(random.nextLong(), random.nextLong()));
     this.connection.setHostname(hostname);
 
     Map<Symbol, Object> props = createInitialPropertiesMap();
@@ -245,50 +279,110 @@ public class ProtonConnectionImpl implements ProtonConnection {
 
   @Override
   public ProtonSessionImpl createSession() {
-    return new ProtonSessionImpl(connection.session());
+    ProtonSessionImpl session = new ProtonSessionImpl(connection.session());
+    if (autoReconnect != null) {
+      sessions.add(session);
+    }
+    return session;
   }
 
   private ProtonSession getDefaultSession() {
     if (defaultSession == null) {
-      defaultSession = createSession();
-      defaultSession.closeHandler(result -> {
-        String msg = "The connections default session closed unexpectedly";
-        if (!result.succeeded()) {
-          msg += ": ";
-          msg += ": " + String.valueOf(result.cause());
-        }
-        Future<ProtonConnection> failure = Future.failedFuture(msg);
-        Handler<AsyncResult<ProtonConnection>> connCloseHandler = closeHandler;
-        if (connCloseHandler != null) {
-          connCloseHandler.handle(failure);
-        }
-      });
-
-      defaultSession.open();
-      // Deliberately not flushing, the sender/receiver open
-      // call will do that (if it doesn't happen otherwise).
+      defaultSession = createSharedSession();
     }
     return defaultSession;
   }
 
+  private ProtonSession createSharedSession() {
+    ProtonSession session = createSession();
+    session.closeHandler(result -> {
+      String msg = "The connections default session closed unexpectedly";
+      if (!result.succeeded()) {
+        msg += ": ";
+        msg += ": " + String.valueOf(result.cause());
+      }
+      Future<ProtonConnection> failure = Future.failedFuture(msg);
+      Handler<AsyncResult<ProtonConnection>> connCloseHandler = closeHandler;
+      if (connCloseHandler != null) {
+        connCloseHandler.handle(failure);
+      }
+    });
+
+    if (shardingOptions != null) {
+      ProtonSessionImpl sessionImpl = (ProtonSessionImpl) session;
+      if (shardingOptions.getIncomingCapacity() > 0) {
+        sessionImpl.setIncomingCapacity(shardingOptions.getIncomingCapacity());
+      }
+      if (shardingOptions.getOutgoingWindow() > 0) {
+        sessionImpl.setOutgoingWindow(shardingOptions.getOutgoingWindow());
+      }
+    }
+
+    session.open();
+    // Deliberately not flushing, the sender/receiver open
+    // call will do that (if it doesn't happen otherwise).
+    return session;
+  }
+
+  private ProtonSession getSession(String address) {
+    if (shards == null) {
+      return getDefaultSession();
+    }
+
+    int index;
+    switch (shardingOptions.getPolicy()) {
+    case ADDRESS_HASH:
+      index = Math.floorMod(Objects.hashCode(address), shards.length);
+      break;
+    default:
+      index = nextShard;
+      nextShard = (nextShard + 1) % shards.length;
+      break;
+    }
+
+    if (shards[index] == null) {
+      shards[index] = index == 0 ? getDefaultSession() : createSharedSession();
+    }
+    return shards[index];
+  }
+
+  @Override
+  public ProtonConnection setSessionSharding(ProtonSessionShardingOptions shardingOptions) {
+    if (shardingOptions == null || shardingOptions.getSessions() == 1 && shardingOptions.getIncomingCapacity() == 0
+        && shardingOptions.getOutgoingWindow() == 0) {
+      this.shardingOptions = null;
+      this.shards = null;
+    } else {
+      this.shardingOptions = new ProtonSessionShardingOptions(shardingOptions);
+      this.shards = new ProtonSession[shardingOptions.getSessions()];
+      this.nextShard = 0;
+    }
+    return this;
+  }
+
   @Override
   public ProtonSender createSender(String address) {
-    return getDefaultSession().createSender(address);
+    return getSession(address).createSender(address);
   }
 
   @Override
   public ProtonSender createSender(String address, ProtonLinkOptions senderOptions) {
-      return getDefaultSession().createSender(address, senderOptions);
+      return getSession(address).createSender(address, senderOptions);
   }
 
   @Override
   public ProtonReceiver createReceiver(String address) {
-    return getDefaultSession().createReceiver(address);
+    return getSession(address).createReceiver(address);
   }
 
   @Override
   public ProtonReceiver createReceiver(String address, ProtonLinkOptions receiverOptions) {
-      return getDefaultSession().createReceiver(address, receiverOptions);
+      return getSession(address).createReceiver(address, receiverOptions);
+  }
+
+  @Override
+  public ProtonSenderCache createSenderCache(int maxSenders, long idleTimeout) {
+    return new ProtonSenderCacheImpl(this, vertx, maxSenders, idleTimeout);
   }
 
   public void flush() {
@@ -299,6 +393,8 @@ public class ProtonConnectionImpl implements ProtonConnection {
 
   @Override
   public void disconnect() {
+    // An explicit disconnect is never reconnected
+    autoReconnect = null;
     if (transport != null) {
       transport.disconnect();
     }
@@ -364,11 +460,62 @@ public class ProtonConnectionImpl implements ProtonConnection {
   void fireRemoteOpen() {
     processCapabilities();
 
+    if (reopening) {
+      // Re-opened after a reconnect, the application already handled the original open.
+      reopening = false;
+      return;
+    }
+
+    if (remoteOpenHandler != null) {
+      remoteOpenHandler.handle(this);
+    }
+
     if (openHandler != null) {
       openHandler.handle(future(this, getRemoteCondition()));
     }
   }
 
+  /**
+   * Sets a handler called when the peer's open arrives, ahead of the open handler, e.g. to dispatch the connection by
+   * the hostname it names.
+   */
+  void remoteOpenHandler(Handler<ProtonConnectionImpl> remoteOpenHandler) {
+    this.remoteOpenHandler = remoteOpenHandler;
+  }
+
+  @Override
+  public ProtonConnection setRateLimit(ProtonRateLimitOptions options) {
+    // Receivers withholding credit pick up a lifted limit on their next rate limit tick
+    rateLimiter = options != null ? new ProtonRateLimiter(options, System.nanoTime()) : null;
+    return this;
+  }
+
+  ProtonRateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  void setPipelinedOpen(boolean pipelinedOpen) {
+    this.pipelinedOpen = pipelinedOpen;
+  }
+
+  /**
+   * @return whether the connection was handed to the application before its SASL negotiation completed, so the
+   *         application may have sent on links before knowing whether they would attach
+   */
+  boolean isPipelinedOpen() {
+    return pipelinedOpen;
+  }
+
+  /**
+   * Fails the open handler of a connection handed to the application before its SASL negotiation completed, which
+   * has since failed.
+   */
+  void fireOpenFailure(Throwable cause) {
+    if (openHandler != null) {
+      openHandler.handle(Future.failedFuture(cause));
+    }
+  }
+
   void fireRemoteClose() {
     if (closeHandler != null) {
       closeHandler.handle(future(this, getRemoteCondition()));
@@ -377,6 +524,15 @@ public class ProtonConnectionImpl implements ProtonConnection {
 
   public void fireDisconnect() {
     transport = null;
+    if (autoReconnect != null && autoReconnect.handleDisconnect()) {
+      return;
+    }
+
+    // Sessions do not necessarily get closed or freed, but can no longer receive anything
+    for (AdaptiveSessionWindow window : adaptiveWindows) {
+      window.release();
+    }
+    adaptiveWindows.clear();
     if (disconnectHandler != null) {
       disconnectHandler.handle(this);
     }
@@ -393,6 +549,80 @@ public class ProtonConnectionImpl implements ProtonConnection {
     transport = new ProtonTransport(connection, vertx, client, socket, authenticator, transportOptions);
   }
 
+  /**
+   * Binds to a new transport following a reconnect, replacing the underlying connection with an equivalent one and
+   * re-opening the sessions and links which were open on the previous one.
+   */
+  void rebindClient(NetClient client, NetSocket socket, ProtonSaslClientAuthenticatorImpl authenticator,
+                    ProtonTransportOptions transportOptions) {
+    Connection previous = connection;
+    Connection fresh = Proton.connection();
+    fresh.setContext(this);
+    fresh.setContainer(previous.getContainer());
+    fresh.setHostname(previous.getHostname());
+    fresh.setProperties(previous.getProperties());
+    fresh.setOfferedCapabilities(previous.getOfferedCapabilities());
+    fresh.setDesiredCapabilities(previous.getDesiredCapabilities());
+
+    connection = fresh;
+    anonymousRelaySupported = false;
+    transport = new ProtonTransport(fresh, vertx, client, socket, authenticator, transportOptions);
+
+    reopening = true;
+    fresh.open();
+
+    Iterator<ProtonSessionImpl> iter = sessions.iterator();
+    while (iter.hasNext()) {
+      ProtonSessionImpl session = iter.next();
+      if (session.getLocalState() == EndpointState.ACTIVE) {
+        session.reopen(fresh);
+      } else {
+        iter.remove();
+      }
+    }
+  }
+
+  void setAutoReconnect(ProtonAutoReconnect autoReconnect) {
+    this.autoReconnect = autoReconnect;
+  }
+
+  boolean isAutoReconnect() {
+    return autoReconnect != null;
+  }
+
+  void removeSession(ProtonSessionImpl session) {
+    sessions.remove(session);
+  }
+
+  void addAdaptiveWindow(AdaptiveSessionWindow window) {
+    adaptiveWindows.add(window);
+  }
+
+  void removeAdaptiveWindow(AdaptiveSessionWindow window) {
+    adaptiveWindows.remove(window);
+  }
+
+  void addTransferScheduler(ProtonTransferScheduler scheduler) {
+    transferSchedulers.add(scheduler);
+  }
+
+  void removeTransferScheduler(ProtonTransferScheduler scheduler) {
+    transferSchedulers.remove(scheduler);
+  }
+
+  /**
+   * Releases transfers queued by session transfer schedulers into the transport, as far as there is room for them.
+   *
+   * @return whether any transfer was released
+   */
+  boolean releaseScheduledTransfers() {
+    boolean released = false;
+    for (int i = 0; i < transferSchedulers.size(); i++) {
+      released |= transferSchedulers.get(i).release();
+    }
+    return released;
+  }
+
   void bindServer(NetSocket socket, ProtonSaslAuthenticator authenticator, ProtonTransportOptions transportOptions) {
     transport = new ProtonTransport(connection, vertx, null, socket, authenticator, transportOptions);
   }
@@ -415,6 +645,150 @@ public class ProtonConnectionImpl implements ProtonConnection {
     }
   }
 
+  /**
+   * Sets a handler called when the peer detaches or closes a link, e.g. to track the link count.
+   */
+  void linkEndHandler(Handler<ProtonConnectionImpl> linkEndHandler) {
+    this.linkEndHandler = linkEndHandler;
+  }
+
+  void fireLinkEnd() {
+    if (linkEndHandler != null) {
+      linkEndHandler.handle(this);
+    }
+  }
+
+  /**
+   * @return the number of links on the connection which are not yet closed either locally or remotely
+   */
+  int getLinkCount() {
+    EnumSet<EndpointState> notClosed = EnumSet.of(EndpointState.UNINITIALIZED, EndpointState.ACTIVE);
+
+    int count = 0;
+    Link link = connection.linkHead(notClosed, notClosed);
+    while (link != null) {
+      count++;
+      link = link.next(notClosed, notClosed);
+    }
+    return count;
+  }
+
+  /**
+   * Stops the connection's receivers granting any more credit, whether by prefetch or explicitly.
+   */
+  void suspendCredit() {
+    creditSuspended = true;
+  }
+
+  boolean isCreditSuspended() {
+    return creditSuspended;
+  }
+
+  /**
+   * Limits the incoming capacity of the sessions created on the connection from then on.
+   *
+   * @param bytes the most incoming capacity a session may have, or 0 for no limit
+   */
+  void setMaxSessionIncomingCapacity(int bytes) {
+    this.maxSessionIncomingCapacity = bytes;
+  }
+
+  int getMaxSessionIncomingCapacity() {
+    return maxSessionIncomingCapacity;
+  }
+
+  /**
+   * Limits the deliveries each of the connection's receivers has unsettled or credited at once, withholding prefetch
+   * credit beyond it until enough deliveries settle.
+   *
+   * @param maxUnsettled the most unsettled deliveries per receiver, or 0 for no limit
+   */
+  void setMaxUnsettled(int maxUnsettled) {
+    this.maxUnsettled = maxUnsettled;
+  }
+
+  int getMaxUnsettled() {
+    return maxUnsettled;
+  }
+
+  /**
+   * Sets hard limits on the memory each of the connection's links may hold, closing those exceeding them.
+   *
+   * @param linkLimits the limits, or null for none
+   */
+  void setLinkLimits(ProtonLinkLimitOptions linkLimits) {
+    this.linkLimits = linkLimits;
+  }
+
+  ProtonLinkLimitOptions getLinkLimits() {
+    return linkLimits;
+  }
+
+  @Override
+  public ProtonMemoryStats getMemoryStats() {
+    return MemoryStats.gather(connection, null);
+  }
+
+  /**
+   * @return a redirect error condition, with the address to reconnect to if a host is given
+   */
+  static ErrorCondition redirectCondition(String description, String host, int port) {
+    ErrorCondition redirect = new ErrorCondition(ConnectionError.REDIRECT, description);
+    if (host != null) {
+      Map<Symbol, Object> info = new LinkedHashMap<>();
+      info.put(NETWORK_HOST, host);
+      info.put(PORT, port);
+      redirect.setInfo(info);
+    }
+    return redirect;
+  }
+
+  /**
+   * @return the number of sessions on the connection which are not yet closed either locally or remotely
+   */
+  int getSessionCount() {
+    EnumSet<EndpointState> notClosed = EnumSet.of(EndpointState.UNINITIALIZED, EndpointState.ACTIVE);
+
+    int count = 0;
+    Session session = connection.sessionHead(notClosed, notClosed);
+    while (session != null) {
+      count++;
+      session = session.next(notClosed, notClosed);
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of deliveries on the connection's links which are not yet settled
+   */
+  int getUnsettledCount() {
+    EnumSet<EndpointState> any = EnumSet.allOf(EndpointState.class);
+
+    int count = 0;
+    Link link = connection.linkHead(any, any);
+    while (link != null) {
+      count += link.getUnsettled();
+      link = link.next(any, any);
+    }
+    return count;
+  }
+
+  void countIncomingMessage() {
+    messagesIn++;
+  }
+
+  void countOutgoingMessage() {
+    messagesOut++;
+  }
+
+  long getMessagesIn() {
+    return messagesIn;
+  }
+
+  long getMessagesOut() {
+    return messagesOut;
+  }
+
   public void addEndHandler(Handler<Void> handler) {
     endHandlers.add(handler);
   }
@@ -0,0 +1,256 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.proton.ProtonClientOptions;
+import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonConnectionPool;
+import io.vertx.proton.ProtonConnectionPoolOptions;
+import io.vertx.proton.ProtonReceiver;
+import io.vertx.proton.ProtonSender;
+
+public class ProtonConnectionPoolImpl implements ProtonConnectionPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProtonConnectionPoolImpl.class);
+
+  private final Vertx vertx;
+  private final ProtonConnectionPoolOptions poolOptions;
+  private final ProtonClientOptions clientOptions;
+  private final String host;
+  private final int port;
+  private final String username;
+  private final String password;
+  private final Member[] members;
+  private volatile boolean closed;
+
+  public ProtonConnectionPoolImpl(Vertx vertx, ProtonConnectionPoolOptions poolOptions,
+                                  ProtonClientOptions clientOptions, String host, int port, String username,
+                                  String password) {
+    this.vertx = vertx;
+    this.poolOptions = new ProtonConnectionPoolOptions(poolOptions);
+    this.clientOptions = new ProtonClientOptions(clientOptions);
+    this.host = host;
+    this.port = port;
+    this.username = username;
+    this.password = password;
+
+    // Each new event loop context is assigned the next event loop, spreading the connections across them.
+    this.members = new Member[poolOptions.getSize()];
+    for (int i = 0; i < members.length; i++) {
+      members[i] = new Member(((VertxInternal) vertx).createEventLoopContext());
+    }
+  }
+
+  @Override
+  public ProtonConnectionPool open(Handler<AsyncResult<ProtonConnectionPool>> openHandler) {
+    AtomicInteger remaining = new AtomicInteger(members.length);
+    Handler<Void> attemptDone = x -> {
+      if (remaining.decrementAndGet() == 0) {
+        if (getOpenConnectionCount() > 0) {
+          openHandler.handle(Future.succeededFuture(this));
+        } else {
+          openHandler.handle(Future.failedFuture(new VertxException("Unable to open any pooled connection")));
+        }
+      }
+    };
+
+    for (Member member : members) {
+      member.connect(attemptDone);
+    }
+
+    return this;
+  }
+
+  @Override
+  public void createSender(String address, Handler<AsyncResult<ProtonSender>> handler) {
+    createLink(conn -> conn.createSender(address), handler);
+  }
+
+  @Override
+  public void createReceiver(String address, Handler<AsyncResult<ProtonReceiver>> handler) {
+    createLink(conn -> conn.createReceiver(address), handler);
+  }
+
+  @Override
+  public int getOpenConnectionCount() {
+    int count = 0;
+    for (Member member : members) {
+      if (member.connection != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (Member member : members) {
+      member.context.runOnContext(x -> member.close());
+    }
+  }
+
+  private <T> void createLink(Function<ProtonConnection, T> factory, Handler<AsyncResult<T>> handler) {
+    Member member = reserve();
+    if (member == null) {
+      handler.handle(Future.failedFuture(new VertxException("No pooled connection available")));
+      return;
+    }
+
+    member.context.runOnContext(x -> {
+      ProtonConnectionImpl conn = member.connection;
+      if (conn == null) {
+        member.load.decrementAndGet();
+        handler.handle(Future.failedFuture(new VertxException("Pooled connection was lost")));
+        return;
+      }
+
+      T link = factory.apply(conn);
+      handler.handle(Future.succeededFuture(link));
+
+      // Account for any links freed or added meanwhile
+      member.load.set(conn.getLinkCount());
+    });
+  }
+
+  /**
+   * Selects the open connection with the fewest links which is below the link limit, reserving a link on it.
+   *
+   * @return the selected member, or null if there is none
+   */
+  private Member reserve() {
+    int maxLinks = poolOptions.getMaxLinksPerConnection();
+    while (true) {
+      Member best = null;
+      int bestLoad = Integer.MAX_VALUE;
+      for (Member member : members) {
+        if (member.connection == null) {
+          continue;
+        }
+
+        int load = member.load.get();
+        if (load < bestLoad && (maxLinks == 0 || load < maxLinks)) {
+          best = member;
+          bestLoad = load;
+        }
+      }
+
+      if (best == null) {
+        return null;
+      }
+
+      if (best.load.compareAndSet(bestLoad, bestLoad + 1)) {
+        return best;
+      }
+    }
+  }
+
+  private final class Member {
+    private final ContextInternal context;
+    private final AtomicInteger load = new AtomicInteger();
+    private volatile ProtonConnectionImpl connection;
+
+    Member(ContextInternal context) {
+      this.context = context;
+    }
+
+    /**
+     * Connects, calling the given handler (if any) once the attempt has either opened the connection or failed.
+     */
+    void connect(Handler<Void> attemptDoneHandler) {
+      AtomicBoolean attemptDone = new AtomicBoolean(attemptDoneHandler == null);
+      Handler<Void> done = x -> {
+        if (attemptDone.compareAndSet(false, true)) {
+          attemptDoneHandler.handle(null);
+        }
+      };
+
+      context.runOnContext(x -> {
+        if (closed) {
+          done.handle(null);
+          return;
+        }
+
+        new ProtonClientImpl(vertx).connect(clientOptions, host, port, username, password, res -> {
+          if (res.failed()) {
+            LOG.debug("Pooled connection attempt failed", res.cause());
+            done.handle(null);
+            scheduleReconnect();
+            return;
+          }
+
+          ProtonConnectionImpl conn = (ProtonConnectionImpl) res.result();
+          conn.openHandler(openResult -> {
+            if (openResult.succeeded() && !closed) {
+              connection = conn;
+              load.set(conn.getLinkCount());
+              done.handle(null);
+            } else {
+              conn.disconnect();
+            }
+          });
+          conn.closeHandler(closeResult -> {
+            if (connection == conn) {
+              connection = null;
+            }
+            conn.close();
+            conn.disconnect();
+          });
+          conn.disconnectHandler(c -> {
+            if (connection == conn) {
+              connection = null;
+            }
+            load.set(0);
+            done.handle(null);
+            scheduleReconnect();
+          });
+          conn.linkEndHandler(c -> load.set(c.getLinkCount()));
+
+          conn.open();
+        });
+      });
+    }
+
+    private void scheduleReconnect() {
+      if (closed) {
+        return;
+      }
+
+      vertx.setTimer(poolOptions.getReconnectInterval(), x -> connect(null));
+    }
+
+    void close() {
+      ProtonConnectionImpl conn = connection;
+      connection = null;
+      if (conn != null) {
+        conn.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,332 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.EventExecutor;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonConnectionRegistry;
+import io.vertx.proton.ProtonEventLoopStats;
+
+public class ProtonConnectionRegistryImpl implements ProtonConnectionRegistry {
+
+  // Message rates are measured over the time since the previous collection for the same purpose, so that stats()
+  // and rebalance() calls don't shorten each other's windows
+  private static final int STATS_WINDOW = 0;
+  private static final int REBALANCE_WINDOW = 1;
+
+  private final Vertx vertx;
+  private final ConcurrentHashMap<EventLoop, Loop> loops = new ConcurrentHashMap<>();
+  private final AtomicInteger nextIndex = new AtomicInteger();
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  private volatile Handler<ProtonConnection> rebalanceHintHandler;
+
+  public ProtonConnectionRegistryImpl(Vertx vertx) {
+    this.vertx = vertx;
+
+    // Known up front, so idle event loops count towards the mean load
+    for (EventExecutor executor : ((VertxInternal) vertx).getEventLoopGroup()) {
+      loopOf((EventLoop) executor);
+    }
+  }
+
+  /**
+   * Tracks the given connection until it ends. Must be called on the connection's context.
+   *
+   * @param localAddress the address the connection was accepted on, to redirect it to, or null
+   */
+  void register(ProtonConnectionImpl connection, SocketAddress localAddress) {
+    Loop loop = loopOf(connection.getContext().nettyEventLoop());
+    Tracked tracked = new Tracked(connection, loop, localAddress);
+    loop.connections.add(tracked);
+    connectionCount.incrementAndGet();
+
+    connection.addEndHandler(x -> {
+      if (loop.connections.remove(tracked)) {
+        loop.endedMessagesIn += connection.getMessagesIn();
+        loop.endedMessagesOut += connection.getMessagesOut();
+        connectionCount.decrementAndGet();
+      }
+    });
+  }
+
+  @Override
+  public void stats(Handler<AsyncResult<List<ProtonEventLoopStats>>> handler) {
+    collect(STATS_WINDOW, handler);
+  }
+
+  private void collect(int window, Handler<AsyncResult<List<ProtonEventLoopStats>>> handler) {
+    Context context = vertx.getOrCreateContext();
+    Loop[] all = sortedLoops();
+    ProtonEventLoopStats[] stats = new ProtonEventLoopStats[all.length];
+    AtomicInteger remaining = new AtomicInteger(all.length);
+
+    for (int i = 0; i < all.length; i++) {
+      int index = i;
+      // The connections of a loop are only touched on its thread
+      all[i].eventLoop.execute(() -> {
+        stats[index] = all[index].collect(window);
+        if (remaining.decrementAndGet() == 0) {
+          context.runOnContext(x -> handler.handle(Future.succeededFuture(Arrays.asList(stats))));
+        }
+      });
+    }
+  }
+
+  @Override
+  public void rebalance(double overloadFactor, long minConnectionAge, Handler<AsyncResult<Integer>> handler) {
+    if (overloadFactor <= 1) {
+      throw new IllegalArgumentException("Overload factor must be greater than 1");
+    }
+
+    Context context = vertx.getOrCreateContext();
+    long minAgeNanos = TimeUnit.MILLISECONDS.toNanos(minConnectionAge);
+    collect(REBALANCE_WINDOW, res -> {
+      List<ProtonEventLoopStats> stats = res.result();
+      double mean = 0;
+      for (ProtonEventLoopStats loopStats : stats) {
+        mean += loopStats.getMessageRate();
+      }
+      mean /= stats.size();
+
+      List<ProtonEventLoopStats> overloaded = new ArrayList<>();
+      for (ProtonEventLoopStats loopStats : stats) {
+        if (loopStats.getMessageRate() > mean * overloadFactor && loopStats.getConnectionCount() > 1) {
+          overloaded.add(loopStats);
+        }
+      }
+
+      if (overloaded.isEmpty()) {
+        handler.handle(Future.succeededFuture(0));
+        return;
+      }
+
+      Loop[] all = sortedLoops();
+      AtomicInteger remaining = new AtomicInteger(overloaded.size());
+      AtomicInteger asked = new AtomicInteger();
+      for (ProtonEventLoopStats loopStats : overloaded) {
+        Loop loop = all[loopStats.getIndex()];
+        double excess = loopStats.getMessageRate() - mean;
+        loop.eventLoop.execute(() -> {
+          asked.addAndGet(loop.shed(excess, minAgeNanos));
+          if (remaining.decrementAndGet() == 0) {
+            context.runOnContext(x -> handler.handle(Future.succeededFuture(asked.get())));
+          }
+        });
+      }
+    });
+  }
+
+  @Override
+  public ProtonConnectionRegistry rebalanceHintHandler(Handler<ProtonConnection> handler) {
+    this.rebalanceHintHandler = handler;
+    return this;
+  }
+
+  @Override
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  private Loop loopOf(EventLoop eventLoop) {
+    return loops.computeIfAbsent(eventLoop, l -> new Loop(nextIndex.getAndIncrement(), l));
+  }
+
+  private Loop[] sortedLoops() {
+    Loop[] all = loops.values().toArray(new Loop[0]);
+    Arrays.sort(all, Comparator.comparingInt(loop -> loop.index));
+    return all;
+  }
+
+  private void askToReconnect(Tracked tracked) {
+    ProtonConnectionImpl connection = tracked.connection;
+    connection.getContext().runOnContext(x -> {
+      if (!tracked.loop.connections.contains(tracked)) {
+        // Ended meanwhile
+        return;
+      }
+
+      Handler<ProtonConnection> hintHandler = rebalanceHintHandler;
+      if (hintHandler != null) {
+        hintHandler.handle(connection);
+        return;
+      }
+
+      SocketAddress address = tracked.localAddress;
+      connection.setCondition(ProtonConnectionImpl.redirectCondition("Rebalancing load, reconnect",
+          address != null ? address.host() : null, address != null ? address.port() : 0));
+      connection.close();
+    });
+  }
+
+  private final class Loop {
+    private final int index;
+    private final EventLoop eventLoop;
+    // Only touched on the event loop thread, as are the connections themselves
+    private final Set<Tracked> connections = new HashSet<>();
+    private long endedMessagesIn;
+    private long endedMessagesOut;
+    private final long[] lastCollected = new long[2];
+
+    Loop(int index, EventLoop eventLoop) {
+      this.index = index;
+      this.eventLoop = eventLoop;
+    }
+
+    ProtonEventLoopStats collect(int window) {
+      long now = System.nanoTime();
+      long last = lastCollected[window];
+      double seconds = last != 0 ? (now - last) / (double) TimeUnit.SECONDS.toNanos(1) : 0;
+      lastCollected[window] = now;
+
+      EventLoopStats stats = new EventLoopStats(index);
+      stats.connections = connections.size();
+      stats.messagesIn = endedMessagesIn;
+      stats.messagesOut = endedMessagesOut;
+      for (Tracked tracked : connections) {
+        ProtonConnectionImpl connection = tracked.connection;
+        stats.sessions += connection.getSessionCount();
+        stats.links += connection.getLinkCount();
+        stats.unsettled += connection.getUnsettledCount();
+        stats.messagesIn += connection.getMessagesIn();
+        stats.messagesOut += connection.getMessagesOut();
+
+        long messages = connection.getMessagesIn() + connection.getMessagesOut();
+        double rate = seconds > 0 ? (messages - tracked.lastMessages[window]) / seconds : 0;
+        tracked.lastMessages[window] = messages;
+        if (window == REBALANCE_WINDOW) {
+          tracked.rate = rate;
+        }
+        stats.rate += rate;
+      }
+      return stats;
+    }
+
+    /**
+     * Asks the busiest connections old enough to reconnect, as long as their rates add up to no more than the excess.
+     *
+     * @return the number of connections asked
+     */
+    int shed(double excess, long minAgeNanos) {
+      List<Tracked> candidates = new ArrayList<>(connections);
+      candidates.sort(Comparator.comparingDouble((Tracked tracked) -> tracked.rate).reversed());
+
+      long now = System.nanoTime();
+      double shed = 0;
+      int asked = 0;
+      for (Tracked tracked : candidates) {
+        if (asked == candidates.size() - 1) {
+          break;
+        }
+
+        if (tracked.rate > 0 && shed + tracked.rate <= excess && now - tracked.created >= minAgeNanos) {
+          shed += tracked.rate;
+          asked++;
+          askToReconnect(tracked);
+        }
+      }
+      return asked;
+    }
+  }
+
+  private static final class Tracked {
+    private final ProtonConnectionImpl connection;
+    private final Loop loop;
+    private final SocketAddress localAddress;
+    private final long created = System.nanoTime();
+    private final long[] lastMessages = new long[2];
+    // Over the rebalance window, as used to pick the connections to shed
+    private double rate;
+
+    Tracked(ProtonConnectionImpl connection, Loop loop, SocketAddress localAddress) {
+      this.connection = connection;
+      this.loop = loop;
+      this.localAddress = localAddress;
+    }
+  }
+
+  private static final class EventLoopStats implements ProtonEventLoopStats {
+    private final int index;
+    private int connections;
+    private int sessions;
+    private int links;
+    private int unsettled;
+    private long messagesIn;
+    private long messagesOut;
+    private double rate;
+
+    EventLoopStats(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+      return index;
+    }
+
+    @Override
+    public int getConnectionCount() {
+      return connections;
+    }
+
+    @Override
+    public int getSessionCount() {
+      return sessions;
+    }
+
+    @Override
+    public int getLinkCount() {
+      return links;
+    }
+
+    @Override
+    public int getUnsettledCount() {
+      return unsettled;
+    }
+
+    @Override
+    public long getMessagesIn() {
+      return messagesIn;
+    }
+
+    @Override
+    public long getMessagesOut() {
+      return messagesOut;
+    }
+
+    @Override
+    public double getMessageRate() {
+      return rate;
+    }
+  }
+}
@@ -18,26 +18,43 @@ package io.vertx.proton.impl;
 import io.vertx.core.Handler;
 import io.vertx.proton.ProtonDelivery;
 
+import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.transport.DeliveryState;
 import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.Record;
+import org.apache.qpid.proton.engine.impl.RecordImpl;
 
 /**
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
 public class ProtonDeliveryImpl implements ProtonDelivery {
 
-  private final Delivery delivery;
+  private Delivery delivery;
   private Handler<ProtonDelivery> handler;
   private boolean autoSettle;
+  // Only set while a sent message waits in a priority lane, before its underlying delivery is created
+  private ProtonSenderImpl unboundSender;
+  private byte[] unboundTag;
+  private Record unboundAttachments;
+  // Only set on a received delivery while duplicate detection waits for it to be accepted
+  private Object duplicateId;
 
   ProtonDeliveryImpl(Delivery delivery) {
     this.delivery = delivery;
     delivery.setContext(this);
   }
 
+  /**
+   * Creates a delivery whose underlying delivery is only created, and {@link #rebind(Delivery) bound}, once it is
+   * released from a priority lane.
+   */
+  ProtonDeliveryImpl(ProtonSenderImpl sender, byte[] tag) {
+    this.unboundSender = sender;
+    this.unboundTag = tag;
+  }
+
   public ProtonLinkImpl getLink() {
-    return (ProtonLinkImpl) this.delivery.getLink().getContext();
+    return getLinkImpl();
   }
 
   public void clear() {
@@ -45,27 +62,37 @@ public class ProtonDeliveryImpl implements ProtonDelivery {
   }
 
   public DeliveryState getLocalState() {
-    return delivery.getLocalState();
+    return delivery == null ? null : delivery.getLocalState();
   }
 
   @Override
   public boolean isSettled() {
-    return delivery.isSettled();
+    return delivery != null && delivery.isSettled();
   }
 
   @Override
   public boolean remotelySettled() {
-    return delivery.remotelySettled();
+    return delivery != null && delivery.remotelySettled();
   }
 
   @Override
   public Record attachments() {
+    if (unboundAttachments != null) {
+      return unboundAttachments;
+    }
+
+    if (delivery == null) {
+      // Kept after binding too, as there is no moving the contents into the delivery's record
+      unboundAttachments = new RecordImpl();
+      return unboundAttachments;
+    }
+
     return delivery.attachments();
   }
 
   @Override
   public byte[] getTag() {
-    return delivery.getTag();
+    return delivery == null ? unboundTag : delivery.getTag();
   }
 
   public void setDefaultDeliveryState(DeliveryState state) {
@@ -97,12 +124,12 @@ public class ProtonDeliveryImpl implements ProtonDelivery {
   }
 
   public DeliveryState getRemoteState() {
-    return delivery.getRemoteState();
+    return delivery == null ? null : delivery.getRemoteState();
   }
 
   @Override
   public int getMessageFormat() {
-    return delivery.getMessageFormat();
+    return delivery == null ? 0 : delivery.getMessageFormat();
   }
 
   public boolean isBuffered() {
@@ -111,35 +138,75 @@ public class ProtonDeliveryImpl implements ProtonDelivery {
 
   @Override
   public ProtonDelivery disposition(DeliveryState state, boolean settle) {
+    if (applyDisposition(state, settle)) {
+      flushConnection();
+    }
+
+    return this;
+  }
+
+  /**
+   * Updates the DeliveryState, and optionally settles, without flushing the connection. Allows
+   * callers updating many deliveries to flush once afterwards.
+   *
+   * @return true if the delivery was updated, false if it was already settled
+   */
+  boolean applyDisposition(DeliveryState state, boolean settle) {
+    checkBound();
     if(delivery.isSettled()) {
-      return this;
+      return false;
     }
 
     delivery.disposition(state);
+    recordIfAccepted();
     if (settle) {
-      settle();
-    } else {
-      flushConnection();
+      delivery.settle();
+      onLocallySettled();
     }
 
-    return this;
+    return true;
   }
 
   @Override
   public ProtonDelivery settle() {
+    checkBound();
     delivery.settle();
+    recordIfAccepted();
+    onLocallySettled();
     flushConnection();
 
     return this;
   }
 
+  /**
+   * Sets the message-id to remember for duplicate detection once the delivery is accepted. Until then a redelivery of
+   * the message, e.g. after it was released, is not a duplicate.
+   */
+  void setDuplicateId(Object duplicateId) {
+    this.duplicateId = duplicateId;
+  }
+
+  private void recordIfAccepted() {
+    if (duplicateId != null && delivery.getLocalState() instanceof Accepted) {
+      ((ProtonReceiverImpl) getLinkImpl()).onAccepted(duplicateId);
+      duplicateId = null;
+    }
+  }
+
+  private void onLocallySettled() {
+    ProtonLinkImpl<?> link = getLinkImpl();
+    if (link instanceof ProtonReceiverImpl) {
+      ((ProtonReceiverImpl) link).onLocallySettled();
+    }
+  }
+
   private void flushConnection() {
     getLinkImpl().getSession().getConnectionImpl().flush();
   }
 
   public ProtonDelivery handler(Handler<ProtonDelivery> handler) {
     this.handler = handler;
-    if (delivery.isSettled()) {
+    if (isSettled()) {
       fireUpdate();
     }
     return this;
@@ -161,10 +228,35 @@ public class ProtonDeliveryImpl implements ProtonDelivery {
     if (autoSettle && delivery.remotelySettled() && !delivery.isSettled()) {
       settle();
     }
+
+    if (delivery.getRemoteState() != null || delivery.remotelySettled()) {
+      ProtonLinkImpl<?> link = getLinkImpl();
+      if (link instanceof ProtonSenderImpl) {
+        // The peer has it, no need to send it again after any reconnect
+        ((ProtonSenderImpl) link).forgetUnsettled(this);
+      }
+    }
+  }
+
+  /**
+   * Binds the underlying delivery, replacing any previous one such as when resent on a re-attached link following a
+   * reconnect.
+   */
+  void rebind(Delivery fresh) {
+    delivery = fresh;
+    fresh.setContext(this);
+    unboundSender = null;
+    unboundTag = null;
+  }
+
+  private void checkBound() {
+    if (delivery == null) {
+      throw new IllegalStateException("Delivery has not been sent yet, it is waiting in a priority lane");
+    }
   }
 
   public ProtonLinkImpl getLinkImpl() {
-    return (ProtonLinkImpl) delivery.getLink().getContext();
+    return delivery == null ? unboundSender : (ProtonLinkImpl) delivery.getLink().getContext();
   }
 
 }
@@ -0,0 +1,94 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.vertx.core.net.SocketAddress;
+import io.vertx.proton.ProtonEndpointSelectionPolicy;
+
+/**
+ * Orders the endpoints tried by a connect, tracking the connect latency and failures observed for each endpoint
+ * across the connects made by a client.
+ */
+class ProtonEndpointSelector {
+
+  // Weight of the newest sample in the moving average latency
+  private static final double LATENCY_WEIGHT = 0.3;
+
+  private final Map<SocketAddress, Stats> stats = new HashMap<>();
+  private int nextStart;
+
+  /**
+   * Orders the given endpoints per the policy, leaving out those failed within their cool-down period, unless all have.
+   */
+  synchronized List<SocketAddress> order(List<SocketAddress> endpoints, ProtonEndpointSelectionPolicy policy,
+                                         long nowNanos) {
+    List<SocketAddress> ordered = new ArrayList<>(endpoints);
+    switch (policy) {
+    case RANDOM:
+      Collections.shuffle(ordered, ThreadLocalRandom.current());
+      break;
+    case LOWEST_LATENCY:
+      // Stable, so equally fast endpoints keep their given order
+      ordered.sort(Comparator.comparingDouble(this::latency));
+      break;
+    default:
+      Collections.rotate(ordered, -Math.floorMod(nextStart++, ordered.size()));
+      break;
+    }
+
+    List<SocketAddress> available = new ArrayList<>(ordered.size());
+    for (SocketAddress endpoint : ordered) {
+      Stats s = stats.get(endpoint);
+      if (s == null || s.cooldownUntil == 0 || s.cooldownUntil - nowNanos <= 0) {
+        available.add(endpoint);
+      }
+    }
+
+    return available.isEmpty() ? ordered : available;
+  }
+
+  synchronized void connected(SocketAddress endpoint, long latencyNanos) {
+    Stats s = stats.computeIfAbsent(endpoint, k -> new Stats());
+    s.latency = s.latency < 0 ? latencyNanos : LATENCY_WEIGHT * latencyNanos + (1 - LATENCY_WEIGHT) * s.latency;
+    s.cooldownUntil = 0;
+  }
+
+  synchronized void failed(SocketAddress endpoint, long cooldownMillis, long nowNanos) {
+    if (cooldownMillis > 0) {
+      long until = nowNanos + cooldownMillis * 1_000_000;
+      // 0 means no cool-down
+      stats.computeIfAbsent(endpoint, k -> new Stats()).cooldownUntil = until == 0 ? 1 : until;
+    }
+  }
+
+  private double latency(SocketAddress endpoint) {
+    Stats s = stats.get(endpoint);
+    return s == null ? -1 : s.latency;
+  }
+
+  private static final class Stats {
+    private double latency = -1;
+    private long cooldownUntil;
+  }
+}
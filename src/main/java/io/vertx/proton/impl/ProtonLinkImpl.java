@@ -16,13 +16,17 @@
 package io.vertx.proton.impl;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.proton.ProtonHelper;
 import io.vertx.proton.ProtonLink;
+import io.vertx.proton.ProtonLinkLimitOptions;
+import io.vertx.proton.ProtonMemoryStats;
 import io.vertx.proton.ProtonQoS;
 
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedLong;
+import org.apache.qpid.proton.amqp.transport.AmqpError;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
 import org.apache.qpid.proton.amqp.transport.ReceiverSettleMode;
 import org.apache.qpid.proton.amqp.transport.SenderSettleMode;
@@ -32,6 +36,8 @@ import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.EndpointState;
 import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Record;
+import org.apache.qpid.proton.engine.Sender;
+import org.apache.qpid.proton.engine.Session;
 import java.util.Map;
 
 /**
@@ -39,7 +45,8 @@ import java.util.Map;
  */
 abstract class ProtonLinkImpl<T extends ProtonLink<T>> implements ProtonLink<T> {
 
-  protected final Link link;
+  protected Link link;
+  private boolean reattaching;
   private Handler<AsyncResult<T>> openHandler;
   private Handler<AsyncResult<T>> closeHandler;
   private Handler<AsyncResult<T>> detachHandler;
@@ -183,6 +190,7 @@ abstract class ProtonLinkImpl<T extends ProtonLink<T>> implements ProtonLink<T>
   @Override
   public T close() {
     link.close();
+    getSession().removeLink(this);
     getSession().getConnectionImpl().flush();
     return self();
   }
@@ -190,6 +198,7 @@ abstract class ProtonLinkImpl<T extends ProtonLink<T>> implements ProtonLink<T>
   @Override
   public T detach() {
     link.detach();
+    getSession().removeLink(this);
     getSession().getConnectionImpl().flush();
     return self();
   }
@@ -300,8 +309,82 @@ abstract class ProtonLinkImpl<T extends ProtonLink<T>> implements ProtonLink<T>
 
   @Override
   public void free() {
+    ProtonSessionImpl session = getSession();
     link.free();
-    getSession().getConnectionImpl().flush();
+    session.removeLink(this);
+    session.getConnectionImpl().flush();
+  }
+
+  @Override
+  public ProtonMemoryStats getMemoryStats() {
+    return new MemoryStats(getIncomingBytes(), getOutgoingBytes(), link.getUnsettled());
+  }
+
+  /**
+   * @return the bytes of incoming transfers buffered for the link and not yet processed
+   */
+  long getIncomingBytes() {
+    return 0;
+  }
+
+  /**
+   * @return the bytes of outgoing transfers on the link not yet written out
+   */
+  long getOutgoingBytes() {
+    return 0;
+  }
+
+  /**
+   * @return the bytes of incoming transfers the link copied out of its session's buffer
+   */
+  long getRetainedIncomingBytes() {
+    return 0;
+  }
+
+  /**
+   * @return the bytes of outgoing transfers the link holds, not yet handed to its session
+   */
+  long getRetainedOutgoingBytes() {
+    return 0;
+  }
+
+  /**
+   * Closes the link with an amqp:resource-limit-exceeded condition if it exceeds any of its connection's link limits.
+   *
+   * @return true if the link was closed
+   */
+  boolean enforceLimits() {
+    ProtonLinkLimitOptions limits = getSession().getConnectionImpl().getLinkLimits();
+    if (limits == null || link.getLocalState() == EndpointState.CLOSED) {
+      return false;
+    }
+
+    String exceeded = exceededLimit(limits);
+    if (exceeded == null) {
+      return false;
+    }
+
+    closeForExceededLimit(exceeded);
+    return true;
+  }
+
+  /**
+   * Closes the link with an amqp:resource-limit-exceeded condition naming the given limit.
+   */
+  void closeForExceededLimit(String exceeded) {
+    setCondition(new ErrorCondition(AmqpError.RESOURCE_LIMIT_EXCEEDED, "Link exceeded its limit of " + exceeded));
+    close();
+  }
+
+  /**
+   * @return a description of the given limit the link exceeds, or null if none
+   */
+  String exceededLimit(ProtonLinkLimitOptions limits) {
+    int maxUnsettled = limits.getMaxUnsettled();
+    if (maxUnsettled > 0 && link.getUnsettled() > maxUnsettled) {
+      return "unsettled deliveries";
+    }
+    return null;
   }
 
   /////////////////////////////////////////////////////////////////////////////
@@ -310,11 +393,33 @@ abstract class ProtonLinkImpl<T extends ProtonLink<T>> implements ProtonLink<T>
   //
   /////////////////////////////////////////////////////////////////////////////
   void fireRemoteOpen() {
+    if (reattaching) {
+      // Re-attached after a reconnect, the application already handled the original attach.
+      reattaching = false;
+      return;
+    }
+
     if (openHandler != null) {
-      openHandler.handle(ProtonHelper.future(self(), getRemoteCondition()));
+      if (getSession().getConnectionImpl().isPipelinedOpen() && isRefused()) {
+        // The peer refused the attach, even if it gave no reason, so sends pipelined with it went nowhere
+        ErrorCondition condition = getRemoteCondition();
+        openHandler.handle(Future.failedFuture(condition != null && condition.getCondition() != null
+            ? condition.toString() : "Link attach refused by peer"));
+      } else {
+        openHandler.handle(ProtonHelper.future(self(), getRemoteCondition()));
+      }
     }
   }
 
+  /**
+   * Whether the peer answered the attach with a null terminus, which it only does when refusing it. The detach that
+   * follows may come in a later frame, so is not waited for.
+   */
+  private boolean isRefused() {
+    Object remoteTerminus = link instanceof Sender ? link.getRemoteTarget() : link.getRemoteSource();
+    return remoteTerminus == null;
+  }
+
   void fireRemoteDetach() {
     if (detachHandler != null) {
       detachHandler.handle(ProtonHelper.future(self(), getRemoteCondition()));
@@ -328,4 +433,34 @@ abstract class ProtonLinkImpl<T extends ProtonLink<T>> implements ProtonLink<T>
   }
 
   abstract void handleLinkFlow();
+
+  /**
+   * Replaces the underlying link with an equivalent one, with the same name and terminus details, on the given session
+   * of a new connection following a reconnect, and opens it.
+   */
+  void reattach(Session session) {
+    Link previous = link;
+    Link fresh = previous instanceof Sender ? session.sender(previous.getName()) : session.receiver(previous.getName());
+
+    fresh.setSource(previous.getSource());
+    fresh.setTarget(previous.getTarget());
+    fresh.setSenderSettleMode(previous.getSenderSettleMode());
+    fresh.setReceiverSettleMode(previous.getReceiverSettleMode());
+    fresh.setMaxMessageSize(previous.getMaxMessageSize());
+    fresh.setProperties(previous.getProperties());
+    fresh.setOfferedCapabilities(previous.getOfferedCapabilities());
+    fresh.setDesiredCapabilities(previous.getDesiredCapabilities());
+    fresh.setContext(this);
+
+    link = fresh;
+    reattaching = true;
+    fresh.open();
+
+    onReattach(previous);
+  }
+
+  /**
+   * Called once the link has been re-attached following a reconnect, to restore any state held by the previous link.
+   */
+  abstract void onReattach(Link previous);
 }
@@ -0,0 +1,41 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import org.apache.qpid.proton.message.Message;
+
+import io.vertx.proton.ProtonMessageDelivery;
+
+class ProtonMessageDeliveryImpl implements ProtonMessageDelivery {
+
+  private final ProtonDeliveryImpl delivery;
+  private final Message message;
+
+  ProtonMessageDeliveryImpl(ProtonDeliveryImpl delivery, Message message) {
+    this.delivery = delivery;
+    this.message = message;
+  }
+
+  @Override
+  public ProtonDeliveryImpl getDelivery() {
+    return delivery;
+  }
+
+  @Override
+  public Message getMessage() {
+    return message;
+  }
+}
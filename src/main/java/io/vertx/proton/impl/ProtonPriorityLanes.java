@@ -0,0 +1,104 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+/**
+ * A bounded queue with a FIFO lane per AMQP priority level, polled highest priority first. Each lane is a ring buffer,
+ * only allocated once first used.
+ */
+class ProtonPriorityLanes<T> {
+
+  // AMQP requires at least 10 distinct priority levels, higher values being treated as the highest
+  static final int LEVELS = 10;
+
+  private final int laneCapacity;
+  private final Object[][] lanes = new Object[LEVELS][];
+  private final int[] heads = new int[LEVELS];
+  private final int[] sizes = new int[LEVELS];
+  private int size;
+  private int highest = -1;
+
+  ProtonPriorityLanes(int laneCapacity) {
+    if (laneCapacity <= 0) {
+      throw new IllegalArgumentException("Lane capacity must be positive");
+    }
+    this.laneCapacity = laneCapacity;
+  }
+
+  static int level(int priority) {
+    return Math.min(Math.max(priority, 0), LEVELS - 1);
+  }
+
+  boolean isFull(int priority) {
+    return sizes[level(priority)] == laneCapacity;
+  }
+
+  /**
+   * @return false if the lane for the given priority is full
+   */
+  boolean offer(int priority, T item) {
+    int level = level(priority);
+    if (sizes[level] == laneCapacity) {
+      return false;
+    }
+
+    Object[] lane = lanes[level];
+    if (lane == null) {
+      lane = lanes[level] = new Object[laneCapacity];
+    }
+
+    lane[(heads[level] + sizes[level]) % laneCapacity] = item;
+    sizes[level]++;
+    size++;
+    if (level > highest) {
+      highest = level;
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  T poll() {
+    if (size == 0) {
+      return null;
+    }
+
+    int level = highest;
+    Object[] lane = lanes[level];
+    T item = (T) lane[heads[level]];
+    lane[heads[level]] = null;
+    heads[level] = (heads[level] + 1) % laneCapacity;
+    sizes[level]--;
+    size--;
+
+    while (highest >= 0 && sizes[highest] == 0) {
+      highest--;
+    }
+    return item;
+  }
+
+  @SuppressWarnings("unchecked")
+  T peek() {
+    return size == 0 ? null : (T) lanes[highest][heads[highest]];
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import io.vertx.proton.ProtonRateLimitOptions;
+
+/**
+ * Shapes the credit granted to a sending peer to keep it within a message and byte rate. Message tokens are taken as
+ * credit is granted, each credit allowing one message, while byte tokens are taken as messages arrive, since only
+ * then is their size known, with no credit granted while that leaves the byte bucket in debt.
+ *
+ * Not thread safe, must only be used from the connection's context.
+ */
+class ProtonRateLimiter {
+
+  private final TokenBucket messages;
+  private final TokenBucket bytes;
+
+  ProtonRateLimiter(ProtonRateLimitOptions options, long now) {
+    this.messages = options.getMessagesPerSecond() > 0 ? new TokenBucket(options.getMessagesPerSecond(), 0, now) : null;
+    this.bytes = options.getBytesPerSecond() > 0 ? new TokenBucket(options.getBytesPerSecond(), 0, now) : null;
+  }
+
+  /**
+   * @return how much of the wanted credit may be granted now
+   */
+  int grantable(int wanted, long now) {
+    if (bytes != null && bytes.available(now) < 0) {
+      return 0;
+    }
+
+    if (messages == null) {
+      return wanted;
+    }
+
+    return (int) Math.max(0, Math.min(wanted, messages.available(now)));
+  }
+
+  void onCreditGranted(int credit, long now) {
+    if (messages != null) {
+      messages.take(credit, now);
+    }
+  }
+
+  void onReceived(int size, long now) {
+    if (bytes != null) {
+      bytes.take(size, now);
+    }
+  }
+}
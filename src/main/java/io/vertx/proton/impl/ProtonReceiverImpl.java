@@ -19,20 +19,38 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonDuplicateDetectionStats;
+import io.vertx.proton.ProtonMessageDelivery;
 import io.vertx.proton.ProtonMessageHandler;
+import io.vertx.proton.ProtonMessageSection;
+import io.vertx.proton.ProtonRateLimitOptions;
+import io.vertx.proton.ProtonLinkLimitOptions;
 import io.vertx.proton.ProtonReceiver;
+import io.vertx.proton.ProtonRoutingHandler;
 import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.messaging.Modified;
 import org.apache.qpid.proton.amqp.transport.Source;
 import org.apache.qpid.proton.codec.CompositeReadableBuffer;
 import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Receiver;
 import org.apache.qpid.proton.engine.Session;
+import org.apache.qpid.proton.message.Message;
 import org.apache.qpid.proton.message.impl.MessageImpl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
 import static io.vertx.proton.ProtonHelper.accepted;
 
 /**
@@ -43,20 +61,25 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
   private static final Logger LOG = LoggerFactory.getLogger(ProtonReceiverImpl.class);
 
   private ProtonMessageHandler handler;
+  private Handler<List<ProtonMessageDelivery>> batchHandler;
+  private int maxBatch;
+  private long maxBatchDelay;
+  private OrderedWorkerDispatcher workerDispatcher;
   private int prefetch = 1000;
+  private AdaptiveCreditController adaptiveCredit;
+  private ProtonRateLimiter rateLimiter;
+  // Credit held back by a rate limit of the link or its connection, granted as the limits allow
+  private int withheldCredit;
+  private boolean awaitingRateLimitTick;
   private Handler<AsyncResult<Void>> drainCompleteHandler;
   private Long drainTimeoutTaskId = null;
   private Session session;
   private int maxFrameSize;
-  private long sessionIncomingCapacity;
-  private long windowFullThreshhold;
 
   ProtonReceiverImpl(Receiver receiver) {
     super(receiver);
     session = receiver.getSession();
-    sessionIncomingCapacity = session.getIncomingCapacity();
     maxFrameSize = session.getConnection().getTransport().getMaxFrameSize();
-    windowFullThreshhold = sessionIncomingCapacity - maxFrameSize;
   }
 
   @Override
@@ -140,7 +163,11 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
       throw new IllegalStateException("A previous drain operation has not yet completed");
     }
 
-    getReceiver().flow(credits);
+    if (isCreditSuspended()) {
+      return;
+    }
+
+    sendCredit(credits);
     flushConnection();
   }
 
@@ -155,11 +182,93 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
 
   @Override
   public ProtonReceiver handler(ProtonMessageHandler handler) {
+    flushPendingBatch();
     this.handler = handler;
+    this.batchHandler = null;
+    this.workerDispatcher = null;
+    this.routingHandler = null;
+    onDelivery();
+    return this;
+  }
+
+  @Override
+  public ProtonReceiver batchHandler(int maxBatch, long maxDelay, Handler<List<ProtonMessageDelivery>> handler) {
+    if (maxBatch <= 0) {
+      throw new IllegalArgumentException("Max batch size must be positive");
+    }
+
+    if (maxDelay < 0) {
+      throw new IllegalArgumentException("Max batch delay must not be negative");
+    }
+
+    flushPendingBatch();
+    this.maxBatch = maxBatch;
+    this.maxBatchDelay = maxDelay;
+    this.batchHandler = handler;
+    this.handler = null;
+    this.workerDispatcher = null;
+    this.routingHandler = null;
+    onDelivery();
+    return this;
+  }
+
+  @Override
+  public ProtonReceiver workerHandler(int parallelism, Function<Message, Object> keyExtractor, ProtonMessageHandler handler) {
+    return workerHandler(null, parallelism, keyExtractor, handler);
+  }
+
+  @Override
+  public ProtonReceiver workerHandler(WorkerExecutor executor, int parallelism, Function<Message, Object> keyExtractor,
+                                      ProtonMessageHandler handler) {
+    ContextInternal context = getSession().getConnectionImpl().getContext();
+    if (context == null) {
+      context = (ContextInternal) Vertx.currentContext();
+      if (context == null) {
+        throw new IllegalStateException("Worker handler must be set from a Vert.x context before connecting");
+      }
+    }
+
+    flushPendingBatch();
+    this.workerDispatcher = new OrderedWorkerDispatcher(this, context, executor, parallelism, keyExtractor, handler);
+    this.handler = null;
+    this.batchHandler = null;
+    this.routingHandler = null;
     onDelivery();
     return this;
   }
 
+  @Override
+  public ProtonReceiver routingHandler(ProtonMessageSection lastSection, ProtonRoutingHandler handler) {
+    ProtonSectionParser parser = new ProtonSectionParser(lastSection);
+    flushPendingBatch();
+    this.sectionParser = parser;
+    this.routingHandler = handler;
+    this.handler = null;
+    this.batchHandler = null;
+    this.workerDispatcher = null;
+    onDelivery();
+    return this;
+  }
+
+  @Override
+  public ProtonReceiver acceptAll(List<ProtonMessageDelivery> deliveries) {
+    boolean updated = false;
+    for (ProtonMessageDelivery messageDelivery : deliveries) {
+      ProtonDelivery delivery = messageDelivery.getDelivery();
+      if (delivery instanceof ProtonDeliveryImpl) {
+        updated |= ((ProtonDeliveryImpl) delivery).applyDisposition(Accepted.getInstance(), true);
+      } else {
+        accepted(delivery, true);
+      }
+    }
+
+    if (updated) {
+      flushConnection();
+    }
+
+    return this;
+  }
+
   private void flushConnection() {
     getSession().getConnectionImpl().flush();
   }
@@ -171,10 +280,27 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
   /////////////////////////////////////////////////////////////////////////////
 
   private boolean autoAccept = true;
+  private DuplicateDetectionCache duplicateCache;
   private CompositeReadableBuffer splitContent;
+  private List<ProtonMessageDelivery> batch;
+  private int batchSequence;
+  private Long batchTimerId;
+  private BiConsumer<ProtonDelivery, byte[]> encodedHandler;
+  private ProtonRoutingHandler routingHandler;
+  private ProtonSectionParser sectionParser;
+
+  /**
+   * Sets a handler given each complete delivery with its still encoded message, which is then not decoded. The handler
+   * owns settling the delivery and granting further credit, none being replenished automatically, so the prefetch
+   * should be 0.
+   */
+  void encodedHandler(BiConsumer<ProtonDelivery, byte[]> encodedHandler) {
+    this.encodedHandler = encodedHandler;
+  }
 
   void onDelivery() {
-    if (this.handler == null) {
+    if (this.handler == null && this.batchHandler == null && this.workerDispatcher == null
+        && this.routingHandler == null && this.encodedHandler == null) {
       return;
     }
 
@@ -190,6 +316,7 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
 
       if (delivery.isPartial()) {
         handlePartial(receiver, delivery);
+        dropIfOverLimits(receiver, delivery, getIncomingBytes());
 
         // Delivery is not yet completely received,
         // return and allow further frames to arrive.
@@ -202,7 +329,29 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
         data = completePartial(data);
       }
 
+      if (dropIfOverLimits(receiver, delivery, data.remaining())) {
+        return;
+      }
+
       receiver.advance();
+      getSession().onIncomingTransfer(data.remaining());
+      getSession().getConnectionImpl().countIncomingMessage();
+      onReceivedForRateLimits(data.remaining());
+      if (adaptiveCredit != null) {
+        adaptiveCredit.onArrival(receiver.getCredit(), System.nanoTime());
+      }
+
+      if (encodedHandler != null) {
+        byte[] encoded = new byte[data.remaining()];
+        data.get(encoded);
+        encodedHandler.accept(new ProtonDeliveryImpl(delivery), encoded);
+        return;
+      }
+
+      if (routingHandler != null) {
+        onRoutedDelivery(delivery, data);
+        return;
+      }
 
       MessageImpl msg = (MessageImpl) Proton.message();
       ProtonDeliveryImpl delImpl = new ProtonDeliveryImpl(delivery);
@@ -211,38 +360,413 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
       } catch (Throwable t) {
         LOG.debug("Unable to decode message, undeliverable", t);
 
-        handleDecodeFailure(receiver, delImpl);
+        handleDecodeFailure(delImpl);
+        return;
+      }
+
+      long handlerStart = adaptiveCredit != null ? System.nanoTime() : 0;
+
+      if (duplicateCache != null && isDuplicate(delImpl, msg.getMessageId())) {
+        handleDuplicate(delImpl);
+        return;
+      }
+
+      if (batchHandler != null) {
+        addToBatch(delImpl, msg);
+        return;
+      }
+
+      if (workerDispatcher != null) {
+        // Credit is replenished as the workers complete, see onWorkerCompletions
+        workerDispatcher.dispatch(delImpl, msg);
         return;
       }
 
       handler.handle(delImpl, msg);
+      onHandled(delImpl, handlerStart);
+    }
+  }
+
+  private void onRoutedDelivery(Delivery delivery, ReadableBuffer data) {
+    byte[] encoded = new byte[data.remaining()];
+    data.get(encoded);
 
-      if (autoAccept && delivery.getLocalState() == null) {
-        accepted(delImpl, true);
+    ProtonDeliveryImpl delImpl = new ProtonDeliveryImpl(delivery);
+    Message headers;
+    try {
+      // De-duplication needs the message-id, so the properties are decoded whatever the last section asked for
+      headers = duplicateCache != null ? sectionParser.parseThrough(encoded, ProtonMessageSection.PROPERTIES)
+          : sectionParser.parse(encoded);
+    } catch (Throwable t) {
+      LOG.debug("Unable to decode message sections, undeliverable", t);
+
+      handleDecodeFailure(delImpl);
+      return;
+    }
+
+    long handlerStart = adaptiveCredit != null ? System.nanoTime() : 0;
+
+    if (duplicateCache != null && isDuplicate(delImpl, headers.getMessageId())) {
+      handleDuplicate(delImpl);
+      return;
+    }
+
+    routingHandler.handle(delImpl, headers, encoded);
+    onHandled(delImpl, handlerStart);
+  }
+
+  private void onHandled(ProtonDeliveryImpl delImpl, long handlerStart) {
+    if (adaptiveCredit != null) {
+      adaptiveCredit.onHandled(System.nanoTime() - handlerStart);
+    }
+
+    if (autoAccept && delImpl.getLocalState() == null) {
+      accepted(delImpl, true);
+    }
+
+    if (prefetch > 0) {
+      // Replenish credit if prefetch is configured.
+      replenishCredit(1);
+      flushConnection();
+    } else {
+      processForDrainCompletion();
+    }
+  }
+
+  private void addToBatch(ProtonDeliveryImpl delivery, MessageImpl msg) {
+    if (batch == null) {
+      batch = new ArrayList<>(Math.min(maxBatch, 64));
+    }
+
+    batch.add(new ProtonMessageDeliveryImpl(delivery, msg));
+
+    if (batch.size() >= maxBatch) {
+      dispatchBatch();
+    } else if (batch.size() == 1) {
+      scheduleBatchDispatch();
+    }
+  }
+
+  private void scheduleBatchDispatch() {
+    final int sequence = batchSequence;
+    if (maxBatchDelay > 0) {
+      Vertx vertx = Vertx.currentContext().owner();
+      batchTimerId = vertx.setTimer(maxBatchDelay, x -> {
+        batchTimerId = null;
+        if (sequence == batchSequence) {
+          dispatchBatch();
+        }
+      });
+    } else {
+      // Runs once the current inbound data has been processed
+      Vertx.currentContext().runOnContext(x -> {
+        if (sequence == batchSequence) {
+          dispatchBatch();
+        }
+      });
+    }
+  }
+
+  /**
+   * Hands any batch still being collected to the batch handler it was collected for, cancelling its pending
+   * dispatch, before that handler is replaced.
+   */
+  private void flushPendingBatch() {
+    if (batch != null) {
+      dispatchBatch();
+    }
+  }
+
+  private void dispatchBatch() {
+    List<ProtonMessageDelivery> deliveries = batch;
+    batch = null;
+    batchSequence++;
+
+    Long timerId = batchTimerId;
+    if (timerId != null) {
+      batchTimerId = null;
+      getSession().getConnectionImpl().getContext().owner().cancelTimer(timerId);
+    }
+
+    if (deliveries == null || deliveries.isEmpty()) {
+      return;
+    }
+
+    Handler<List<ProtonMessageDelivery>> h = batchHandler;
+    if (h != null) {
+      long handlerStart = System.nanoTime();
+      h.handle(deliveries);
+
+      if (adaptiveCredit != null) {
+        adaptiveCredit.onHandled((System.nanoTime() - handlerStart) / deliveries.size());
       }
+    }
 
-      if (prefetch > 0) {
-        // Replenish credit if prefetch is configured.
-        // TODO: batch credit replenish, optionally flush if exceeding a given threshold?
-        flow(1, false);
-      } else {
-        processForDrainCompletion();
+    if (autoAccept) {
+      for (ProtonMessageDelivery messageDelivery : deliveries) {
+        ProtonDeliveryImpl delivery = (ProtonDeliveryImpl) messageDelivery.getDelivery();
+        if (delivery.getLocalState() == null) {
+          delivery.applyDisposition(Accepted.getInstance(), true);
+        }
+      }
+    }
+
+    if (prefetch > 0) {
+      // Replenish the credit for the whole batch, the flush below covers it and any dispositions.
+      replenishCredit(deliveries.size());
+    } else {
+      processForDrainCompletion();
+    }
+
+    flushConnection();
+  }
+
+  /**
+   * Called on the connection context once dispositions for the given number of messages handled
+   * by workers have been applied.
+   */
+  void onWorkerCompletions(int count) {
+    if (prefetch > 0) {
+      replenishCredit(count);
+    } else {
+      processForDrainCompletion();
+    }
+
+    flushConnection();
+  }
+
+  /**
+   * Grants replacement credit for the given number of consumed messages, or with adaptive prefetch the
+   * credit needed to get back to the current target. Does not flush.
+   */
+  private void replenishCredit(int consumed) {
+    if (adaptiveCredit == null) {
+      grantCredit(consumed);
+      return;
+    }
+
+    // Withheld credit counts, or it would be asked for again on every message
+    int credit = adaptiveCredit.creditToGrant(getReceiver().getCredit() + withheldCredit);
+    if (credit > 0) {
+      grantCredit(credit);
+    }
+  }
+
+  /**
+   * Grants the given prefetch credit, or as much of it as any rate or unsettled limit allows, withholding the rest
+   * until the limits allow it. Does not flush.
+   */
+  private void grantCredit(int credit) {
+    ProtonConnectionImpl connection = getSession().getConnectionImpl();
+    if (rateLimiter == null && connection.getRateLimiter() == null && connection.getMaxUnsettled() == 0
+        && withheldCredit == 0 && !isCreditSuspended()) {
+      sendCredit(credit);
+      return;
+    }
+
+    withheldCredit += credit;
+    releaseWithheldCredit();
+  }
+
+  private void sendCredit(int credit) {
+    getReceiver().flow(credit);
+    if (adaptiveCredit != null) {
+      adaptiveCredit.onCreditSent(credit, System.nanoTime());
+    }
+  }
+
+  /**
+   * Grants as much withheld credit as the rate and unsettled limits allow. Another attempt is scheduled on the rate
+   * limit clock if a rate limit withheld any, while credit withheld by the unsettled limit is released as deliveries
+   * are settled, see {@link #onLocallySettled()}. Does not flush.
+   *
+   * @return whether a rate limit still withholds credit
+   */
+  private boolean releaseWithheldCredit() {
+    if (isCreditSuspended()) {
+      return false;
+    }
+
+    boolean rateLimited = false;
+    if (withheldCredit > 0 && (link.getLocalState() == EndpointState.ACTIVE
+        || link.getLocalState() == EndpointState.UNINITIALIZED)) {
+      long now = System.nanoTime();
+      ProtonConnectionImpl connection = getSession().getConnectionImpl();
+      ProtonRateLimiter connectionLimiter = connection.getRateLimiter();
+
+      int grant = withheldCredit;
+      int maxUnsettled = connection.getMaxUnsettled();
+      if (maxUnsettled > 0) {
+        Receiver receiver = getReceiver();
+        grant = Math.min(grant, Math.max(maxUnsettled - receiver.getUnsettled() - receiver.getCredit(), 0));
+      }
+      int allowed = grant;
+      if (rateLimiter != null) {
+        grant = rateLimiter.grantable(grant, now);
+      }
+      if (connectionLimiter != null) {
+        grant = connectionLimiter.grantable(grant, now);
+      }
+      rateLimited = grant < allowed;
+
+      if (grant > 0) {
+        if (rateLimiter != null) {
+          rateLimiter.onCreditGranted(grant, now);
+        }
+        if (connectionLimiter != null) {
+          connectionLimiter.onCreditGranted(grant, now);
+        }
+        withheldCredit -= grant;
+        sendCredit(grant);
       }
     }
+
+    if (rateLimited && !awaitingRateLimitTick) {
+      awaitingRateLimitTick = true;
+      RateLimitClock.of(Vertx.currentContext()).schedule(this::onRateLimitTick);
+    }
+
+    return rateLimited;
+  }
+
+  /**
+   * Called as a received delivery is settled locally, making room for credit withheld by the unsettled limit.
+   * Does not flush, the settling caller does.
+   */
+  void onLocallySettled() {
+    if (withheldCredit > 0 && getSession().getConnectionImpl().getMaxUnsettled() > 0) {
+      releaseWithheldCredit();
+    }
+  }
+
+  @Override
+  long getIncomingBytes() {
+    Delivery current = getReceiver().current();
+    return (current != null ? current.available() : 0) + getRetainedIncomingBytes();
   }
 
-  private void handleDecodeFailure(Receiver receiver, ProtonDeliveryImpl delImpl) {
+  @Override
+  long getRetainedIncomingBytes() {
+    return splitContent != null ? splitContent.remaining() : 0;
+  }
+
+  /**
+   * Checks the connection's link limits while the receiver is still on the given delivery, of the given size so far.
+   * A delivery exceeding them is settled as modified and undeliverable here, so the sender may deliver it elsewhere,
+   * before the link is closed.
+   *
+   * @return true if the delivery was dropped and the link closed
+   */
+  private boolean dropIfOverLimits(Receiver receiver, Delivery delivery, long deliveryBytes) {
+    ProtonLinkLimitOptions limits = getSession().getConnectionImpl().getLinkLimits();
+    if (limits == null || link.getLocalState() == EndpointState.CLOSED) {
+      return false;
+    }
+
+    String exceeded;
+    long maxIncomingBytes = limits.getMaxIncomingBytes();
+    if (maxIncomingBytes > 0 && deliveryBytes > maxIncomingBytes) {
+      exceeded = "buffered incoming bytes";
+    } else {
+      exceeded = exceededLimit(limits);
+    }
+
+    if (exceeded == null) {
+      return false;
+    }
+
+    splitContent = null;
+
     Modified modified = new Modified();
     modified.setDeliveryFailed(true);
     modified.setUndeliverableHere(true);
+    delivery.disposition(modified);
+    delivery.settle();
+    receiver.advance();
+
+    closeForExceededLimit(exceeded);
+    return true;
+  }
+
+  /**
+   * @return whether the connection grants no more credit, as its server is draining
+   */
+  private boolean isCreditSuspended() {
+    return getSession().getConnectionImpl().isCreditSuspended();
+  }
+
+  private boolean onRateLimitTick() {
+    if (link.getLocalState() == EndpointState.CLOSED || isCreditSuspended()) {
+      withheldCredit = 0;
+      awaitingRateLimitTick = false;
+      return false;
+    }
 
-    delImpl.disposition(modified, true);
+    // Still marked as waiting, so this doesn't schedule another attempt, the clock keeps calling while true is returned
+    boolean rateLimited = releaseWithheldCredit();
+    flushConnection();
+
+    awaitingRateLimitTick = rateLimited;
+    return awaitingRateLimitTick;
+  }
+
+  private void onReceivedForRateLimits(int size) {
+    ProtonRateLimiter connectionLimiter = getSession().getConnectionImpl().getRateLimiter();
+    if (rateLimiter == null && connectionLimiter == null) {
+      return;
+    }
 
-    if(!receiver.getDrain()) {
-      flow(1, false);
+    long now = System.nanoTime();
+    if (rateLimiter != null) {
+      rateLimiter.onReceived(size, now);
+    }
+    if (connectionLimiter != null) {
+      connectionLimiter.onReceived(size, now);
+    }
+  }
+
+  private void handleDecodeFailure(ProtonDeliveryImpl delImpl) {
+    Modified modified = new Modified();
+    modified.setDeliveryFailed(true);
+    modified.setUndeliverableHere(true);
+
+    delImpl.applyDisposition(modified, true);
+
+    replenishForDropped();
+  }
+
+  /**
+   * Checks whether the given delivery is a duplicate. If not its message-id is only remembered once it is accepted, as
+   * the peer sends the message again if it is released or modified. A presettled delivery is never sent again, so its
+   * message-id is remembered straight away.
+   */
+  private boolean isDuplicate(ProtonDeliveryImpl delImpl, Object messageId) {
+    if (duplicateCache.isDuplicate(messageId)) {
+      return true;
+    }
+
+    if (delImpl.remotelySettled()) {
+      duplicateCache.add(messageId);
     } else {
-      processForDrainCompletion();
+      delImpl.setDuplicateId(messageId);
     }
+    return false;
+  }
+
+  /**
+   * Called once a delivery with the given message-id was accepted, with duplicate detection enabled.
+   */
+  void onAccepted(Object messageId) {
+    if (duplicateCache != null) {
+      duplicateCache.add(messageId);
+    }
+  }
+
+  private void handleDuplicate(ProtonDeliveryImpl delImpl) {
+    // Already received, accept it again without passing it on.
+    delImpl.applyDisposition(Accepted.getInstance(), true);
+
+    replenishForDropped();
   }
 
   private void handleAborted(Receiver receiver, Delivery delivery) {
@@ -250,16 +774,38 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
 
     receiver.advance();
     delivery.settle();
+    if (adaptiveCredit != null) {
+      // Used credit all the same
+      adaptiveCredit.onArrival(receiver.getCredit(), System.nanoTime());
+    }
+
+    replenishForDropped();
+  }
 
-    if(!receiver.getDrain()) {
-      flow(1, false);
+  /**
+   * Replaces the credit used by a delivery never passed to the application, then flushes. With a prefetch it is
+   * granted through any rate and unsettled limits like any other prefetch credit, while manually granted credit is
+   * given back directly, unless draining, as the application is still waiting for a message for it.
+   */
+  private void replenishForDropped() {
+    if (prefetch > 0) {
+      replenishCredit(1);
+    } else if (!getReceiver().getDrain()) {
+      if (!isCreditSuspended()) {
+        sendCredit(1);
+      }
     } else {
       processForDrainCompletion();
     }
+
+    flushConnection();
   }
 
   private void handlePartial(final Receiver receiver, final Delivery delivery) {
-    if (sessionIncomingCapacity <= 0 || maxFrameSize <= 0 || session.getIncomingBytes() < windowFullThreshhold) {
+    // Read each time, as the capacity may be adapting
+    long sessionIncomingCapacity = session.getIncomingCapacity();
+    if (sessionIncomingCapacity <= 0 || maxFrameSize <= 0
+        || session.getIncomingBytes() < sessionIncomingCapacity - maxFrameSize) {
       // No window, or there is still capacity, so do nothing.
     } else {
       // The session window could be effectively full, we need to
@@ -314,6 +860,25 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
     return this;
   }
 
+  @Override
+  public ProtonReceiver setDuplicateDetection(int capacity, long windowMillis) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative");
+    }
+
+    if (windowMillis < 0) {
+      throw new IllegalArgumentException("Window must not be negative");
+    }
+
+    duplicateCache = capacity == 0 ? null : new DuplicateDetectionCache(capacity, windowMillis);
+    return this;
+  }
+
+  @Override
+  public ProtonDuplicateDetectionStats getDuplicateDetectionStats() {
+    return duplicateCache;
+  }
+
   @Override
   public ProtonReceiver setPrefetch(int messages) {
     if (messages < 0) {
@@ -321,25 +886,77 @@ public class ProtonReceiverImpl extends ProtonLinkImpl<ProtonReceiver> implement
     }
 
     prefetch = messages;
+    adaptiveCredit = null;
     return this;
   }
 
   @Override
   public int getPrefetch() {
+    if (adaptiveCredit != null) {
+      return adaptiveCredit.getTargetCredit();
+    }
+
     return prefetch;
   }
 
+  @Override
+  public ProtonReceiver setAdaptivePrefetch(int minCredit, int maxCredit) {
+    adaptiveCredit = new AdaptiveCreditController(minCredit, maxCredit);
+    prefetch = adaptiveCredit.getTargetCredit();
+    return this;
+  }
+
+  @Override
+  public long getCreditStarvationTime() {
+    if (adaptiveCredit == null) {
+      return 0;
+    }
+
+    return adaptiveCredit.getStarvationTime();
+  }
+
+  @Override
+  public ProtonReceiver setRateLimit(ProtonRateLimitOptions options) {
+    rateLimiter = options != null ? new ProtonRateLimiter(options, System.nanoTime()) : null;
+    if (withheldCredit > 0) {
+      releaseWithheldCredit();
+      flushConnection();
+    }
+    return this;
+  }
+
   @Override
   public ProtonReceiver open() {
     super.open();
     if (prefetch > 0) {
-      // Grant initial credit if prefetching.
-      flow(prefetch, false);
+      // Grant initial credit if prefetching, as far as any rate limit allows.
+      grantCredit(prefetch);
+      flushConnection();
     }
 
     return this;
   }
 
+  @Override
+  void onReattach(Link previous) {
+    session = link.getSession();
+    maxFrameSize = session.getConnection().getTransport().getMaxFrameSize();
+
+    // Deliveries not yet complete or handled are lost with the old link, the peer will send them again.
+    splitContent = null;
+    batch = null;
+    batchSequence++;
+
+    // Restore the credit, the prefetch or whatever was manually granted and not yet used.
+    if (adaptiveCredit != null) {
+      adaptiveCredit.onReattach();
+    }
+    int credit = prefetch > 0 ? getPrefetch() : previous.getCredit();
+    if (credit > 0) {
+      sendCredit(credit);
+    }
+  }
+
   @Override
   void handleLinkFlow(){
     processForDrainCompletion();
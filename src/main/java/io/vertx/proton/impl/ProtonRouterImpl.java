@@ -0,0 +1,472 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static io.vertx.proton.ProtonHelper.condition;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Released;
+import org.apache.qpid.proton.amqp.transport.AmqpError;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.amqp.transport.Source;
+import org.apache.qpid.proton.amqp.transport.Target;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonDistribution;
+import io.vertx.proton.ProtonLink;
+import io.vertx.proton.ProtonQoS;
+import io.vertx.proton.ProtonReceiver;
+import io.vertx.proton.ProtonRouter;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonSession;
+
+public class ProtonRouterImpl implements ProtonRouter {
+
+  public static final int DEFAULT_LINK_CREDIT = 250;
+
+  private static final String DYNAMIC_ADDRESS_PREFIX = "dynamic.";
+  private static final Producer[] NO_PRODUCERS = new Producer[0];
+  private static final Consumer[] NO_CONSUMERS = new Consumer[0];
+
+  // Only links attaching and detaching update the table, routing a message reads the address its producer resolved.
+  private final ConcurrentHashMap<String, Address> addresses = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, ProtonDistribution> distributions = new ConcurrentHashMap<>();
+  private final LongAdder forwarded = new LongAdder();
+  private volatile int linkCredit = DEFAULT_LINK_CREDIT;
+
+  @Override
+  public void handle(ProtonConnection connection) {
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      throw new IllegalStateException("Must be called on the connection's context");
+    }
+
+    // Only touched on the connection's context
+    Set<RouterLink> links = new HashSet<>();
+
+    connection.openHandler(res -> connection.open());
+    connection.sessionOpenHandler(ProtonSession::open);
+    connection.receiverOpenHandler(receiver -> attachProducer(context, links, receiver));
+    connection.senderOpenHandler(sender -> attachConsumer(context, links, sender));
+    connection.closeHandler(res -> {
+      connection.close();
+      connection.disconnect();
+    });
+    connection.disconnectHandler(conn -> {
+      for (RouterLink link : links) {
+        link.detach();
+      }
+      links.clear();
+    });
+  }
+
+  @Override
+  public ProtonRouter setDistribution(String prefix, ProtonDistribution distribution) {
+    if (prefix == null || distribution == null) {
+      throw new IllegalArgumentException("Prefix and distribution must not be null");
+    }
+    distributions.put(prefix, distribution);
+    return this;
+  }
+
+  @Override
+  public ProtonRouter setLinkCredit(int linkCredit) {
+    if (linkCredit <= 0) {
+      throw new IllegalArgumentException("Link credit must be positive");
+    }
+    this.linkCredit = linkCredit;
+    return this;
+  }
+
+  @Override
+  public int getLinkCredit() {
+    return linkCredit;
+  }
+
+  @Override
+  public int getAddressCount() {
+    return addresses.size();
+  }
+
+  @Override
+  public long getForwardedCount() {
+    return forwarded.sum();
+  }
+
+  private void attachProducer(Context context, Set<RouterLink> links, ProtonReceiver receiver) {
+    Target target = receiver.getRemoteTarget();
+    if (target == null || target.getAddress() == null) {
+      refuse(receiver.setTarget(null), AmqpError.NOT_IMPLEMENTED.toString(), "Anonymous producers are not supported");
+      return;
+    }
+
+    ProtonReceiverImpl receiverImpl = (ProtonReceiverImpl) receiver;
+    Producer producer = new Producer(context, receiverImpl, linkCredit);
+    links.add(producer);
+
+    receiverImpl.setTarget(target);
+    receiverImpl.setSource(receiver.getRemoteSource());
+    receiverImpl.setQoS(receiver.getRemoteQoS());
+    receiverImpl.setPrefetch(0);
+    receiverImpl.setAutoAccept(false);
+    receiverImpl.encodedHandler(producer::onMessage);
+    receiverImpl.closeHandler(res -> {
+      links.remove(producer);
+      producer.detach();
+      receiverImpl.close();
+    });
+    receiverImpl.detachHandler(res -> {
+      links.remove(producer);
+      producer.detach();
+      receiverImpl.detach();
+    });
+    receiverImpl.open();
+
+    producer.attach(target.getAddress());
+  }
+
+  private void attachConsumer(Context context, Set<RouterLink> links, ProtonSender sender) {
+    Source source = sender.getRemoteSource();
+    String address = source == null ? null : source.getAddress();
+    if (source instanceof org.apache.qpid.proton.amqp.messaging.Source
+        && ((org.apache.qpid.proton.amqp.messaging.Source) source).getDynamic()) {
+      org.apache.qpid.proton.amqp.messaging.Source dynamic =
+          ((org.apache.qpid.proton.amqp.messaging.Source) source).copy();
+      address = DYNAMIC_ADDRESS_PREFIX + UUID.randomUUID();
+      dynamic.setAddress(address);
+      source = dynamic;
+    }
+
+    if (address == null) {
+      refuse(sender.setSource(null), AmqpError.INVALID_FIELD.toString(), "Consumers must attach to an address");
+      return;
+    }
+
+    ProtonSenderImpl senderImpl = (ProtonSenderImpl) sender;
+    Consumer consumer = new Consumer(context, senderImpl);
+    links.add(consumer);
+
+    senderImpl.setSource(source);
+    senderImpl.setTarget(sender.getRemoteTarget());
+    senderImpl.setQoS(sender.getRemoteQoS());
+    senderImpl.sendQueueDrainHandler(s -> consumer.updateAvailable());
+    senderImpl.closeHandler(res -> {
+      links.remove(consumer);
+      consumer.detach();
+      senderImpl.close();
+    });
+    senderImpl.detachHandler(res -> {
+      links.remove(consumer);
+      consumer.detach();
+      senderImpl.detach();
+    });
+    senderImpl.open();
+
+    consumer.attach(address);
+  }
+
+  private static void refuse(ProtonLink<?> link, String condition, String description) {
+    link.setCondition(condition(condition, description));
+    link.open();
+    link.close();
+  }
+
+  private ProtonDistribution distributionFor(String address) {
+    ProtonDistribution distribution = ProtonDistribution.ANYCAST;
+    int longest = -1;
+    for (Map.Entry<String, ProtonDistribution> entry : distributions.entrySet()) {
+      String prefix = entry.getKey();
+      if (prefix.length() > longest && address.startsWith(prefix)) {
+        distribution = entry.getValue();
+        longest = prefix.length();
+      }
+    }
+    return distribution;
+  }
+
+  private static void runOn(Context context, Runnable task) {
+    if (Vertx.currentContext() == context) {
+      task.run();
+    } else {
+      context.runOnContext(x -> task.run());
+    }
+  }
+
+  private static <T> T[] with(T[] links, T link) {
+    T[] result = Arrays.copyOf(links, links.length + 1);
+    result[links.length] = link;
+    return result;
+  }
+
+  private static <T> T[] without(T[] links, T link, T[] empty) {
+    for (int i = 0; i < links.length; i++) {
+      if (links[i] == link) {
+        if (links.length == 1) {
+          return empty;
+        }
+        T[] result = Arrays.copyOf(links, links.length - 1);
+        System.arraycopy(links, i + 1, result, i, links.length - i - 1);
+        return result;
+      }
+    }
+    return links;
+  }
+
+  /**
+   * The links attached to an address. The arrays are replaced rather than modified, while holding the address table
+   * entry, so messages are routed from them without locking.
+   */
+  private static final class Address {
+    private final String name;
+    private final ProtonDistribution distribution;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile Producer[] producers = NO_PRODUCERS;
+    private volatile Consumer[] consumers = NO_CONSUMERS;
+
+    Address(String name, ProtonDistribution distribution) {
+      this.name = name;
+      this.distribution = distribution;
+    }
+
+    /**
+     * Picks the next consumer with credit in turn, or just the next one if none has credit, which then holds the
+     * message until it is given credit.
+     */
+    Consumer select(Consumer[] consumers) {
+      int start = (next.getAndIncrement() & Integer.MAX_VALUE) % consumers.length;
+      for (int i = 0; i < consumers.length; i++) {
+        Consumer consumer = consumers[(start + i) % consumers.length];
+        if (consumer.available > 0) {
+          return consumer;
+        }
+      }
+      return consumers[start];
+    }
+  }
+
+  private abstract static class RouterLink {
+    final Context context;
+    Address address;
+    boolean detached;
+
+    RouterLink(Context context) {
+      this.context = context;
+    }
+
+    abstract void detach();
+  }
+
+  private final class Producer extends RouterLink {
+    private final ProtonReceiverImpl receiver;
+    // Credit held back while the address has no consumers
+    private int withheld;
+
+    Producer(Context context, ProtonReceiverImpl receiver, int credit) {
+      super(context);
+      this.receiver = receiver;
+      this.withheld = credit;
+    }
+
+    void attach(String name) {
+      address = addresses.compute(name, (k, existing) -> {
+        Address attached = existing != null ? existing : new Address(k, distributionFor(k));
+        attached.producers = with(attached.producers, this);
+        return attached;
+      });
+
+      // Registered first, so consumers attaching meanwhile are sure to release the credit
+      onConsumersAvailable();
+    }
+
+    @Override
+    void detach() {
+      if (detached) {
+        return;
+      }
+      detached = true;
+
+      addresses.computeIfPresent(address.name, (k, existing) -> {
+        existing.producers = without(existing.producers, this, NO_PRODUCERS);
+        return existing.producers.length == 0 && existing.consumers.length == 0 ? null : existing;
+      });
+    }
+
+    void onConsumersAvailable() {
+      if (!detached && withheld > 0 && address.consumers.length > 0) {
+        int credit = withheld;
+        withheld = 0;
+        receiver.flow(credit);
+      }
+    }
+
+    void onMessage(ProtonDelivery delivery, byte[] encoded) {
+      Consumer[] consumers = address.consumers;
+      if (consumers.length == 0) {
+        settle(delivery, Released.getInstance());
+        return;
+      }
+
+      if (address.distribution == ProtonDistribution.MULTICAST) {
+        Forward forward = new Forward(this, delivery, consumers.length);
+        for (Consumer consumer : consumers) {
+          consumer.dispatch(forward, encoded);
+        }
+      } else {
+        address.select(consumers).dispatch(new Forward(this, delivery, 1), encoded);
+      }
+    }
+
+    /**
+     * Settles a delivery once all its consumers did, replacing the credit it used.
+     */
+    void settle(ProtonDelivery delivery, DeliveryState outcome) {
+      if (detached) {
+        return;
+      }
+
+      if (delivery.remotelySettled()) {
+        delivery.settle();
+      } else {
+        delivery.disposition(outcome, true);
+      }
+
+      if (address.consumers.length > 0) {
+        receiver.flow(1);
+      } else {
+        withheld++;
+      }
+    }
+  }
+
+  private final class Consumer extends RouterLink {
+    private final ProtonSenderImpl sender;
+    private final Map<ProtonDelivery, Forward> inFlight = new HashMap<>();
+    // Credit left after the messages waiting to be sent, as a hint for picking anycast consumers
+    private volatile int available;
+
+    Consumer(Context context, ProtonSenderImpl sender) {
+      super(context);
+      this.sender = sender;
+    }
+
+    void attach(String name) {
+      boolean[] first = new boolean[1];
+      address = addresses.compute(name, (k, existing) -> {
+        Address attached = existing != null ? existing : new Address(k, distributionFor(k));
+        first[0] = attached.consumers.length == 0;
+        attached.consumers = with(attached.consumers, this);
+        return attached;
+      });
+
+      if (first[0]) {
+        for (Producer producer : address.producers) {
+          runOn(producer.context, producer::onConsumersAvailable);
+        }
+      }
+    }
+
+    @Override
+    void detach() {
+      if (detached) {
+        return;
+      }
+      detached = true;
+
+      addresses.computeIfPresent(address.name, (k, existing) -> {
+        existing.consumers = without(existing.consumers, this, NO_CONSUMERS);
+        return existing.producers.length == 0 && existing.consumers.length == 0 ? null : existing;
+      });
+
+      for (Forward forward : inFlight.values()) {
+        forward.complete(Released.getInstance());
+      }
+      inFlight.clear();
+    }
+
+    void dispatch(Forward forward, byte[] encoded) {
+      runOn(context, () -> send(forward, encoded));
+    }
+
+    private void send(Forward forward, byte[] encoded) {
+      if (detached) {
+        forward.complete(Released.getInstance());
+        return;
+      }
+
+      forwarded.increment();
+      if (sender.getQoS() == ProtonQoS.AT_MOST_ONCE) {
+        sender.sendEncoded(encoded, null);
+        forward.complete(Accepted.getInstance());
+      } else {
+        ProtonDelivery delivery = sender.sendEncoded(encoded, updated -> {
+          if (updated.remotelySettled()) {
+            Forward settled = inFlight.remove(updated);
+            if (settled != null) {
+              // Settled without an outcome, the message was delivered all the same
+              DeliveryState outcome = updated.getRemoteState();
+              settled.complete(outcome != null ? outcome : Accepted.getInstance());
+            }
+          }
+        });
+        inFlight.put(delivery, forward);
+      }
+
+      updateAvailable();
+    }
+
+    void updateAvailable() {
+      available = sender.getCredit() - sender.getQueued();
+    }
+  }
+
+  /**
+   * A message on its way from a producer to its consumers, which the producer settles once they all did.
+   */
+  private static final class Forward {
+    private final Producer producer;
+    private final ProtonDelivery delivery;
+    private final AtomicInteger remaining;
+    private final AtomicReference<DeliveryState> outcome = new AtomicReference<>();
+
+    Forward(Producer producer, ProtonDelivery delivery, int consumers) {
+      this.producer = producer;
+      this.delivery = delivery;
+      this.remaining = new AtomicInteger(consumers);
+    }
+
+    void complete(DeliveryState consumerOutcome) {
+      // Any consumer accepting it counts as the message being accepted
+      outcome.accumulateAndGet(consumerOutcome, (current, given) -> current instanceof Accepted ? current : given);
+      if (remaining.decrementAndGet() == 0) {
+        runOn(producer.context, () -> producer.settle(delivery, outcome.get()));
+      }
+    }
+  }
+}
@@ -49,6 +49,7 @@ public class ProtonSaslClientAuthenticatorImpl implements ProtonSaslAuthenticato
   private NetSocket socket;
   private ProtonConnection connection;
   private boolean succeeded;
+  private final boolean optimistic;
 
   /**
    * Create the authenticator and initialize it.
@@ -76,10 +77,33 @@ public class ProtonSaslClientAuthenticatorImpl implements ProtonSaslAuthenticato
    *          </ul>
    */
   public ProtonSaslClientAuthenticatorImpl(String username, String password, Set<String> allowedSaslMechanisms, Handler<AsyncResult<ProtonConnection>> handler) {
+    this(username, password, allowedSaslMechanisms, false, handler);
+  }
+
+  /**
+   * Create the authenticator and initialize it.
+   *
+   * @param username
+   *          The username provide credentials to the remote peer, or null if there is none.
+   * @param password
+   *          The password provide credentials to the remote peer, or null if there is none.
+   * @param allowedSaslMechanisms
+   *          The possible mechanism(s) to which the client should restrict its mechanism selection to if offered by the
+   *          server, or null/empty if no restriction.
+   * @param optimistic
+   *          Whether to send the SASL init straight away, using the preferred of the allowed mechanisms, rather than
+   *          waiting for the mechanisms offered by the server. Only applies if there is a restriction.
+   * @param handler
+   *          The handler to convey the result of the SASL process to.
+   * @see #ProtonSaslClientAuthenticatorImpl(String, String, Set, Handler)
+   */
+  public ProtonSaslClientAuthenticatorImpl(String username, String password, Set<String> allowedSaslMechanisms,
+                                           boolean optimistic, Handler<AsyncResult<ProtonConnection>> handler) {
     this.handler = handler;
     this.username = username;
     this.password = password;
     this.mechanismsRestriction = allowedSaslMechanisms;
+    this.optimistic = optimistic;
   }
 
   @Override
@@ -88,6 +112,18 @@ public class ProtonSaslClientAuthenticatorImpl implements ProtonSaslAuthenticato
     this.connection = protonConnection;
     this.sasl = transport.sasl();
     sasl.client();
+
+    if (optimistic && mechanismsRestriction != null && !mechanismsRestriction.isEmpty()) {
+      ProtonSaslMechanism preferred = ProtonSaslMechanismFinderImpl.findMatchingMechanism(username, password,
+          mechanismsRestriction, mechanismsRestriction.toArray(new String[0]));
+      if (preferred != null) {
+        try {
+          selectMechanism(preferred);
+        } catch (SaslException e) {
+          // Left to the usual negotiation once the server's mechanisms arrive
+        }
+      }
+    }
   }
 
   @Override
@@ -137,19 +173,17 @@ public class ProtonSaslClientAuthenticatorImpl implements ProtonSaslAuthenticato
   }
 
   private void handleSaslInit() throws SaslException {
+    if (mechanism != null) {
+      // The init was already sent
+      return;
+    }
+
     String[] remoteMechanisms = sasl.getRemoteMechanisms();
     if (remoteMechanisms != null && remoteMechanisms.length != 0) {
-      mechanism = ProtonSaslMechanismFinderImpl.findMatchingMechanism(username, password, mechanismsRestriction,
-          remoteMechanisms);
-      if (mechanism != null) {
-        mechanism.setUsername(username);
-        mechanism.setPassword(password);
-
-        sasl.setMechanisms(mechanism.getName());
-        byte[] response = mechanism.getInitialResponse();
-        if (response != null) {
-          sasl.send(response, 0, response.length);
-        }
+      ProtonSaslMechanism matching = ProtonSaslMechanismFinderImpl.findMatchingMechanism(username, password,
+          mechanismsRestriction, remoteMechanisms);
+      if (matching != null) {
+        selectMechanism(matching);
       } else {
         throw new MechanismMismatchException(
             "Could not find a suitable SASL mechanism for the remote peer using the available credentials.",
@@ -158,6 +192,18 @@ public class ProtonSaslClientAuthenticatorImpl implements ProtonSaslAuthenticato
     }
   }
 
+  private void selectMechanism(ProtonSaslMechanism selected) throws SaslException {
+    selected.setUsername(username);
+    selected.setPassword(password);
+    byte[] response = selected.getInitialResponse();
+
+    mechanism = selected;
+    sasl.setMechanisms(selected.getName());
+    if (response != null) {
+      sasl.send(response, 0, response.length);
+    }
+  }
+
   private void handleSaslStep() throws SaslException {
     if (sasl.pending() != 0) {
       byte[] challenge = new byte[sasl.pending()];
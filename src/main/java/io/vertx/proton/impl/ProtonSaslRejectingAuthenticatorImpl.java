@@ -0,0 +1,68 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.net.NetSocket;
+import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.sasl.ProtonSaslAuthenticator;
+import io.vertx.proton.sasl.impl.ProtonSaslAnonymousImpl;
+import io.vertx.proton.sasl.impl.ProtonSaslExternalImpl;
+import io.vertx.proton.sasl.impl.ProtonSaslPlainImpl;
+import org.apache.qpid.proton.engine.Sasl;
+import org.apache.qpid.proton.engine.Sasl.SaslOutcome;
+import org.apache.qpid.proton.engine.Transport;
+
+/**
+ * Refuses a connection the server has no capacity for, answering the client's SASL init with a temporary failure
+ * outcome, so that it tries again later rather than treating it as an authentication failure.
+ */
+class ProtonSaslRejectingAuthenticatorImpl implements ProtonSaslAuthenticator {
+
+  // Whichever the client picks, it is refused as soon as it sends its init
+  private static final String[] OFFERED_MECHANISMS = { ProtonSaslExternalImpl.MECH_NAME, ProtonSaslPlainImpl.MECH_NAME,
+      ProtonSaslAnonymousImpl.MECH_NAME };
+
+  private Sasl sasl;
+
+  @Override
+  public void init(NetSocket socket, ProtonConnection protonConnection, Transport transport) {
+    this.sasl = transport.sasl();
+    sasl.server();
+    sasl.allowSkip(false);
+    sasl.setMechanisms(OFFERED_MECHANISMS);
+  }
+
+  @Override
+  public void process(Handler<Boolean> completionHandler) {
+    if (sasl == null) {
+      throw new IllegalStateException("Init was not called with the associated transport");
+    }
+
+    boolean done = false;
+    if (sasl.getRemoteMechanisms().length > 0) {
+      sasl.done(SaslOutcome.PN_SASL_TEMP);
+      done = true;
+    }
+
+    completionHandler.handle(done);
+  }
+
+  @Override
+  public boolean succeeded() {
+    return false;
+  }
+}
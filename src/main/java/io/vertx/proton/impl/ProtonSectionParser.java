@@ -0,0 +1,156 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.nio.ByteBuffer;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.DeliveryAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Header;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Properties;
+import org.apache.qpid.proton.codec.AMQPDefinedTypes;
+import org.apache.qpid.proton.codec.DecoderImpl;
+import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.ReadableBuffer;
+import org.apache.qpid.proton.message.Message;
+
+import io.vertx.proton.ProtonMessageSection;
+
+/**
+ * Decodes the leading sections of encoded messages, up to a given section, without decoding the body or anything
+ * after it.
+ *
+ * Sections are described types, whose descriptor is peeked at to stop before decoding any section past the last one
+ * wanted. Descriptors are almost always encoded as a small ulong code, the symbolic form being decoded to find out.
+ */
+final class ProtonSectionParser {
+
+  private static final byte DESCRIBED_TYPE = 0x00;
+  private static final byte SMALL_ULONG = 0x53;
+  private static final byte ULONG = (byte) 0x80;
+
+  // The header's descriptor code, the other sections following on in the order they are encoded
+  private static final long HEADER_CODE = 0x70;
+
+  private final long lastCode;
+  private final DecoderImpl decoder = new DecoderImpl();
+
+  ProtonSectionParser(ProtonMessageSection lastSection) {
+    if (lastSection == null) {
+      throw new IllegalArgumentException("Last section must not be null");
+    }
+
+    this.lastCode = codeOf(lastSection);
+    AMQPDefinedTypes.registerAllTypes(decoder, new EncoderImpl(decoder));
+  }
+
+  /**
+   * @return a message holding only the sections decoded
+   * @throws RuntimeException if the sections could not be decoded
+   */
+  Message parse(byte[] encoded) {
+    return parse(encoded, lastCode);
+  }
+
+  /**
+   * Decodes at least up to the given section, even if the parser's last section comes before it.
+   *
+   * @return a message holding only the sections decoded
+   * @throws RuntimeException if the sections could not be decoded
+   */
+  Message parseThrough(byte[] encoded, ProtonMessageSection section) {
+    return parse(encoded, Math.max(lastCode, codeOf(section)));
+  }
+
+  private Message parse(byte[] encoded, long lastCode) {
+    Message message = Proton.message();
+    ReadableBuffer buffer = ReadableBuffer.ByteBufferReader.wrap(ByteBuffer.wrap(encoded));
+    decoder.setBuffer(buffer);
+    try {
+      while (buffer.hasRemaining()) {
+        long code = peekDescriptorCode(buffer);
+        if (code > lastCode) {
+          break;
+        }
+
+        Object section = decoder.readObject();
+        if (code == -1 && codeOf(section) > lastCode) {
+          // A symbolic descriptor, only known to be past the last section once decoded
+          break;
+        }
+
+        if (section instanceof Header) {
+          message.setHeader((Header) section);
+        } else if (section instanceof DeliveryAnnotations) {
+          message.setDeliveryAnnotations((DeliveryAnnotations) section);
+        } else if (section instanceof MessageAnnotations) {
+          message.setMessageAnnotations((MessageAnnotations) section);
+        } else if (section instanceof Properties) {
+          message.setProperties((Properties) section);
+        } else if (section instanceof ApplicationProperties) {
+          message.setApplicationProperties((ApplicationProperties) section);
+        }
+      }
+    } finally {
+      decoder.setBuffer(null);
+    }
+    return message;
+  }
+
+  private static long codeOf(ProtonMessageSection section) {
+    return HEADER_CODE + section.ordinal();
+  }
+
+  private static long codeOf(Object section) {
+    if (section instanceof Header) {
+      return HEADER_CODE;
+    } else if (section instanceof DeliveryAnnotations) {
+      return HEADER_CODE + 1;
+    } else if (section instanceof MessageAnnotations) {
+      return HEADER_CODE + 2;
+    } else if (section instanceof Properties) {
+      return HEADER_CODE + 3;
+    } else if (section instanceof ApplicationProperties) {
+      return HEADER_CODE + 4;
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * @return the code of the section descriptor at the buffer position, without moving it, or -1 if not a code
+   */
+  private static long peekDescriptorCode(ReadableBuffer buffer) {
+    int position = buffer.position();
+    if (buffer.remaining() < 3 || buffer.get(position) != DESCRIBED_TYPE) {
+      return -1;
+    }
+
+    byte constructor = buffer.get(position + 1);
+    if (constructor == SMALL_ULONG) {
+      return buffer.get(position + 2) & 0xFF;
+    }
+    if (constructor == ULONG && buffer.remaining() >= 10) {
+      long code = 0;
+      for (int i = 2; i < 10; i++) {
+        code = code << 8 | (buffer.get(position + i) & 0xFF);
+      }
+      return code;
+    }
+    return -1;
+  }
+}
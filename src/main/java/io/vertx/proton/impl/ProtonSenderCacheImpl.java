@@ -0,0 +1,317 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.message.Message;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonSenderCache;
+
+class ProtonSenderCacheImpl implements ProtonSenderCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProtonSenderCacheImpl.class);
+
+  private final ProtonConnectionImpl connection;
+  private final Vertx vertx;
+  private final int maxSenders;
+  private final long idleTimeout;
+
+  // Access ordered, so iteration starts with the least recently used sender
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private Entry anonymousEntry;
+  private Long idleCheckTimerId;
+
+  private long hits;
+  private long misses;
+  private long attaches;
+  private long attachNanos;
+
+  ProtonSenderCacheImpl(ProtonConnectionImpl connection, Vertx vertx, int maxSenders, long idleTimeout) {
+    if (maxSenders <= 0) {
+      throw new IllegalArgumentException("Max senders must be positive");
+    }
+
+    if (idleTimeout < 0) {
+      throw new IllegalArgumentException("Idle timeout must not be negative");
+    }
+
+    this.connection = connection;
+    this.vertx = vertx;
+    this.maxSenders = maxSenders;
+    this.idleTimeout = idleTimeout;
+  }
+
+  @Override
+  public void getSender(String address, Handler<AsyncResult<ProtonSender>> handler) {
+    if (connection.isAnonymousRelaySupported()) {
+      if (anonymousEntry == null) {
+        misses++;
+        anonymousEntry = attach(null);
+      } else {
+        hits++;
+      }
+      anonymousEntry.use(handler);
+      return;
+    }
+
+    Entry entry = entries.get(address);
+    if (entry != null) {
+      hits++;
+    } else {
+      misses++;
+      entry = attach(address);
+      entries.put(address, entry);
+      evictOverflow();
+      scheduleIdleCheck();
+    }
+
+    entry.use(handler);
+  }
+
+  @Override
+  public void send(String address, Message message, Handler<ProtonDelivery> onUpdated) {
+    send(address, message, onUpdated, null);
+  }
+
+  @Override
+  public void send(String address, Message message, Handler<ProtonDelivery> onUpdated,
+                   Handler<Throwable> failureHandler) {
+    getSender(address, res -> {
+      if (res.failed()) {
+        if (failureHandler != null) {
+          failureHandler.handle(res.cause());
+        } else {
+          LOG.debug("Unable to attach a sender to send to " + address, res.cause());
+        }
+        return;
+      }
+
+      ProtonSender sender = res.result();
+      if (sender.getTarget() == null || sender.getTarget().getAddress() == null) {
+        message.setAddress(address);
+      }
+
+      sender.send(message, delivery -> {
+        if (onUpdated != null) {
+          onUpdated.handle(delivery);
+        }
+        if (entries.size() > maxSenders) {
+          // Senders kept past the limit for their unsettled deliveries can go once this one is settled
+          vertx.runOnContext(x -> evictOverflow());
+        }
+      });
+    });
+  }
+
+  @Override
+  public int size() {
+    return entries.size() + (anonymousEntry != null ? 1 : 0);
+  }
+
+  @Override
+  public long getHits() {
+    return hits;
+  }
+
+  @Override
+  public long getMisses() {
+    return misses;
+  }
+
+  @Override
+  public double getAverageAttachTime() {
+    if (attaches == 0) {
+      return 0;
+    }
+
+    return (double) attachNanos / attaches / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public void clear() {
+    List<Entry> removed = new ArrayList<>(entries.values());
+    entries.clear();
+    if (anonymousEntry != null) {
+      removed.add(anonymousEntry);
+      anonymousEntry = null;
+    }
+
+    cancelIdleCheck();
+
+    for (Entry entry : removed) {
+      entry.detach();
+    }
+  }
+
+  private Entry attach(String address) {
+    Entry entry = new Entry(address, (ProtonSenderImpl) connection.createSender(address));
+    entry.open();
+    return entry;
+  }
+
+  private void evictOverflow() {
+    Iterator<Entry> iter = entries.values().iterator();
+    while (entries.size() > maxSenders && iter.hasNext()) {
+      Entry eldest = iter.next();
+      if (eldest.isBusy()) {
+        // Detaching would lose its messages, so the cache stays over the limit until they are settled
+        continue;
+      }
+      iter.remove();
+      eldest.detach();
+    }
+  }
+
+  private void scheduleIdleCheck() {
+    if (idleTimeout == 0 || idleCheckTimerId != null) {
+      return;
+    }
+
+    // Checking at half the timeout detaches senders within 1.5x the idle timeout at most.
+    idleCheckTimerId = vertx.setTimer(Math.max(idleTimeout / 2, 1), x -> {
+      idleCheckTimerId = null;
+      evictIdle();
+      if (!entries.isEmpty()) {
+        scheduleIdleCheck();
+      }
+    });
+  }
+
+  private void cancelIdleCheck() {
+    Long timerId = idleCheckTimerId;
+    if (timerId != null) {
+      idleCheckTimerId = null;
+      vertx.cancelTimer(timerId);
+    }
+  }
+
+  private void evictIdle() {
+    long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+
+    Iterator<Entry> iter = entries.values().iterator();
+    while (iter.hasNext()) {
+      Entry entry = iter.next();
+      if (entry.lastUsed - cutoff >= 0) {
+        // Iteration is least recently used first, so the rest were used even more recently.
+        break;
+      }
+      if (entry.isBusy()) {
+        continue;
+      }
+      iter.remove();
+      entry.detach();
+    }
+  }
+
+  private void remove(Entry entry) {
+    if (entry == anonymousEntry) {
+      anonymousEntry = null;
+    } else {
+      // Not using get(), which would count as an access
+      entries.remove(entry.address, entry);
+    }
+  }
+
+  private final class Entry {
+    private final String address;
+    private final ProtonSenderImpl sender;
+    private final long attachStart = System.nanoTime();
+    private long lastUsed = attachStart;
+    private List<Handler<AsyncResult<ProtonSender>>> waiting = new ArrayList<>(1);
+
+    Entry(String address, ProtonSenderImpl sender) {
+      this.address = address;
+      this.sender = sender;
+    }
+
+    void open() {
+      sender.openHandler(res -> {
+        List<Handler<AsyncResult<ProtonSender>>> handlers = waiting;
+        waiting = null;
+        if (handlers == null) {
+          // Evicted while attaching, the handlers were already failed.
+          return;
+        }
+
+        AsyncResult<ProtonSender> result;
+        if (res.succeeded()) {
+          attaches++;
+          attachNanos += System.nanoTime() - attachStart;
+          result = Future.succeededFuture(sender);
+        } else {
+          remove(this);
+          result = Future.failedFuture(res.cause());
+        }
+
+        for (Handler<AsyncResult<ProtonSender>> handler : handlers) {
+          handler.handle(result);
+        }
+      });
+
+      Handler<AsyncResult<ProtonSender>> endHandler = res -> {
+        remove(this);
+        sender.close();
+        sender.free();
+      };
+      sender.detachHandler(endHandler);
+      sender.closeHandler(endHandler);
+
+      sender.open();
+    }
+
+    void use(Handler<AsyncResult<ProtonSender>> handler) {
+      lastUsed = System.nanoTime();
+      if (waiting != null) {
+        waiting.add(handler);
+      } else if (sender.isOpen()) {
+        handler.handle(Future.succeededFuture(sender));
+      } else {
+        handler.handle(Future.failedFuture(new VertxException("Sender is no longer open")));
+      }
+    }
+
+    boolean isBusy() {
+      return waiting != null || sender.hasPendingDeliveries();
+    }
+
+    void detach() {
+      List<Handler<AsyncResult<ProtonSender>>> handlers = waiting;
+      waiting = null;
+      sender.detach();
+
+      if (handlers != null) {
+        AsyncResult<ProtonSender> result = Future.failedFuture(new VertxException("Sender evicted before attaching"));
+        for (Handler<AsyncResult<ProtonSender>> handler : handlers) {
+          handler.handle(result);
+        }
+      }
+    }
+  }
+}
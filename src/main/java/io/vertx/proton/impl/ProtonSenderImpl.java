@@ -15,16 +15,24 @@
 */
 package io.vertx.proton.impl;
 
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.apache.qpid.proton.amqp.transport.SenderSettleMode;
 import org.apache.qpid.proton.amqp.transport.Target;
-import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Sender;
 import org.apache.qpid.proton.message.Message;
 import org.apache.qpid.proton.message.impl.MessageImpl;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.Handler;
 import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonLinkLimitOptions;
 import io.vertx.proton.ProtonSender;
 
 /**
@@ -32,11 +40,24 @@ import io.vertx.proton.ProtonSender;
  */
 public class ProtonSenderImpl extends ProtonLinkImpl<ProtonSender> implements ProtonSender {
 
+  static final int DEFAULT_PRIORITY_LANE_CAPACITY = 1024;
+
   private Handler<ProtonSender> drainHandler;
   private boolean anonymousSender;
   private boolean autoSettle = true;
   private int tag = 1;
   private boolean autoDrained = true;
+  // Encoded unsettled deliveries to send again after a reconnect, only kept if the connection reconnects automatically
+  private Map<ProtonDeliveryImpl, byte[]> unsettled;
+  private int transferWeight = 1;
+  // Encoded transfers awaiting release by the session's transfer scheduler, only used if it has one
+  private ArrayDeque<QueuedTransfer> queued;
+  private int priorityLaneCapacity = DEFAULT_PRIORITY_LANE_CAPACITY;
+  // Messages waiting for credit, created once a message is sent with a priority
+  private ProtonPriorityLanes<QueuedTransfer> lanes;
+  // Transfer scheduler state
+  boolean scheduled;
+  int deficit;
 
   ProtonSenderImpl(Sender sender) {
     super(sender);
@@ -82,18 +103,32 @@ public class ProtonSenderImpl extends ProtonLinkImpl<ProtonSender> implements Pr
     }
     // TODO: prevent odd combination of onRecieved callback + SenderSettleMode.SETTLED, or just allow it?
 
-    Delivery delivery = sender().delivery(tag); // start a new delivery..
+    if (lanes != null && (!lanes.isEmpty() || sendQueueFull())) {
+      return sendToLane(tag, message, onUpdated);
+    }
+
     ProtonWritableBufferImpl buffer = new ProtonWritableBufferImpl();
     MessageImpl msg = (MessageImpl) message;
     msg.encode(buffer);
-    ReadableBuffer encoded = new ProtonReadableBufferImpl(buffer.getBuffer());
 
-    sender().sendNoCopy(encoded);
+    return sendEncoded(tag, buffer.getBuffer(), onUpdated);
+  }
 
-    if (link.getSenderSettleMode() == SenderSettleMode.SETTLED) {
-      delivery.settle();
-    }
-    sender().advance(); // ends the delivery.
+  @Override
+  public ProtonDelivery sendEncoded(byte[] encoded, Handler<ProtonDelivery> onUpdated) {
+    return sendEncoded(Unpooled.wrappedBuffer(encoded), onUpdated);
+  }
+
+  /**
+   * Sends an already encoded message as is, e.g. one forwarded from a receiver without decoding it. Bypasses the
+   * priority lanes, so is not to be mixed with {@link #send(Message, int, Handler)} on the same sender.
+   */
+  ProtonDelivery sendEncoded(ByteBuf encoded, Handler<ProtonDelivery> onUpdated) {
+    return sendEncoded(generateTag(), encoded, onUpdated);
+  }
+
+  private ProtonDelivery sendEncoded(byte[] tag, ByteBuf encoded, Handler<ProtonDelivery> onUpdated) {
+    Delivery delivery = sender().delivery(tag); // start a new delivery..
 
     ProtonDeliveryImpl protonDeliveryImpl = new ProtonDeliveryImpl(delivery);
     if (onUpdated != null) {
@@ -103,11 +138,223 @@ public class ProtonSenderImpl extends ProtonLinkImpl<ProtonSender> implements Pr
       protonDeliveryImpl.setAutoSettle(true);
     }
 
+    ProtonTransferScheduler scheduler = getSession().getTransferScheduler();
+    if (scheduler != null) {
+      // The delivery is created now so tags and order are kept, but its payload is only sent once released.
+      if (queued == null) {
+        queued = new ArrayDeque<>();
+      }
+      queued.add(new QueuedTransfer(protonDeliveryImpl, delivery, encoded));
+      scheduler.schedule(this);
+    } else {
+      transfer(protonDeliveryImpl, delivery, encoded);
+    }
+
+    enforceLimits();
     getSession().getConnectionImpl().flush();
 
     return protonDeliveryImpl;
   }
 
+  @Override
+  public ProtonDelivery send(Message message, int priority, Handler<ProtonDelivery> onUpdated) {
+    if (priority < 0 || priority > 255) {
+      throw new IllegalArgumentException("Priority must be between 0 and 255");
+    }
+
+    message.setPriority((short) priority);
+    if (lanes == null) {
+      lanes = new ProtonPriorityLanes<>(priorityLaneCapacity);
+    }
+
+    return send(generateTag(), message, onUpdated);
+  }
+
+  private ProtonDelivery sendToLane(byte[] tag, Message message, Handler<ProtonDelivery> onUpdated) {
+    int priority = message.getPriority();
+    if (lanes.isFull(priority)) {
+      throw new IllegalStateException("The priority lane for priority " + priority + " is full");
+    }
+
+    ProtonWritableBufferImpl buffer = new ProtonWritableBufferImpl();
+    ((MessageImpl) message).encode(buffer);
+
+    // The underlying delivery is only created once released, which decides the order it is sent in.
+    ProtonDeliveryImpl protonDeliveryImpl = new ProtonDeliveryImpl(this, tag);
+    if (onUpdated != null) {
+      protonDeliveryImpl.setAutoSettle(autoSettle);
+      protonDeliveryImpl.handler(onUpdated);
+    } else {
+      protonDeliveryImpl.setAutoSettle(true);
+    }
+
+    lanes.offer(priority, new QueuedTransfer(protonDeliveryImpl, null, buffer.getBuffer()));
+
+    return protonDeliveryImpl;
+  }
+
+  /**
+   * Releases messages waiting in the priority lanes, highest priority first, for as long as there is credit.
+   */
+  private void releaseLanes() {
+    if (lanes == null || lanes.isEmpty()) {
+      return;
+    }
+
+    ProtonTransferScheduler scheduler = getSession().getTransferScheduler();
+    boolean released = false;
+    while (!lanes.isEmpty() && link.getRemoteCredit() - queuedCount() > 0) {
+      QueuedTransfer next = lanes.poll();
+      next.delivery = sender().delivery(next.protonDelivery.getTag());
+      next.protonDelivery.rebind(next.delivery);
+
+      if (scheduler != null) {
+        if (queued == null) {
+          queued = new ArrayDeque<>();
+        }
+        queued.add(next);
+        scheduler.schedule(this);
+      } else {
+        transfer(next.protonDelivery, next.delivery, next.bytes);
+      }
+      released = true;
+    }
+
+    if (released) {
+      getSession().getConnectionImpl().flush();
+    }
+  }
+
+  private int queuedCount() {
+    return queued != null ? queued.size() : 0;
+  }
+
+  /**
+   * @return whether messages are still waiting for credit, or sent deliveries are still waiting to be settled
+   */
+  boolean hasPendingDeliveries() {
+    return link.getQueued() > 0 || link.getUnsettled() > 0 || queuedCount() > 0 || (lanes != null && !lanes.isEmpty());
+  }
+
+  @Override
+  public ProtonSender setPriorityLaneCapacity(int capacity) {
+    if (lanes != null && !lanes.isEmpty()) {
+      throw new IllegalStateException("Messages are waiting in the priority lanes");
+    }
+
+    ProtonPriorityLanes<QueuedTransfer> resized = new ProtonPriorityLanes<>(capacity);
+    if (lanes != null) {
+      lanes = resized;
+    }
+    priorityLaneCapacity = capacity;
+    return this;
+  }
+
+  @Override
+  public int getPriorityLaneCapacity() {
+    return priorityLaneCapacity;
+  }
+
+  private void transfer(ProtonDeliveryImpl protonDeliveryImpl, Delivery delivery, ByteBuf bytes) {
+    byte[] retained = null;
+    if (link.getSenderSettleMode() != SenderSettleMode.SETTLED && getSession().getConnectionImpl().isAutoReconnect()) {
+      retained = new byte[bytes.readableBytes()];
+      bytes.getBytes(bytes.readerIndex(), retained);
+    }
+
+    sender().sendNoCopy(new ProtonReadableBufferImpl(bytes));
+
+    if (link.getSenderSettleMode() == SenderSettleMode.SETTLED) {
+      delivery.settle();
+    }
+    sender().advance(); // ends the delivery.
+    getSession().getConnectionImpl().countOutgoingMessage();
+
+    if (retained != null) {
+      if (unsettled == null) {
+        unsettled = new LinkedHashMap<>();
+      }
+      unsettled.put(protonDeliveryImpl, retained);
+    }
+  }
+
+  @Override
+  long getOutgoingBytes() {
+    long pending = getRetainedOutgoingBytes();
+    for (Delivery delivery = link.head(); delivery != null; delivery = delivery.next()) {
+      pending += delivery.pending();
+    }
+    return pending;
+  }
+
+  @Override
+  long getRetainedOutgoingBytes() {
+    long retained = 0;
+    if (queued != null) {
+      for (QueuedTransfer transfer : queued) {
+        retained += transfer.bytes.readableBytes();
+      }
+    }
+    return retained;
+  }
+
+  @Override
+  String exceededLimit(ProtonLinkLimitOptions limits) {
+    long maxOutgoingBytes = limits.getMaxOutgoingBytes();
+    // The session's pending output bounds the link's, so the link's own is only counted once it could be over
+    if (maxOutgoingBytes > 0 && link.getSession().getOutgoingBytes() + getRetainedOutgoingBytes() > maxOutgoingBytes
+        && getOutgoingBytes() > maxOutgoingBytes) {
+      return "pending outgoing bytes";
+    }
+    return super.exceededLimit(limits);
+  }
+
+  boolean hasQueuedTransfer() {
+    if (queued == null || queued.isEmpty()) {
+      return false;
+    }
+
+    if (link.getLocalState() == EndpointState.CLOSED) {
+      // Never to be sent
+      queued.clear();
+      return false;
+    }
+
+    return true;
+  }
+
+  boolean canReleaseTransfer() {
+    // Without credit it would only wait in the session, holding up the transfers of other senders
+    return link.getLocalState() == EndpointState.ACTIVE && link.getRemoteCredit() > 0;
+  }
+
+  int queuedTransferSize() {
+    return queued.peekFirst().bytes.readableBytes();
+  }
+
+  void releaseTransfer() {
+    QueuedTransfer next = queued.pollFirst();
+    transfer(next.protonDelivery, next.delivery, next.bytes);
+
+    if (queued.isEmpty() && (lanes == null || lanes.isEmpty()) && autoDrained && getDrain()) {
+      drained();
+    }
+  }
+
+  @Override
+  public ProtonSender setTransferWeight(int transferWeight) {
+    if (transferWeight <= 0) {
+      throw new IllegalArgumentException("Transfer weight must be positive");
+    }
+    this.transferWeight = transferWeight;
+    return this;
+  }
+
+  @Override
+  public int getTransferWeight() {
+    return transferWeight;
+  }
+
   @Override
   public boolean isAutoSettle() {
     return autoSettle;
@@ -134,7 +381,8 @@ public class ProtonSenderImpl extends ProtonLinkImpl<ProtonSender> implements Pr
 
   @Override
   public boolean sendQueueFull() {
-    return link.getRemoteCredit() <= 0;
+    int waiting = queuedCount() + (lanes != null ? lanes.size() : 0);
+    return link.getRemoteCredit() - waiting <= 0;
   }
 
   @Override
@@ -146,11 +394,13 @@ public class ProtonSenderImpl extends ProtonLinkImpl<ProtonSender> implements Pr
 
   @Override
   void handleLinkFlow() {
-    if (link.getRemoteCredit() > 0 && drainHandler != null) {
+    releaseLanes();
+
+    if (!sendQueueFull() && drainHandler != null) {
       drainHandler.handle(this);
     }
 
-    if(autoDrained && getDrain()) {
+    if(autoDrained && getDrain() && queuedCount() == 0 && (lanes == null || lanes.isEmpty())) {
       drained();
     }
   }
@@ -171,6 +421,41 @@ public class ProtonSenderImpl extends ProtonLinkImpl<ProtonSender> implements Pr
     return super.drained();
   }
 
+  void forgetUnsettled(ProtonDeliveryImpl delivery) {
+    if (unsettled != null) {
+      unsettled.remove(delivery);
+    }
+  }
+
+  @Override
+  void onReattach(Link previous) {
+    if (unsettled != null) {
+      // Send the deliveries the peer may not have received again, in their original order, with the same tags.
+      for (Map.Entry<ProtonDeliveryImpl, byte[]> entry : unsettled.entrySet()) {
+        ProtonDeliveryImpl protonDeliveryImpl = entry.getKey();
+        byte[] bytes = entry.getValue();
+
+        Delivery delivery = sender().delivery(protonDeliveryImpl.getTag());
+        sender().send(bytes, 0, bytes.length);
+        sender().advance();
+
+        protonDeliveryImpl.rebind(delivery);
+      }
+    }
+
+    if (queued != null) {
+      rebindQueued();
+    }
+  }
+
+  private void rebindQueued() {
+    // Still to be released, so only their deliveries need creating again, after any resent ones.
+    for (QueuedTransfer transfer : queued) {
+      transfer.delivery = sender().delivery(transfer.protonDelivery.getTag());
+      transfer.protonDelivery.rebind(transfer.delivery);
+    }
+  }
+
   @Override
   public String getRemoteAddress() {
     Target remoteTarget = getRemoteTarget();
@@ -178,4 +463,15 @@ public class ProtonSenderImpl extends ProtonLinkImpl<ProtonSender> implements Pr
     return remoteTarget == null ? null : remoteTarget.getAddress();
   }
 
+  private static final class QueuedTransfer {
+    private final ProtonDeliveryImpl protonDelivery;
+    private Delivery delivery;
+    private final ByteBuf bytes;
+
+    QueuedTransfer(ProtonDeliveryImpl protonDelivery, Delivery delivery, ByteBuf bytes) {
+      this.protonDelivery = protonDelivery;
+      this.delivery = delivery;
+      this.bytes = bytes;
+    }
+  }
 }
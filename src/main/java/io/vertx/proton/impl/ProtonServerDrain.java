@@ -0,0 +1,128 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonDrainOptions;
+
+/**
+ * Drains a server's connections: suspends their credit, waits for their unsettled deliveries to settle, then closes
+ * them in batches with a redirect condition, before finally closing the server.
+ */
+final class ProtonServerDrain {
+
+  private static final long SETTLE_CHECK_INTERVAL = 100;
+
+  private final Vertx vertx;
+  private final ProtonDrainOptions options;
+  // The server's live set of connections, which ended connections leave
+  private final Collection<ProtonConnectionImpl> connections;
+  private final Handler<Handler<AsyncResult<Void>>> serverCloser;
+  private final Handler<AsyncResult<Void>> completionHandler;
+  private final ErrorCondition redirect;
+  private long settleDeadline;
+
+  ProtonServerDrain(Vertx vertx, ProtonDrainOptions options, Collection<ProtonConnectionImpl> connections,
+                    Handler<Handler<AsyncResult<Void>>> serverCloser, Handler<AsyncResult<Void>> completionHandler) {
+    this.vertx = vertx;
+    this.options = options;
+    this.connections = connections;
+    this.serverCloser = serverCloser;
+    this.completionHandler = completionHandler;
+    this.redirect = ProtonConnectionImpl.redirectCondition("Server is shutting down, reconnect",
+        options.getRedirectHost(), options.getRedirectPort());
+  }
+
+  void start() {
+    for (ProtonConnectionImpl connection : connections) {
+      connection.getContext().runOnContext(x -> connection.suspendCredit());
+    }
+
+    settleDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getSettleTimeout());
+    awaitSettled();
+  }
+
+  private void awaitSettled() {
+    if (System.nanoTime() - settleDeadline >= 0) {
+      closeBatches(new ArrayList<>(connections), 0);
+      return;
+    }
+
+    countUnsettled(unsettled -> {
+      if (unsettled == 0) {
+        closeBatches(new ArrayList<>(connections), 0);
+      } else {
+        vertx.setTimer(SETTLE_CHECK_INTERVAL, x -> awaitSettled());
+      }
+    });
+  }
+
+  /**
+   * Sums the unsettled deliveries of all the connections, each counted on its own context.
+   */
+  private void countUnsettled(Handler<Integer> handler) {
+    List<ProtonConnectionImpl> snapshot = new ArrayList<>(connections);
+    if (snapshot.isEmpty()) {
+      handler.handle(0);
+      return;
+    }
+
+    AtomicInteger remaining = new AtomicInteger(snapshot.size());
+    AtomicInteger unsettled = new AtomicInteger();
+    for (ProtonConnectionImpl connection : snapshot) {
+      connection.getContext().runOnContext(x -> {
+        if (!connection.isDisconnected()) {
+          unsettled.addAndGet(connection.getUnsettledCount());
+        }
+        if (remaining.decrementAndGet() == 0) {
+          handler.handle(unsettled.get());
+        }
+      });
+    }
+  }
+
+  private void closeBatches(List<ProtonConnectionImpl> pending, int from) {
+    int to = Math.min(from + options.getBatchSize(), pending.size());
+    for (int i = from; i < to; i++) {
+      ProtonConnectionImpl connection = pending.get(i);
+      connection.getContext().runOnContext(x -> {
+        if (connections.contains(connection)) {
+          connection.setCondition(redirect);
+          connection.close();
+        }
+      });
+    }
+
+    // Closing the server closes any connections left, so give the last batch an interval to close cleanly too
+    vertx.setTimer(options.getBatchInterval(), x -> {
+      if (to < pending.size()) {
+        closeBatches(pending, to);
+      } else {
+        serverCloser.handle(completionHandler);
+      }
+    });
+  }
+}
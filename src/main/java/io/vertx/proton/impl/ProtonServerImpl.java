@@ -24,16 +24,27 @@ import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.net.NetServer;
 import io.vertx.core.net.NetSocket;
 import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonConnectionRegistry;
+import io.vertx.proton.ProtonDrainOptions;
+import io.vertx.proton.ProtonLinkLimitOptions;
 import io.vertx.proton.ProtonServer;
 import io.vertx.proton.ProtonServerOptions;
 import io.vertx.proton.ProtonTransportOptions;
+import io.vertx.proton.ProtonVirtualHostOptions;
 import io.vertx.proton.sasl.ProtonSaslAuthenticator;
 import io.vertx.proton.sasl.ProtonSaslAuthenticatorFactory;
 import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.transport.AmqpError;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
 import org.apache.qpid.proton.engine.Transport;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
@@ -48,12 +59,19 @@ public class ProtonServerImpl implements ProtonServer {
   private boolean advertiseAnonymousRelayCapability = true;
 
   private ProtonServerOptions options;
+  private final ProtonTransportOptions transportOptions;
+  private volatile ProtonAdmissionControl admissionControl;
+  private ProtonConnectionRegistryImpl connectionRegistry;
+  private volatile ProtonLinkLimitOptions linkLimits;
+  // Connections past their handshake and not yet ended, tracked for draining
+  private final Set<ProtonConnectionImpl> connections = ConcurrentHashMap.newKeySet();
+  private volatile boolean draining;
+  // Keyed by lower case hostname, read by the connections' event loops
+  private final Map<String, VirtualHost> virtualHosts = new ConcurrentHashMap<>();
+  private boolean accepting;
 
   public ProtonServerImpl(Vertx vertx) {
-    this.vertx = vertx;
-    this.server = this.vertx.createNetServer();
-
-    this.options = new ProtonServerOptions();
+    this(vertx, new ProtonServerOptions());
   }
 
   public ProtonServerImpl(Vertx vertx, ProtonServerOptions options) {
@@ -61,6 +79,14 @@ public class ProtonServerImpl implements ProtonServer {
     this.server = this.vertx.createNetServer(options);
 
     this.options = options;
+
+    // Shared by all accepted connections, as the transport only reads it when created
+    this.transportOptions = new ProtonTransportOptions();
+    this.transportOptions.setHeartbeat(options.getHeartbeat());
+    this.transportOptions.setMaxFrameSize(options.getMaxFrameSize());
+
+    // Resolve the host name off the event loop ahead of the first connection
+    vertx.executeBlocking(promise -> promise.complete(LocalHost.NAME), false);
   }
 
   @Override
@@ -128,6 +154,16 @@ public class ProtonServerImpl implements ProtonServer {
     server.close(handler);
   }
 
+  @Override
+  public synchronized void drain(ProtonDrainOptions options, Handler<AsyncResult<Void>> handler) {
+    if (draining) {
+      throw new IllegalStateException("Server is already draining");
+    }
+    draining = true;
+
+    new ProtonServerDrain(vertx, new ProtonDrainOptions(options), connections, server::close, handler).start();
+  }
+
   @Override
   public Handler<ProtonConnection> connectHandler() {
     return handler;
@@ -147,76 +183,241 @@ public class ProtonServerImpl implements ProtonServer {
   @Override
   public ProtonServerImpl connectHandler(Handler<ProtonConnection> handler) {
     this.handler = handler;
-    server.connectHandler(netSocket -> {
-      String hostname = null;
-      try {
-        hostname = InetAddress.getLocalHost().getHostName();
-      } catch (UnknownHostException e) {
-        // ignore
-      }
+    acceptConnections();
+    return this;
+  }
 
-      final ProtonConnectionImpl connection = new ProtonConnectionImpl(vertx, hostname, (ContextInternal) Vertx.currentContext());
-      if (advertiseAnonymousRelayCapability) {
-        connection.setOfferedCapabilities(new Symbol[] { ProtonConnectionImpl.ANONYMOUS_RELAY });
-      }
+  private void acceptConnections() {
+    accepting = true;
+    if (ProtonAdmissionControl.isEnabled(options)) {
+      admissionControl = new ProtonAdmissionControl(vertx, options,
+          (netSocket, handshakeEnded) -> handshake(netSocket, createAuthenticator(), handshakeEnded),
+          netSocket -> handshake(netSocket, new ProtonSaslRejectingAuthenticatorImpl(), null));
+      server.connectHandler(admissionControl::accept);
+    } else {
+      admissionControl = null;
+      server.connectHandler(netSocket -> handshake(netSocket, createAuthenticator(), null));
+    }
+  }
+
+  @Override
+  public ProtonServer linkLimits(ProtonLinkLimitOptions limits) {
+    this.linkLimits = limits != null ? new ProtonLinkLimitOptions(limits) : null;
+    return this;
+  }
 
-      final ProtonSaslAuthenticator authenticator = authenticatorFactory.create();
+  @Override
+  public synchronized ProtonServer virtualHostHandler(String hostname, ProtonVirtualHostOptions options,
+                                                      Handler<ProtonConnection> handler) {
+    if (hostname == null) {
+      throw new IllegalArgumentException("Virtual host name must not be null");
+    }
 
-      ProtonTransportOptions transportOptions = new ProtonTransportOptions();
-      transportOptions.setHeartbeat(this.options.getHeartbeat());
-      transportOptions.setMaxFrameSize(this.options.getMaxFrameSize());
+    ProtonVirtualHostOptions limits = new ProtonVirtualHostOptions(options);
+    // A replaced virtual host keeps the count of its connections
+    virtualHosts.compute(hostname.toLowerCase(Locale.ROOT), (key, previous) -> new VirtualHost(limits, handler,
+        previous != null ? previous.connections : new AtomicInteger()));
+    if (!accepting) {
+      acceptConnections();
+    }
+    return this;
+  }
 
-      connection.bindServer(netSocket, new ProtonSaslAuthenticator() {
+  @Override
+  public int getVirtualHostConnectionCount(String hostname) {
+    VirtualHost virtualHost = hostname != null ? virtualHosts.get(hostname.toLowerCase(Locale.ROOT)) : null;
+    return virtualHost != null ? virtualHost.connections.get() : 0;
+  }
 
-        @Override
-        public void init(NetSocket socket, ProtonConnection protonConnection, Transport transport) {
-          authenticator.init(socket, protonConnection, transport);
-        }
+  @Override
+  public ProtonServer connectionRegistry(ProtonConnectionRegistry registry) {
+    this.connectionRegistry = (ProtonConnectionRegistryImpl) registry;
+    return this;
+  }
+
+  @Override
+  public int getHandshakingConnectionCount() {
+    ProtonAdmissionControl control = admissionControl;
+    return control != null ? control.getHandshakingCount() : 0;
+  }
+
+  @Override
+  public int getQueuedConnectionCount() {
+    ProtonAdmissionControl control = admissionControl;
+    return control != null ? control.getQueuedCount() : 0;
+  }
+
+  @Override
+  public long getRejectedConnectionCount() {
+    ProtonAdmissionControl control = admissionControl;
+    return control != null ? control.getRejectedCount() : 0;
+  }
+
+  /**
+   * @return an authenticator for a newly accepted connection, which once draining fails the handshake with a temporary
+   *         error, for the client to retry elsewhere
+   */
+  private ProtonSaslAuthenticator createAuthenticator() {
+    return draining ? new ProtonSaslRejectingAuthenticatorImpl() : authenticatorFactory.create();
+  }
+
+  /**
+   * Binds a connection to the given socket and runs the SASL handshake with the given authenticator, passing the
+   * connection to the connect handler if it succeeds.
+   *
+   * @param handshakeEnded run once the handshake completes, successfully or not, or null
+   */
+  private void handshake(NetSocket netSocket, ProtonSaslAuthenticator authenticator, Runnable handshakeEnded) {
+    final ProtonConnectionImpl connection = new ProtonConnectionImpl(vertx, LocalHost.NAME, (ContextInternal) Vertx.currentContext());
+    if (advertiseAnonymousRelayCapability) {
+      connection.setOfferedCapabilities(new Symbol[] { ProtonConnectionImpl.ANONYMOUS_RELAY });
+    }
+
+    connection.bindServer(netSocket, new ProtonSaslAuthenticator() {
+
+      @Override
+      public void init(NetSocket socket, ProtonConnection protonConnection, Transport transport) {
+        authenticator.init(socket, protonConnection, transport);
+      }
+
+      @Override
+      public void process(Handler<Boolean> completionHandler) {
+        final Context context = Vertx.currentContext();
 
-        @Override
-        public void process(Handler<Boolean> completionHandler) {
-          final Context context = Vertx.currentContext();
+        authenticator.process(complete -> {
+          final Context callbackContext = vertx.getOrCreateContext();
+          if(context != callbackContext) {
+            throw new IllegalStateException("Callback was not made on the original context");
+          }
 
-          authenticator.process(complete -> {
-            final Context callbackContext = vertx.getOrCreateContext();
-            if(context != callbackContext) {
-              throw new IllegalStateException("Callback was not made on the original context");
+          if (complete) {
+            if (handshakeEnded != null) {
+              handshakeEnded.run();
             }
 
-            if (complete) {
-              // The authenticator completed, now check success, do required post processing
-              if (succeeded()) {
+            // The authenticator completed, now check success, do required post processing
+            if (succeeded()) {
+              connections.add(connection);
+              // Shared by the connections, never modified
+              connection.setLinkLimits(linkLimits);
+              connection.addEndHandler(x -> connections.remove(connection));
+              if (draining) {
+                // Handshake began before the drain did
+                connection.suspendCredit();
+              }
+              if (connectionRegistry != null) {
+                connectionRegistry.register(connection, netSocket.localAddress());
+              }
+              if (virtualHosts.isEmpty()) {
                 handler.handle(connection);
-                connection.flush();
               } else {
-                // auth failed, flush any pending data and disconnect client
-                connection.flush();
-                connection.disconnect();
+                // The virtual host is only known once the open arrives
+                connection.remoteOpenHandler(ProtonServerImpl.this::dispatch);
               }
+              connection.flush();
+            } else {
+              // auth failed, flush any pending data and disconnect client
+              connection.flush();
+              connection.disconnect();
             }
+          }
 
-            completionHandler.handle(complete);
-          });
-        }
+          completionHandler.handle(complete);
+        });
+      }
 
-        @Override
-        public boolean succeeded() {
-          return authenticator.succeeded();
-        }
+      @Override
+      public boolean succeeded() {
+        return authenticator.succeeded();
+      }
 
-      }, transportOptions);
-    });
-    return this;
+    }, transportOptions);
+  }
+
+  /**
+   * Passes a connection whose open has arrived to the handler of the virtual host it names, within the limits of the
+   * virtual host, or otherwise to the connect handler.
+   */
+  private void dispatch(ProtonConnectionImpl connection) {
+    connection.remoteOpenHandler(null);
+
+    String hostname = connection.getRemoteHostname();
+    VirtualHost virtualHost = hostname != null ? virtualHosts.get(hostname.toLowerCase(Locale.ROOT)) : null;
+    if (virtualHost == null) {
+      if (handler != null) {
+        handler.handle(connection);
+      } else {
+        refuse(connection, new ErrorCondition(AmqpError.NOT_FOUND, "Unknown virtual host: " + hostname));
+      }
+    } else if (virtualHost.admit(connection)) {
+      virtualHost.handler.handle(connection);
+    } else {
+      refuse(connection, new ErrorCondition(AmqpError.RESOURCE_LIMIT_EXCEEDED,
+          "Virtual host connection limit reached: " + hostname));
+    }
+  }
+
+  private static void refuse(ProtonConnectionImpl connection, ErrorCondition condition) {
+    connection.setCondition(condition);
+    connection.close();
   }
 
   public void setAdvertiseAnonymousRelayCapability(boolean advertiseAnonymousRelayCapability) {
     this.advertiseAnonymousRelayCapability = advertiseAnonymousRelayCapability;
   }
 
+  /**
+   * Holds the local host name, resolved only once as it may block on a DNS lookup.
+   */
+  private static final class LocalHost {
+    static final String NAME = resolve();
+
+    private static String resolve() {
+      try {
+        return InetAddress.getLocalHost().getHostName();
+      } catch (UnknownHostException e) {
+        return null;
+      }
+    }
+  }
+
   private static class DefaultAuthenticatorFactory implements ProtonSaslAuthenticatorFactory {
     @Override
     public ProtonSaslAuthenticator create() {
       return new ProtonSaslServerAuthenticatorImpl();
     }
   }
+
+  private static final class VirtualHost {
+    private final ProtonVirtualHostOptions options;
+    private final Handler<ProtonConnection> handler;
+    private final AtomicInteger connections;
+
+    VirtualHost(ProtonVirtualHostOptions options, Handler<ProtonConnection> handler, AtomicInteger connections) {
+      this.options = options;
+      this.handler = handler;
+      this.connections = connections;
+    }
+
+    /**
+     * Counts the given connection against the virtual host until it ends, and applies the virtual host's limits to it.
+     *
+     * @return false if the virtual host already has as many connections as it may have
+     */
+    boolean admit(ProtonConnectionImpl connection) {
+      int max = options.getMaxConnections();
+      int current;
+      do {
+        current = connections.get();
+        if (max > 0 && current >= max) {
+          return false;
+        }
+      } while (!connections.compareAndSet(current, current + 1));
+
+      connection.addEndHandler(x -> connections.decrementAndGet());
+      connection.setMaxSessionIncomingCapacity(options.getMaxSessionIncomingCapacity());
+      connection.setMaxUnsettled(options.getMaxUnsettled());
+      return true;
+    }
+  }
 }
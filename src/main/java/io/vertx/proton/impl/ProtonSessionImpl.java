@@ -26,6 +26,8 @@ import io.vertx.proton.ProtonConnection;
 import io.vertx.proton.ProtonHelper;
 import io.vertx.proton.ProtonQoS;
 import io.vertx.proton.ProtonLinkOptions;
+import io.vertx.proton.ProtonMemoryStats;
+import io.vertx.proton.ProtonTransferSchedulingPolicy;
 
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
@@ -35,20 +37,59 @@ import org.apache.qpid.proton.amqp.messaging.Released;
 import org.apache.qpid.proton.amqp.messaging.Source;
 import org.apache.qpid.proton.amqp.messaging.Target;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Receiver;
 import org.apache.qpid.proton.engine.Record;
 import org.apache.qpid.proton.engine.Sender;
 import org.apache.qpid.proton.engine.Session;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntSupplier;
+
 /**
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
 public class ProtonSessionImpl implements ProtonSession {
   private static final Logger LOG = LoggerFactory.getLogger(ProtonSessionImpl.class);
 
-  private final Session session;
+  // Default handlers are stateless, so shared by all links. Terminus arrays are not, proton-j hands them back as-is
+  // from e.g. getOutcomes(), where an application could change them in place.
+  private static final Handler<AsyncResult<ProtonReceiver>> RECEIVER_OPENED = result -> {
+    LOG.trace("Receiver open completed");
+  };
+  private static final Handler<AsyncResult<ProtonReceiver>> RECEIVER_CLOSED = result -> {
+    if (result.succeeded()) {
+      LOG.trace("Receiver closed");
+    } else {
+      LOG.warn("Receiver closed with error", result.cause());
+    }
+  };
+  private static final Handler<AsyncResult<ProtonSender>> SENDER_OPENED = result -> {
+    LOG.trace("Sender open completed");
+  };
+  private static final Handler<AsyncResult<ProtonSender>> SENDER_CLOSED = result -> {
+    if (result.succeeded()) {
+      LOG.trace("Sender closed");
+    } else {
+      LOG.warn("Sender closed with error", result.cause());
+    }
+  };
+
+  private Session session;
   private int autoLinkCounter = 0;
+  // Links to re-attach following a reconnect, only tracked if the connection reconnects automatically
+  private final List<ProtonLinkImpl<?>> links = new ArrayList<>();
+  private boolean reopening;
+  private ProtonTransferScheduler transferScheduler;
+  private AdaptiveSessionWindow adaptiveWindow;
+  // Counting walks every link of the connection, so is only done by the window once it has received a full window.
+  // The transfer just read is about to be handled, so isn't held yet.
+  private final IntSupplier heldIncoming = () -> Math.max(getUnsettledIncoming() - 1, 0);
   private Handler<AsyncResult<ProtonSession>> openHandler = (result) -> {
     LOG.trace("Session open completed");
   };
@@ -63,7 +104,7 @@ public class ProtonSessionImpl implements ProtonSession {
   ProtonSessionImpl(Session session) {
     this.session = session;
     this.session.setContext(this);
-    session.setIncomingCapacity(Integer.MAX_VALUE);
+    session.setIncomingCapacity(capped(Integer.MAX_VALUE));
   }
 
   @Override
@@ -81,10 +122,73 @@ public class ProtonSessionImpl implements ProtonSession {
 
   @Override
   public ProtonSession setIncomingCapacity(int bytes) {
-    session.setIncomingCapacity(bytes);
+    releaseAdaptiveWindow();
+    session.setIncomingCapacity(capped(bytes));
+    return this;
+  }
+
+  @Override
+  public ProtonSession setAdaptiveIncomingCapacity(int minCapacity, int maxCapacity) {
+    if (minCapacity <= 0) {
+      throw new IllegalArgumentException("Min capacity must be positive");
+    }
+
+    if (maxCapacity < minCapacity) {
+      throw new IllegalArgumentException("Max capacity must not be less than min capacity");
+    }
+
+    releaseAdaptiveWindow();
+    adaptiveWindow = new AdaptiveSessionWindow(capped(minCapacity), capped(maxCapacity));
+    getConnectionImpl().addAdaptiveWindow(adaptiveWindow);
+    session.setIncomingCapacity(adaptiveWindow.getCapacity());
     return this;
   }
 
+  /**
+   * @return the given incoming capacity, reduced to any limit of the connection's virtual host
+   */
+  private int capped(int bytes) {
+    int max = getConnectionImpl().getMaxSessionIncomingCapacity();
+    return max > 0 ? Math.min(bytes, max) : bytes;
+  }
+
+  /**
+   * Called by receivers on this session once a transfer of the given size has been read.
+   */
+  void onIncomingTransfer(int bytes) {
+    if (adaptiveWindow != null) {
+      int capacity = adaptiveWindow.onReceived(bytes, heldIncoming);
+      if (capacity != session.getIncomingCapacity()) {
+        session.setIncomingCapacity(capacity);
+      }
+    }
+  }
+
+  /**
+   * @return the number of received deliveries on the session's receivers which are not yet settled locally
+   */
+  private int getUnsettledIncoming() {
+    EnumSet<EndpointState> any = EnumSet.allOf(EndpointState.class);
+
+    int count = 0;
+    Link link = session.getConnection().linkHead(any, any);
+    while (link != null) {
+      if (link.getSession() == session && link instanceof Receiver) {
+        count += link.getUnsettled();
+      }
+      link = link.next(any, any);
+    }
+    return count;
+  }
+
+  private void releaseAdaptiveWindow() {
+    if (adaptiveWindow != null) {
+      adaptiveWindow.release();
+      getConnectionImpl().removeAdaptiveWindow(adaptiveWindow);
+      adaptiveWindow = null;
+    }
+  }
+
   public int getOutgoingBytes() {
     return session.getOutgoingBytes();
   }
@@ -122,6 +226,30 @@ public class ProtonSessionImpl implements ProtonSession {
     return session.getCondition();
   }
 
+  @Override
+  public ProtonSession setTransferScheduling(ProtonTransferSchedulingPolicy policy) {
+    if (transferScheduler != null) {
+      if (transferScheduler.getPolicy() == policy) {
+        return this;
+      }
+      if (transferScheduler.hasScheduled()) {
+        throw new IllegalStateException("Transfers are still queued for scheduling");
+      }
+      getConnectionImpl().removeTransferScheduler(transferScheduler);
+      transferScheduler = null;
+    }
+
+    if (policy != null) {
+      transferScheduler = new ProtonTransferScheduler(this, policy);
+      getConnectionImpl().addTransferScheduler(transferScheduler);
+    }
+    return this;
+  }
+
+  ProtonTransferScheduler getTransferScheduler() {
+    return transferScheduler;
+  }
+
   public void setOutgoingWindow(long outgoingWindowSize) {
     session.setOutgoingWindow(outgoingWindowSize);
   }
@@ -136,6 +264,12 @@ public class ProtonSessionImpl implements ProtonSession {
   @Override
   public ProtonSessionImpl close() {
     session.close();
+    links.clear();
+    getConnectionImpl().removeSession(this);
+    if (transferScheduler != null) {
+      getConnectionImpl().removeTransferScheduler(transferScheduler);
+    }
+    releaseAdaptiveWindow();
     getConnectionImpl().flush();
     return this;
   }
@@ -187,20 +321,14 @@ public class ProtonSessionImpl implements ProtonSession {
     receiver.setTarget(target);
 
     ProtonReceiverImpl r = new ProtonReceiverImpl(receiver);
-    r.openHandler((result) -> {
-      LOG.trace("Receiver open completed");
-    });
-    r.closeHandler((result) -> {
-      if (result.succeeded()) {
-        LOG.trace("Receiver closed");
-      } else {
-        LOG.warn("Receiver closed with error", result.cause());
-      }
-    });
+    r.openHandler(RECEIVER_OPENED);
+    r.closeHandler(RECEIVER_CLOSED);
 
     // Default to at-least-once
     r.setQoS(ProtonQoS.AT_LEAST_ONCE);
 
+    trackLink(r);
+
     return r;
   }
 
@@ -232,20 +360,14 @@ public class ProtonSessionImpl implements ProtonSession {
       s.setAnonymousSender(true);
     }
 
-    s.openHandler((result) -> {
-      LOG.trace("Sender open completed");
-    });
-    s.closeHandler((result) -> {
-      if (result.succeeded()) {
-        LOG.trace("Sender closed");
-      } else {
-        LOG.warn("Sender closed with error", result.cause());
-      }
-    });
+    s.openHandler(SENDER_OPENED);
+    s.closeHandler(SENDER_CLOSED);
 
     // Default to at-least-once
     s.setQoS(ProtonQoS.AT_LEAST_ONCE);
 
+    trackLink(s);
+
     return s;
   }
 
@@ -254,10 +376,22 @@ public class ProtonSessionImpl implements ProtonSession {
     return session.attachments();
   }
 
+  @Override
+  public ProtonMemoryStats getMemoryStats() {
+    return MemoryStats.gather(session.getConnection(), session);
+  }
+
   @Override
   public void free() {
+    ProtonConnectionImpl connection = getConnectionImpl();
+    releaseAdaptiveWindow();
     session.free();
-    getConnectionImpl().flush();
+    links.clear();
+    connection.removeSession(this);
+    if (transferScheduler != null) {
+      connection.removeTransferScheduler(transferScheduler);
+    }
+    connection.flush();
   }
 
   /////////////////////////////////////////////////////////////////////////////
@@ -266,6 +400,12 @@ public class ProtonSessionImpl implements ProtonSession {
   //
   /////////////////////////////////////////////////////////////////////////////
   void fireRemoteOpen() {
+    if (reopening) {
+      // Re-opened after a reconnect, the application already handled the original open.
+      reopening = false;
+      return;
+    }
+
     if (openHandler != null) {
       openHandler.handle(ProtonHelper.future(this, getRemoteCondition()));
     }
@@ -277,4 +417,40 @@ public class ProtonSessionImpl implements ProtonSession {
     }
   }
 
+  private void trackLink(ProtonLinkImpl<?> link) {
+    ProtonConnectionImpl connection = getConnectionImpl();
+    if (connection != null && connection.isAutoReconnect()) {
+      links.add(link);
+    }
+  }
+
+  void removeLink(ProtonLinkImpl<?> link) {
+    links.remove(link);
+  }
+
+  /**
+   * Replaces the underlying session with an equivalent one on the given new connection following a reconnect, then
+   * re-attaches the links which were still open.
+   */
+  void reopen(Connection connection) {
+    Session previous = session;
+    Session fresh = connection.session();
+    fresh.setIncomingCapacity(previous.getIncomingCapacity());
+    fresh.setOutgoingWindow(previous.getOutgoingWindow());
+    fresh.setContext(this);
+
+    session = fresh;
+    reopening = true;
+    fresh.open();
+
+    Iterator<ProtonLinkImpl<?>> iter = links.iterator();
+    while (iter.hasNext()) {
+      ProtonLinkImpl<?> link = iter.next();
+      if (link.getLocalState() == EndpointState.ACTIVE) {
+        link.reattach(fresh);
+      } else {
+        iter.remove();
+      }
+    }
+  }
 }
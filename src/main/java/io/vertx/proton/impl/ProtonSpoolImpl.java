@@ -0,0 +1,170 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Rejected;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.message.Message;
+import org.apache.qpid.proton.message.impl.MessageImpl;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.VertxException;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonQoS;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonSpool;
+import io.vertx.proton.ProtonSpoolOptions;
+
+public class ProtonSpoolImpl implements ProtonSpool {
+
+  private final SpoolLog log;
+  // Oldest first
+  private final ArrayDeque<SpoolLog.Record> unsent = new ArrayDeque<>();
+  // In the order sent, awaiting the outcome
+  private final Map<ProtonDelivery, SpoolLog.Record> inFlight = new LinkedHashMap<>();
+  private ProtonSenderImpl sender;
+  private boolean closed;
+
+  public ProtonSpoolImpl(ProtonSpoolOptions options) {
+    if (options.getDirectory() == null) {
+      throw new IllegalArgumentException("The spool directory must be set");
+    }
+
+    try {
+      log = new SpoolLog(new File(options.getDirectory()), options.getSegmentSize(), options.getMaxDiskUsage());
+    } catch (IOException e) {
+      throw new VertxException("Unable to open the spool in " + options.getDirectory(), e);
+    }
+    unsent.addAll(log.getRecovered());
+  }
+
+  @Override
+  public void append(Message message) {
+    checkOpen();
+
+    ProtonWritableBufferImpl buffer = new ProtonWritableBufferImpl();
+    ((MessageImpl) message).encode(buffer);
+
+    SpoolLog.Record record;
+    try {
+      record = log.append(buffer.getBuffer().nioBuffer());
+    } catch (IOException e) {
+      throw new VertxException("Unable to append to the spool", e);
+    }
+
+    unsent.addLast(record);
+    pump();
+  }
+
+  @Override
+  public ProtonSpool attach(ProtonSender sender) {
+    checkOpen();
+    detach();
+
+    this.sender = (ProtonSenderImpl) sender;
+    this.sender.sendQueueDrainHandler(s -> pump());
+    return this;
+  }
+
+  @Override
+  public ProtonSpool detach() {
+    if (sender != null) {
+      sender.sendQueueDrainHandler(null);
+      sender = null;
+    }
+
+    // Sent again, ahead of those never sent, once a sender is attached
+    List<SpoolLog.Record> unsettled = new ArrayList<>(inFlight.values());
+    inFlight.clear();
+    for (int i = unsettled.size() - 1; i >= 0; i--) {
+      unsent.addFirst(unsettled.get(i));
+    }
+    return this;
+  }
+
+  @Override
+  public int size() {
+    return log.size();
+  }
+
+  @Override
+  public long getDiskUsage() {
+    return log.getDiskUsage();
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+
+    detach();
+    closed = true;
+    unsent.clear();
+    log.close();
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("The spool is closed");
+    }
+  }
+
+  private void pump() {
+    while (sender != null && sender.isOpen() && !sender.sendQueueFull() && !unsent.isEmpty()) {
+      SpoolLog.Record record = unsent.pollFirst();
+      if (sender.getQoS() == ProtonQoS.AT_MOST_ONCE) {
+        // Settled as sent, there is no outcome to wait for
+        sender.sendEncoded(Unpooled.wrappedBuffer(record.bytes()), null);
+        log.remove(record);
+      } else {
+        ProtonDelivery delivery = sender.sendEncoded(Unpooled.wrappedBuffer(record.bytes()), this::onUpdated);
+        inFlight.put(delivery, record);
+      }
+    }
+  }
+
+  private void onUpdated(ProtonDelivery delivery) {
+    if (!delivery.remotelySettled()) {
+      return;
+    }
+
+    SpoolLog.Record record = inFlight.remove(delivery);
+    if (record == null) {
+      // From a sender detached since, the record was already queued to be sent again
+      return;
+    }
+
+    DeliveryState outcome = delivery.getRemoteState();
+    if (outcome == null || outcome instanceof Accepted || outcome instanceof Rejected) {
+      // A rejected message would only be rejected again
+      log.remove(record);
+    } else {
+      // Released or modified, so to be sent again
+      unsent.addFirst(record);
+      pump();
+    }
+  }
+}
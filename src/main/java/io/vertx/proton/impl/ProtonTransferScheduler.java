@@ -0,0 +1,143 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import io.vertx.proton.ProtonTransferSchedulingPolicy;
+
+/**
+ * Releases the transfers queued by the senders of a session into the transport, only while the session has little
+ * outgoing data buffered, in the order given by the scheduling policy. Transfers then only wait in the transport when
+ * the peer's session window or the socket is full, leaving the order of those still queued to the scheduler.
+ */
+class ProtonTransferScheduler {
+
+  // Bytes buffered in the session beyond which nothing more is released until they are written
+  static final int MAX_OUTSTANDING_BYTES = 32 * 1024;
+  // Bytes a sender of weight 1 may release per round robin turn
+  static final int QUANTUM = 4 * 1024;
+
+  private final ProtonSessionImpl session;
+  private final ProtonTransferSchedulingPolicy policy;
+  private final ArrayDeque<ProtonSenderImpl> active = new ArrayDeque<>();
+
+  ProtonTransferScheduler(ProtonSessionImpl session, ProtonTransferSchedulingPolicy policy) {
+    this.session = session;
+    this.policy = policy;
+  }
+
+  ProtonTransferSchedulingPolicy getPolicy() {
+    return policy;
+  }
+
+  boolean hasScheduled() {
+    return !active.isEmpty();
+  }
+
+  /**
+   * Adds the sender, which has transfers queued, to those released from.
+   */
+  void schedule(ProtonSenderImpl sender) {
+    if (!sender.scheduled) {
+      sender.scheduled = true;
+      sender.deficit = 0;
+      active.addLast(sender);
+    }
+  }
+
+  /**
+   * Releases queued transfers into the transport while the session has room for them.
+   *
+   * @return whether any transfer was released
+   */
+  boolean release() {
+    boolean released = false;
+    while (!active.isEmpty() && session.getOutgoingBytes() < MAX_OUTSTANDING_BYTES) {
+      ProtonSenderImpl sender = policy == ProtonTransferSchedulingPolicy.PRIORITY ? selectByPriority()
+          : selectRoundRobin();
+      if (sender == null) {
+        break;
+      }
+
+      sender.releaseTransfer();
+      released = true;
+    }
+
+    return released;
+  }
+
+  /**
+   * Deficit round robin, the sender at the head releasing while its accumulated deficit covers its next transfer, then
+   * going to the back with its deficit increased by its quantum.
+   */
+  private ProtonSenderImpl selectRoundRobin() {
+    int blocked = 0;
+    while (blocked < active.size()) {
+      ProtonSenderImpl sender = active.peekFirst();
+      if (!sender.hasQueuedTransfer()) {
+        unschedule(active.pollFirst());
+        continue;
+      }
+
+      if (!sender.canReleaseTransfer()) {
+        active.addLast(active.pollFirst());
+        blocked++;
+        continue;
+      }
+
+      int size = sender.queuedTransferSize();
+      if (sender.deficit >= size) {
+        sender.deficit -= size;
+        return sender;
+      }
+
+      sender.deficit += QUANTUM * sender.getTransferWeight();
+      active.addLast(active.pollFirst());
+      blocked = 0;
+    }
+
+    return null;
+  }
+
+  private ProtonSenderImpl selectByPriority() {
+    ProtonSenderImpl best = null;
+    Iterator<ProtonSenderImpl> iter = active.iterator();
+    while (iter.hasNext()) {
+      ProtonSenderImpl sender = iter.next();
+      if (!sender.hasQueuedTransfer()) {
+        iter.remove();
+        sender.scheduled = false;
+      } else if (sender.canReleaseTransfer() && (best == null || sender.getTransferWeight() > best.getTransferWeight())) {
+        best = sender;
+      }
+    }
+
+    if (best != null) {
+      // Behind others of the same weight, so they take turns
+      active.remove(best);
+      active.addLast(best);
+    }
+
+    return best;
+  }
+
+  private void unschedule(ProtonSenderImpl sender) {
+    sender.scheduled = false;
+    sender.deficit = 0;
+  }
+}
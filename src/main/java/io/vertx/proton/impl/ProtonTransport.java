@@ -60,6 +60,9 @@ class ProtonTransport extends BaseHandler {
   private volatile Long idleTimeoutCheckTimerId; // TODO: cancel when closing etc?
 
   private boolean failed;
+  // Set while handlers for inbound frames run, so that what they send goes out together in one write once they are done
+  private boolean dispatching;
+  private boolean flushDeferred;
 
   ProtonTransport(Connection connection, Vertx vertx, NetClient netClient, NetSocket socket,
                   ProtonSaslAuthenticator authenticator, ProtonTransportOptions options) {
@@ -81,6 +84,8 @@ class ProtonTransport extends BaseHandler {
     connection.collect(collector);
     socket.endHandler(this::handleSocketEnd);
     socket.handler(this::handleSocketBuffer);
+    // Lets any transfers held by a session transfer scheduler go once the socket has room
+    socket.drainHandler(x -> flush());
   }
 
   private void handleSocketEnd(Void arg) {
@@ -97,6 +102,26 @@ class ProtonTransport extends BaseHandler {
   private void handleSocketBuffer(Buffer buff) {
     pumpInbound(buff);
 
+    dispatching = true;
+    try {
+      dispatchEvents();
+    } finally {
+      dispatching = false;
+      flushDeferred = false;
+    }
+
+    if (!failed) {
+      processSaslAuthentication();
+    }
+
+    flush();
+
+    if (failed) {
+      disconnect();
+    }
+  }
+
+  private void dispatchEvents() {
     Event protonEvent = null;
     while ((protonEvent = collector.peek()) != null) {
       ProtonConnectionImpl conn = (ProtonConnectionImpl) protonEvent.getConnection().getContext();
@@ -142,11 +167,13 @@ class ProtonTransport extends BaseHandler {
       case LINK_REMOTE_DETACH: {
         ProtonLinkImpl<?> link = (ProtonLinkImpl<?>) protonEvent.getLink().getContext();
         link.fireRemoteDetach();
+        conn.fireLinkEnd();
         break;
       }
       case LINK_REMOTE_CLOSE: {
         ProtonLinkImpl<?> link = (ProtonLinkImpl<?>) protonEvent.getLink().getContext();
         link.fireRemoteClose();
+        conn.fireLinkEnd();
         break;
       }
       case LINK_FLOW: {
@@ -189,16 +216,6 @@ class ProtonTransport extends BaseHandler {
       }
       collector.pop();
     }
-
-    if (!failed) {
-      processSaslAuthentication();
-    }
-
-    flush();
-
-    if (failed) {
-      disconnect();
-    }
   }
 
   private void processSaslAuthentication() {
@@ -258,6 +275,20 @@ class ProtonTransport extends BaseHandler {
   }
 
   void flush() {
+    if (dispatching) {
+      // Written after dispatching, e.g. an attach, transfer and detach made in one handler share a single write
+      flushDeferred = true;
+      return;
+    }
+
+    ProtonConnectionImpl conn = (ProtonConnectionImpl) connection.getContext();
+    do {
+      writeOutput();
+      // Any transfers released by a scheduler are written in turn, until it is out of room or the socket is full
+    } while (!socket.writeQueueFull() && conn.releaseScheduledTransfers());
+  }
+
+  private void writeOutput() {
     boolean done = false;
     while (!done) {
       ByteBuffer outputBuffer = transport.getOutputBuffer();
@@ -274,6 +305,12 @@ class ProtonTransport extends BaseHandler {
   }
 
   public void disconnect() {
+    if (flushDeferred) {
+      // Don't lose e.g. a close sent just before disconnecting from within a handler
+      flushDeferred = false;
+      writeOutput();
+    }
+
     if (netClient != null) {
       netClient.close();
     } else {
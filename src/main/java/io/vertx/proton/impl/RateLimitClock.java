@@ -0,0 +1,81 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import io.vertx.core.Context;
+
+/**
+ * Periodically retries granting credit withheld by rate limits, using one timer for all the rate limited links of a
+ * context rather than one per connection or link. The timer only runs while some link is waiting.
+ *
+ * Must only be used from its context.
+ */
+final class RateLimitClock {
+
+  static final long TICK_MILLIS = 10;
+
+  private static final String CONTEXT_KEY = RateLimitClock.class.getName();
+
+  private final Context context;
+  private final List<BooleanSupplier> waiting = new ArrayList<>();
+  private long timerId = -1;
+
+  private RateLimitClock(Context context) {
+    this.context = context;
+  }
+
+  /**
+   * Gets the clock of the given context, creating it if needed.
+   */
+  static RateLimitClock of(Context context) {
+    RateLimitClock clock = context.get(CONTEXT_KEY);
+    if (clock == null) {
+      clock = new RateLimitClock(context);
+      context.put(CONTEXT_KEY, clock);
+    }
+    return clock;
+  }
+
+  /**
+   * Calls the given task on each tick until it returns false, i.e. it is no longer waiting.
+   */
+  void schedule(BooleanSupplier task) {
+    waiting.add(task);
+    if (timerId == -1) {
+      timerId = context.owner().setPeriodic(TICK_MILLIS, this::tick);
+    }
+  }
+
+  private void tick(long id) {
+    // Tasks may schedule others while running
+    List<BooleanSupplier> tasks = new ArrayList<>(waiting);
+    waiting.clear();
+    for (BooleanSupplier task : tasks) {
+      if (task.getAsBoolean()) {
+        waiting.add(task);
+      }
+    }
+
+    if (waiting.isEmpty()) {
+      context.owner().cancelTimer(timerId);
+      timerId = -1;
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An append-only log of records kept in fixed size memory-mapped segment files, each record being removed on its own
+ * by marking it as settled, and each segment file deleted once all its records were.
+ *
+ * A record is a 4 byte length, a status byte and the record bytes. The length is written last, and the length after
+ * it zeroed beforehand, so a record torn by the process stopping part way is taken as the end of the segment when
+ * recovering. Records are written to the mapped pages, which the OS writes back even if the process stops, but which
+ * may not have reached the disk should the machine itself stop.
+ */
+final class SpoolLog {
+
+  static final int HEADER_SIZE = 5;
+
+  private static final byte PENDING = 0;
+  private static final byte SETTLED = 1;
+  private static final Pattern SEGMENT_NAME = Pattern.compile("spool-(\\d+)\\.seg");
+
+  private final File directory;
+  private final int segmentSize;
+  private final int maxSegments;
+  // Oldest first, the last one being appended to
+  private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+  private final List<Record> recovered = new ArrayList<>();
+  private long nextSequence;
+  private int size;
+
+  SpoolLog(File directory, int segmentSize, long maxDiskUsage) throws IOException {
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("Segment size must be larger than the record header");
+    }
+    if (maxDiskUsage < segmentSize) {
+      throw new IllegalArgumentException("Max disk usage must be at least the segment size");
+    }
+
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxDiskUsage / segmentSize);
+
+    Files.createDirectories(directory.toPath());
+    recover();
+  }
+
+  /**
+   * @return the records still pending when the log was opened, oldest first
+   */
+  List<Record> getRecovered() {
+    return recovered;
+  }
+
+  /**
+   * @return the number of records not yet removed
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return the disk space taken by the segment files
+   */
+  long getDiskUsage() {
+    long usage = 0;
+    for (Segment segment : segments) {
+      usage += segment.buffer.capacity();
+    }
+    return usage;
+  }
+
+  Record append(ByteBuffer bytes) throws IOException {
+    int length = bytes.remaining();
+    int recordSize = HEADER_SIZE + length;
+    if (length == 0 || recordSize > segmentSize) {
+      throw new IllegalArgumentException("Records must have between 1 and " + (segmentSize - HEADER_SIZE) + " bytes");
+    }
+
+    Segment segment = segments.peekLast();
+    if (segment == null || segment.buffer.capacity() - segment.writePosition < recordSize) {
+      segment = roll();
+    }
+
+    int position = segment.writePosition;
+    MappedByteBuffer buffer = segment.buffer;
+    buffer.put(position + 4, PENDING);
+    ByteBuffer target = buffer.duplicate();
+    target.position(position + HEADER_SIZE);
+    target.put(bytes);
+    if (position + recordSize + 4 <= buffer.capacity()) {
+      buffer.putInt(position + recordSize, 0);
+    }
+    buffer.putInt(position, length);
+
+    segment.writePosition += recordSize;
+    segment.pending++;
+    size++;
+    return new Record(segment, position, length);
+  }
+
+  void remove(Record record) {
+    if (record.removed) {
+      return;
+    }
+    record.removed = true;
+
+    Segment segment = record.segment;
+    segment.buffer.put(record.position + 4, SETTLED);
+    segment.pending--;
+    size--;
+
+    if (segment.pending == 0 && segment != segments.peekLast()) {
+      segments.remove(segment);
+      delete(segment);
+    }
+  }
+
+  void close() {
+    for (Segment segment : segments) {
+      segment.buffer.force();
+    }
+    segments.clear();
+  }
+
+  private Segment roll() throws IOException {
+    Segment last = segments.peekLast();
+    if (last != null && last.pending == 0) {
+      segments.pollLast();
+      delete(last);
+    }
+
+    if (segments.size() >= maxSegments) {
+      throw new IllegalStateException("The spool is full");
+    }
+
+    File file = new File(directory, String.format("spool-%020d.seg", nextSequence++));
+    Segment segment = new Segment(file, map(file, segmentSize));
+    segments.addLast(segment);
+    return segment;
+  }
+
+  private void recover() throws IOException {
+    File[] files = directory.listFiles((dir, name) -> SEGMENT_NAME.matcher(name).matches());
+    if (files == null) {
+      throw new IOException("Unable to list " + directory);
+    }
+
+    Arrays.sort(files, Comparator.comparingLong(SpoolLog::sequenceOf));
+    for (int i = 0; i < files.length; i++) {
+      File file = files[i];
+      nextSequence = sequenceOf(file) + 1;
+
+      Segment segment = new Segment(file, map(file, (int) file.length()));
+      scan(segment);
+
+      if (segment.pending == 0 && i < files.length - 1) {
+        delete(segment);
+      } else {
+        segments.addLast(segment);
+      }
+    }
+  }
+
+  private void scan(Segment segment) {
+    MappedByteBuffer buffer = segment.buffer;
+    int position = 0;
+    while (position + HEADER_SIZE <= buffer.capacity()) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+        break;
+      }
+
+      if (buffer.get(position + 4) == PENDING) {
+        recovered.add(new Record(segment, position, length));
+        segment.pending++;
+        size++;
+      }
+      position += HEADER_SIZE + length;
+    }
+    segment.writePosition = position;
+  }
+
+  private static MappedByteBuffer map(File file, int size) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+  }
+
+  private static void delete(Segment segment) {
+    // The mapping stays valid, and is released once no longer referenced
+    segment.file.delete();
+  }
+
+  private static long sequenceOf(File file) {
+    Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+    return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+  }
+
+  private static final class Segment {
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private int pending;
+
+    Segment(File file, MappedByteBuffer buffer) {
+      this.file = file;
+      this.buffer = buffer;
+    }
+  }
+
+  static final class Record {
+    private final Segment segment;
+    private final int position;
+    private final int length;
+    private boolean removed;
+
+    Record(Segment segment, int position, int length) {
+      this.segment = segment;
+      this.position = position;
+      this.length = length;
+    }
+
+    /**
+     * @return a view of the record bytes in the mapped segment
+     */
+    ByteBuffer bytes() {
+      ByteBuffer view = segment.buffer.duplicate();
+      view.limit(position + HEADER_SIZE + length).position(position + HEADER_SIZE);
+      return view.slice();
+    }
+
+    int length() {
+      return length;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket, refilled at a steady rate up to its capacity, from which tokens are taken to rate limit something.
+ *
+ * Not thread safe, times are given by the caller as {@link System#nanoTime()} values.
+ */
+class TokenBucket {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final long ratePerSecond;
+  private final long capacity;
+  private double tokens;
+  private long lastRefill;
+
+  /**
+   * @param ratePerSecond the number of tokens added per second, must be positive
+   * @param capacity the maximum number of tokens held, or 0 for the rate per second
+   * @param now the current time
+   */
+  TokenBucket(long ratePerSecond, long capacity, long now) {
+    if (ratePerSecond <= 0) {
+      throw new IllegalArgumentException("Rate must be positive");
+    }
+
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative");
+    }
+
+    this.ratePerSecond = ratePerSecond;
+    this.capacity = capacity == 0 ? ratePerSecond : capacity;
+    this.tokens = this.capacity;
+    this.lastRefill = now;
+  }
+
+  /**
+   * Takes the given number of tokens, if that many are available.
+   *
+   * @return whether the tokens were taken
+   */
+  boolean tryTake(long count, long now) {
+    refill(now);
+    if (tokens < count) {
+      return false;
+    }
+
+    tokens -= count;
+    return true;
+  }
+
+  /**
+   * Takes the given number of tokens regardless, leaving the bucket in debt if there weren't enough, which later
+   * refills pay off first.
+   */
+  void take(long count, long now) {
+    refill(now);
+    tokens -= count;
+  }
+
+  /**
+   * @return the number of whole tokens available, negative if the bucket is in debt
+   */
+  long available(long now) {
+    refill(now);
+    return (long) Math.floor(tokens);
+  }
+
+  /**
+   * @return the nanoseconds until the given number of tokens will be available, 0 if they already are
+   */
+  long nanosUntilAvailable(long count, long now) {
+    refill(now);
+    double missing = count - tokens;
+    if (missing <= 0) {
+      return 0;
+    }
+
+    return (long) Math.ceil(missing * NANOS_PER_SECOND / ratePerSecond);
+  }
+
+  long getRatePerSecond() {
+    return ratePerSecond;
+  }
+
+  long getCapacity() {
+    return capacity;
+  }
+
+  private void refill(long now) {
+    long elapsed = now - lastRefill;
+    if (elapsed > 0) {
+      tokens = Math.min(capacity, tokens + (double) elapsed * ratePerSecond / NANOS_PER_SECOND);
+      lastRefill = now;
+    }
+  }
+}
@@ -87,7 +87,7 @@ public class MockServer {
           address = receiver.getRemoteTarget().getAddress();
         }
         processMessage(connection, receiver, delivery, msg, address);
-      }).setPrefetch(credits).open();
+      }).closeHandler(x -> receiver.close()).setPrefetch(credits).open();
     });
     connection.senderOpenHandler(sender -> {
       Addresses address = null;
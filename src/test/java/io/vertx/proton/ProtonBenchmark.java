@@ -24,6 +24,16 @@ import org.apache.qpid.proton.message.Message;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static io.vertx.proton.ProtonHelper.message;
 
 @RunWith(VertxUnitRunner.class)
@@ -97,6 +107,112 @@ public class ProtonBenchmark extends MockServerTestBase {
     });
   }
 
+  @Test
+  public void benchmarkManyLinksSendThroughput(TestContext context) {
+    benchmarkManyLinksSendThroughput(context, null);
+  }
+
+  @Test
+  public void benchmarkManyLinksSendThroughputWithSessionSharding(TestContext context) {
+    benchmarkManyLinksSendThroughput(context, new ProtonSessionShardingOptions().setSessions(8));
+  }
+
+  private void benchmarkManyLinksSendThroughput(TestContext context, ProtonSessionShardingOptions sharding) {
+    int links = 64;
+    server.setProducerCredits(1000);
+
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.setSessionSharding(sharding);
+      connection.open();
+
+      List<ProtonSender> senders = new ArrayList<>(links);
+      for (int i = 0; i < links; i++) {
+        senders.add(connection.createSender(MockServer.Addresses.drop.toString()).setQoS(ProtonQoS.AT_LEAST_ONCE)
+            .open());
+      }
+
+      String name = "At Least Once Send Throughput, " + links + " Links"
+          + (sharding != null ? ", " + sharding.getSessions() + " Sessions" : "");
+      Message message = message("drop", "Hello World");
+
+      benchmark(BENCHMARK_DURATION, name, counter -> {
+        for (ProtonSender sender : senders) {
+          sender.sendQueueDrainHandler(s -> {
+            while (!sender.sendQueueFull()) {
+              sender.send(message, d -> {
+                if (d.remotelySettled()) {
+                  counter.incrementAndGet();
+                }
+              });
+            }
+          });
+        }
+      }, () -> {
+        connection.disconnect();
+        async.complete();
+      });
+    });
+  }
+
+  @Test
+  public void benchmarkSmallMessageLatencyBesideBulkSender(TestContext context) {
+    benchmarkSmallMessageLatencyBesideBulkSender(context, null);
+  }
+
+  @Test
+  public void benchmarkSmallMessageLatencyBesideBulkSenderWithTransferScheduling(TestContext context) {
+    benchmarkSmallMessageLatencyBesideBulkSender(context, ProtonTransferSchedulingPolicy.WEIGHTED_ROUND_ROBIN);
+  }
+
+  private void benchmarkSmallMessageLatencyBesideBulkSender(TestContext context, ProtonTransferSchedulingPolicy policy) {
+    server.setProducerCredits(1000);
+
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.open();
+
+      ProtonSession session = connection.createSession().setTransferScheduling(policy).open();
+      ProtonSender bulk = session.createSender(MockServer.Addresses.drop.toString()).setQoS(ProtonQoS.AT_LEAST_ONCE)
+          .open();
+      ProtonSender small = session.createSender(MockServer.Addresses.drop.toString()).setQoS(ProtonQoS.AT_LEAST_ONCE)
+          .setTransferWeight(4).open();
+
+      String name = "Small Message Beside Bulk Sender" + (policy != null ? " With " + policy : "");
+      Message bulkMessage = message("drop", new String(new char[64 * 1024]).replace('\0', 'x'));
+      Message smallMessage = message("drop", "Hello World");
+      List<Long> latencies = new ArrayList<>();
+
+      benchmark(BENCHMARK_DURATION, name, counter -> {
+        bulk.sendQueueDrainHandler(s -> {
+          while (!bulk.sendQueueFull()) {
+            bulk.send(bulkMessage, d -> { });
+          }
+        });
+
+        vertx.setPeriodic(1, timer -> {
+          if (!small.sendQueueFull()) {
+            long start = System.nanoTime();
+            small.send(smallMessage, d -> {
+              if (d.remotelySettled()) {
+                latencies.add(System.nanoTime() - start);
+                counter.incrementAndGet();
+              }
+            });
+          }
+        });
+      }, () -> {
+        if (!latencies.isEmpty()) {
+          Collections.sort(latencies);
+          long p99 = latencies.get((int) Math.min(latencies.size() - 1, Math.ceil(latencies.size() * 0.99) - 1));
+          System.out.println(String.format("Final %s p99 latency: %,.3f ms", name, p99 / 1_000_000.0));
+        }
+        connection.disconnect();
+        async.complete();
+      });
+    });
+  }
+
   @Test
   public void benchmarkRequestResponse(TestContext context) {
     int credits = 10;
@@ -128,4 +244,222 @@ public class ProtonBenchmark extends MockServerTestBase {
     });
   }
 
+  @Test
+  public void benchmarkLinkChurn(TestContext context) {
+    int concurrentLinks = 16;
+    server.setProducerCredits(1);
+
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.open();
+
+      Message message = message("drop", "Hello World");
+      AtomicBoolean stopped = new AtomicBoolean();
+
+      benchmark(BENCHMARK_DURATION, "Links Opened And Closed", counter -> {
+        for (int i = 0; i < concurrentLinks; i++) {
+          churnLink(connection, message, counter, stopped);
+        }
+      }, () -> {
+        stopped.set(true);
+        connection.disconnect();
+        async.complete();
+      });
+    });
+  }
+
+  private void churnLink(ProtonConnection connection, Message message, AtomicLong counter, AtomicBoolean stopped) {
+    if (stopped.get()) {
+      return;
+    }
+
+    ProtonSender sender = connection.createSender(MockServer.Addresses.drop.toString());
+    sender.closeHandler(x -> {
+      sender.free();
+      counter.incrementAndGet();
+      churnLink(connection, message, counter, stopped);
+    });
+    sender.open();
+    // Sent before the peer attaches, going out as soon as it grants credit
+    sender.send(message, d -> sender.close());
+  }
+
+  @Test
+  public void benchmarkConnectionStorm(TestContext context) {
+    int concurrentConnections = 32;
+    ProtonClient client = ProtonClient.create(vertx);
+    AtomicBoolean stopped = new AtomicBoolean();
+
+    Async async = context.async();
+    benchmark(BENCHMARK_DURATION, "Connections Accepted And Opened", counter -> {
+      for (int i = 0; i < concurrentConnections; i++) {
+        connectAndOpen(client, counter, stopped);
+      }
+    }, () -> {
+      stopped.set(true);
+      async.complete();
+    });
+  }
+
+  private void connectAndOpen(ProtonClient client, AtomicLong counter, AtomicBoolean stopped) {
+    if (stopped.get()) {
+      return;
+    }
+
+    client.connect("localhost", server.actualPort(), res -> {
+      if (res.failed()) {
+        connectAndOpen(client, counter, stopped);
+        return;
+      }
+
+      ProtonConnection connection = res.result();
+      connection.openHandler(x -> {
+        counter.incrementAndGet();
+        connection.disconnect();
+        connectAndOpen(client, counter, stopped);
+      }).open();
+    });
+  }
+
+  @Test
+  public void benchmarkSpoolAppendThroughput(TestContext context) throws Exception {
+    Path directory = Files.createTempDirectory("spool");
+    ProtonSpool spool = ProtonSpool.open(new ProtonSpoolOptions().setDirectory(directory.toString())
+        .setMaxDiskUsage(1L << 30));
+    Message message = message("drop", "Hello World");
+    AtomicBoolean stopped = new AtomicBoolean();
+
+    Async async = context.async();
+    benchmark(BENCHMARK_DURATION, "Spool Append Throughput", counter -> {
+      appendToSpool(spool, message, counter, stopped);
+    }, () -> {
+      stopped.set(true);
+      spool.close();
+      deleteDirectory(directory);
+      async.complete();
+    });
+  }
+
+  @Test
+  public void benchmarkSpoolDrainThroughput(TestContext context) throws Exception {
+    server.setProducerCredits(1000);
+    Path directory = Files.createTempDirectory("spool");
+    ProtonSpool spool = ProtonSpool.open(new ProtonSpoolOptions().setDirectory(directory.toString()));
+    Message message = message("drop", "Hello World");
+    AtomicBoolean stopped = new AtomicBoolean();
+
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.open();
+
+      ProtonSender sender = connection.createSender(MockServer.Addresses.drop.toString())
+          .setQoS(ProtonQoS.AT_LEAST_ONCE).open();
+      spool.attach(sender);
+
+      AtomicLong appended = new AtomicLong();
+      benchmark(BENCHMARK_DURATION, "Spool Drain Throughput", counter -> {
+        // Kept topped up, counting the messages settled and so removed from the spool
+        vertx.setPeriodic(1, t -> {
+          if (stopped.get()) {
+            vertx.cancelTimer(t);
+            return;
+          }
+          while (spool.size() < 10000) {
+            spool.append(message);
+            appended.incrementAndGet();
+          }
+          counter.set(appended.get() - spool.size());
+        });
+      }, () -> {
+        stopped.set(true);
+        connection.disconnect();
+        spool.close();
+        deleteDirectory(directory);
+        async.complete();
+      });
+    });
+  }
+
+  private void appendToSpool(ProtonSpool spool, Message message, AtomicLong counter, AtomicBoolean stopped) {
+    if (stopped.get()) {
+      return;
+    }
+
+    try {
+      for (int i = 0; i < 1000; i++) {
+        spool.append(message);
+        counter.incrementAndGet();
+      }
+    } catch (IllegalStateException e) {
+      // Full, nothing more to measure
+      return;
+    }
+
+    // Yielding between batches so the benchmark timer can fire
+    vertx.runOnContext(x -> appendToSpool(spool, message, counter, stopped));
+  }
+
+  private static void deleteDirectory(Path directory) {
+    File[] files = directory.toFile().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.toFile().delete();
+  }
+
+  @Test
+  public void benchmarkReceiveAllocations(TestContext context) {
+    int credits = 1000;
+    server.setProducerCredits(credits);
+
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.open();
+
+      ProtonSender sender = connection.createSender(MockServer.Addresses.echo.toString()).open();
+
+      String name = "Receive";
+      Message message = message("echo", "Hello World");
+      AtomicLong startAllocated = new AtomicLong(-1);
+      AtomicLong lastAllocated = new AtomicLong();
+      AtomicLong received = new AtomicLong();
+
+      benchmark(BENCHMARK_DURATION, name + " Throughput", counter -> {
+
+        connection.createReceiver(MockServer.Addresses.echo.toString()).handler((d, m) -> {
+          // Measures everything allocated on the connection's event loop thread, i.e. including the echo
+          // sends, so compare runs before and after a change rather than reading the absolute values.
+          long allocated = allocatedBytes();
+          if (startAllocated.get() < 0) {
+            startAllocated.set(allocated);
+          } else {
+            lastAllocated.set(allocated);
+            received.incrementAndGet();
+          }
+          counter.incrementAndGet();
+        }).setPrefetch(credits).open();
+
+        sender.sendQueueDrainHandler(s -> {
+          while (!sender.sendQueueFull()) {
+            sender.send(message);
+          }
+        });
+      }, () -> {
+        long count = received.get();
+        if (count > 0) {
+          double perMessage = (lastAllocated.get() - startAllocated.get()) / (double) count;
+          System.out.println(String.format("Final %s allocation per message: %,.2f bytes", name, perMessage));
+        }
+        connection.disconnect();
+        async.complete();
+      });
+    });
+  }
+
+  private static long allocatedBytes() {
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
 }
@@ -86,4 +86,59 @@ public class ProtonClientOptionsTest {
     options.setSniServerName("another.example.com");
     assertEquals("another.example.com", options.getSniServerName());
   }
+
+  @Test
+  public void testAutoReconnect() {
+    ProtonClientOptions options = new ProtonClientOptions();
+    assertFalse(options.isAutoReconnect());
+    assertEquals(ProtonClientOptions.DEFAULT_AUTO_RECONNECT_ATTEMPTS, options.getAutoReconnectAttempts());
+
+    options.setAutoReconnect(true).setAutoReconnectInitialDelay(50).setAutoReconnectMaxDelay(500)
+        .setAutoReconnectAttempts(3);
+    assertTrue(options.isAutoReconnect());
+    assertEquals(50, options.getAutoReconnectInitialDelay());
+    assertEquals(500, options.getAutoReconnectMaxDelay());
+    assertEquals(3, options.getAutoReconnectAttempts());
+    assertEquals(options, new ProtonClientOptions(options));
+
+    try {
+      options.setAutoReconnectInitialDelay(0);
+      fail("Expected a non-positive delay to be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testEndpointSelection() {
+    ProtonClientOptions options = new ProtonClientOptions();
+    assertEquals(ProtonEndpointSelectionPolicy.ROUND_ROBIN, options.getEndpointSelectionPolicy());
+    assertEquals(1, options.getParallelConnectAttempts());
+
+    options.setEndpointSelectionPolicy(ProtonEndpointSelectionPolicy.LOWEST_LATENCY).setEndpointCooldown(0)
+        .setParallelConnectAttempts(2);
+    ProtonClientOptions copy = new ProtonClientOptions(options.toJson());
+    assertEquals(ProtonEndpointSelectionPolicy.LOWEST_LATENCY, copy.getEndpointSelectionPolicy());
+    assertEquals(0, copy.getEndpointCooldown());
+    assertEquals(2, copy.getParallelConnectAttempts());
+    assertEquals(options, copy);
+
+    try {
+      options.setParallelConnectAttempts(0);
+      fail("Expected non-positive parallel attempts to be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testPipelinedOpen() {
+    ProtonClientOptions options = new ProtonClientOptions();
+    assertFalse(options.isPipelinedOpen());
+
+    options.setPipelinedOpen(true);
+    assertTrue(options.isPipelinedOpen());
+    assertEquals(options, new ProtonClientOptions(options));
+    assertTrue(new ProtonClientOptions(options.toJson()).isPipelinedOpen());
+  }
 }
@@ -16,17 +16,22 @@
 package io.vertx.proton;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.net.NetServer;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import io.vertx.proton.impl.ProtonConnectionImpl;
 import io.vertx.proton.impl.ProtonMetaDataSupportImpl;
+import io.vertx.proton.sasl.SaslSystemException;
+import io.vertx.proton.sasl.impl.ProtonSaslAnonymousImpl;
 import io.vertx.proton.impl.ProtonServerImpl;
 
 import org.apache.qpid.proton.Proton;
@@ -35,6 +40,7 @@ import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.messaging.AmqpValue;
 import org.apache.qpid.proton.amqp.messaging.Modified;
+import org.apache.qpid.proton.amqp.messaging.Released;
 import org.apache.qpid.proton.amqp.messaging.Section;
 import org.apache.qpid.proton.amqp.messaging.Source;
 import org.apache.qpid.proton.amqp.transport.AmqpError;
@@ -48,15 +54,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.vertx.proton.ProtonHelper.message;
 
@@ -1622,6 +1632,1079 @@ public class ProtonClientTest extends MockServerTestBase {
     }
   }
 
+  @Test(timeout = 20000)
+  public void testReceiveMessagesWithBatchHandler(TestContext context) {
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.open();
+      AtomicInteger counter = new AtomicInteger(0);
+
+      ProtonReceiver receiver = connection.createReceiver(MockServer.Addresses.five_messages.toString());
+      receiver.batchHandler(3, 100, batch -> {
+        context.assertFalse(batch.isEmpty(), "Batch should not be empty");
+        context.assertTrue(batch.size() <= 3, "Batch should not exceed the max batch size");
+
+        for (ProtonMessageDelivery messageDelivery : batch) {
+          int count = counter.incrementAndGet();
+          validateMessage(context, count, String.valueOf(count), messageDelivery.getMessage());
+        }
+
+        if (counter.get() == 5) {
+          LOG.trace("Got msg 5, completing async");
+          async.complete();
+          connection.disconnect();
+        }
+      }).open();
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testAdaptivePrefetchGrowsWithPlainHandler(TestContext context) throws Exception {
+    server.close();
+    int total = 2000;
+    int minCredit = 4;
+    Async async = context.async();
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.senderOpenHandler(serverSender -> {
+          serverSender.setSource(serverSender.getRemoteSource());
+          AtomicInteger sent = new AtomicInteger();
+          serverSender.sendQueueDrainHandler(s -> {
+            while (!s.sendQueueFull() && sent.get() < total) {
+              s.send(message(String.valueOf(sent.incrementAndGet())));
+            }
+          }).open();
+        });
+      });
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          AtomicInteger received = new AtomicInteger();
+          ProtonReceiver receiver = connection.createReceiver("adaptive");
+          receiver.setAdaptivePrefetch(minCredit, 1000).handler((delivery, msg) -> {
+            int count = received.incrementAndGet();
+            if (count <= 20) {
+              // A slow start keeps the sender waiting on credit
+              try {
+                Thread.sleep(5);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+
+            if (count == total) {
+              context.assertTrue(receiver.getPrefetch() > minCredit, "Target credit should have grown");
+              context.assertTrue(receiver.getCreditStarvationTime() > 0, "Starvation should have been reported");
+              connection.disconnect();
+              async.complete();
+            }
+          }).open();
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testReplacingBatchHandlerFlushesPendingBatch(TestContext context) {
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.open();
+      AtomicInteger counter = new AtomicInteger(0);
+
+      // The batch delay exceeds the test timeout, so only replacing the handler can dispatch the pending batch
+      ProtonReceiver receiver = connection.createReceiver(MockServer.Addresses.five_messages.toString());
+      receiver.batchHandler(10, 60000, batch -> {
+        for (ProtonMessageDelivery messageDelivery : batch) {
+          int count = counter.incrementAndGet();
+          validateMessage(context, count, String.valueOf(count), messageDelivery.getMessage());
+        }
+      }).openHandler(res -> {
+        vertx.setTimer(500, x -> {
+          receiver.handler((delivery, msg) -> {
+            int count = counter.incrementAndGet();
+            validateMessage(context, count, String.valueOf(count), msg);
+          });
+
+          context.assertTrue(counter.get() > 0, "Pending batch should have been flushed");
+          vertx.setTimer(500, y -> {
+            context.assertEquals(5, counter.get());
+            async.complete();
+            connection.disconnect();
+          });
+        });
+      }).open();
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testReceiveMessagesWithWorkerHandlerKeepsKeyOrdering(TestContext context) {
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.open();
+      AtomicInteger counter = new AtomicInteger(0);
+
+      ProtonReceiver receiver = connection.createReceiver(MockServer.Addresses.five_messages.toString());
+      receiver.setPrefetch(2).workerHandler(4, m -> "same-key", (d, m) -> {
+        context.assertTrue(Context.isOnWorkerThread(), "Handler should run on a worker thread");
+
+        int count = counter.incrementAndGet();
+        validateMessage(context, count, String.valueOf(count), m);
+      }).open();
+
+      receiver.closeHandler(res -> {
+        // The server closes the link once the 5th delivery is settled, i.e. all workers completed.
+        context.assertEquals(5, counter.get(), "Unexpected number of handled messages");
+        async.complete();
+        connection.disconnect();
+      });
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testWorkerHandlerRunsKeysInParallelInOrder(TestContext context) throws Exception {
+    server.close();
+    int parallelism = 2;
+    String[] keys = { "a", "b", "c" };
+    int perKey = 4;
+    Async async = context.async(keys.length * perKey);
+
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    Map<String, List<Integer>> handledByKey = new ConcurrentHashMap<>();
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          serverReceiver.workerHandler(parallelism, Message::getSubject, (delivery, msg) -> {
+            int now = active.incrementAndGet();
+            maxActive.accumulateAndGet(now, Math::max);
+
+            handledByKey.computeIfAbsent(msg.getSubject(), k -> Collections.synchronizedList(new ArrayList<>()))
+                .add((Integer) ((AmqpValue) msg.getBody()).getValue());
+            try {
+              // Slow enough for the other keys to be dispatched meanwhile
+              Thread.sleep(50);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+
+            active.decrementAndGet();
+            async.countDown();
+          }).open();
+        });
+      });
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          ProtonSender sender = connection.createSender("workers");
+          sender.openHandler(opened -> {
+            for (int i = 0; i < perKey; i++) {
+              for (String key : keys) {
+                Message msg = message();
+                msg.setSubject(key);
+                msg.setBody(new AmqpValue(i));
+                sender.send(msg);
+              }
+            }
+          }).open();
+        }).open();
+      });
+
+      async.awaitSuccess();
+
+      context.assertEquals(parallelism, maxActive.get(), "Unexpected handler parallelism");
+      for (String key : keys) {
+        context.assertEquals(Arrays.asList(0, 1, 2, 3), handledByKey.get(key), "Unexpected order for key " + key);
+      }
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testConnectionPoolSpreadsLinksAcrossConnections(TestContext context) {
+    Async async = context.async();
+
+    ProtonConnectionPoolOptions poolOptions = new ProtonConnectionPoolOptions().setSize(2).setMaxLinksPerConnection(1);
+    ProtonConnectionPool pool = ProtonConnectionPool.create(vertx, poolOptions, new ProtonClientOptions(), "localhost",
+        server.actualPort(), null, null);
+
+    pool.open(res -> {
+      context.assertTrue(res.succeeded());
+      context.assertEquals(2, pool.getOpenConnectionCount(), "Unexpected number of open connections");
+
+      pool.createSender(null, first -> {
+        context.assertTrue(first.succeeded());
+        Context firstContext = Vertx.currentContext();
+
+        pool.createSender(null, second -> {
+          context.assertTrue(second.succeeded());
+          context.assertNotEquals(firstContext, Vertx.currentContext(), "Expected links on different connections");
+
+          pool.createSender(null, third -> {
+            context.assertTrue(third.failed(), "Expected all connections to be at their link limit");
+            pool.close();
+            async.complete();
+          });
+        });
+      });
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testSenderCacheReusesAndEvictsSenders(TestContext context) {
+    ((ProtonServerImpl) server.getProtonServer()).setAdvertiseAnonymousRelayCapability(false);
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.openHandler(x -> {
+        ProtonSenderCache cache = connection.createSenderCache(1, 0);
+
+        cache.getSender(MockServer.Addresses.drop.toString(), first -> {
+          context.assertTrue(first.succeeded());
+
+          cache.getSender(MockServer.Addresses.drop.toString(), again -> {
+            context.assertTrue(again.succeeded());
+            context.assertEquals(first.result(), again.result(), "Expected the cached sender");
+
+            cache.getSender(MockServer.Addresses.echo.toString(), second -> {
+              context.assertTrue(second.succeeded());
+              context.assertNotEquals(first.result(), second.result(), "Expected a different sender");
+              context.assertEquals(1, cache.size(), "Expected the least recently used sender to be evicted");
+              context.assertFalse(first.result().isOpen(), "Expected the evicted sender to be detached");
+
+              context.assertEquals(1L, cache.getHits(), "Unexpected hits");
+              context.assertEquals(2L, cache.getMisses(), "Unexpected misses");
+              context.assertTrue(cache.getAverageAttachTime() > 0, "Expected attach time to be recorded");
+
+              connection.disconnect();
+              async.complete();
+            });
+          });
+        });
+      }).open();
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testSenderCacheKeepsSendersWithPendingDeliveries(TestContext context) {
+    ((ProtonServerImpl) server.getProtonServer()).setAdvertiseAnonymousRelayCapability(false);
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.openHandler(x -> {
+        ProtonSenderCache cache = connection.createSenderCache(1, 0);
+        AtomicInteger accepted = new AtomicInteger();
+
+        Handler<ProtonDelivery> onUpdated = delivery -> {
+          context.assertTrue(delivery.getRemoteState() instanceof Accepted, "Expected message to be accepted");
+          if (accepted.incrementAndGet() == 2) {
+            // Give the cache a chance to detach the sender kept over the limit
+            vertx.setTimer(50, t -> {
+              context.assertEquals(1, cache.size(), "Expected the cache to return to its limit once settled");
+              connection.disconnect();
+              async.complete();
+            });
+          }
+        };
+        Handler<Throwable> onFailure = t -> context.fail(t);
+
+        // Sent before the first sender has attached or been given credit
+        cache.send(MockServer.Addresses.drop.toString(), message("first"), onUpdated, onFailure);
+        cache.send(MockServer.Addresses.echo.toString(), message("second"), onUpdated, onFailure);
+        context.assertEquals(2, cache.size(), "Expected the attaching sender to be kept over the limit");
+      }).open();
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testSenderCacheUsesAnonymousRelayWhenSupported(TestContext context) {
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.openHandler(x -> {
+        context.assertTrue(connection.isAnonymousRelaySupported(), "Expected anonymous relay support");
+        ProtonSenderCache cache = connection.createSenderCache(10, 0);
+
+        cache.getSender(MockServer.Addresses.drop.toString(), first -> {
+          context.assertTrue(first.succeeded());
+          context.assertNull(first.result().getTarget().getAddress(), "Expected the anonymous sender");
+
+          cache.getSender(MockServer.Addresses.echo.toString(), second -> {
+            context.assertTrue(second.succeeded());
+            context.assertEquals(first.result(), second.result(), "Expected the anonymous sender to be shared");
+            context.assertEquals(1, cache.size(), "Expected only the anonymous sender to be cached");
+
+            connection.disconnect();
+            async.complete();
+          });
+        });
+      }).open();
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testAutoReconnectReattachesLinksAndResendsUnsettled(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+    AtomicInteger serverConnections = new AtomicInteger();
+    AtomicLong droppedAt = new AtomicLong();
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        int connectionNumber = serverConnections.incrementAndGet();
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          context.assertEquals("resilient-sender", serverReceiver.getName(), "unexpected link name");
+          serverReceiver.setAutoAccept(false);
+          serverReceiver.handler((delivery, msg) -> {
+            if (connectionNumber == 1) {
+              // Fail the first connection without settling the delivery
+              droppedAt.set(System.nanoTime());
+              serverConnection.disconnect();
+            } else {
+              long recovery = System.nanoTime() - droppedAt.get();
+              System.out.println(String.format("Reconnect recovery time: %,.3f ms", recovery / 1_000_000.0));
+              context.assertTrue(recovery < TimeUnit.SECONDS.toNanos(5), "Expected the resend within 5 seconds of the drop");
+
+              context.assertEquals("1", getMessageBody(context, msg), "unexpected message body");
+              delivery.disposition(Accepted.getInstance(), true);
+            }
+          });
+          serverReceiver.open();
+        });
+      });
+
+      ProtonClientOptions options = new ProtonClientOptions().setAutoReconnect(true).setAutoReconnectInitialDelay(10);
+      ProtonClient client = ProtonClient.create(vertx);
+      client.connect(options, "localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+
+        ProtonConnection connection = res.result();
+        connection.disconnectHandler(x -> context.fail("Disconnect should have been recovered"));
+        connection.openHandler(x -> {
+          ProtonSender sender = connection.createSender("resilient-address", new ProtonLinkOptions().setLinkName("resilient-sender"));
+          sender.openHandler(y -> {
+            sender.send(message("1"), delivery -> {
+              context.assertEquals(Accepted.getInstance(), delivery.getRemoteState(), "unexpected remote state");
+              context.assertEquals(2, serverConnections.get(), "expected the delivery to be resent after reconnecting");
+              async.complete();
+            });
+          }).open();
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testAutoReconnectReattachesReceiverAndRestoresCredit(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+    AtomicInteger serverConnections = new AtomicInteger();
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        int connectionNumber = serverConnections.incrementAndGet();
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.senderOpenHandler(serverSender -> {
+          context.assertEquals("resilient-receiver", serverSender.getName(), "unexpected link name");
+          AtomicBoolean sent = new AtomicBoolean();
+          serverSender.sendQueueDrainHandler(s -> {
+            if (sent.getAndSet(true)) {
+              return;
+            }
+            context.assertEquals(10, serverSender.getCredit(), "expected the prefetch to be granted");
+            if (connectionNumber == 1) {
+              // Fail the first connection once the message is accepted
+              serverSender.send(message("1"), delivery -> serverConnection.disconnect());
+            } else {
+              serverSender.send(message("2"));
+            }
+          });
+          serverSender.open();
+        });
+      });
+
+      ProtonClientOptions options = new ProtonClientOptions().setAutoReconnect(true).setAutoReconnectInitialDelay(10);
+      ProtonClient client = ProtonClient.create(vertx);
+      client.connect(options, "localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+
+        ProtonConnection connection = res.result();
+        connection.disconnectHandler(x -> context.fail("Disconnect should have been recovered"));
+        connection.openHandler(x -> {
+          ProtonReceiver receiver = connection.createReceiver("resilient-address",
+              new ProtonLinkOptions().setLinkName("resilient-receiver"));
+          receiver.setPrefetch(10).handler((delivery, msg) -> {
+            if ("2".equals(getMessageBody(context, msg))) {
+              context.assertEquals(2, serverConnections.get(), "expected the message after reconnecting");
+              async.complete();
+            }
+          }).open();
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testConnectToEndpointsSkipsUnavailableEndpoint(TestContext context) {
+    Async async = context.async();
+
+    NetServer closedServer = vertx.createNetServer();
+    closedServer.listen(0, listenResult -> {
+      context.assertTrue(listenResult.succeeded());
+      int closedPort = closedServer.actualPort();
+      closedServer.close(closeResult -> {
+        List<SocketAddress> endpoints = Arrays.asList(SocketAddress.inetSocketAddress(closedPort, "localhost"),
+            SocketAddress.inetSocketAddress(server.actualPort(), "localhost"));
+        ProtonClientOptions options = new ProtonClientOptions()
+            .setEndpointSelectionPolicy(ProtonEndpointSelectionPolicy.LOWEST_LATENCY);
+
+        ProtonClient.create(vertx).connect(options, endpoints, null, null, res -> {
+          context.assertTrue(res.succeeded(), "expected to connect to the available endpoint");
+          res.result().openHandler(x -> {
+            context.assertTrue(x.succeeded());
+            res.result().disconnect();
+            async.complete();
+          }).open();
+        });
+      });
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testConnectToEndpointsInParallelUsesFirstToComplete(TestContext context) {
+    Async async = context.async();
+    AtomicBoolean stalledSocketClosed = new AtomicBoolean();
+
+    // Accepts connections but never responds, so only the mock server can complete
+    NetServer stalledServer = vertx.createNetServer();
+    stalledServer.connectHandler(socket -> {
+      socket.pause();
+      socket.closeHandler(x -> stalledSocketClosed.set(true));
+    });
+    stalledServer.listen(0, listenResult -> {
+      context.assertTrue(listenResult.succeeded());
+
+      List<SocketAddress> endpoints = Arrays.asList(SocketAddress.inetSocketAddress(stalledServer.actualPort(), "localhost"),
+          SocketAddress.inetSocketAddress(server.actualPort(), "localhost"));
+      ProtonClientOptions options = new ProtonClientOptions().setParallelConnectAttempts(2);
+
+      ProtonClient.create(vertx).connect(options, endpoints, null, null, res -> {
+        context.assertTrue(res.succeeded(), "expected to connect to the responsive endpoint");
+        res.result().openHandler(x -> {
+          context.assertTrue(x.succeeded());
+          res.result().disconnect();
+
+          vertx.setPeriodic(10, timer -> {
+            if (stalledSocketClosed.get()) {
+              vertx.cancelTimer(timer);
+              stalledServer.close();
+              async.complete();
+            }
+          });
+        }).open();
+      });
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testSessionShardingSpreadsLinksAcrossSessions(TestContext context) {
+    Async async = context.async();
+    connect(context, connection -> {
+      connection.setSessionSharding(new ProtonSessionShardingOptions().setSessions(2));
+
+      ProtonSender first = connection.createSender(MockServer.Addresses.drop.toString());
+      ProtonSender second = connection.createSender(MockServer.Addresses.drop.toString());
+      ProtonSender third = connection.createSender(MockServer.Addresses.drop.toString());
+      context.assertNotEquals(first.getSession(), second.getSession(), "expected links on different sessions");
+      context.assertEquals(first.getSession(), third.getSession(), "expected sessions to be reused round robin");
+
+      connection.setSessionSharding(new ProtonSessionShardingOptions().setSessions(4)
+          .setPolicy(ProtonSessionShardingPolicy.ADDRESS_HASH).setIncomingCapacity(64 * 1024));
+      ProtonReceiver receiver = connection.createReceiver(MockServer.Addresses.two_messages.toString());
+      ProtonSender sender = connection.createSender(MockServer.Addresses.two_messages.toString());
+      context.assertEquals(receiver.getSession(), sender.getSession(), "expected the same address to share a session");
+      context.assertEquals(64 * 1024, receiver.getSession().getIncomingCapacity(), "unexpected incoming capacity");
+
+      connection.openHandler(x -> {
+        AtomicInteger count = new AtomicInteger();
+        receiver.handler((d, m) -> {
+          if (count.incrementAndGet() == 2) {
+            connection.disconnect();
+            async.complete();
+          }
+        }).open();
+      }).open();
+    });
+  }
+
+  @Test(timeout = 20000)
+  public void testTransferSchedulingDeliversInOrderPerSender(TestContext context) throws Exception {
+    server.close();
+    int count = 50;
+    Async async = context.async(2);
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          AtomicInteger received = new AtomicInteger();
+          String prefix = serverReceiver.getRemoteTarget().getAddress();
+          serverReceiver.handler((delivery, msg) -> {
+            int expected = received.getAndIncrement();
+            context.assertEquals(prefix + "-" + expected, getMessageBody(context, msg), "unexpected message order");
+            if (received.get() == count) {
+              async.countDown();
+            }
+          }).setPrefetch(5).open();
+        });
+      });
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          ProtonSession session = connection.createSession()
+              .setTransferScheduling(ProtonTransferSchedulingPolicy.WEIGHTED_ROUND_ROBIN).open();
+
+          ProtonSender bulk = session.createSender("bulk").setTransferWeight(1);
+          ProtonSender urgent = session.createSender("urgent").setTransferWeight(4);
+          bulk.open();
+          urgent.open();
+
+          for (int i = 0; i < count; i++) {
+            bulk.send(message("bulk-" + i));
+            urgent.send(message("urgent-" + i));
+          }
+          context.assertTrue(bulk.sendQueueFull(), "expected queued transfers to fill the send queue");
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testPriorityLanesSendHighestPriorityFirst(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+    List<String> expected = Arrays.asList("high-1", "high-2", "normal-1", "low-1", "low-2");
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          List<Object> received = new ArrayList<>();
+          serverReceiver.handler((delivery, msg) -> {
+            received.add(getMessageBody(context, msg));
+            if (received.size() == expected.size()) {
+              context.assertEquals(expected, received, "unexpected message order");
+              async.complete();
+            }
+          }).open();
+        });
+      });
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          ProtonSender sender = connection.createSender("prioritised");
+          sender.open();
+
+          // No credit until the attach completes, so all wait in the lanes
+          ProtonDelivery first = sender.send(message("low-1"), 1, null);
+          context.assertFalse(first.remotelySettled(), "delivery should be waiting");
+          sender.send(message("normal-1"));
+          sender.send(message("high-1"), 9, null);
+          sender.send(message("low-2"), 1, null);
+          sender.send(message("high-2"), 9, null);
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testPipelinedOpenSendsBeforeSaslCompletes(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          serverReceiver.handler((delivery, msg) -> {
+            context.assertEquals("pipelined", getMessageBody(context, msg), "unexpected message");
+          }).open();
+        });
+      });
+
+      ProtonClientOptions options = new ProtonClientOptions().setPipelinedOpen(true)
+          .addEnabledSaslMechanism(ProtonSaslAnonymousImpl.MECH_NAME);
+      ProtonClient.create(vertx).connect(options, "localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.open();
+
+        // Sent without waiting for the SASL outcome, the open or the attach
+        ProtonSender sender = connection.createSender("queue").open();
+        sender.send(message("pipelined"), delivery -> {
+          context.assertEquals(Accepted.getInstance(), delivery.getRemoteState(), "unexpected outcome");
+          connection.disconnect();
+          async.complete();
+        });
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testPipelinedOpenFailsRefusedAttach(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          serverReceiver.setCondition(ProtonHelper.condition(AmqpError.NOT_FOUND, "no such address")).close();
+        });
+      });
+
+      ProtonClientOptions options = new ProtonClientOptions().setPipelinedOpen(true);
+      ProtonClient.create(vertx).connect(options, "localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.open();
+
+        ProtonSender sender = connection.createSender("missing");
+        sender.openHandler(openResult -> {
+          context.assertTrue(openResult.failed(), "attach should have been refused");
+          connection.disconnect();
+          async.complete();
+        }).open();
+        sender.send(message("lost"));
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testPipelinedOpenFailsRefusedAttachWithLaterDetach(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async(2);
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          // The attach, with no target, and the detach are written separately
+          serverReceiver.setTarget(null).open();
+          vertx.setTimer(100, x -> {
+            serverReceiver.setCondition(ProtonHelper.condition(AmqpError.NOT_FOUND, "no such address")).close();
+          });
+        });
+      });
+
+      ProtonClientOptions options = new ProtonClientOptions().setPipelinedOpen(true);
+      ProtonClient.create(vertx).connect(options, "localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.open();
+
+        ProtonSender sender = connection.createSender("missing");
+        sender.openHandler(openResult -> {
+          context.assertTrue(openResult.failed(), "attach should have been refused");
+          async.countDown();
+        }).closeHandler(closeResult -> {
+          context.assertEquals(AmqpError.NOT_FOUND, sender.getRemoteCondition().getCondition(),
+              "unexpected condition");
+          connection.disconnect();
+          async.countDown();
+        }).open();
+        sender.send(message("lost"));
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testCloseFromHandlerIsWrittenBeforeDisconnect(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> {
+          // Output made while dispatching is deferred, the disconnect must still write it first
+          serverConnection.open();
+          serverConnection.setCondition(ProtonHelper.condition(AmqpError.RESOURCE_LIMIT_EXCEEDED, "go away")).close();
+          serverConnection.disconnect();
+        });
+      });
+
+      AtomicBoolean closed = new AtomicBoolean();
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.closeHandler(closeResult -> {
+          context.assertEquals(AmqpError.RESOURCE_LIMIT_EXCEEDED, connection.getRemoteCondition().getCondition(),
+              "unexpected condition");
+          closed.set(true);
+        }).disconnectHandler(x -> {
+          context.assertTrue(closed.get(), "Expected the close to arrive before the disconnect");
+          async.complete();
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testSendsFromDrainHandlerAreWrittenAfterDispatch(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+    int count = 5;
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.senderOpenHandler(serverSender -> {
+          AtomicInteger sent = new AtomicInteger();
+          // Called while the flow is dispatched, so the transfers are only written once it finishes
+          serverSender.sendQueueDrainHandler(s -> {
+            while (!s.sendQueueFull() && sent.get() < count) {
+              s.send(message(String.valueOf(sent.incrementAndGet())));
+            }
+          });
+          serverSender.open();
+        });
+      });
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          AtomicInteger received = new AtomicInteger();
+          ProtonReceiver receiver = connection.createReceiver("drained");
+          // One credit at a time, so every message is sent from a separate flow
+          receiver.setPrefetch(0).handler((delivery, msg) -> {
+            context.assertEquals(String.valueOf(received.incrementAndGet()), getMessageBody(context, msg),
+                "unexpected message");
+            if (received.get() == count) {
+              connection.disconnect();
+              async.complete();
+            } else {
+              receiver.flow(1);
+            }
+          }).open();
+          receiver.flow(1);
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testAdmissionControlRejectsConnectionsBeyondAcceptRate(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+
+    ProtonServerOptions serverOptions = new ProtonServerOptions().setAcceptRate(1).setAcceptBurst(1)
+        .setAdmissionPolicy(ProtonAdmissionPolicy.REJECT);
+    ProtonServer protonServer = ProtonServer.create(vertx, serverOptions);
+    try {
+      protonServer.connectHandler(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+      });
+      FutureHandler<ProtonServer, AsyncResult<ProtonServer>> listenHandler = FutureHandler.asyncResult();
+      protonServer.listen(0, listenHandler);
+      listenHandler.get();
+
+      ProtonClient client = ProtonClient.create(vertx);
+      client.connect("localhost", protonServer.actualPort(), first -> {
+        context.assertTrue(first.succeeded(), "first connection should be admitted");
+
+        // The accept rate is used up for the next second
+        client.connect("localhost", protonServer.actualPort(), second -> {
+          context.assertTrue(second.failed(), "second connection should be rejected");
+          context.assertTrue(second.cause() instanceof SaslSystemException, "unexpected failure: " + second.cause());
+          context.assertFalse(((SaslSystemException) second.cause()).isPermanent(), "failure should be temporary");
+          context.assertEquals(1L, protonServer.getRejectedConnectionCount());
+
+          first.result().disconnect();
+          async.complete();
+        });
+      });
+
+      async.awaitSuccess();
+    } finally {
+      protonServer.close();
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testReceiverRateLimitWithholdsCredit(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+    int messages = 25;
+    int messagesPerSecond = 10;
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          long start = System.currentTimeMillis();
+          AtomicInteger received = new AtomicInteger();
+          serverReceiver.setRateLimit(new ProtonRateLimitOptions().setMessagesPerSecond(messagesPerSecond))
+              .setPrefetch(100).handler((delivery, msg) -> {
+                if (received.incrementAndGet() == messages) {
+                  // A second's burst, then the rest at the limited rate
+                  long elapsed = System.currentTimeMillis() - start;
+                  context.assertTrue(elapsed >= 1000, "messages arrived too quickly: " + elapsed + "ms");
+                  async.complete();
+                }
+              }).open();
+        });
+      });
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          ProtonSender sender = connection.createSender("limited");
+          sender.openHandler(opened -> {
+            context.assertTrue(sender.getCredit() <= messagesPerSecond, "too much credit: " + sender.getCredit());
+            for (int i = 0; i < messages; i++) {
+              sender.send(message("message-" + i));
+            }
+          }).open();
+        }).open();
+      });
+
+      async.awaitSuccess();
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testRouterForwardsAnycastAndMulticast(TestContext context) throws Exception {
+    server.close();
+    Async received = context.async(2 * 2 + 3);
+    Async accepted = context.async(2 + 3);
+
+    ProtonRouter router = ProtonRouter.create().setDistribution("topic.", ProtonDistribution.MULTICAST);
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(router::handle);
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          AtomicInteger opened = new AtomicInteger();
+          Handler<AsyncResult<ProtonReceiver>> consumerOpened = attached -> {
+            context.assertTrue(attached.succeeded());
+            if (opened.incrementAndGet() < 3) {
+              return;
+            }
+
+            // Producers are only given credit once their address has consumers
+            ProtonSender topicSender = connection.createSender("topic.news");
+            topicSender.openHandler(y -> {
+              for (int i = 0; i < 2; i++) {
+                topicSender.send(message("news-" + i), d -> {
+                  context.assertEquals(Accepted.getInstance(), d.getRemoteState());
+                  accepted.countDown();
+                });
+              }
+            }).open();
+
+            ProtonSender queueSender = connection.createSender("queue");
+            queueSender.openHandler(y -> {
+              for (int i = 0; i < 3; i++) {
+                queueSender.send(message("work-" + i), d -> {
+                  context.assertEquals(Accepted.getInstance(), d.getRemoteState());
+                  accepted.countDown();
+                });
+              }
+            }).open();
+          };
+
+          for (String address : new String[] { "topic.news", "topic.news", "queue" }) {
+            connection.createReceiver(address).handler((d, msg) -> {
+              context.assertEquals(address.startsWith("topic.") ? "news-" : "work-",
+                  getMessageBody(context, msg).toString().substring(0, 5));
+              received.countDown();
+            }).openHandler(consumerOpened).open();
+          }
+        }).open();
+      });
+
+      received.awaitSuccess();
+      accepted.awaitSuccess();
+      context.assertEquals(2 * 2 + 3L, router.getForwardedCount());
+      context.assertEquals(2, router.getAddressCount());
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testDuplicateDetectionPassesOnRedeliveryOfReleasedMessage(TestContext context) throws Exception {
+    server.close();
+    Async async = context.async();
+    List<String> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+    ProtonServer protonServer = null;
+    try {
+      protonServer = createServer(serverConnection -> {
+        serverConnection.openHandler(result -> serverConnection.open());
+        serverConnection.sessionOpenHandler(session -> session.open());
+        serverConnection.receiverOpenHandler(serverReceiver -> {
+          AtomicInteger handled = new AtomicInteger();
+          serverReceiver.setDuplicateDetection(10, 0).setAutoAccept(false).handler((delivery, msg) -> {
+            // Release the first sighting, accept the redelivery
+            if (handled.incrementAndGet() == 1) {
+              delivery.disposition(Released.getInstance(), true);
+            } else {
+              delivery.disposition(Accepted.getInstance(), true);
+            }
+            outcomes.add("handled-" + handled.get());
+          }).open();
+        });
+      });
+
+      ProtonClient.create(vertx).connect("localhost", protonServer.actualPort(), res -> {
+        context.assertTrue(res.succeeded());
+        ProtonConnection connection = res.result();
+        connection.openHandler(x -> {
+          ProtonSender sender = connection.createSender("dedup");
+          sender.openHandler(opened -> sendUntilDuplicate(context, sender, outcomes, async)).open();
+        }).open();
+      });
+
+      async.awaitSuccess();
+      context.assertEquals(Arrays.asList("handled-1", "released", "handled-2", "accepted", "accepted"), outcomes);
+    } finally {
+      if (protonServer != null) {
+        protonServer.close();
+      }
+    }
+  }
+
+  /**
+   * Sends the same message-id until the peer accepts it without handling it, i.e. as a duplicate.
+   */
+  private void sendUntilDuplicate(TestContext context, ProtonSender sender, List<String> outcomes, Async async) {
+    Message msg = message("dedup", "payload");
+    msg.setMessageId("same-id");
+    sender.send(msg, delivery -> {
+      DeliveryState state = delivery.getRemoteState();
+      if (state instanceof Released) {
+        outcomes.add("released");
+        sendUntilDuplicate(context, sender, outcomes, async);
+      } else if (state instanceof Accepted) {
+        outcomes.add("accepted");
+        if (outcomes.size() < 5) {
+          sendUntilDuplicate(context, sender, outcomes, async);
+        } else {
+          async.complete();
+        }
+      } else {
+        context.fail("Unexpected outcome: " + state);
+      }
+    });
+  }
+
   private ProtonServer createServer(Handler<ProtonConnection> serverConnHandler) throws InterruptedException,
                                                                                  ExecutionException {
     ProtonServer server = ProtonServer.create(vertx);
@@ -0,0 +1,73 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ProtonConnectionPoolOptionsTest {
+
+  @Test
+  public void testDifferentObjectsEqual() {
+    ProtonConnectionPoolOptions options1 = new ProtonConnectionPoolOptions().setSize(4).setMaxLinksPerConnection(10);
+    ProtonConnectionPoolOptions options2 = new ProtonConnectionPoolOptions().setSize(4).setMaxLinksPerConnection(10);
+
+    assertNotSame("Options should be different objects", options1, options2);
+    assertEquals("Options should be equal", options1, options2);
+    assertEquals("Options should have same hash code", options1.hashCode(), options2.hashCode());
+  }
+
+  @Test
+  public void testDifferentObjectsNotEqual() {
+    ProtonConnectionPoolOptions options1 = new ProtonConnectionPoolOptions().setSize(4);
+    ProtonConnectionPoolOptions options2 = new ProtonConnectionPoolOptions().setSize(8);
+
+    assertNotEquals("Options should not be equal", options1, options2);
+    assertFalse("Options should not equal null", options1.equals(null));
+  }
+
+  @Test
+  public void testCopyAndJsonRoundTrip() {
+    ProtonConnectionPoolOptions options = new ProtonConnectionPoolOptions().setSize(3).setMaxLinksPerConnection(7)
+        .setReconnectInterval(250);
+
+    assertEquals("Copy should be equal", options, new ProtonConnectionPoolOptions(options));
+    assertEquals("JSON round trip should be equal", options, new ProtonConnectionPoolOptions(options.toJson()));
+  }
+
+  @Test
+  public void testInvalidValuesThrowIAE() {
+    ProtonConnectionPoolOptions options = new ProtonConnectionPoolOptions();
+    try {
+      options.setSize(0);
+      fail("should have thrown due to non-positive size");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setMaxLinksPerConnection(-1);
+      fail("should have thrown due to negative link limit");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+}
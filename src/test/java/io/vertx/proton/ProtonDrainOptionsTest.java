@@ -0,0 +1,73 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ProtonDrainOptionsTest {
+
+  @Test
+  public void testDefaults() {
+    ProtonDrainOptions options = new ProtonDrainOptions();
+    assertEquals(30000, options.getSettleTimeout());
+    assertEquals(50, options.getBatchSize());
+    assertEquals(1000, options.getBatchInterval());
+    assertNull("Connections should not be redirected by default", options.getRedirectHost());
+    assertEquals(5672, options.getRedirectPort());
+  }
+
+  @Test
+  public void testZeroSettleTimeoutAllowed() {
+    assertEquals("Zero should close connections without waiting", 0,
+        new ProtonDrainOptions().setSettleTimeout(0).getSettleTimeout());
+  }
+
+  @Test
+  public void testInvalidValuesThrowIAE() {
+    ProtonDrainOptions options = new ProtonDrainOptions();
+    try {
+      options.setBatchSize(0);
+      fail("should have thrown due to zero batch size");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setBatchInterval(0);
+      fail("should have thrown due to zero batch interval");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setSettleTimeout(-1);
+      fail("should have thrown due to negative settle timeout");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setRedirectPort(65536);
+      fail("should have thrown due to out of range redirect port");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+}
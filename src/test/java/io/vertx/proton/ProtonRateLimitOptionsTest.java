@@ -0,0 +1,61 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ProtonRateLimitOptionsTest {
+
+  @Test
+  public void testEqualsAndHashCode() {
+    ProtonRateLimitOptions options1 = new ProtonRateLimitOptions().setMessagesPerSecond(100).setBytesPerSecond(4096);
+    ProtonRateLimitOptions options2 = new ProtonRateLimitOptions().setMessagesPerSecond(100).setBytesPerSecond(4096);
+
+    assertEquals("Options should be equal", options1, options2);
+    assertEquals("Options should have same hash code", options1.hashCode(), options2.hashCode());
+    assertNotEquals("Options should not be equal", options1, options2.setBytesPerSecond(0));
+  }
+
+  @Test
+  public void testCopyAndJsonRoundTrip() {
+    ProtonRateLimitOptions options = new ProtonRateLimitOptions().setMessagesPerSecond(250).setBytesPerSecond(1 << 20);
+
+    assertEquals("Copy should be equal", options, new ProtonRateLimitOptions(options));
+    assertEquals("JSON round trip should be equal", options, new ProtonRateLimitOptions(options.toJson()));
+  }
+
+  @Test
+  public void testInvalidValuesThrowIAE() {
+    ProtonRateLimitOptions options = new ProtonRateLimitOptions();
+    try {
+      options.setMessagesPerSecond(-1);
+      fail("should have thrown due to negative message rate");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setBytesPerSecond(-1);
+      fail("should have thrown due to negative byte rate");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+}
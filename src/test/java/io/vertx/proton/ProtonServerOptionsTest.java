@@ -30,4 +30,31 @@ public class ProtonServerOptionsTest {
     options.setHeartbeat(2000);
     assertNotEquals(options.getHeartbeat(), 1000);
   }
+
+  @Test
+  public void testAdmissionControl() {
+    ProtonServerOptions options = new ProtonServerOptions();
+    assertEquals(0, options.getMaxHandshakingConnections());
+    assertEquals(0, options.getAcceptRate());
+    assertEquals(ProtonAdmissionPolicy.QUEUE, options.getAdmissionPolicy());
+    assertEquals(ProtonServerOptions.DEFAULT_MAX_QUEUED_CONNECTIONS, options.getMaxQueuedConnections());
+
+    options.setMaxHandshakingConnections(100).setAcceptRate(500).setAcceptBurst(50)
+        .setAdmissionPolicy(ProtonAdmissionPolicy.REJECT).setMaxQueuedConnections(10);
+    ProtonServerOptions copy = new ProtonServerOptions(options.toJson());
+    assertEquals(100, copy.getMaxHandshakingConnections());
+    assertEquals(500, copy.getAcceptRate());
+    assertEquals(50, copy.getAcceptBurst());
+    assertEquals(ProtonAdmissionPolicy.REJECT, copy.getAdmissionPolicy());
+    assertEquals(10, copy.getMaxQueuedConnections());
+    assertEquals(options, copy);
+    assertEquals(options, new ProtonServerOptions(options));
+
+    try {
+      options.setAcceptRate(-1);
+      fail("Expected a negative rate to be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
 }
@@ -0,0 +1,63 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ProtonSessionShardingOptionsTest {
+
+  @Test
+  public void testDefaults() {
+    ProtonSessionShardingOptions options = new ProtonSessionShardingOptions();
+    assertEquals(1, options.getSessions());
+    assertEquals(ProtonSessionShardingPolicy.ROUND_ROBIN, options.getPolicy());
+    assertEquals("Sessions should keep the default incoming capacity", 0, options.getIncomingCapacity());
+    assertEquals("Sessions should keep the default outgoing window", 0, options.getOutgoingWindow());
+  }
+
+  @Test
+  public void testInvalidValuesThrowIAE() {
+    ProtonSessionShardingOptions options = new ProtonSessionShardingOptions();
+    try {
+      options.setSessions(0);
+      fail("should have thrown due to non-positive session count");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setIncomingCapacity(-1);
+      fail("should have thrown due to negative incoming capacity");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setOutgoingWindow(-1);
+      fail("should have thrown due to negative outgoing window");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullPolicyThrowsNPE() {
+    new ProtonSessionShardingOptions().setPolicy(null);
+  }
+}
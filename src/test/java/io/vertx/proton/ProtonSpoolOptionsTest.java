@@ -0,0 +1,51 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ProtonSpoolOptionsTest {
+
+  @Test
+  public void testDefaults() {
+    ProtonSpoolOptions options = new ProtonSpoolOptions();
+    assertNull("No directory should be set by default", options.getDirectory());
+    assertEquals(16 * 1024 * 1024, options.getSegmentSize());
+    assertEquals(256L * 1024 * 1024, options.getMaxDiskUsage());
+  }
+
+  @Test
+  public void testInvalidValuesThrowIAE() {
+    ProtonSpoolOptions options = new ProtonSpoolOptions();
+    try {
+      options.setSegmentSize(0);
+      fail("should have thrown due to zero segment size");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setMaxDiskUsage(0);
+      fail("should have thrown due to zero disk usage, the spool always being bounded");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ProtonVirtualHostOptionsTest {
+
+  @Test
+  public void testDefaultsAreUnlimited() {
+    ProtonVirtualHostOptions options = new ProtonVirtualHostOptions();
+    assertEquals(0, options.getMaxConnections());
+    assertEquals(0, options.getMaxSessionIncomingCapacity());
+    assertEquals(0, options.getMaxUnsettled());
+  }
+
+  @Test
+  public void testInvalidValuesThrowIAE() {
+    ProtonVirtualHostOptions options = new ProtonVirtualHostOptions();
+    try {
+      options.setMaxConnections(-1);
+      fail("should have thrown due to negative connection limit");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setMaxSessionIncomingCapacity(-1);
+      fail("should have thrown due to negative session incoming capacity");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      options.setMaxUnsettled(-1);
+      fail("should have thrown due to negative unsettled limit");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+}
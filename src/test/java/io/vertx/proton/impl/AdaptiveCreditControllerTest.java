@@ -0,0 +1,126 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class AdaptiveCreditControllerTest {
+
+  @Test
+  public void testInvalidBoundsThrowIAE() {
+    try {
+      new AdaptiveCreditController(0, 10);
+      fail("should have thrown due to non-positive min credit");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      new AdaptiveCreditController(10, 5);
+      fail("should have thrown due to max credit below min credit");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testStartsAtMinCredit() {
+    AdaptiveCreditController controller = new AdaptiveCreditController(10, 1000);
+    assertEquals(10, controller.getTargetCredit());
+    assertEquals("Should top up to target when starved", 10, controller.creditToGrant(0));
+  }
+
+  @Test
+  public void testTargetTracksRateTimesRoundTrip() {
+    AdaptiveCreditController controller = new AdaptiveCreditController(10, 1000);
+
+    // Credit is sent at t=0, the first delivery using it arrives after 1ms, handler takes 10us.
+    controller.onCreditSent(10, 0);
+    controller.onArrival(9, 1_000_000);
+    controller.onHandled(10_000);
+
+    assertEquals(100, controller.getTargetCredit());
+  }
+
+  @Test
+  public void testTargetIsBoundedByMaxCredit() {
+    AdaptiveCreditController controller = new AdaptiveCreditController(10, 50);
+
+    controller.onCreditSent(10, 0);
+    controller.onArrival(9, 1_000_000);
+    controller.onHandled(10_000);
+
+    assertEquals(50, controller.getTargetCredit());
+  }
+
+  @Test
+  public void testSmallTopUpsAreBatched() {
+    AdaptiveCreditController controller = new AdaptiveCreditController(100, 100);
+
+    assertEquals("Should not flow a single credit", 0, controller.creditToGrant(99));
+    assertEquals("Should flow once a quarter of the target is used", 25, controller.creditToGrant(75));
+  }
+
+  @Test
+  public void testTopUpWhileCreditRemainsIsSampled() {
+    AdaptiveCreditController controller = new AdaptiveCreditController(10, 1000);
+    controller.onHandled(10_000);
+
+    controller.onCreditSent(10, 0);
+    controller.onArrival(9, 5_000_000);
+    assertEquals(500, controller.getTargetCredit());
+
+    // Topped up before the credit ran out, the 11th delivery is the first using the new credit
+    controller.onCreditSent(3, 6_000_000);
+    for (int i = 2; i <= 10; i++) {
+      controller.onArrival(13 - i, 6_500_000);
+    }
+    assertEquals(500, controller.getTargetCredit());
+
+    controller.onArrival(2, 7_000_000);
+    assertEquals(100, controller.getTargetCredit());
+    assertEquals("Credit never ran out", 0, controller.getStarvationTime());
+  }
+
+  @Test
+  public void testIdleSenderDoesNotInflateRoundTrip() {
+    AdaptiveCreditController controller = new AdaptiveCreditController(10, 1000);
+    controller.onHandled(10_000);
+
+    controller.onCreditSent(1, 0);
+    controller.onArrival(0, 1_000_000);
+    assertEquals(100, controller.getTargetCredit());
+
+    // The sender only had something to send again a second after the credit was sent
+    controller.onCreditSent(1, 2_000_000);
+    controller.onArrival(0, 1_002_000_000);
+    assertEquals(100, controller.getTargetCredit());
+  }
+
+  @Test
+  public void testStarvationLastsFromExhaustionToNextFlow() {
+    AdaptiveCreditController controller = new AdaptiveCreditController(1, 1);
+
+    controller.onCreditSent(1, 0);
+    controller.onArrival(0, 1_000_000);
+    controller.onCreditSent(1, 3_000_000);
+
+    assertEquals(2, controller.getStarvationTime());
+  }
+}
@@ -0,0 +1,86 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AdaptiveSessionWindowTest {
+
+  @After
+  public void tearDown() {
+    IncomingWindowBudget.setLimit(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testGrowsToMaxWhileTransfersAreProcessed() {
+    long reservedBefore = IncomingWindowBudget.getReserved();
+    AdaptiveSessionWindow window = new AdaptiveSessionWindow(1000, 8000);
+    assertEquals(1000, window.getCapacity());
+
+    assertEquals("Should not adapt before a full window is received", 1000, window.onReceived(999, () -> 0));
+    assertEquals(2000, window.onReceived(1, () -> 0));
+    assertEquals(4000, window.onReceived(2000, () -> 0));
+    assertEquals(8000, window.onReceived(4000, () -> 0));
+    assertEquals(8000, window.onReceived(8000, () -> 0));
+    assertEquals(reservedBefore + 8000, IncomingWindowBudget.getReserved());
+
+    window.release();
+    window.release();
+    assertEquals(reservedBefore, IncomingWindowBudget.getReserved());
+  }
+
+  @Test
+  public void testGrowthLimitedByBudgetAndShrinksUnderPressure() {
+    long reservedBefore = IncomingWindowBudget.getReserved();
+    IncomingWindowBudget.setLimit(reservedBefore + 10000);
+
+    AdaptiveSessionWindow window = new AdaptiveSessionWindow(2000, 64000);
+    assertEquals(4000, window.onReceived(2000, () -> 0));
+    assertEquals(8000, window.onReceived(4000, () -> 0));
+    assertEquals("Growth should stop at the budget limit", 10000, window.onReceived(8000, () -> 0));
+
+    // Now above the pressure threshold, so the next adjustment shrinks the window
+    assertEquals(5000, window.onReceived(10000, () -> 0));
+    assertEquals(reservedBefore + 5000, IncomingWindowBudget.getReserved());
+
+    window.release();
+    assertEquals(reservedBefore, IncomingWindowBudget.getReserved());
+  }
+
+  @Test
+  public void testShrinksWhileDeliveriesAreHeld() {
+    long reservedBefore = IncomingWindowBudget.getReserved();
+    AdaptiveSessionWindow window = new AdaptiveSessionWindow(1000, 8000);
+    assertEquals(2000, window.onReceived(1000, () -> 0));
+    assertEquals(4000, window.onReceived(2000, () -> 0));
+
+    // Four transfers of 1000 bytes, of which the application still holds three
+    window.onReceived(1000, () -> 0);
+    window.onReceived(1000, () -> 1);
+    window.onReceived(1000, () -> 2);
+    assertEquals(2000, window.onReceived(1000, () -> 3));
+
+    // Holding one of 1000 bytes is neither much nor little of the window
+    window.onReceived(1000, () -> 1);
+    assertEquals(2000, window.onReceived(1000, () -> 1));
+
+    window.release();
+    assertEquals(reservedBefore, IncomingWindowBudget.getReserved());
+  }
+}
@@ -0,0 +1,150 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.UUID;
+
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.UnsignedLong;
+import org.junit.Test;
+
+public class DuplicateDetectionCacheTest {
+
+  @Test
+  public void testInvalidArgumentsThrowIAE() {
+    try {
+      new DuplicateDetectionCache(0, 0);
+      fail("should have thrown due to non-positive capacity");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+
+    try {
+      new DuplicateDetectionCache(10, -1);
+      fail("should have thrown due to negative window");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testDetectsDuplicatesOfEachIdType() {
+    DuplicateDetectionCache cache = new DuplicateDetectionCache(100, 0);
+    UUID uuid = UUID.randomUUID();
+
+    Object[] ids = { "id-1", uuid, UnsignedLong.valueOf(1), new Binary(new byte[] { 1, 2, 3 }) };
+    for (Object id : ids) {
+      assertFalse("First sighting should not be a duplicate: " + id, cache.isDuplicate(id));
+      cache.add(id);
+    }
+
+    Object[] copies = { "id-1", new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()),
+        UnsignedLong.valueOf(1), new Binary(new byte[] { 0, 1, 2, 3 }, 1, 3) };
+    for (Object id : copies) {
+      assertTrue("Second sighting should be a duplicate: " + id, cache.isDuplicate(id));
+    }
+
+    assertFalse("Different type with similar value should not be a duplicate", cache.isDuplicate("1"));
+
+    assertEquals(9, cache.getLookups());
+    assertEquals(4, cache.getDuplicates());
+    assertEquals(4.0 / 9, cache.getHitRate(), 0.0001);
+  }
+
+  @Test
+  public void testNullIdIsNeverDuplicate() {
+    DuplicateDetectionCache cache = new DuplicateDetectionCache(10, 0);
+
+    cache.add(null);
+    assertFalse(cache.isDuplicate(null));
+    assertEquals("Null ids should not be remembered", 0, cache.getSize());
+    assertEquals("Null ids should not be counted", 0, cache.getLookups());
+  }
+
+  @Test
+  public void testCheckingDoesNotRemember() {
+    DuplicateDetectionCache cache = new DuplicateDetectionCache(10, 0);
+
+    // As for a message that was not accepted, so may be redelivered
+    assertFalse(cache.isDuplicate("id-1"));
+    assertFalse("Only added ids should be remembered", cache.isDuplicate("id-1"));
+    assertEquals(0, cache.getSize());
+
+    cache.add("id-1");
+    cache.add("id-1");
+    assertEquals("Adding again should not take another entry", 1, cache.getSize());
+    assertTrue(cache.isDuplicate("id-1"));
+  }
+
+  @Test
+  public void testOldestEvictedAtCapacity() {
+    DuplicateDetectionCache cache = new DuplicateDetectionCache(3, 0);
+
+    for (int i = 0; i < 4; i++) {
+      cache.add("id-" + i);
+    }
+
+    assertEquals(3, cache.getSize());
+    assertFalse("Oldest should have been evicted", cache.isDuplicate("id-0"));
+    assertTrue("Newest should still be present", cache.isDuplicate("id-3"));
+  }
+
+  @Test
+  public void testManyEvictionsKeepTableConsistent() {
+    int capacity = 64;
+    DuplicateDetectionCache cache = new DuplicateDetectionCache(capacity, 0);
+
+    for (long i = 0; i < 10_000; i++) {
+      assertFalse("Unexpected duplicate at " + i, cache.isDuplicate(UnsignedLong.valueOf(i)));
+      cache.add(UnsignedLong.valueOf(i));
+      if (i >= capacity) {
+        assertTrue("Recent id missing at " + i, cache.isDuplicate(UnsignedLong.valueOf(i - capacity + 1)));
+      }
+    }
+
+    assertEquals(capacity, cache.getSize());
+  }
+
+  @Test
+  public void testEntriesExpireAfterWindow() {
+    DuplicateDetectionCache cache = new DuplicateDetectionCache(10, 1);
+    long start = 0;
+    long window = 1_000_000;
+
+    cache.add("id-1", start);
+    assertTrue("Should be a duplicate within the window", cache.isDuplicate("id-1", start + window));
+    assertFalse("Should have expired after the window", cache.isDuplicate("id-1", start + window + 1));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void testMemoryUsageIsBounded() {
+    DuplicateDetectionCache cache = new DuplicateDetectionCache(1000, 0);
+    long initial = cache.getMemoryUsage();
+
+    for (int i = 0; i < 5000; i++) {
+      cache.add("id-" + i);
+    }
+
+    assertTrue("Should account for the ring and table", initial >= 1000 * 3 * Long.BYTES);
+    assertEquals("Memory use should not grow", initial, cache.getMemoryUsage());
+  }
+}
@@ -0,0 +1,76 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.vertx.core.net.SocketAddress;
+import io.vertx.proton.ProtonEndpointSelectionPolicy;
+
+public class ProtonEndpointSelectorTest {
+
+  private final SocketAddress a = SocketAddress.inetSocketAddress(5671, "a");
+  private final SocketAddress b = SocketAddress.inetSocketAddress(5671, "b");
+  private final SocketAddress c = SocketAddress.inetSocketAddress(5671, "c");
+  private final List<SocketAddress> endpoints = Arrays.asList(a, b, c);
+
+  @Test
+  public void testRoundRobinRotatesStartingEndpoint() {
+    ProtonEndpointSelector selector = new ProtonEndpointSelector();
+
+    assertEquals(Arrays.asList(a, b, c), selector.order(endpoints, ProtonEndpointSelectionPolicy.ROUND_ROBIN, 0));
+    assertEquals(Arrays.asList(b, c, a), selector.order(endpoints, ProtonEndpointSelectionPolicy.ROUND_ROBIN, 0));
+    assertEquals(Arrays.asList(c, a, b), selector.order(endpoints, ProtonEndpointSelectionPolicy.ROUND_ROBIN, 0));
+    assertEquals(Arrays.asList(a, b, c), selector.order(endpoints, ProtonEndpointSelectionPolicy.ROUND_ROBIN, 0));
+  }
+
+  @Test
+  public void testLowestLatencyTriesUnmeasuredEndpointsFirst() {
+    ProtonEndpointSelector selector = new ProtonEndpointSelector();
+    selector.connected(a, 300);
+    selector.connected(c, 100);
+
+    assertEquals(Arrays.asList(b, c, a), selector.order(endpoints, ProtonEndpointSelectionPolicy.LOWEST_LATENCY, 0));
+
+    selector.connected(b, 200);
+    assertEquals(Arrays.asList(c, b, a), selector.order(endpoints, ProtonEndpointSelectionPolicy.LOWEST_LATENCY, 0));
+  }
+
+  @Test
+  public void testFailedEndpointSkippedUntilCooldownExpires() {
+    ProtonEndpointSelector selector = new ProtonEndpointSelector();
+    long cooldownNanos = 1000 * 1_000_000L;
+    selector.failed(a, 1000, 0);
+
+    assertEquals(Arrays.asList(b, c), selector.order(endpoints, ProtonEndpointSelectionPolicy.LOWEST_LATENCY, 1));
+    assertEquals(endpoints, selector.order(endpoints, ProtonEndpointSelectionPolicy.LOWEST_LATENCY, cooldownNanos));
+
+    // Skipped endpoints are still tried when no other is available
+    selector.failed(b, 1000, 0);
+    selector.failed(c, 1000, 0);
+    assertEquals(endpoints, selector.order(endpoints, ProtonEndpointSelectionPolicy.LOWEST_LATENCY, 1));
+
+    // A success ends the cool-down early
+    selector.failed(a, 1000, 0);
+    selector.connected(b, 100);
+    assertEquals(Arrays.asList(b), selector.order(endpoints, ProtonEndpointSelectionPolicy.LOWEST_LATENCY, 1));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ProtonPriorityLanesTest {
+
+  @Test
+  public void testPollsHighestPriorityFirstInFifoOrder() {
+    ProtonPriorityLanes<String> lanes = new ProtonPriorityLanes<>(4);
+    lanes.offer(4, "normal-1");
+    lanes.offer(0, "low-1");
+    lanes.offer(9, "high-1");
+    lanes.offer(4, "normal-2");
+    lanes.offer(200, "high-2");
+
+    assertEquals(5, lanes.size());
+    assertEquals("high-1", lanes.peek());
+    assertEquals("high-1", lanes.poll());
+    assertEquals("high-2", lanes.poll());
+    assertEquals("normal-1", lanes.poll());
+    assertEquals("normal-2", lanes.poll());
+    assertEquals("low-1", lanes.poll());
+    assertTrue(lanes.isEmpty());
+    assertNull(lanes.poll());
+  }
+
+  @Test
+  public void testLanesAreBoundedAndWrap() {
+    ProtonPriorityLanes<Integer> lanes = new ProtonPriorityLanes<>(2);
+    assertTrue(lanes.offer(5, 1));
+    assertTrue(lanes.offer(5, 2));
+    assertTrue(lanes.isFull(5));
+    assertFalse("Lane should be full", lanes.offer(5, 3));
+    assertTrue("Other lanes should have room", lanes.offer(6, 10));
+
+    assertEquals(Integer.valueOf(10), lanes.poll());
+    assertEquals(Integer.valueOf(1), lanes.poll());
+    assertTrue(lanes.offer(5, 3));
+    assertEquals(Integer.valueOf(2), lanes.poll());
+    assertEquals(Integer.valueOf(3), lanes.poll());
+    assertTrue(lanes.isEmpty());
+  }
+
+  @Test
+  public void testInvalidCapacityThrowsIAE() {
+    try {
+      new ProtonPriorityLanes<String>(0);
+      fail("should have thrown due to non-positive capacity");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+}
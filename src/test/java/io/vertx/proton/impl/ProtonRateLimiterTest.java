@@ -0,0 +1,51 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import io.vertx.proton.ProtonRateLimitOptions;
+
+public class ProtonRateLimiterTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  public void testCreditLimitedToMessageRate() {
+    ProtonRateLimiter limiter = new ProtonRateLimiter(new ProtonRateLimitOptions().setMessagesPerSecond(10), 0);
+
+    assertEquals(10, limiter.grantable(1000, 0));
+    limiter.onCreditGranted(10, 0);
+    assertEquals(0, limiter.grantable(1000, 0));
+
+    assertEquals(5, limiter.grantable(1000, SECOND / 2));
+    assertEquals(3, limiter.grantable(3, SECOND / 2));
+  }
+
+  @Test
+  public void testCreditWithheldWhileOverByteRate() {
+    ProtonRateLimiter limiter = new ProtonRateLimiter(new ProtonRateLimitOptions().setBytesPerSecond(1000), 0);
+
+    assertEquals(100, limiter.grantable(100, 0));
+    limiter.onReceived(3000, 0);
+    assertEquals(0, limiter.grantable(100, 0));
+    assertEquals(0, limiter.grantable(100, SECOND));
+
+    assertEquals(100, limiter.grantable(100, 2 * SECOND));
+  }
+}
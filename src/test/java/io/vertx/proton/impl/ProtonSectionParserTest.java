@@ -0,0 +1,107 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Test;
+
+import io.vertx.proton.ProtonMessageSection;
+
+public class ProtonSectionParserTest {
+
+  @Test
+  public void testStopsAfterLastSection() {
+    byte[] encoded = encode(fullMessage());
+
+    Message headers = new ProtonSectionParser(ProtonMessageSection.MESSAGE_ANNOTATIONS).parse(encoded);
+    assertEquals(true, headers.isDurable());
+    assertEquals("annotated", headers.getMessageAnnotations().getValue().get(Symbol.valueOf("x-opt-route")));
+    assertNull(headers.getProperties());
+    assertNull(headers.getApplicationProperties());
+    assertNull(headers.getBody());
+  }
+
+  @Test
+  public void testDecodesUpToApplicationProperties() {
+    byte[] encoded = encode(fullMessage());
+
+    Message headers = new ProtonSectionParser(ProtonMessageSection.APPLICATION_PROPERTIES).parse(encoded);
+    assertEquals("queue", headers.getAddress());
+    assertEquals("id-1", headers.getMessageId());
+    assertNotNull(headers.getApplicationProperties());
+    assertEquals("value", headers.getApplicationProperties().getValue().get("key"));
+    assertNull(headers.getBody());
+  }
+
+  @Test
+  public void testMissingSectionsAreSkipped() {
+    Message message = Proton.message();
+    message.setAddress("queue");
+    message.setBody(new AmqpValue("body"));
+
+    Message headers = new ProtonSectionParser(ProtonMessageSection.PROPERTIES).parse(encode(message));
+    assertNull(headers.getHeader());
+    assertEquals("queue", headers.getAddress());
+    assertNull(headers.getBody());
+  }
+
+  @Test
+  public void testParseThroughDecodesPastLastSection() {
+    byte[] encoded = encode(fullMessage());
+
+    Message headers = new ProtonSectionParser(ProtonMessageSection.HEADER).parseThrough(encoded,
+        ProtonMessageSection.PROPERTIES);
+    assertEquals(true, headers.isDurable());
+    assertEquals("id-1", headers.getMessageId());
+    assertNull(headers.getApplicationProperties());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullLastSectionThrowsIAE() {
+    new ProtonSectionParser(null);
+  }
+
+  private static Message fullMessage() {
+    Message message = Proton.message();
+    message.setDurable(true);
+    message.setMessageAnnotations(new MessageAnnotations(
+        Collections.<Symbol, Object>singletonMap(Symbol.valueOf("x-opt-route"), "annotated")));
+    message.setAddress("queue");
+    message.setMessageId("id-1");
+    message.setApplicationProperties(new ApplicationProperties(Collections.<String, Object>singletonMap("key", "value")));
+    message.setBody(new AmqpValue(new byte[64 * 1024]));
+    return message;
+  }
+
+  private static byte[] encode(Message message) {
+    byte[] buffer = new byte[128 * 1024];
+    int length = message.encode(buffer, 0, buffer.length);
+    byte[] encoded = new byte[length];
+    System.arraycopy(buffer, 0, encoded, 0, length);
+    return encoded;
+  }
+}
@@ -24,15 +24,32 @@ import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import io.vertx.proton.ProtonClient;
 import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonConnectionRegistry;
+import io.vertx.proton.ProtonDrainOptions;
+import io.vertx.proton.ProtonEventLoopStats;
+import io.vertx.proton.ProtonHelper;
+import io.vertx.proton.ProtonLinkLimitOptions;
+import io.vertx.proton.ProtonReceiver;
+import io.vertx.proton.ProtonSender;
 import io.vertx.proton.ProtonServer;
+import io.vertx.proton.ProtonVirtualHostOptions;
 import io.vertx.proton.sasl.ProtonSaslAuthenticator;
 import io.vertx.proton.sasl.ProtonSaslAuthenticatorFactory;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.Modified;
+import org.apache.qpid.proton.amqp.transport.AmqpError;
+import org.apache.qpid.proton.amqp.transport.ConnectionError;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.Sasl;
+import org.apache.qpid.proton.engine.Sender;
 import org.apache.qpid.proton.engine.Transport;
 import org.apache.qpid.proton.engine.Sasl.SaslOutcome;
 import org.junit.After;
@@ -327,6 +344,242 @@ public class ProtonServerImplTest {
     context.assertEquals(1, authenticatorFactory.getCreateCount(), "unexpected authenticator creation count");
   }
 
+  @Test(timeout = 20000)
+  public void testConnectionRegistryTracksConnectionsPerEventLoop(TestContext context) {
+    Async async = context.async();
+    int messages = 5;
+    ProtonConnectionRegistry registry = ProtonConnectionRegistry.create(vertx);
+
+    ProtonServer.create(vertx).connectionRegistry(registry).connectHandler(serverConnection -> {
+      serverConnection.openHandler(result -> serverConnection.open());
+      serverConnection.sessionOpenHandler(session -> session.open());
+      serverConnection.receiverOpenHandler(receiver -> receiver.handler((delivery, msg) -> { }).open());
+    }).listen(server -> ProtonClient.create(vertx).connect("localhost", server.result().actualPort(), res -> {
+      context.assertTrue(res.succeeded());
+      ProtonConnection connection = res.result();
+      connection.openHandler(x -> {
+        ProtonSender sender = connection.createSender("stats");
+        sender.openHandler(y -> {
+          for (int i = 1; i <= messages; i++) {
+            boolean last = i == messages;
+            sender.send(ProtonHelper.message("message-" + i), delivery -> {
+              if (!last) {
+                return;
+              }
+
+              registry.stats(stats -> {
+                context.assertTrue(stats.succeeded());
+                int connections = 0;
+                int links = 0;
+                long messagesIn = 0;
+                for (ProtonEventLoopStats loopStats : stats.result()) {
+                  connections += loopStats.getConnectionCount();
+                  links += loopStats.getLinkCount();
+                  messagesIn += loopStats.getMessagesIn();
+                }
+                context.assertEquals(1, connections);
+                context.assertEquals(1, registry.getConnectionCount());
+                context.assertEquals(1, links);
+                context.assertEquals((long) messages, messagesIn);
+                connection.disconnect();
+                async.complete();
+              });
+            });
+          }
+        }).open();
+      }).open();
+    }));
+
+    async.awaitSuccess();
+  }
+
+  @Test(timeout = 20000)
+  public void testDrainClosesConnectionsWithRedirect(TestContext context) {
+    Async async = context.async(2);
+    ProtonServer server = ProtonServer.create(vertx);
+
+    server.connectHandler(serverConnection -> {
+      serverConnection.openHandler(result -> serverConnection.open());
+      serverConnection.closeHandler(result -> serverConnection.close());
+    }).listen(listen -> ProtonClient.create(vertx).connect("localhost", listen.result().actualPort(), res -> {
+      context.assertTrue(res.succeeded());
+      ProtonConnection connection = res.result();
+      connection.closeHandler(closed -> {
+        ErrorCondition condition = connection.getRemoteCondition();
+        context.assertEquals(ConnectionError.REDIRECT, condition.getCondition());
+        context.assertEquals("backup", condition.getInfo().get(Symbol.valueOf("network-host")));
+        context.assertEquals(5673, condition.getInfo().get(Symbol.valueOf("port")));
+        connection.close();
+        async.countDown();
+      });
+      connection.openHandler(x -> {
+        server.drain(new ProtonDrainOptions().setBatchInterval(10).setRedirectHost("backup").setRedirectPort(5673),
+            drained -> {
+              context.assertTrue(drained.succeeded());
+              async.countDown();
+            });
+      }).open();
+    }));
+
+    async.awaitSuccess();
+  }
+
+  @Test(timeout = 20000)
+  public void testVirtualHostConnectionLimit(TestContext context) {
+    Async async = context.async();
+    ProtonServer server = ProtonServer.create(vertx);
+    ProtonClient client = ProtonClient.create(vertx);
+
+    server.virtualHostHandler("tenant-a", new ProtonVirtualHostOptions().setMaxConnections(1), serverConnection -> {
+      serverConnection.openHandler(result -> serverConnection.open());
+    }).listen(listen -> client.connect("localhost", listen.result().actualPort(), res -> {
+      context.assertTrue(res.succeeded());
+      ProtonConnection first = res.result();
+      first.setHostname("tenant-a").openHandler(x -> {
+        context.assertTrue(x.succeeded());
+        context.assertEquals(1, server.getVirtualHostConnectionCount("tenant-a"));
+
+        client.connect("localhost", listen.result().actualPort(), res2 -> {
+          context.assertTrue(res2.succeeded());
+          ProtonConnection second = res2.result();
+          second.closeHandler(closed -> {
+            context.assertEquals(AmqpError.RESOURCE_LIMIT_EXCEEDED, second.getRemoteCondition().getCondition());
+            context.assertEquals(1, server.getVirtualHostConnectionCount("tenant-a"));
+            second.disconnect();
+            first.disconnect();
+            async.complete();
+          });
+          second.setHostname("TENANT-A").open();
+        });
+      }).open();
+    }));
+
+    async.awaitSuccess();
+  }
+
+  @Test(timeout = 20000)
+  public void testLinkLimitClosesReceiverWithTooManyUnsettled(TestContext context) {
+    Async async = context.async();
+    int maxUnsettled = 2;
+    AtomicInteger handled = new AtomicInteger();
+
+    ProtonServer server = ProtonServer.create(vertx);
+    server.linkLimits(new ProtonLinkLimitOptions().setMaxUnsettled(maxUnsettled)).connectHandler(serverConnection -> {
+      serverConnection.openHandler(result -> serverConnection.open());
+      serverConnection.sessionOpenHandler(session -> session.open());
+      serverConnection.receiverOpenHandler(receiver -> {
+        // Never settles what it receives
+        receiver.setAutoAccept(false).handler((delivery, msg) -> {
+          handled.incrementAndGet();
+          context.assertEquals(handled.get(), receiver.getMemoryStats().getUnsettledCount());
+        }).open();
+      });
+    }).listen(listen -> ProtonClient.create(vertx).connect("localhost", listen.result().actualPort(), res -> {
+      context.assertTrue(res.succeeded());
+      ProtonConnection connection = res.result();
+      connection.openHandler(x -> {
+        ProtonSender sender = connection.createSender("unsettled");
+        sender.closeHandler(closed -> {
+          context.assertEquals(AmqpError.RESOURCE_LIMIT_EXCEEDED, sender.getRemoteCondition().getCondition());
+          context.assertEquals(maxUnsettled, handled.get());
+          connection.disconnect();
+          async.complete();
+        });
+        sender.openHandler(y -> {
+          for (int i = 0; i <= maxUnsettled; i++) {
+            sender.send(ProtonHelper.message("message-" + i));
+          }
+        }).open();
+      }).open();
+    }));
+
+    async.awaitSuccess();
+  }
+
+  @Test(timeout = 20000)
+  public void testLinkLimitReturnsOversizedDeliveryAsUndeliverableHere(TestContext context) {
+    Async async = context.async(2);
+    AtomicInteger handled = new AtomicInteger();
+
+    ProtonServer server = ProtonServer.create(vertx);
+    server.linkLimits(new ProtonLinkLimitOptions().setMaxIncomingBytes(100)).connectHandler(serverConnection -> {
+      serverConnection.openHandler(result -> serverConnection.open());
+      serverConnection.sessionOpenHandler(session -> session.open());
+      serverConnection.receiverOpenHandler(receiver -> {
+        receiver.handler((delivery, msg) -> handled.incrementAndGet()).open();
+      });
+    }).listen(listen -> ProtonClient.create(vertx).connect("localhost", listen.result().actualPort(), res -> {
+      context.assertTrue(res.succeeded());
+      ProtonConnection connection = res.result();
+      connection.openHandler(x -> {
+        ProtonSender sender = connection.createSender("oversized");
+        sender.closeHandler(closed -> {
+          context.assertEquals(AmqpError.RESOURCE_LIMIT_EXCEEDED, sender.getRemoteCondition().getCondition());
+          context.assertEquals(0, handled.get());
+          connection.disconnect();
+          async.countDown();
+        });
+        sender.openHandler(y -> {
+          char[] body = new char[1024];
+          Arrays.fill(body, 'x');
+          sender.send(ProtonHelper.message(new String(body)), delivery -> {
+            context.assertTrue(delivery.getRemoteState() instanceof Modified);
+            context.assertTrue(((Modified) delivery.getRemoteState()).getUndeliverableHere());
+            async.countDown();
+          });
+        }).open();
+      }).open();
+    }));
+
+    async.awaitSuccess();
+  }
+
+  @Test(timeout = 20000)
+  public void testAbortedDeliveryGivesBackManualCredit(TestContext context) {
+    Async async = context.async();
+    AtomicInteger drained = new AtomicInteger();
+
+    ProtonServer server = ProtonServer.create(vertx);
+    server.connectHandler(serverConnection -> {
+      serverConnection.openHandler(result -> serverConnection.open());
+      serverConnection.sessionOpenHandler(session -> session.open());
+      serverConnection.senderOpenHandler(serverSender -> {
+        serverSender.setSource(serverSender.getRemoteSource());
+        serverSender.sendQueueDrainHandler(s -> {
+          if (drained.incrementAndGet() == 1) {
+            // Start a delivery using the only credit, then abort it
+            Sender sender = (Sender) ((ProtonSenderImpl) serverSender).link;
+            Delivery delivery = sender.delivery(new byte[] { 1 });
+            sender.send(new byte[] { 0, 0x53, 0x77 }, 0, 3);
+            ((ProtonConnectionImpl) serverConnection).flush();
+
+            vertx.setTimer(100, x -> {
+              delivery.abort();
+              ((ProtonConnectionImpl) serverConnection).flush();
+            });
+          } else if (drained.get() == 2) {
+            // Only possible if the receiver gave the credit back
+            serverSender.send(ProtonHelper.message("after-abort"));
+          }
+        }).open();
+      });
+    }).listen(listen -> ProtonClient.create(vertx).connect("localhost", listen.result().actualPort(), res -> {
+      context.assertTrue(res.succeeded());
+      ProtonConnection connection = res.result();
+      connection.openHandler(x -> {
+        ProtonReceiver receiver = connection.createReceiver("aborting");
+        receiver.setPrefetch(0).handler((delivery, msg) -> {
+          context.assertEquals("after-abort", ((AmqpValue) msg.getBody()).getValue());
+          connection.disconnect();
+          async.complete();
+        }).open();
+        receiver.flow(1);
+      }).open();
+    }));
+
+    async.awaitSuccess();
+  }
+
   private final class TestAsyncAuthenticatorFactory implements ProtonSaslAuthenticatorFactory {
     private ProtonSaslAuthenticator authenticator;
     private AtomicInteger count = new AtomicInteger(0);
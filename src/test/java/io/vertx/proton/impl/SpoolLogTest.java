@@ -0,0 +1,122 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpoolLogTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRecoversPendingRecordsAfterReopening() throws Exception {
+    File directory = folder.newFolder();
+    SpoolLog log = new SpoolLog(directory, 1024, 4096);
+    SpoolLog.Record first = log.append(bytes("first"));
+    log.append(bytes("second"));
+    log.append(bytes("third"));
+    log.remove(first);
+    assertEquals(2, log.size());
+    log.close();
+
+    SpoolLog reopened = new SpoolLog(directory, 1024, 4096);
+    assertEquals(2, reopened.size());
+    assertEquals(2, reopened.getRecovered().size());
+    assertArrayEquals(content("second"), content(reopened.getRecovered().get(0)));
+    assertArrayEquals(content("third"), content(reopened.getRecovered().get(1)));
+
+    // Appends carry on after the recovered records
+    reopened.append(bytes("fourth"));
+    reopened.close();
+    assertEquals(3, new SpoolLog(directory, 1024, 4096).size());
+  }
+
+  @Test
+  public void testRollsSegmentsAndDeletesSettledOnes() throws Exception {
+    File directory = folder.newFolder();
+    SpoolLog log = new SpoolLog(directory, 64, 1024);
+
+    List<SpoolLog.Record> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      // Two records per segment
+      records.add(log.append(ByteBuffer.allocate(25)));
+    }
+    assertEquals(5, directory.list().length);
+    assertEquals(5 * 64, log.getDiskUsage());
+
+    for (int i = 0; i < 4; i++) {
+      log.remove(records.get(i));
+    }
+    assertEquals(3, directory.list().length);
+    assertEquals(6, log.size());
+  }
+
+  @Test
+  public void testDiskUsageIsBounded() throws Exception {
+    SpoolLog log = new SpoolLog(folder.newFolder(), 64, 128);
+    SpoolLog.Record first = log.append(ByteBuffer.allocate(50));
+    log.append(ByteBuffer.allocate(50));
+
+    try {
+      log.append(ByteBuffer.allocate(50));
+      fail("should have thrown as the spool is full");
+    } catch (IllegalStateException ise) {
+      // Expected
+    }
+
+    log.remove(first);
+    log.append(ByteBuffer.allocate(50));
+    assertEquals(128, log.getDiskUsage());
+  }
+
+  @Test
+  public void testRecordLargerThanSegmentThrowsIAE() throws Exception {
+    SpoolLog log = new SpoolLog(folder.newFolder(), 64, 128);
+    try {
+      log.append(ByteBuffer.allocate(64));
+      fail("should have thrown as the record does not fit in a segment");
+    } catch (IllegalArgumentException iae) {
+      // Expected
+    }
+  }
+
+  private static ByteBuffer bytes(String value) {
+    return ByteBuffer.wrap(content(value));
+  }
+
+  private static byte[] content(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] content(SpoolLog.Record record) {
+    byte[] content = new byte[record.length()];
+    record.bytes().get(content);
+    return content;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+* Copyright 2016 the original author or authors.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package io.vertx.proton.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  public void testStartsFullAndRefillsAtRate() {
+    TokenBucket bucket = new TokenBucket(10, 0, 0);
+    assertEquals(10, bucket.getCapacity());
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(bucket.tryTake(1, 0));
+    }
+    assertFalse(bucket.tryTake(1, 0));
+    assertEquals(SECOND / 10, bucket.nanosUntilAvailable(1, 0));
+
+    assertTrue(bucket.tryTake(1, SECOND / 10));
+    assertFalse(bucket.tryTake(1, SECOND / 10));
+  }
+
+  @Test
+  public void testRefillCappedAtCapacity() {
+    TokenBucket bucket = new TokenBucket(10, 5, 0);
+    assertTrue(bucket.tryTake(5, 0));
+
+    assertFalse(bucket.tryTake(6, 10 * SECOND));
+    assertTrue(bucket.tryTake(5, 10 * SECOND));
+  }
+
+  @Test
+  public void testDebtPaidOffBeforeTokensAvailable() {
+    TokenBucket bucket = new TokenBucket(10, 0, 0);
+    bucket.take(20, 0);
+
+    assertEquals(11 * SECOND / 10, bucket.nanosUntilAvailable(1, 0));
+    assertFalse(bucket.tryTake(1, SECOND));
+    assertTrue(bucket.tryTake(1, 2 * SECOND));
+  }
+
+  @Test
+  public void testRejectsNonPositiveRate() {
+    try {
+      new TokenBucket(0, 0, 0);
+      fail("Expected a non-positive rate to be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+}